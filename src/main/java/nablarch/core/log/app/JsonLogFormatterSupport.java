@@ -1,14 +1,12 @@
 package nablarch.core.log.app;
 
 import nablarch.core.log.basic.JsonLogObjectBuilder;
+import nablarch.core.log.basic.StructuredMessage;
 import nablarch.core.text.json.JsonSerializationManager;
 import nablarch.core.text.json.JsonSerializationSettings;
-import nablarch.core.util.FileUtil;
 import nablarch.core.util.StringUtil;
 import nablarch.core.util.annotation.Published;
 
-import java.io.IOException;
-import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -91,17 +89,28 @@ public class JsonLogFormatterSupport {
      * @return 生成したmessage
      */
     public String getStructuredMessage(Object o) {
-        StringWriter writer = null;
-        try {
-            writer = new StringWriter();
-            writer.write(getStructuredMessagePrefix());
-            getSerializationManager().getSerializer(o).serialize(writer, o);
-            return writer.toString();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-            FileUtil.closeQuietly(writer);
-        }
+        return createStructuredMessage(o).toString();
+    }
+
+    /**
+     * シリアライズ前のオブジェクトを保持する、構造化されたmessageを生成する。<br>
+     * {@link nablarch.core.log.basic.BasicLogger#logStructured}に指定すると、
+     * {@link nablarch.core.log.basic.JsonLogFormatter}はmessageの文字列を生成せずにオブジェクトを直接シリアライズする。
+     * @param builders 出力項目のビルダー
+     * @param context 構造化するコンテキスト
+     * @return 生成したmessage
+     */
+    public <CTX> StructuredMessage createStructuredMessage(List<JsonLogObjectBuilder<CTX>> builders, CTX context) {
+        return createStructuredMessage(createStructuredObject(builders, context));
+    }
+
+    /**
+     * シリアライズ前のオブジェクトを保持する、構造化されたmessageを生成する。
+     * @param o 構造化対象のオブジェクト
+     * @return 生成したmessage
+     */
+    public StructuredMessage createStructuredMessage(Object o) {
+        return new StructuredMessage(getStructuredMessagePrefix(), o, getSerializationManager());
     }
 
 }
@@ -7,6 +7,7 @@ import nablarch.core.text.json.JsonSerializationSettings;
 import nablarch.core.util.StringUtil;
 import nablarch.core.util.annotation.Published;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -95,6 +96,9 @@ public class PerformanceJsonLogFormatter extends PerformanceLogFormatter {
     /** 各種ログのJSONフォーマット支援オブジェクト */
     private JsonLogFormatterSupport support;
 
+    /** サブクラスでメッセージのフォーマット処理が変更されているか否か */
+    private final boolean formatOverridden = isFormatOverridden();
+
     /**
      * {@inheritDoc}
      */
@@ -206,6 +210,37 @@ public class PerformanceJsonLogFormatter extends PerformanceLogFormatter {
         return support.getStructuredMessage(structuredTargets, context);
     }
 
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * 構造化対象のオブジェクトをシリアライズせずに保持する{@link nablarch.core.log.basic.StructuredMessage}を返す。<br>
+     * サブクラスで{@link #end(String, String)}または{@link #formatMessage(PerformanceLogContext)}が
+     * オーバーライドされている場合は、オーバーライドしたメソッドでフォーマットした文字列を返す。
+     */
+    @Override
+    Object endAsMessage(String point, String result) {
+        if (formatOverridden) {
+            return end(point, result);
+        }
+        return support.createStructuredMessage(structuredTargets, finish(point, result));
+    }
+
+    /**
+     * サブクラスでメッセージのフォーマット処理が変更されているか否かを判定する。
+     * @return {@link #end(String, String)}または{@link #formatMessage(PerformanceLogContext)}が
+     *          オーバーライドされている場合は<code>true</code>
+     */
+    private boolean isFormatOverridden() {
+        for (Class<?> clazz = getClass(); clazz != PerformanceJsonLogFormatter.class; clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getName().equals("end") || method.getName().equals("formatMessage")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * ポイントを処理するクラス。
      * @author Shuji Kitamura
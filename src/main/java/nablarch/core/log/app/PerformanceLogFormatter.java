@@ -187,6 +187,27 @@ public class PerformanceLogFormatter {
      * @return フォーマット済みのメッセージ
      */
     public String end(String point, String result) {
+        return formatMessage(finish(point, result));
+    }
+
+    /**
+     * 測定を終了し、ロガーに渡すパフォーマンスログのメッセージを生成する。<br>
+     * {@link #end(String, String)}でフォーマットした文字列を返す。
+     * @param point 測定対象を識別するID
+     * @param result 処理結果を表す文字列
+     * @return ロガーに渡すメッセージ
+     */
+    Object endAsMessage(String point, String result) {
+        return end(point, result);
+    }
+
+    /**
+     * 測定を終了し、パフォーマンスログのコンテキスト情報を取得する。
+     * @param point 測定対象を識別するID
+     * @param result 処理結果を表す文字列
+     * @return パフォーマンスログのコンテキスト情報
+     */
+    PerformanceLogContext finish(String point, String result) {
         
         String contextId = ThreadContext.getExecutionId() + point;
         Map<String, PerformanceLogContext> localMap = contextMap.get();
@@ -214,7 +235,7 @@ public class PerformanceLogFormatter {
         
         context.setResult(result);
         
-        return formatMessage(context);
+        return context;
     }
 
     /**
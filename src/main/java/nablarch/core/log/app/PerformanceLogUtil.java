@@ -6,6 +6,9 @@ import nablarch.core.log.LogUtil;
 import nablarch.core.log.LogUtil.ObjectCreator;
 import nablarch.core.log.Logger;
 import nablarch.core.log.LoggerManager;
+import nablarch.core.log.basic.BasicLogger;
+import nablarch.core.log.basic.LogLevel;
+import nablarch.core.log.basic.StructuredMessage;
 import nablarch.core.util.ObjectUtil;
 import nablarch.core.util.annotation.Published;
 
@@ -72,7 +75,8 @@ public final class PerformanceLogUtil {
     }
     
     /**
-     * 測定を終了しパフォーマンスログを出力する。
+     * 測定を終了しパフォーマンスログを出力する。<br>
+     * ロガーが{@link BasicLogger}で、構造化済みのメッセージを生成した場合は、メッセージを文字列に変換せずに出力する。
      * @param point 測定対象を識別するID
      * @param result 処理結果を表す文字列
      * @param logOptions ログのオプション情報
@@ -86,7 +90,12 @@ public final class PerformanceLogUtil {
         if (!formatter.isTargetPoint(point)) {
             return;
         }
-        String message = getPerformanceLogFormatter().end(point, result);
-        PERFORMANCE_LOGGER.logDebug(message, logOptions);
+        Object message = formatter.endAsMessage(point, result);
+        if (message instanceof StructuredMessage && PERFORMANCE_LOGGER instanceof BasicLogger) {
+            ((BasicLogger) PERFORMANCE_LOGGER).logStructured(
+                    LogLevel.DEBUG, (StructuredMessage) message, null, logOptions);
+        } else {
+            PERFORMANCE_LOGGER.logDebug(String.valueOf(message), logOptions);
+        }
     }
 }
@@ -11,26 +11,106 @@ import nablarch.core.text.json.JsonSerializer;
 import nablarch.core.text.json.ListToJsonSerializer;
 import nablarch.core.text.json.LocalDateTimeToJsonSerializer;
 import nablarch.core.text.json.NumberToJsonSerializer;
-import nablarch.core.text.json.StringToJsonSerializer;
 import nablarch.core.util.annotation.Published;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 各種ログのJSON形式による出力に対応した{@link JsonSerializationManager}の実装クラス。
+ * <p>
+ * シリアライザはオブジェクトの型のみで決まるため、型毎に決定したシリアライザをキャッシュし、
+ * ネストした値を含むオブジェクトのシリアライズ時に、シリアライザの判定を繰り返さないようにする。
+ * 出現頻度が高い{@link String}と{@link Boolean}は、初期処理で決定したシリアライザを直接返す。<br>
+ * キャッシュする型の数には上限を設け、上限を超えた型はキャッシュせずに都度判定する。
+ * </p>
  * @author Shuji Kitamura
  */
 @Published(tag = "architect")
 public class AppLogJsonSerializationManager extends BasicJsonSerializationManager {
 
+    /** シリアライザをキャッシュする型の数の上限 */
+    private static final int MAX_CACHED_CLASSES = 256;
+
+    /** 型毎のシリアライザのキャッシュ */
+    private final ConcurrentMap<Class<?>, JsonSerializer> serializerCache = new ConcurrentHashMap<Class<?>, JsonSerializer>();
+
+    /** {@link String}のシリアライザ */
+    private volatile JsonSerializer stringSerializer;
+
+    /** {@link Boolean}のシリアライザ */
+    private volatile JsonSerializer booleanSerializer;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * シリアライザのキャッシュを初期化する。
+     * </p>
+     */
+    @Override
+    public void initialize() {
+        super.initialize();
+        resetCache();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * シリアライザのキャッシュを初期化する。
+     * </p>
+     */
+    @Override
+    public void initialize(JsonSerializationSettings settings) {
+        super.initialize(settings);
+        resetCache();
+    }
+
+    /**
+     * シリアライザのキャッシュを初期化する。
+     */
+    private void resetCache() {
+        serializerCache.clear();
+        stringSerializer = super.getSerializer("");
+        booleanSerializer = super.getSerializer(Boolean.TRUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 型毎にキャッシュしたシリアライザを返す。
+     * </p>
+     */
+    @Override
+    public JsonSerializer getSerializer(Object value) {
+        if (value == null) {
+            return super.getSerializer(null);
+        }
+        Class<?> valueClass = value.getClass();
+        if (valueClass == String.class && stringSerializer != null) {
+            return stringSerializer;
+        }
+        if (valueClass == Boolean.class && booleanSerializer != null) {
+            return booleanSerializer;
+        }
+        JsonSerializer serializer = serializerCache.get(valueClass);
+        if (serializer == null) {
+            serializer = super.getSerializer(value);
+            if (serializer != null && serializerCache.size() < MAX_CACHED_CLASSES) {
+                serializerCache.putIfAbsent(valueClass, serializer);
+            }
+        }
+        return serializer;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected List<JsonSerializer> createSerializers(JsonSerializationSettings settings) {
         return Arrays.asList(
-                new StringToJsonSerializer(),
+                new AppLogStringToJsonSerializer(),
                 new DateToJsonSerializer(this),
                 new AppLogMapToJsonSerializer(this),
                 new ListToJsonSerializer(this),
@@ -42,7 +42,7 @@ public class AppLogMapToJsonSerializer extends MapToJsonSerializer {
 
         if (memberValue instanceof RawJsonObjectMembers) {
             RawJsonObjectMembers rawMembers = (RawJsonObjectMembers) memberValue;
-            writer.append(rawMembers.getRawJsonText());
+            rawMembers.writeTo(writer);
         } else {
             super.writeMember(writer, member);
         }
@@ -0,0 +1,194 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.text.json.JsonSerializationSettings;
+import nablarch.core.text.json.StringToJsonSerializer;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * applog用に拡張した文字列をJSONにシリアライズするクラス。
+ * <p>
+ * このクラスは、ログのメッセージやスタックトレースのように、エスケープが不要な文字が大半を占める文字列を
+ * 高速にシリアライズするように{@link StringToJsonSerializer}を拡張している。<br>
+ * 文字列を走査してエスケープが必要な文字を探し、エスケープが不要な区間は1回の書き込みでまとめて出力する。
+ * </p>
+ * <p>
+ * エスケープが必要な文字と、そのエスケープ後の文字列は、初期化時に{@link StringToJsonSerializer}で
+ * ASCII文字を1文字ずつシリアライズして作成した表を使用するため、出力結果は{@link StringToJsonSerializer}と変わらない。
+ * {@link StringToJsonSerializer}が非ASCII文字をエスケープする場合は、非ASCII文字を含む文字列のみ
+ * {@link StringToJsonSerializer}でシリアライズする。
+ * </p>
+ */
+public class AppLogStringToJsonSerializer extends StringToJsonSerializer {
+
+    /** 文字列の開始、終了を表す引用符 */
+    private static final char QUOTE = '"';
+
+    /** ASCII文字の数 */
+    private static final int ASCII_SIZE = 128;
+
+    /** エスケープの有無を確認する非ASCII文字 */
+    private static final String[] NON_ASCII_SAMPLES = {
+            "\u00e9", "\u3042", "\u2028", "\u2029", "\uffff", "\ud83d\ude00", "\ud800", "\udc00"
+    };
+
+    /** ASCII文字のエスケープ後の文字列。エスケープが不要な文字は<code>null</code> */
+    private String[] escapes;
+
+    /** 非ASCII文字をエスケープするか否か */
+    private boolean escapesNonAscii;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * {@link StringToJsonSerializer}の出力結果から、エスケープの表を作成する。
+     * 出力結果が想定と異なる場合は、表を作成せずに{@link StringToJsonSerializer}でシリアライズする。
+     * </p>
+     */
+    @Override
+    public void initialize(JsonSerializationSettings settings) {
+        super.initialize(settings);
+        escapes = null;
+        try {
+            if (!"ab".equals(unquote(serializeBySuper("ab")))) {
+                return;
+            }
+            String[] table = new String[ASCII_SIZE];
+            for (char c = 0; c < ASCII_SIZE; c++) {
+                String text = String.valueOf(c);
+                String escaped = unquote(serializeBySuper(text));
+                if (escaped == null) {
+                    return;
+                }
+                table[c] = text.equals(escaped) ? null : escaped;
+            }
+            boolean nonAscii = false;
+            for (String sample : NON_ASCII_SAMPLES) {
+                nonAscii |= !sample.equals(unquote(serializeBySuper(sample)));
+            }
+            escapesNonAscii = nonAscii;
+            escapes = table;
+        } catch (IOException e) {
+            escapes = null;
+        }
+    }
+
+    /**
+     * バッファの指定位置以降の文字列を、引用符を付与せずにその場でエスケープする。<br>
+     * <br>
+     * 文字列を生成せずにエスケープ後の長さまでバッファを拡張し、末尾から順にエスケープ後の文字を書き込む。
+     * エスケープの表を作成していない場合と、非ASCII文字のエスケープが必要な場合は、バッファを変更しない。
+     * @param sb バッファ
+     * @param start エスケープする開始位置
+     * @return エスケープした場合は<code>true</code>。バッファを変更しなかった場合は<code>false</code>
+     */
+    boolean escapeInPlace(StringBuilder sb, int start) {
+        String[] table = escapes;
+        if (table == null) {
+            return false;
+        }
+        int end = sb.length();
+        int extra = 0;
+        for (int i = start; i < end; i++) {
+            char c = sb.charAt(i);
+            if (c < ASCII_SIZE) {
+                if (table[c] != null) {
+                    extra += table[c].length() - 1;
+                }
+            } else if (escapesNonAscii) {
+                return false;
+            }
+        }
+        if (extra == 0) {
+            return true;
+        }
+        sb.setLength(end + extra);
+        int to = end + extra;
+        for (int i = end - 1; i >= start; i--) {
+            char c = sb.charAt(i);
+            String escaped = c < ASCII_SIZE ? table[c] : null;
+            if (escaped == null) {
+                sb.setCharAt(--to, c);
+            } else {
+                for (int j = escaped.length() - 1; j >= 0; j--) {
+                    sb.setCharAt(--to, escaped.charAt(j));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@link StringToJsonSerializer}で文字列をシリアライズする。
+     * @param text 文字列
+     * @return シリアライズした文字列
+     * @throws IOException シリアライズに失敗した場合
+     */
+    private String serializeBySuper(String text) throws IOException {
+        StringWriter writer = new StringWriter();
+        super.serialize(writer, text);
+        return writer.toString();
+    }
+
+    /**
+     * シリアライズした文字列から引用符を除去する。
+     * @param serialized シリアライズした文字列
+     * @return 引用符を除去した文字列。引用符で囲まれていない場合は<code>null</code>
+     */
+    private static String unquote(String serialized) {
+        int length = serialized.length();
+        if (length < 2 || serialized.charAt(0) != QUOTE || serialized.charAt(length - 1) != QUOTE) {
+            return null;
+        }
+        return serialized.substring(1, length - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * エスケープが不要な区間をまとめて書き込み、エスケープが必要な文字は表のエスケープ後の文字列を書き込む。
+     * </p>
+     */
+    @Override
+    public void serialize(Writer writer, Object value) throws IOException {
+        String[] table = escapes;
+        String text = value.toString();
+        if (table == null || (escapesNonAscii && containsNonAscii(text))) {
+            super.serialize(writer, value);
+            return;
+        }
+        writer.write(QUOTE);
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < ASCII_SIZE && table[c] != null) {
+                if (start < i) {
+                    writer.write(text, start, i - start);
+                }
+                writer.write(table[c]);
+                start = i + 1;
+            }
+        }
+        if (start < length) {
+            writer.write(text, start, length - start);
+        }
+        writer.write(QUOTE);
+    }
+
+    /**
+     * 非ASCII文字を含むか否かを判定する。
+     * @param text 文字列
+     * @return 非ASCII文字を含む場合は<code>true</code>
+     */
+    private static boolean containsNonAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= ASCII_SIZE) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.log.LogItem;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 出力項目の文字列を生成せずに、バッファへ直接追加できるログ出力項目。<br>
+ * <br>
+ * {@link BasicLogFormatter}は、本インタフェースを実装したログ出力項目に対して
+ * {@link #get(Object)}メソッドの代わりに{@link #appendTo(Object, StringBuilder)}メソッドを呼び出す。
+ * 本インタフェースを実装しないログ出力項目は、{@link #get(Object)}メソッドの結果をバッファに追加する。
+ *
+ * @param <CTX> ログ出力項目の取得に使用するコンテキストの型
+ */
+@Published(tag = "architect")
+public interface AppendableLogItem<CTX> extends LogItem<CTX> {
+
+    /**
+     * ログ出力項目をバッファに追加する。<br>
+     * {@link #get(Object)}メソッドの結果をバッファに追加した場合と同じ内容を追加すること。
+     * @param context ログ出力項目の取得に使用するコンテキスト
+     * @param sb ログ出力項目を追加するバッファ
+     */
+    void appendTo(CTX context, StringBuilder sb);
+}
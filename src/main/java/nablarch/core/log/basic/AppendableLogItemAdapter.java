@@ -0,0 +1,68 @@
+package nablarch.core.log.basic;
+
+import java.util.List;
+
+import nablarch.core.log.LogItem;
+
+/**
+ * {@link AppendableLogItem}を実装しないログ出力項目を{@link AppendableLogItem}として扱うアダプタ。<br>
+ * <br>
+ * {@link LogItem#get(Object)}メソッドの結果をバッファに追加する。
+ *
+ * @param <CTX> ログ出力項目の取得に使用するコンテキストの型
+ */
+final class AppendableLogItemAdapter<CTX> implements AppendableLogItem<CTX> {
+
+    /** 変換元のログ出力項目 */
+    private final LogItem<CTX> item;
+
+    /**
+     * コンストラクタ。
+     * @param item 変換元のログ出力項目
+     */
+    private AppendableLogItemAdapter(LogItem<CTX> item) {
+        this.item = item;
+    }
+
+    /**
+     * ログ出力項目を{@link AppendableLogItem}に変換する。<br>
+     * {@link AppendableLogItem}を実装したログ出力項目はそのまま使用する。
+     * @param items ログ出力項目
+     * @param <CTX> ログ出力項目の取得に使用するコンテキストの型
+     * @return {@link AppendableLogItem}に変換したログ出力項目
+     */
+    @SuppressWarnings("unchecked")
+    static <CTX> AppendableLogItem<CTX>[] adapt(List<LogItem<CTX>> items) {
+        AppendableLogItem<CTX>[] adapted = newArray(items.size());
+        for (int i = 0; i < adapted.length; i++) {
+            LogItem<CTX> item = items.get(i);
+            adapted[i] = item instanceof AppendableLogItem
+                       ? (AppendableLogItem<CTX>) item
+                       : new AppendableLogItemAdapter<CTX>(item);
+        }
+        return adapted;
+    }
+
+    /**
+     * {@link AppendableLogItem}の配列を生成する。<br>
+     * ジェネリクスの配列は生成できないため、原型の配列を生成して変換する。
+     * 配列には型引数が同じ要素のみを格納し、外部に要素の追加を許さないため、型の安全性は保たれる。
+     * @param length 配列の長さ
+     * @param <CTX> ログ出力項目の取得に使用するコンテキストの型
+     * @return 生成した配列
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <CTX> AppendableLogItem<CTX>[] newArray(int length) {
+        return new AppendableLogItem[length];
+    }
+
+    /** {@inheritDoc} */
+    public String get(CTX context) {
+        return item.get(context);
+    }
+
+    /** {@inheritDoc} */
+    public void appendTo(CTX context, StringBuilder sb) {
+        sb.append(item.get(context));
+    }
+}
@@ -1,20 +1,23 @@
 package nablarch.core.log.basic;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.lang.reflect.AccessibleObject;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import nablarch.core.log.DateItemSupport;
 import nablarch.core.log.LogItem;
 import nablarch.core.log.LogUtil;
 import nablarch.core.log.Logger;
-import nablarch.core.util.FileUtil;
 import nablarch.core.util.StringUtil;
 import nablarch.core.util.annotation.Published;
 
@@ -71,6 +74,7 @@ import nablarch.core.util.annotation.Published;
  * $stackTrace$
  *     エラー情報に指定された例外オブジェクトのスタックトレース。
  *     エラー情報の指定がない場合は表示しない。
+ *     出力するフレーム数などは、{@link StackTraceRenderer}の設定で制限できる。
  * </pre>
  * フォーマット指定が無い場合に使用するフォーマットを下記に示す。
  * <br>
@@ -89,12 +93,40 @@ import nablarch.core.util.annotation.Published;
  *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.datePattern
  *   <dd>日時のフォーマットに使用するパターン。オプション。<br>
  *       指定しなければはyyyy-MM-dd HH:mm:ss.SSSを使用する。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.fixedBootProcess
+ *   <dd>起動プロセスがプロセスの実行中に変わらないか否か。オプション。<br>
+ *       trueを指定した場合は、初期処理の時点の起動プロセスを固定文字列としてフォーマットに埋め込む。
+ *       指定しなければfalse。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.information.maxFields
+ *   <dd>$information$で1つのオブジェクトについて出力するフィールド数の上限。オプション。<br>
+ *       上限を超えたフィールドは、フィールド数のみを出力する。指定しなければ上限なし。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.information.maxValueLength
+ *   <dd>$information$で出力するフィールドの値とtoString()の結果の長さの上限。オプション。<br>
+ *       上限を超えた値は、上限までの文字列に"..."を付与して出力する。指定しなければ上限なし。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.information.maxDepth
+ *   <dd>$information$で入れ子のオブジェクトのフィールドを出力する深さ。オプション。<br>
+ *       JDKのクラスと値オブジェクト、配列、列挙型のフィールドは出力しない。指定しなければ0(出力しない)。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.stackTrace.&lt;プロパティ名&gt;
+ *   <dd>スタックトレースの出力に使用する{@link StackTraceRenderer}の設定。オプション。<br>
+ *       指定しなければスタックトレースを省略せずに出力する。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.maxMessageLength
+ *   <dd>$message$の長さの上限。オプション。<br>
+ *       上限を超えたメッセージは、上限までの文字列に"...[truncated N chars]"(Nは切り詰めた文字数)を付与して出力する。
+ *       指定しなければ上限なし。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.maxFieldLength
+ *   <dd>出力毎に値が変わるログ出力項目の長さの上限。オプション。<br>
+ *       上限を超えた値は、maxMessageLengthと同様に切り詰めて出力する。指定しなければ上限なし。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.maxRecordLength
+ *   <dd>1件のログの長さ(末尾の改行を除く)の上限。オプション。<br>
+ *       上限を超えたログは、maxMessageLengthと同様に切り詰めて出力する。指定しなければ上限なし。
  * </dl>
+ * フォーマットは初期処理でテンプレートに変換する。
+ * 隣接する固定文字列と、処理方式などの出力毎に値が変わらないログ出力項目は、1つの固定文字列として連結する。
  * 
  * @author Kiyohito Itoh
  */
 @Published(tag = "architect")
-public class BasicLogFormatter implements LogFormatter {
+public class BasicLogFormatter implements ShareableLogFormatter {
     
     /** デフォルトの日時フォーマット */
     private static final DateFormat DEFAULT_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
@@ -106,8 +138,17 @@ public class BasicLogFormatter implements LogFormatter {
             + " req_id = [$requestId$] usr_id = [$userId$]"
             + " $message$$information$$stackTrace$";
     
-    /** フォーマット済みのログ出力項目 */
-    private LogItem<LogContext>[] formattedLogItems;
+    /** フォーマットを変換したテンプレート */
+    private LogTemplate<LogContext> template;
+
+    /** 起動プロセスがプロセスの実行中に変わらないか否か */
+    private boolean fixedBootProcess;
+
+    /** 1件のログの長さの上限 */
+    private int maxRecordLength;
+
+    /** フォーマット結果を他の{@link LogWriter}と共有できるか否か */
+    private boolean shareable;
     
     /**
      * {@inheritDoc}<br>
@@ -115,9 +156,44 @@ public class BasicLogFormatter implements LogFormatter {
      * フォーマットとログレベルに使用するラベルを初期化する。
      */
     public void initialize(ObjectSettings settings) {
+        shareable = !StackTraceRenderer.isDeduplicating(settings);
+        fixedBootProcess = Boolean.parseBoolean(settings.getProp("fixedBootProcess"));
+        int maxFieldLength = ObjectSettingsSupport.getIntProp(settings, "maxFieldLength", LogTruncation.UNLIMITED);
+        int maxMessageLength = Math.min(ObjectSettingsSupport.getIntProp(settings, "maxMessageLength", LogTruncation.UNLIMITED), maxFieldLength);
+        maxRecordLength = ObjectSettingsSupport.getIntProp(settings, "maxRecordLength", LogTruncation.UNLIMITED);
         String format = getFormat(settings);
         Map<String, LogItem<LogContext>> logItems = getLogItems(settings);
-        formattedLogItems = LogUtil.createFormattedLogItems(logItems, format);
+        Set<LogItem<LogContext>> variableItems = Collections.newSetFromMap(new IdentityHashMap<LogItem<LogContext>, Boolean>());
+        for (Map.Entry<String, LogItem<LogContext>> entry : logItems.entrySet()) {
+            LogItem<LogContext> item = entry.getValue();
+            if (isConstantLogItem(item)) {
+                continue;
+            }
+            int maxLength = "$message$".equals(entry.getKey()) ? maxMessageLength : maxFieldLength;
+            if (maxLength != LogTruncation.UNLIMITED
+                    || (maxRecordLength != LogTruncation.UNLIMITED && TruncatedLogItem.isLimitable(item))) {
+                item = new TruncatedLogItem(item, maxLength);
+                entry.setValue(item);
+            }
+            variableItems.add(item);
+        }
+        template = LogTemplate.compile(LogUtil.createFormattedLogItems(logItems, format), variableItems);
+    }
+
+    /**
+     * 出力毎に値が変わらないログ出力項目か否かを判定する。<br>
+     * <br>
+     * 出力毎に値が変わらないログ出力項目は、初期処理で値を取得し、固定文字列としてフォーマットに埋め込む。<br>
+     * デフォルト実装では、{@link ProcessingSystemItem}と、
+     * 起動プロセスが変わらないことが設定で指定された場合の{@link BootProcessItem}を対象とする。
+     * 独自に拡張したクラスは値が変わる可能性があるため対象としない。
+     * @param item ログ出力項目
+     * @return 出力毎に値が変わらないログ出力項目の場合は<code>true</code>
+     */
+    protected boolean isConstantLogItem(LogItem<LogContext> item) {
+        Class<?> itemClass = item.getClass();
+        return itemClass == ProcessingSystemItem.class
+            || (fixedBootProcess && itemClass == BootProcessItem.class);
     }
     
     /**
@@ -135,8 +211,10 @@ public class BasicLogFormatter implements LogFormatter {
         logItemCandidates.put("$executionId$", new ExecutionIdItem());
         logItemCandidates.put("$userId$", new UserIdItem());
         logItemCandidates.put("$message$", new MessageItem());
-        logItemCandidates.put("$information$", new InformationItem());
-        logItemCandidates.put("$stackTrace$", new StackTraceItem());
+        logItemCandidates.put("$information$", new InformationItem(ObjectSettingsSupport.getIntProp(settings, "information.maxFields", Integer.MAX_VALUE),
+                                                                    ObjectSettingsSupport.getIntProp(settings, "information.maxValueLength", Integer.MAX_VALUE),
+                                                                    ObjectSettingsSupport.getIntProp(settings, "information.maxDepth", 0)));
+        logItemCandidates.put("$stackTrace$", new StackTraceItem(StackTraceRenderer.create(settings)));
         logItemCandidates.put("$date$", new DateItem(getDateFormat(settings)));
         logItemCandidates.put("$logLevel$", new LogLevelItem(getLogLevelLabelProvider(settings)));
         return logItemCandidates;
@@ -172,30 +250,148 @@ public class BasicLogFormatter implements LogFormatter {
     }
     
     /**
-     * {@inheritDoc}
+     * {@inheritDoc}<br>
+     * <br>
+     * スタックトレースの繰り返しを判定する場合は、出力内容がそれまでに出力したスタックトレースに依存するため共有できない。
+     */
+    @Override
+    public boolean isShareable() {
+        return shareable;
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * スレッド毎に再利用するバッファにフォーマットし、文字列に変換する。
      */
     public String format(LogContext context) {
-        StringBuilder sb = new StringBuilder(512);
-        sb.append(LogUtil.formatMessage(formattedLogItems, context));
-        String message = sb.toString();
-        if (!message.endsWith(Logger.LS)) {
-            message += Logger.LS;
+        StringBuilder sb = ReusableStringBuilder.acquire();
+        try {
+            appendFormatted(context, sb);
+            return sb.toString();
+        } finally {
+            ReusableStringBuilder.release(sb);
+        }
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * ログ出力項目をバッファに直接追加し、改行で終わっていない場合は改行を追加する。
+     * バッファは、これまでに出力したログの長さの移動平均を目安に事前に拡張する。
+     * {@link AppendableLogItem}を実装しないログ出力項目は、取得した文字列を追加する。
+     * 1件のログの長さの上限を超えた場合は、改行を追加する前に切り詰める。
+     * スタックトレースとオプション情報は、上限を超えた時点で出力を打ち切る。<br>
+     * {@link #isBufferAppendable()}が<code>false</code>を返す場合は、{@link #format(LogContext)}の結果を追加する。
+     */
+    @Override
+    public void appendTo(LogContext context, StringBuilder sb) {
+        if (!isBufferAppendable()) {
+            sb.append(format(context));
+            return;
+        }
+        appendFormatted(context, sb);
+    }
+
+    /**
+     * {@link #appendTo(LogContext, StringBuilder)}で、{@link #format(LogContext)}を経由せずにバッファへ直接追加するか否かを返す。<br>
+     * <br>
+     * <code>false</code>を返す場合は、{@link #format(LogContext)}の結果をバッファに追加する。
+     * サブクラスで{@link #format(LogContext)}をオーバーライドしている可能性があるため、
+     * デフォルト実装では本クラスのインスタンスの場合のみ<code>true</code>を返す。
+     * {@link #format(LogContext)}をオーバーライドしないサブクラスで直接追加する場合は、オーバーライドして<code>true</code>を返すこと。
+     * @return バッファへ直接追加する場合は<code>true</code>
+     */
+    protected boolean isBufferAppendable() {
+        return getClass() == BasicLogFormatter.class;
+    }
+
+    /**
+     * フォーマット済みのログをバッファに直接追加する。
+     * @param context {@link LogContext}
+     * @param sb フォーマット済みのログを追加するバッファ
+     */
+    private void appendFormatted(LogContext context, StringBuilder sb) {
+        int start = sb.length();
+        sb.ensureCapacity(start + template.getEstimatedLength());
+        if (maxRecordLength == LogTruncation.UNLIMITED) {
+            template.appendTo(context, sb);
+        } else {
+            boolean complete = template.appendTo(context, sb, start + maxRecordLength);
+            LogTruncation.truncate(sb, start, maxRecordLength, complete);
+        }
+        if (!endsWith(sb, start, Logger.LS)) {
+            sb.append(Logger.LS);
+        }
+        template.recordLength(sb.length() - start);
+    }
+
+    /**
+     * バッファの指定位置以降が、指定された文字列で終わっているか否かを判定する。
+     * @param sb バッファ
+     * @param start 判定対象とする開始位置
+     * @param suffix 文字列
+     * @return 指定された文字列で終わっている場合は<code>true</code>
+     */
+    private static boolean endsWith(StringBuilder sb, int start, String suffix) {
+        int offset = sb.length() - suffix.length();
+        if (offset < start) {
+            return false;
         }
-        return message;
+        for (int i = 0; i < suffix.length(); i++) {
+            if (sb.charAt(offset + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * 出力日時を取得するクラス。
      * @author Kiyohito Itoh
      */
-    public static class DateItem extends DateItemSupport<LogContext> {
+    public static class DateItem extends DateItemSupport<LogContext> implements AppendableLogItem<LogContext> {
+
+        /** 日時フォーマットと同じ結果となる{@link TimestampRenderer}。サポートしない日時フォーマットの場合は<code>null</code> */
+        private final TimestampRenderer renderer;
+
         /**
          * コンストラクタ。
          * @param dateFormat 日時フォーマット
          */
         public DateItem(DateFormat dateFormat) {
             super(dateFormat);
+            renderer = TimestampRenderer.of(dateFormat);
         }
+
+        /**
+         * {@inheritDoc}<br>
+         * <br>
+         * 日時フォーマットのパターンを{@link java.time.format.DateTimeFormatter}で扱える場合は、
+         * 直前の秒のフォーマット結果を再利用してフォーマットする。
+         */
+        @Override
+        public String get(LogContext context) {
+            if (renderer == null) {
+                return super.get(context);
+            }
+            return renderer.format(getDate(context).getTime());
+        }
+
+        /**
+         * {@inheritDoc}<br>
+         * <br>
+         * 日時フォーマットのパターンを{@link java.time.format.DateTimeFormatter}で扱える場合は、
+         * 文字列を生成せずにバッファへ追加する。
+         */
+        public void appendTo(LogContext context, StringBuilder sb) {
+            if (renderer == null) {
+                sb.append(super.get(context));
+                return;
+            }
+            renderer.appendTo(getDate(context).getTime(), sb);
+        }
+
         /** {@inheritDoc} */
         protected Date getDate(LogContext context) {
             return context.getDate();
@@ -328,6 +524,95 @@ public class BasicLogFormatter implements LogFormatter {
         public String get(LogContext context) { return context.getUserId(); }
     }
     
+    /**
+     * 長さの上限を超えた値を切り詰めるログ出力項目。<br>
+     * <br>
+     * {@link AppendableLogItem}を実装するログ出力項目はバッファに追加した後で切り詰め、
+     * 実装しないログ出力項目は取得した文字列のうち上限までの範囲をバッファに追加する。
+     * {@link InformationItem}と{@link StackTraceItem}は、上限を超えた時点で出力を打ち切るため、
+     * 切り詰めた文字数は不明として扱う。
+     */
+    private static final class TruncatedLogItem implements LimitedLogItem<LogContext> {
+
+        /** 切り詰める対象のログ出力項目 */
+        private final LogItem<LogContext> item;
+
+        /** 長さの上限 */
+        private final int maxLength;
+
+        /**
+         * コンストラクタ。
+         * @param item 切り詰める対象のログ出力項目
+         * @param maxLength 長さの上限
+         */
+        private TruncatedLogItem(LogItem<LogContext> item, int maxLength) {
+            this.item = item;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * 長さの上限まで切り詰めた値を取得する。
+         * @param context ログコンテキスト
+         * @return 長さの上限まで切り詰めた値
+         */
+        public String get(LogContext context) {
+            StringBuilder sb = new StringBuilder();
+            appendTo(context, sb);
+            return sb.toString();
+        }
+
+        /**
+         * 長さの上限まで切り詰めた値をバッファに追加する。
+         * @param context ログコンテキスト
+         * @param sb 追加先のバッファ
+         */
+        public void appendTo(LogContext context, StringBuilder sb) {
+            appendTo(context, sb, LogTruncation.UNLIMITED);
+        }
+
+        /**
+         * 長さの上限まで切り詰めた値をバッファに追加する。<br>
+         * 値の長さの上限とバッファの長さの上限のうち、先に到達した時点で出力を打ち切る。
+         * 値の長さの上限で打ち切った場合は、切り詰めた上で最後まで出力したものとして扱う。
+         * @param context ログコンテキスト
+         * @param sb 追加先のバッファ
+         * @param limit 出力を打ち切ってよいバッファの長さ
+         * @return 最後まで出力した場合は<code>true</code>
+         */
+        public boolean appendTo(LogContext context, StringBuilder sb, int limit) {
+            if (!(item instanceof AppendableLogItem)) {
+                LogTruncation.append(sb, item.get(context), maxLength);
+                return true;
+            }
+            int start = sb.length();
+            int itemLimit = maxLength < limit - start ? start + maxLength : limit;
+            boolean complete;
+            if (item instanceof InformationItem) {
+                complete = ((InformationItem) item).appendTo(context, sb, itemLimit);
+            } else if (item instanceof StackTraceItem) {
+                complete = ((StackTraceItem) item).appendTo(context, sb, itemLimit);
+            } else {
+                ((AppendableLogItem<LogContext>) item).appendTo(context, sb);
+                complete = true;
+            }
+            if (!complete && sb.length() - start > maxLength) {
+                LogTruncation.truncate(sb, start, maxLength, false);
+                return true;
+            }
+            LogTruncation.truncate(sb, start, maxLength);
+            return complete;
+        }
+
+        /**
+         * 出力を打ち切ることができるログ出力項目か否かを判定する。
+         * @param item ログ出力項目
+         * @return {@link InformationItem}または{@link StackTraceItem}の場合は<code>true</code>
+         */
+        private static boolean isLimitable(LogItem<LogContext> item) {
+            return item instanceof InformationItem || item instanceof StackTraceItem;
+        }
+    }
+
     /**
      * メッセージを取得するクラス
      * @author Kiyohito Itoh
@@ -345,10 +630,66 @@ public class BasicLogFormatter implements LogFormatter {
     }
     
     /**
-     * オプション情報に指定されたオブジェクトのフィールド情報を取得するクラス。
+     * オプション情報に指定されたオブジェクトのフィールド情報を取得するクラス。<br>
+     * <br>
+     * フィールドの一覧とフィールドの値を取得する{@link MethodHandle}は、クラス毎に初回のみ作成して再利用する。
+     * 値は読み取るだけのため、{@link java.lang.invoke.VarHandle}ではなく、
+     * staticフィールドとインスタンスフィールドを同じ型で呼び出せる{@link MethodHandle}を使用する。
+     * アクセスできないフィールド(JDK内部のクラスのフィールドなど)の値は"(unknown)"と出力する。<br>
+     * 出力するフィールド数と値の長さの上限、入れ子のオブジェクトのフィールドを出力する深さを指定できる。
      * @author Kiyohito Itoh
      */
-    public static class InformationItem implements LogItem<LogContext> {
+    public static class InformationItem implements AppendableLogItem<LogContext> {
+
+        /** クラス毎のフィールドのアクセサ */
+        private static final ClassValue<FieldAccessor[]> FIELD_ACCESSORS = new ClassValue<FieldAccessor[]>() {
+            @Override
+            protected FieldAccessor[] computeValue(Class<?> type) {
+                Field[] fields = type.getDeclaredFields();
+                FieldAccessor[] accessors = new FieldAccessor[fields.length];
+                for (int i = 0; i < fields.length; i++) {
+                    accessors[i] = new FieldAccessor(fields[i]);
+                }
+                return accessors;
+            }
+        };
+
+        /** 入れ子のオブジェクトとしてフィールドを出力しないパッケージ */
+        private static final String[] OPAQUE_PACKAGES = {"java.", "javax.", "jdk.", "sun.", "com.sun."};
+
+        /** 1つのオブジェクトで出力するフィールド数の上限 */
+        private final int maxFields;
+
+        /** 出力する値の長さの上限 */
+        private final int maxValueLength;
+
+        /** 入れ子のオブジェクトのフィールドを出力する深さ */
+        private final int maxDepth;
+
+        /**
+         * コンストラクタ。<br>
+         * フィールド数と値の長さを制限せず、入れ子のオブジェクトのフィールドは出力しない。
+         */
+        public InformationItem() {
+            this(Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param maxFields 1つのオブジェクトで出力するフィールド数の上限
+         * @param maxValueLength 出力する値の長さの上限
+         * @param maxDepth 入れ子のオブジェクトのフィールドを出力する深さ。0の場合は出力しない
+         */
+        public InformationItem(int maxFields, int maxValueLength, int maxDepth) {
+            if (maxFields < 0 || maxValueLength < 0 || maxDepth < 0) {
+                throw new IllegalArgumentException(String.format(
+                        "limits must not be negative. maxFields = [%s], maxValueLength = [%s], maxDepth = [%s]",
+                        maxFields, maxValueLength, maxDepth));
+            }
+            this.maxFields = maxFields;
+            this.maxValueLength = maxValueLength;
+            this.maxDepth = maxDepth;
+        }
         
         /**
          * オプション情報に指定されたオブジェクトのフィールド情報を取得する。
@@ -361,11 +702,81 @@ public class BasicLogFormatter implements LogFormatter {
                 return "";
             }
             StringBuilder sb = new StringBuilder(512 * options.length);
+            appendInformation(context, sb);
+            return sb.toString();
+        }
+
+        /**
+         * オプション情報に指定されたオブジェクトのフィールド情報をバッファに追加する。<br>
+         * {@link #isBufferAppendable()}が<code>false</code>を返す場合は、{@link #get(LogContext)}の結果を追加する。
+         * @param context ログコンテキスト
+         * @param sb フィールド情報を追加するバッファ
+         */
+        public void appendTo(LogContext context, StringBuilder sb) {
+            if (!isBufferAppendable()) {
+                sb.append(get(context));
+                return;
+            }
+            appendInformation(context, sb);
+        }
+
+        /**
+         * {@link #appendTo(LogContext, StringBuilder)}で、{@link #get(LogContext)}を経由せずにバッファへ直接追加するか否かを返す。<br>
+         * <br>
+         * <code>true</code>を返す場合は、1件のログの長さの上限を超えた時点で出力を打ち切る。
+         * サブクラスでフィールド情報の出力処理を変更している可能性があるため、
+         * デフォルト実装では本クラスのインスタンスの場合のみ<code>true</code>を返す。
+         * 出力処理を変更しないサブクラスで直接追加する場合は、オーバーライドして<code>true</code>を返すこと。
+         * @return バッファへ直接追加する場合は<code>true</code>
+         */
+        protected boolean isBufferAppendable() {
+            return getClass() == InformationItem.class;
+        }
+
+        /**
+         * オプション情報に指定されたオブジェクトのフィールド情報をバッファに直接追加する。
+         * @param context ログコンテキスト
+         * @param sb フィールド情報を追加するバッファ
+         */
+        private void appendInformation(LogContext context, StringBuilder sb) {
+            Object[] options = context.getOptions();
+            if (options == null) {
+                return;
+            }
             for (int i = 0; i < options.length; i++) {
                 sb.append(Logger.LS);
                 appendObjectInfo(sb, i, options[i]);
             }
-            return sb.toString();
+        }
+
+        /**
+         * オプション情報に指定されたオブジェクトのフィールド情報をバッファに追加する。<br>
+         * バッファの長さが上限位置を超えた時点で、以降のオブジェクトとフィールドの出力を打ち切る。
+         * ただし、{@link #isBufferAppendable()}が<code>false</code>を返す場合は、打ち切らずに{@link #appendTo(LogContext, StringBuilder)}で追加する。
+         * @param context ログコンテキスト
+         * @param sb フィールド情報を追加するバッファ
+         * @param limit 出力を打ち切ってよいバッファの長さ
+         * @return 最後まで出力した場合は<code>true</code>
+         */
+        boolean appendTo(LogContext context, StringBuilder sb, int limit) {
+            if (!isBufferAppendable()) {
+                appendTo(context, sb);
+                return true;
+            }
+            Object[] options = context.getOptions();
+            if (options == null) {
+                return true;
+            }
+            for (int i = 0; i < options.length; i++) {
+                if (sb.length() > limit) {
+                    return false;
+                }
+                sb.append(Logger.LS);
+                if (!appendObjectInfo(sb, i, options[i], limit)) {
+                    return false;
+                }
+            }
+            return true;
         }
         
         /**
@@ -375,48 +786,234 @@ public class BasicLogFormatter implements LogFormatter {
          * @param object オブジェクト
          */
         protected void appendObjectInfo(StringBuilder sb, int index, Object object) {
+            appendObjectInfo(sb, index, object, LogTruncation.UNLIMITED);
+        }
+
+        /**
+         * 出力を打ち切ってよいバッファの長さを指定して、フォーマット済みのオブジェクト情報を追加する。
+         * @param sb フォーマット済みのオブジェクト情報を格納するバッファ
+         * @param index インデックス
+         * @param object オブジェクト
+         * @param limit 出力を打ち切ってよいバッファの長さ
+         * @return 最後まで出力した場合は<code>true</code>
+         */
+        private boolean appendObjectInfo(StringBuilder sb, int index, Object object, int limit) {
             sb.append("Object Information[").append(index).append("]: ");
             if (object == null) {
                 sb.append("null");
-                return;
+                return true;
             }
             Class<?> clazz = object.getClass();
             sb.append("Class Name = [").append(clazz.getName()).append("]").append(Logger.LS);
             if (!isValueObject(object)) {
-                Field[] fields = clazz.getDeclaredFields();
-                AccessibleObject.setAccessible(fields, true);
-                for (int i = 0; i < fields.length; i++) {
-                    Field field = fields[i];
-                    sb.append("\t").append(field.getName()).append(" = [");
-                    try {
-                        sb.append(field.get(object));
-                    } catch (Exception e) {
-                        sb.append("(unknown)");
-                    }
-                    sb.append("]").append(Logger.LS);
+                Set<Object> visited = maxDepth == 0 ? null
+                                    : Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+                if (!appendFields(sb, object, "\t", 0, visited, limit)) {
+                    return false;
+                }
+            }
+            sb.append("\ttoString() = [");
+            appendValue(sb, object);
+            sb.append("]");
+            return true;
+        }
+
+        /**
+         * オブジェクトのフィールドを追加する。<br>
+         * フィールド数が上限を超えた場合は、残りのフィールド数を追加する。
+         * @param sb 追加先のバッファ
+         * @param object オブジェクト
+         * @param indent 行頭のインデント
+         * @param depth 入れ子の深さ
+         * @param visited 出力中のオブジェクト。入れ子のオブジェクトを出力しない場合は<code>null</code>
+         * @param limit 出力を打ち切ってよいバッファの長さ
+         * @return 最後まで出力した場合は<code>true</code>
+         */
+        private boolean appendFields(StringBuilder sb, Object object, String indent, int depth, Set<Object> visited,
+                                     int limit) {
+            FieldAccessor[] accessors = FIELD_ACCESSORS.get(object.getClass());
+            int count = Math.min(accessors.length, maxFields);
+            if (visited != null) {
+                visited.add(object);
+            }
+            for (int i = 0; i < count; i++) {
+                if (sb.length() > limit) {
+                    return false;
+                }
+                FieldAccessor accessor = accessors[i];
+                sb.append(indent).append(accessor.name).append(" = [");
+                Object value;
+                try {
+                    value = accessor.get(object);
+                } catch (IllegalAccessException e) {
+                    sb.append("(unknown)]").append(Logger.LS);
+                    continue;
+                }
+                appendValue(sb, value);
+                sb.append("]").append(Logger.LS);
+                if (visited != null && depth < maxDepth && isNestedObject(value) && !visited.contains(value)
+                        && !appendFields(sb, value, indent + '\t', depth + 1, visited, limit)) {
+                    return false;
+                }
+            }
+            if (count < accessors.length) {
+                sb.append(indent).append("... ").append(accessors.length - count).append(" more fields").append(Logger.LS);
+            }
+            if (visited != null) {
+                visited.remove(object);
+            }
+            return true;
+        }
+
+        /**
+         * 値を文字列に変換して追加する。<br>
+         * 長さが上限を超える場合は、上限までの文字列に"..."を付与して追加する。
+         * @param sb 追加先のバッファ
+         * @param value 値
+         */
+        private void appendValue(StringBuilder sb, Object value) {
+            if (maxValueLength == Integer.MAX_VALUE) {
+                sb.append(value);
+                return;
+            }
+            String text = String.valueOf(value);
+            if (text.length() <= maxValueLength) {
+                sb.append(text);
+            } else {
+                sb.append(text, 0, maxValueLength).append("...");
+            }
+        }
+
+        /**
+         * 入れ子のオブジェクトとしてフィールドを出力するオブジェクトか否かを判定する。<br>
+         * 値オブジェクト、配列、列挙型、JDKのクラスのオブジェクトは対象外とする。
+         * @param value 値
+         * @return 入れ子のオブジェクトとしてフィールドを出力する場合は<code>true</code>
+         */
+        private boolean isNestedObject(Object value) {
+            if (value == null || isValueObject(value)) {
+                return false;
+            }
+            Class<?> clazz = value.getClass();
+            if (clazz.isArray() || clazz.isEnum()) {
+                return false;
+            }
+            String className = clazz.getName();
+            for (String packageName : OPAQUE_PACKAGES) {
+                if (className.startsWith(packageName)) {
+                    return false;
                 }
             }
-            sb.append("\ttoString() = [").append(object.toString()).append("]");
+            return true;
         }
         
         /**
-         * 指定されたオブジェクトが基本データ型のラッパー、CharSequence型、Date型であるか判定する。
+         * 指定されたオブジェクトが基本データ型のラッパー、CharSequence型、Date型、{@link StructuredLogEvent}であるか判定する。
          * @param object オブジェクト
-         * @return 基本データ型のラッパー、CharSequence型、Date型の場合は<code>true</code>
+         * @return 基本データ型のラッパー、CharSequence型、Date型、{@link StructuredLogEvent}の場合は<code>true</code>
          */
         protected boolean isValueObject(Object object) {
             return object instanceof CharSequence
                 || object instanceof Number
                 || object instanceof Character
-                || object instanceof Date;
+                || object instanceof Date
+                || object instanceof StructuredLogEvent;
+        }
+
+        /**
+         * フィールドの値を取得するアクセサ。
+         */
+        private static final class FieldAccessor {
+
+            /** アクセサの型 */
+            private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+            /** フィールド名 */
+            private final String name;
+
+            /** フィールドの値を取得する{@link MethodHandle}。アクセスできない場合は<code>null</code> */
+            private final MethodHandle getter;
+
+            /**
+             * コンストラクタ。
+             * @param field フィールド
+             */
+            private FieldAccessor(Field field) {
+                name = field.getName();
+                getter = createGetter(field);
+            }
+
+            /**
+             * フィールドの値を取得する{@link MethodHandle}を作成する。<br>
+             * staticフィールドは、引数のオブジェクトを使用せずに値を取得する。
+             * @param field フィールド
+             * @return {@link MethodHandle}。アクセスできない場合は<code>null</code>
+             */
+            private static MethodHandle createGetter(Field field) {
+                try {
+                    field.setAccessible(true);
+                    MethodHandle handle = MethodHandles.lookup().unreflectGetter(field);
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                    }
+                    return handle.asType(GETTER_TYPE);
+                } catch (Exception e) {
+                    // JDK内部のクラスなどアクセスできない場合は、値を出力しない。
+                    return null;
+                }
+            }
+
+            /**
+             * フィールドの値を取得する。<br>
+             * フィールドの値の取得で発生した{@link RuntimeException}と{@link Error}は、そのまま送出する。
+             * @param object オブジェクト
+             * @return フィールドの値
+             * @throws IllegalAccessException フィールドにアクセスできない場合
+             */
+            private Object get(Object object) throws IllegalAccessException {
+                if (getter == null) {
+                    throw new IllegalAccessException(name);
+                }
+                try {
+                    return (Object) getter.invokeExact(object);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    // フィールドの値の取得で検査例外は発生しない
+                    throw new IllegalStateException(e);
+                }
+            }
         }
     }
     
     /**
-     * エラー情報に指定された例外オブジェクトのスタックトレースを取得するクラス。
+     * エラー情報に指定された例外オブジェクトのスタックトレースを取得するクラス。<br>
+     * <br>
+     * スタックトレースは{@link StackTraceRenderer}で出力する。
      * @author Kiyohito Itoh
      */
-    public static class StackTraceItem implements LogItem<LogContext> {
+    public static class StackTraceItem implements AppendableLogItem<LogContext> {
+
+        /** スタックトレースの出力に使用する{@link StackTraceRenderer} */
+        private final StackTraceRenderer renderer;
+
+        /**
+         * コンストラクタ。<br>
+         * スタックトレースを省略せずに出力する。
+         */
+        public StackTraceItem() {
+            this(StackTraceRenderer.DEFAULT);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param renderer スタックトレースの出力に使用する{@link StackTraceRenderer}
+         */
+        public StackTraceItem(StackTraceRenderer renderer) {
+            this.renderer = renderer;
+        }
         
         /**
          * エラー情報に指定された例外オブジェクトのスタックトレースを取得する。
@@ -430,6 +1027,59 @@ public class BasicLogFormatter implements LogFormatter {
             }
             return getStackTrace(error);
         }
+
+        /**
+         * エラー情報に指定された例外オブジェクトのスタックトレースをバッファに追加する。<br>
+         * 文字列を生成せずにバッファへ直接書き込む。
+         * ただし、{@link #isBufferAppendable()}が<code>false</code>を返す場合は、{@link #get(LogContext)}の結果を追加する。
+         * @param context ログコンテキスト
+         * @param sb スタックトレースを追加するバッファ
+         */
+        public void appendTo(LogContext context, StringBuilder sb) {
+            if (!isBufferAppendable()) {
+                sb.append(get(context));
+                return;
+            }
+            Throwable error = context.getError();
+            if (error != null) {
+                appendStackTrace(error, sb);
+            }
+        }
+
+        /**
+         * {@link #appendTo(LogContext, StringBuilder)}で、{@link #get(LogContext)}を経由せずにバッファへ直接追加するか否かを返す。<br>
+         * <br>
+         * <code>true</code>を返す場合は、1件のログの長さの上限を超えた時点で出力を打ち切る。
+         * サブクラスでスタックトレースの出力処理を変更している可能性があるため、
+         * デフォルト実装では本クラスのインスタンスの場合のみ<code>true</code>を返す。
+         * 出力処理を変更しないサブクラスで直接追加する場合は、オーバーライドして<code>true</code>を返すこと。
+         * @return バッファへ直接追加する場合は<code>true</code>
+         */
+        protected boolean isBufferAppendable() {
+            return getClass() == StackTraceItem.class;
+        }
+
+        /**
+         * エラー情報に指定された例外オブジェクトのスタックトレースをバッファに追加する。<br>
+         * バッファの長さが上限位置を超えた時点で、以降の行の出力を打ち切る。
+         * ただし、{@link #isBufferAppendable()}が<code>false</code>を返す場合は、打ち切らずに{@link #appendTo(LogContext, StringBuilder)}で追加する。
+         * @param context ログコンテキスト
+         * @param sb スタックトレースを追加するバッファ
+         * @param limit 出力を打ち切ってよいバッファの長さ
+         * @return 最後まで出力した場合は<code>true</code>
+         */
+        boolean appendTo(LogContext context, StringBuilder sb, int limit) {
+            if (!isBufferAppendable()) {
+                appendTo(context, sb);
+                return true;
+            }
+            Throwable error = context.getError();
+            if (error == null) {
+                return true;
+            }
+            sb.append(Logger.LS).append("Stack Trace Information : ").append(Logger.LS);
+            return renderer.appendLimited(error, sb, limit);
+        }
         
         /**
          * フォーマット済みのスタックトレースを取得する。
@@ -438,18 +1088,18 @@ public class BasicLogFormatter implements LogFormatter {
          */
         protected String getStackTrace(Throwable error) {
             StringBuilder sb = new StringBuilder(512);
-            sb.append(Logger.LS).append("Stack Trace Information : ").append(Logger.LS);
-            StringWriter sw = null;
-            PrintWriter pw = null;
-            try {
-                sw = new StringWriter();
-                pw = new PrintWriter(sw);
-                error.printStackTrace(pw);
-                sb.append(sw.toString());
-            } finally {
-                FileUtil.closeQuietly(pw);
-            }
+            appendStackTrace(error, sb);
             return sb.toString();
         }
+
+        /**
+         * フォーマット済みのスタックトレースをバッファに追加する。
+         * @param error エラー情報
+         * @param sb 追加先のバッファ
+         */
+        private void appendStackTrace(Throwable error, StringBuilder sb) {
+            sb.append(Logger.LS).append("Stack Trace Information : ").append(Logger.LS);
+            renderer.appendTo(error, sb);
+        }
     }
 }
@@ -2,6 +2,8 @@ package nablarch.core.log.basic;
 
 import nablarch.core.log.Logger;
 
+import java.util.function.Supplier;
+
 
 /**
  * {@link Logger}の基本実装クラス。
@@ -10,6 +12,13 @@ import nablarch.core.log.Logger;
  */
 public class BasicLogger implements Logger {
 
+    /**
+     * オプション情報を指定しない呼び出しで使用する空のオプション情報。<br>
+     * 呼び出し元が生成した空の配列を{@link LogContext}に保持しないことで、
+     * JITコンパイラのエスケープ解析により空の配列の生成が除去されるようにする。
+     */
+    private static final Object[] NO_OPTIONS = new Object[0];
+
     /** ロガー名 */
     private String name;
 
@@ -21,6 +30,9 @@ public class BasicLogger implements Logger {
     
     /** {@link LogWriter} */
     private LogWriter[] writers;
+
+    /** 書き込み処理の完了後も{@link LogContext}を保持する可能性がある{@link LogWriter}か否か。{@link #writers}と同じ順序で保持する。 */
+    private boolean[] retainingWriters;
     
     /** FATALレベルのログ出力が有効か否か。 */
     private boolean fatalEnabled;
@@ -39,6 +51,12 @@ public class BasicLogger implements Logger {
     
     /** TRACEレベルのログ出力が有効か否か。 */
     private boolean traceEnabled;
+
+    /** スレッド毎に{@link LogContext}を再利用するガベージフリーモードか否か。 */
+    private boolean garbageFree;
+
+    /** {@link LogContext}の日時を取得する{@link LogClock} */
+    private LogClock clock = LogClock.SYSTEM;
     
     /**
      * コンストラクタ。
@@ -47,9 +65,38 @@ public class BasicLogger implements Logger {
      * @param writers {@link LogWriter}
      */
     BasicLogger(String name, LogLevel baseLevel, LogWriter[] writers) {
+        this(name, baseLevel, writers, false);
+    }
+
+    /**
+     * ガベージフリーモードを指定するコンストラクタ。
+     * @param name ロガー名
+     * @param baseLevel ログの出力制御の基準とする{@link LogLevel}
+     * @param writers {@link LogWriter}
+     * @param garbageFree スレッド毎に{@link LogContext}を再利用する場合は<code>true</code>
+     */
+    BasicLogger(String name, LogLevel baseLevel, LogWriter[] writers, boolean garbageFree) {
+        this(name, baseLevel, writers, garbageFree, LogClock.SYSTEM);
+    }
+
+    /**
+     * ガベージフリーモードと{@link LogClock}を指定するコンストラクタ。
+     * @param name ロガー名
+     * @param baseLevel ログの出力制御の基準とする{@link LogLevel}
+     * @param writers {@link LogWriter}
+     * @param garbageFree スレッド毎に{@link LogContext}を再利用する場合は<code>true</code>
+     * @param clock {@link LogContext}の日時を取得する{@link LogClock}
+     */
+    BasicLogger(String name, LogLevel baseLevel, LogWriter[] writers, boolean garbageFree, LogClock clock) {
         this.name = name;
         this.baseLevel = baseLevel;
         this.writers = writers;
+        this.garbageFree = garbageFree;
+        this.clock = clock;
+        retainingWriters = new boolean[writers.length];
+        for (int i = 0; i < writers.length; i++) {
+            retainingWriters[i] = ReusableLogContext.isRetainedBy(writers[i]);
+        }
         initializeLogLevelEnabled();
     }
     /**
@@ -58,7 +105,7 @@ public class BasicLogger implements Logger {
      * @param runtimeName 実行時ロガー名
      */
     BasicLogger(BasicLogger src, String runtimeName) {
-        this(src.name, src.baseLevel, src.writers);
+        this(src.name, src.baseLevel, src.writers, src.garbageFree, src.clock);
         this.runtimeName = runtimeName;
     }
 
@@ -71,6 +118,7 @@ public class BasicLogger implements Logger {
         this.name = name;
         this.baseLevel = null;
         this.writers = new LogWriter[0];
+        this.retainingWriters = new boolean[0];
     }
     
     /**
@@ -107,104 +155,630 @@ public class BasicLogger implements Logger {
     
     /** {@inheritDoc} */
     public boolean isErrorEnabled() {
-        return errorEnabled;
+        return errorEnabled || isOverridden(LogLevel.ERROR);
     }
     
     /** {@inheritDoc} */
     public void logError(String message, Object... options) {
-        if (errorEnabled) {
+        if (isErrorEnabled()) {
             log(LogLevel.ERROR, message, null, options);
         }
     }
     
     /** {@inheritDoc} */
     public void logError(String message, Throwable error, Object... options) {
-        if (errorEnabled) {
+        if (isErrorEnabled()) {
             log(LogLevel.ERROR, message, error, options);
         }
     }
     
     /** {@inheritDoc} */
     public boolean isWarnEnabled() {
-        return warnEnabled;
+        return warnEnabled || isOverridden(LogLevel.WARN);
     }
     
     /** {@inheritDoc} */
     public void logWarn(String message, Object... options) {
-        if (warnEnabled) {
+        if (isWarnEnabled()) {
             log(LogLevel.WARN, message, null, options);
         }
     }
     
     /** {@inheritDoc} */
     public void logWarn(String message, Throwable error, Object... options) {
-        if (warnEnabled) {
+        if (isWarnEnabled()) {
             log(LogLevel.WARN, message, error, options);
         }
     }
     
     /** {@inheritDoc} */
     public boolean isInfoEnabled() {
-        return infoEnabled;
+        return infoEnabled || isOverridden(LogLevel.INFO);
     }
     
     /** {@inheritDoc} */
     public void logInfo(String message, Object... options) {
-        if (infoEnabled) {
+        if (isInfoEnabled()) {
             log(LogLevel.INFO, message, null, options);
         }
     }
     
     /** {@inheritDoc} */
     public void logInfo(String message, Throwable error, Object... options) {
-        if (infoEnabled) {
+        if (isInfoEnabled()) {
             log(LogLevel.INFO, message, error, options);
         }
     }
     
     /** {@inheritDoc} */
     public boolean isDebugEnabled() {
-        return debugEnabled;
+        return debugEnabled || isOverridden(LogLevel.DEBUG);
     }
     
     /** {@inheritDoc} */
     public void logDebug(String message, Object... options) {
-        if (debugEnabled) {
+        if (isDebugEnabled()) {
             log(LogLevel.DEBUG, message, null, options);
         }
     }
     
     /** {@inheritDoc} */
     public void logDebug(String message, Throwable error, Object... options) {
-        if (debugEnabled) {
+        if (isDebugEnabled()) {
             log(LogLevel.DEBUG, message, error, options);
         }
     }
     
     /** {@inheritDoc} */
     public boolean isTraceEnabled() {
-        return traceEnabled;
+        return traceEnabled || isOverridden(LogLevel.TRACE);
     }
     
     /** {@inheritDoc} */
     public void logTrace(String message, Object... options) {
-        if (traceEnabled) {
+        if (isTraceEnabled()) {
             log(LogLevel.TRACE, message, null, options);
         }
     }
     
     /** {@inheritDoc} */
     public void logTrace(String message, Throwable error, Object... options) {
-        if (traceEnabled) {
+        if (isTraceEnabled()) {
             log(LogLevel.TRACE, message, error, options);
         }
     }
 
     /**
-     * 指定された{@link LogLevel}でログを出力する。<br>
+     * FATALレベルのログを出力する。<br>
+     * メッセージは、FATALレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     */
+    public void logFatal(Supplier<String> messageSupplier) {
+        if (fatalEnabled) {
+            log(LogLevel.FATAL, messageSupplier.get(), null);
+        }
+    }
+
+    /**
+     * FATALレベルのログを出力する。<br>
+     * メッセージは、FATALレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     * @param error エラー情報
+     */
+    public void logFatal(Supplier<String> messageSupplier, Throwable error) {
+        if (fatalEnabled) {
+            log(LogLevel.FATAL, messageSupplier.get(), error);
+        }
+    }
+
+    /**
+     * FATALレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg 引数
+     */
+    public void logFatalTemplate(String template, Object arg) {
+        if (fatalEnabled) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.FATAL, template, 1, arg, null, null));
+        }
+    }
+
+    /**
+     * FATALレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     */
+    public void logFatalTemplate(String template, Object arg1, Object arg2) {
+        if (fatalEnabled) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.FATAL, template, 2, arg1, arg2, null));
+        }
+    }
+
+    /**
+     * FATALレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     * @param arg3 3番目の引数
+     */
+    public void logFatalTemplate(String template, Object arg1, Object arg2, Object arg3) {
+        if (fatalEnabled) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.FATAL, template, 3, arg1, arg2, arg3));
+        }
+    }
+
+    /**
+     * FATALレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param args 引数
+     */
+    public void logFatalTemplate(String template, Object... args) {
+        if (fatalEnabled) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.FATAL, template, args));
+        }
+    }
+
+    /**
+     * ERRORレベルのログを出力する。<br>
+     * メッセージは、ERRORレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     */
+    public void logError(Supplier<String> messageSupplier) {
+        if (isErrorEnabled()) {
+            log(LogLevel.ERROR, messageSupplier.get(), null);
+        }
+    }
+
+    /**
+     * ERRORレベルのログを出力する。<br>
+     * メッセージは、ERRORレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     * @param error エラー情報
+     */
+    public void logError(Supplier<String> messageSupplier, Throwable error) {
+        if (isErrorEnabled()) {
+            log(LogLevel.ERROR, messageSupplier.get(), error);
+        }
+    }
+
+    /**
+     * ERRORレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg 引数
+     */
+    public void logErrorTemplate(String template, Object arg) {
+        if (isErrorEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.ERROR, template, 1, arg, null, null));
+        }
+    }
+
+    /**
+     * ERRORレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     */
+    public void logErrorTemplate(String template, Object arg1, Object arg2) {
+        if (isErrorEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.ERROR, template, 2, arg1, arg2, null));
+        }
+    }
+
+    /**
+     * ERRORレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     * @param arg3 3番目の引数
+     */
+    public void logErrorTemplate(String template, Object arg1, Object arg2, Object arg3) {
+        if (isErrorEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.ERROR, template, 3, arg1, arg2, arg3));
+        }
+    }
+
+    /**
+     * ERRORレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param args 引数
+     */
+    public void logErrorTemplate(String template, Object... args) {
+        if (isErrorEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.ERROR, template, args));
+        }
+    }
+
+    /**
+     * WARNレベルのログを出力する。<br>
+     * メッセージは、WARNレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     */
+    public void logWarn(Supplier<String> messageSupplier) {
+        if (isWarnEnabled()) {
+            log(LogLevel.WARN, messageSupplier.get(), null);
+        }
+    }
+
+    /**
+     * WARNレベルのログを出力する。<br>
+     * メッセージは、WARNレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     * @param error エラー情報
+     */
+    public void logWarn(Supplier<String> messageSupplier, Throwable error) {
+        if (isWarnEnabled()) {
+            log(LogLevel.WARN, messageSupplier.get(), error);
+        }
+    }
+
+    /**
+     * WARNレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg 引数
+     */
+    public void logWarnTemplate(String template, Object arg) {
+        if (isWarnEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.WARN, template, 1, arg, null, null));
+        }
+    }
+
+    /**
+     * WARNレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     */
+    public void logWarnTemplate(String template, Object arg1, Object arg2) {
+        if (isWarnEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.WARN, template, 2, arg1, arg2, null));
+        }
+    }
+
+    /**
+     * WARNレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     * @param arg3 3番目の引数
+     */
+    public void logWarnTemplate(String template, Object arg1, Object arg2, Object arg3) {
+        if (isWarnEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.WARN, template, 3, arg1, arg2, arg3));
+        }
+    }
+
+    /**
+     * WARNレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param args 引数
+     */
+    public void logWarnTemplate(String template, Object... args) {
+        if (isWarnEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.WARN, template, args));
+        }
+    }
+
+    /**
+     * INFOレベルのログを出力する。<br>
+     * メッセージは、INFOレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     */
+    public void logInfo(Supplier<String> messageSupplier) {
+        if (isInfoEnabled()) {
+            log(LogLevel.INFO, messageSupplier.get(), null);
+        }
+    }
+
+    /**
+     * INFOレベルのログを出力する。<br>
+     * メッセージは、INFOレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     * @param error エラー情報
+     */
+    public void logInfo(Supplier<String> messageSupplier, Throwable error) {
+        if (isInfoEnabled()) {
+            log(LogLevel.INFO, messageSupplier.get(), error);
+        }
+    }
+
+    /**
+     * INFOレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg 引数
+     */
+    public void logInfoTemplate(String template, Object arg) {
+        if (isInfoEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.INFO, template, 1, arg, null, null));
+        }
+    }
+
+    /**
+     * INFOレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     */
+    public void logInfoTemplate(String template, Object arg1, Object arg2) {
+        if (isInfoEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.INFO, template, 2, arg1, arg2, null));
+        }
+    }
+
+    /**
+     * INFOレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     * @param arg3 3番目の引数
+     */
+    public void logInfoTemplate(String template, Object arg1, Object arg2, Object arg3) {
+        if (isInfoEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.INFO, template, 3, arg1, arg2, arg3));
+        }
+    }
+
+    /**
+     * INFOレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param args 引数
+     */
+    public void logInfoTemplate(String template, Object... args) {
+        if (isInfoEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.INFO, template, args));
+        }
+    }
+
+    /**
+     * DEBUGレベルのログを出力する。<br>
+     * メッセージは、DEBUGレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     */
+    public void logDebug(Supplier<String> messageSupplier) {
+        if (isDebugEnabled()) {
+            log(LogLevel.DEBUG, messageSupplier.get(), null);
+        }
+    }
+
+    /**
+     * DEBUGレベルのログを出力する。<br>
+     * メッセージは、DEBUGレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     * @param error エラー情報
+     */
+    public void logDebug(Supplier<String> messageSupplier, Throwable error) {
+        if (isDebugEnabled()) {
+            log(LogLevel.DEBUG, messageSupplier.get(), error);
+        }
+    }
+
+    /**
+     * DEBUGレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg 引数
+     */
+    public void logDebugTemplate(String template, Object arg) {
+        if (isDebugEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.DEBUG, template, 1, arg, null, null));
+        }
+    }
+
+    /**
+     * DEBUGレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     */
+    public void logDebugTemplate(String template, Object arg1, Object arg2) {
+        if (isDebugEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.DEBUG, template, 2, arg1, arg2, null));
+        }
+    }
+
+    /**
+     * DEBUGレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     * @param arg3 3番目の引数
+     */
+    public void logDebugTemplate(String template, Object arg1, Object arg2, Object arg3) {
+        if (isDebugEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.DEBUG, template, 3, arg1, arg2, arg3));
+        }
+    }
+
+    /**
+     * DEBUGレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param args 引数
+     */
+    public void logDebugTemplate(String template, Object... args) {
+        if (isDebugEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.DEBUG, template, args));
+        }
+    }
+
+    /**
+     * TRACEレベルのログを出力する。<br>
+     * メッセージは、TRACEレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     */
+    public void logTrace(Supplier<String> messageSupplier) {
+        if (isTraceEnabled()) {
+            log(LogLevel.TRACE, messageSupplier.get(), null);
+        }
+    }
+
+    /**
+     * TRACEレベルのログを出力する。<br>
+     * メッセージは、TRACEレベルのログ出力が有効な場合のみ生成する。
+     * @param messageSupplier メッセージを生成する{@link Supplier}
+     * @param error エラー情報
+     */
+    public void logTrace(Supplier<String> messageSupplier, Throwable error) {
+        if (isTraceEnabled()) {
+            log(LogLevel.TRACE, messageSupplier.get(), error);
+        }
+    }
+
+    /**
+     * TRACEレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg 引数
+     */
+    public void logTraceTemplate(String template, Object arg) {
+        if (isTraceEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.TRACE, template, 1, arg, null, null));
+        }
+    }
+
+    /**
+     * TRACEレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     */
+    public void logTraceTemplate(String template, Object arg1, Object arg2) {
+        if (isTraceEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.TRACE, template, 2, arg1, arg2, null));
+        }
+    }
+
+    /**
+     * TRACEレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     * @param arg3 3番目の引数
+     */
+    public void logTraceTemplate(String template, Object arg1, Object arg2, Object arg3) {
+        if (isTraceEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.TRACE, template, 3, arg1, arg2, arg3));
+        }
+    }
+
+    /**
+     * TRACEレベルのログを、テンプレートの"{}"に引数を埋め込んだメッセージで出力する。
+     * @param template メッセージのテンプレート
+     * @param args 引数
+     */
+    public void logTraceTemplate(String template, Object... args) {
+        if (isTraceEnabled()) {
+            write(new ParameterizedLogContext(name, runtimeName, LogLevel.TRACE, template, args));
+        }
+    }
+
+    /**
+     * FATALレベルの構造化ログを出力する{@link StructuredLogEvent}を取得する。<br>
+     * FATALレベルのログ出力が無効な場合は、何も出力しない{@link StructuredLogEvent}を返す。
+     * @return {@link StructuredLogEvent}
+     */
+    public StructuredLogEvent atFatal() {
+        return fatalEnabled ? StructuredLogEvent.acquire(this, LogLevel.FATAL) : StructuredLogEvent.DISABLED;
+    }
+
+    /**
+     * ERRORレベルの構造化ログを出力する{@link StructuredLogEvent}を取得する。<br>
+     * ERRORレベルのログ出力が無効な場合は、何も出力しない{@link StructuredLogEvent}を返す。
+     * @return {@link StructuredLogEvent}
+     */
+    public StructuredLogEvent atError() {
+        return isErrorEnabled() ? StructuredLogEvent.acquire(this, LogLevel.ERROR) : StructuredLogEvent.DISABLED;
+    }
+
+    /**
+     * WARNレベルの構造化ログを出力する{@link StructuredLogEvent}を取得する。<br>
+     * WARNレベルのログ出力が無効な場合は、何も出力しない{@link StructuredLogEvent}を返す。
+     * @return {@link StructuredLogEvent}
+     */
+    public StructuredLogEvent atWarn() {
+        return isWarnEnabled() ? StructuredLogEvent.acquire(this, LogLevel.WARN) : StructuredLogEvent.DISABLED;
+    }
+
+    /**
+     * INFOレベルの構造化ログを出力する{@link StructuredLogEvent}を取得する。<br>
+     * INFOレベルのログ出力が無効な場合は、何も出力しない{@link StructuredLogEvent}を返す。
+     * @return {@link StructuredLogEvent}
+     */
+    public StructuredLogEvent atInfo() {
+        return isInfoEnabled() ? StructuredLogEvent.acquire(this, LogLevel.INFO) : StructuredLogEvent.DISABLED;
+    }
+
+    /**
+     * DEBUGレベルの構造化ログを出力する{@link StructuredLogEvent}を取得する。<br>
+     * DEBUGレベルのログ出力が無効な場合は、何も出力しない{@link StructuredLogEvent}を返す。
+     * @return {@link StructuredLogEvent}
+     */
+    public StructuredLogEvent atDebug() {
+        return isDebugEnabled() ? StructuredLogEvent.acquire(this, LogLevel.DEBUG) : StructuredLogEvent.DISABLED;
+    }
+
+    /**
+     * TRACEレベルの構造化ログを出力する{@link StructuredLogEvent}を取得する。<br>
+     * TRACEレベルのログ出力が無効な場合は、何も出力しない{@link StructuredLogEvent}を返す。
+     * @return {@link StructuredLogEvent}
+     */
+    public StructuredLogEvent atTrace() {
+        return isTraceEnabled() ? StructuredLogEvent.acquire(this, LogLevel.TRACE) : StructuredLogEvent.DISABLED;
+    }
+
+    /**
+     * 構造化済みメッセージのログを出力する。<br>
+     * メッセージは文字列に変換せずに{@link LogContext}に設定し、
+     * 文字列が必要な{@link LogFormatter}がフォーマットする時点で文字列に変換する。
+     * @param level {@link LogLevel}
+     * @param message 構造化済みメッセージ
+     * @param error エラー情報(nullでも可)
+     * @param options オプション情報(nullでも可)
+     */
+    public void logStructured(LogLevel level, StructuredMessage message, Throwable error, Object... options) {
+        if (isEnabled(level)) {
+            write(new StructuredMessageLogContext(name, runtimeName, level, message, error, options));
+        }
+    }
+
+    /**
+     * 指定された{@link LogLevel}のログ出力が有効になっているか否かを判定する。
+     * @param level {@link LogLevel}
+     * @return 有効になっている場合は<code>true</code>
+     */
+    private boolean isEnabled(LogLevel level) {
+        switch (level) {
+            case FATAL: return isFatalEnabled();
+            case ERROR: return isErrorEnabled();
+            case WARN: return isWarnEnabled();
+            case INFO: return isInfoEnabled();
+            case DEBUG: return isDebugEnabled();
+            default: return isTraceEnabled();
+        }
+    }
+
+    /**
+     * {@link StructuredLogEvent}のログを出力する。<br>
+     * ログ出力の有効／無効は、{@link StructuredLogEvent}の取得時に判定済みであること。
+     * @param level {@link LogLevel}
+     * @param message メッセージ
+     * @param error エラー情報(nullでも可)
+     * @param options オプション情報(nullでも可)
+     */
+    void logEvent(LogLevel level, String message, Throwable error, Object[] options) {
+        log(level, message, error, options);
+    }
+
+    /**
+     * {@link LogLevelOverrides}により、指定された{@link LogLevel}のログ出力が有効になっているか否かを判定する。<br>
      * <br>
-     * {@link LogWriter}の書き込み処理で例外が発生した場合は、発生した例外をキャッチし、標準エラーにスタックトレースを出力する。<br>
-     * 発生した例外の再スローは行わない。
+     * 出力先の{@link LogWriter}が存在しない場合は判定を行わない。
+     * @param level {@link LogLevel}
+     * @return 有効になっている場合は<code>true</code>
+     */
+    private boolean isOverridden(LogLevel level) {
+        return writers.length != 0 && LogLevelOverrides.isEnabled(level);
+    }
+
+    /**
+     * 指定された{@link LogLevel}でログを出力する。<br>
+     * ガベージフリーモードの場合は、スレッド毎に再利用する{@link LogContext}を使用する。
      * 
      * @param level {@link LogLevel}
      * @param message メッセージ
@@ -212,12 +786,52 @@ public class BasicLogger implements Logger {
      * @param options オプション情報(nullでも可)
      */
     private void log(LogLevel level, String message, Throwable error, Object... options) {
-        LogContext context = new LogContext(name, runtimeName,level, message, error, options);
-        for (LogWriter writer : writers) {
-            try {
-                writer.write(context);
-            } catch (Throwable t) {
-                t.printStackTrace(System.err);
+        if (!garbageFree) {
+            write(new LogContext(name, runtimeName, level, message, error, options, clock));
+            return;
+        }
+        LogContext context = ReusableLogContext.acquire(name, runtimeName, level, message, error,
+                                                        options != null && options.length == 0 ? NO_OPTIONS : options, clock);
+        try {
+            write(context);
+        } finally {
+            ReusableLogContext.release(context);
+        }
+    }
+
+    /**
+     * {@link LogWriter}に{@link LogContext}を書き込む。<br>
+     * <br>
+     * 複数の{@link LogWriter}に書き込む場合は、フォーマット結果を共有する{@link LogWriter}間で
+     * フォーマット結果を再利用するため、書き込みの間はフォーマット結果を{@link FormattedLogMemo}に保持する。<br>
+     * {@link LogContext}を保持する可能性がある{@link LogWriter}には、
+     * スレッド毎に再利用する{@link LogContext}や{@link StructuredLogEvent}を含まないコピーを渡す。<br>
+     * {@link LogWriter}の書き込み処理で例外が発生した場合は、発生した例外をキャッチし、標準エラーにスタックトレースを出力する。<br>
+     * 発生した例外の再スローは行わない。
+     * 
+     * @param context {@link LogContext}
+     */
+    private void write(LogContext context) {
+        FormattedLogMemo memo = writers.length > 1 ? FormattedLogMemo.begin(context) : null;
+        try {
+            LogContext retainable = null;
+            for (int i = 0; i < writers.length; i++) {
+                try {
+                    if (retainingWriters[i]) {
+                        if (retainable == null) {
+                            retainable = ReusableLogContext.copy(context);
+                        }
+                        writers[i].write(retainable);
+                    } else {
+                        writers[i].write(context);
+                    }
+                } catch (Throwable t) {
+                    t.printStackTrace(System.err);
+                }
+            }
+        } finally {
+            if (memo != null) {
+                memo.end();
             }
         }
     }
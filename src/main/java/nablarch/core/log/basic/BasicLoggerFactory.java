@@ -54,6 +54,31 @@ import nablarch.core.util.ObjectUtil;
  * <dd>{@link LogWriter}の名称。必須。<br>
  *     複数指定する場合はカンマ区切り。<br>
  *     ここで指定した全ての{@link LogWriter}に対してログの書き込みを行う。
+ *
+ * <dt>garbageFree
+ * <dd>ガベージフリーモードを使用するか否か。オプション。<br>
+ *     trueを指定した場合は、ログ出力の度に{@link LogContext}を生成せず、スレッド毎に保持したインスタンスを再利用する。
+ *     また、{@link LogWriterSupport}はスレッド毎に保持したバッファにフォーマットし、
+ *     {@link FileLogWriter}は保持したバッファに文字エンコーディングを行う。<br>
+ *     ガベージフリーモードでは、{@link LogWriter}や{@link LogListener}は受け取った{@link LogContext}を書き込み後に保持してはならない。<br>
+ *     指定がない場合はfalse。
+ *
+ * <dt>shareFormatters
+ * <dd>フォーマッタの設定が同じ{@link LogWriter}間でフォーマット結果を共有するか否か。オプション。<br>
+ *     trueを指定した場合は、1件のログを複数の{@link LogWriter}に書き込む際に、
+ *     フォーマット結果を共有する{@link LogWriter}間でフォーマットを1回で済ませる。
+ *     対象は、{@link LogWriterSupport}を継承し、{@link ShareableLogFormatter#isShareable()}が<code>true</code>を返す
+ *     {@link LogFormatter}を使用する{@link LogWriter}とする。
+ *     {@link LogFormatter}のインスタンスは共有しないため、{@link LogFormatter}が保持する状態は{@link LogWriter}毎となる。<br>
+ *     指定がない場合はtrue。
+ *
+ * <dt>clock.coarseInterval
+ * <dd>ログ出力で使用する現在日時を更新する間隔(ミリ秒)。オプション。<br>
+ *     指定した場合は、デーモンスレッドがこの間隔で更新した現在日時を{@link LogClock}として、
+ *     このファクトリが生成する{@link Logger}の{@link LogContext}の日時に使用する。
+ *     ログに出力される日時の精度はこの間隔となる。
+ *     ファイルのローテーションの判定など、{@link LogWriter}が使用する日時には影響しない。<br>
+ *     指定がない場合は、ログ出力の度に{@link System#currentTimeMillis()}を使用する。
  * </dl>
  * availableLoggersNamesOrderプロパティは、記述順に意味があるので注意すること。<br>
  * {@link Logger}の取得では、ログ出力を行うクラスが指定した{@link Logger}名に対して、
@@ -80,6 +105,12 @@ public class BasicLoggerFactory implements LoggerFactory {
     
     /** 設定で指定された全ての{@link LogWriter} */
     private Map<String, LogWriter> writers;
+
+    /** 設定で指定された間隔で現在日時を更新する{@link LogClock}。指定がない場合は<code>null</code> */
+    private CoarseLogClock coarseClock;
+
+    /** {@link LogContext}の日時を取得する{@link LogClock} */
+    private LogClock clock = LogClock.SYSTEM;
     
     /**
      * {@inheritDoc}<br>
@@ -90,12 +121,41 @@ public class BasicLoggerFactory implements LoggerFactory {
      * 初期処理完了後に、各{@link LogWriter}に対して、出力されるログレベルの書き込みを行う。
      */
     public void initialize(LogSettings settings) {
+        initializeClock(settings);
         writers = createWriters(settings);
-        loggerDefinitions = createLoggerDefinitions(settings);
+        if (!"false".equals(settings.getProps().get("shareFormatters"))) {
+            shareFormatters(settings);
+        }
+        loggerDefinitions = createLoggerDefinitions(settings, Boolean.parseBoolean(settings.getProps().get("garbageFree")));
         assertLoggerDefinitionMatching(settings);
         writeLoggerSettings();
     }
     
+    /**
+     * 現在日時を更新する間隔が指定されている場合に、その間隔で現在日時を更新する{@link LogClock}を開始する。
+     * @param settings ログ出力の設定
+     */
+    private void initializeClock(LogSettings settings) {
+        String interval = settings.getProps().get("clock.coarseInterval");
+        if (interval == null || interval.length() == 0) {
+            return;
+        }
+        long intervalMillis;
+        try {
+            intervalMillis = Long.parseLong(interval.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                String.format("invalid property was specified. 'clock.coarseInterval' must be able to convert to Long. value = [%s], file path = [%s]",
+                              interval, settings.getFilePath()), e);
+        }
+        if (intervalMillis <= 0) {
+            return;
+        }
+        coarseClock = new CoarseLogClock(intervalMillis);
+        coarseClock.start();
+        clock = coarseClock;
+    }
+
     /**
      * 使用可能なロガー設定と、全てのロガー設定が一致するか検証する。<br>
      * 一致しない場合は{@link IllegalArgumentException}を送出する。<br>
@@ -173,12 +233,60 @@ public class BasicLoggerFactory implements LoggerFactory {
         return writers;
     }
     
+    /**
+     * フォーマッタの設定が同じ{@link LogWriter}間で、フォーマット結果を共有する。<br>
+     * <br>
+     * {@link LogWriterSupport}を継承し、共有できる{@link ShareableLogFormatter}を使用する{@link LogWriter}を対象に、
+     * "writer.&lt;{@link LogWriter}の名称&gt;.formatter."で始まる設定を比較する。
+     * 設定と{@link LogFormatter}のクラスが同じ{@link LogWriter}には、最初の{@link LogWriter}と同じキーを設定し、
+     * 1件のログを複数の{@link LogWriter}に書き込む際にフォーマットを1回で済ませる。
+     * @param settings ログ出力の設定
+     */
+    private void shareFormatters(LogSettings settings) {
+        Map<Map<String, String>, LogWriterSupport> sharedWriters = new HashMap<Map<String, String>, LogWriterSupport>();
+        for (Map.Entry<String, LogWriter> entry : writers.entrySet()) {
+            if (!(entry.getValue() instanceof LogWriterSupport)) {
+                continue;
+            }
+            LogWriterSupport writer = (LogWriterSupport) entry.getValue();
+            LogFormatter formatter = writer.getFormatter();
+            if (!(formatter instanceof ShareableLogFormatter) || !((ShareableLogFormatter) formatter).isShareable()) {
+                continue;
+            }
+            Map<String, String> formatterSettings = getFormatterSettings(settings, entry.getKey());
+            LogWriterSupport shared = sharedWriters.get(formatterSettings);
+            if (shared == null) {
+                sharedWriters.put(formatterSettings, writer);
+            } else if (shared.getFormatter().getClass() == formatter.getClass()) {
+                writer.shareFormatKey(shared.getFormatKey());
+            }
+        }
+    }
+
+    /**
+     * {@link LogWriter}のフォーマッタの設定を取得する。
+     * @param settings ログ出力の設定
+     * @param writerName {@link LogWriter}の名称
+     * @return "writer.&lt;{@link LogWriter}の名称&gt;.formatter."を除いたプロパティ名と値
+     */
+    private static Map<String, String> getFormatterSettings(LogSettings settings, String writerName) {
+        String prefix = "writer." + writerName + ".formatter.";
+        Map<String, String> formatterSettings = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : settings.getProps().entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                formatterSettings.put(entry.getKey().substring(prefix.length()), entry.getValue());
+            }
+        }
+        return formatterSettings;
+    }
+    
     /**
      * 設定で指定された全ての{@link Logger}定義を生成する。
      * @param settings ログ出力の設定内容
+     * @param garbageFree ガベージフリーモードか否か
      * @return 設定で指定された全ての{@link Logger}定義
      */
-    private List<LoggerDefinition> createLoggerDefinitions(LogSettings settings) {
+    private List<LoggerDefinition> createLoggerDefinitions(LogSettings settings, boolean garbageFree) {
         String[] loggerNames = settings.getRequiredProp("availableLoggersNamesOrder").split(",");
         List<LoggerDefinition> loggers = new ArrayList<LoggerDefinition>(loggerNames.length);
         for (String splitName : loggerNames) {
@@ -188,7 +296,7 @@ public class BasicLoggerFactory implements LoggerFactory {
                     String.format("blank was included in the comma-separated value. file path = [%s], key = [availableLoggersNamesOrder]",
                                   settings.getFilePath()));
             }
-            loggers.add(createLoggerDefinition(loggerName, new ObjectSettings(settings, "loggers." + loggerName)));
+            loggers.add(createLoggerDefinition(loggerName, new ObjectSettings(settings, "loggers." + loggerName), garbageFree));
         }
         return loggers;
     }
@@ -196,7 +304,7 @@ public class BasicLoggerFactory implements LoggerFactory {
     /**
      * {@inheritDoc}<br>
      * <br>
-     * 全ての{@link LogWriter}の終了処理を行う。<br>
+     * 全ての{@link LogWriter}の終了処理を行い、現在日時を更新する{@link LogClock}を停止する。<br>
      * {@link LogWriter}の終了処理で例外が発生した場合は、発生した例外をキャッチし、標準エラーにスタックトレースを出力する。<br>
      * 発生した例外の再スローは行わない。
      */
@@ -215,6 +323,11 @@ public class BasicLoggerFactory implements LoggerFactory {
                 }
             }
         }
+        clock = LogClock.SYSTEM;
+        if (coarseClock != null) {
+            coarseClock.stop();
+            coarseClock = null;
+        }
     }
     
     /**
@@ -250,13 +363,16 @@ public class BasicLoggerFactory implements LoggerFactory {
      * 設定を使用して{@link Logger}定義を生成する。
      * @param name ロガー設定の名称
      * @param settings {@link Logger}定義の設定
+     * @param garbageFree ガベージフリーモードか否か
      * @return 設定を使用して生成した{@link Logger}定義
      */
-    private LoggerDefinition createLoggerDefinition(String name, ObjectSettings settings) {
+    private LoggerDefinition createLoggerDefinition(String name, ObjectSettings settings, boolean garbageFree) {
         return new LoggerDefinition(name,
                                      settings.getRequiredProp("nameRegex"),
                                      LogLevel.valueOf(settings.getRequiredProp("level")),
-                                     getLogWriters(settings));
+                                     getLogWriters(settings),
+                                     garbageFree,
+                                     clock);
     }
     
     /**
@@ -315,14 +431,17 @@ public class BasicLoggerFactory implements LoggerFactory {
          * @param nameRegex {@link Logger}名に対するマッチングに使用する正規表現
          * @param baseLevel ログの出力制御の基準とする{@link LogLevel}
          * @param writers ログの出力先となる{@link LogWriter}
+         * @param garbageFree ガベージフリーモードか否か
+         * @param clock {@link LogContext}の日時を取得する{@link LogClock}
          */
-        private LoggerDefinition(String name, String nameRegex, LogLevel baseLevel, List<LogWriter> writers) {
+        private LoggerDefinition(String name, String nameRegex, LogLevel baseLevel, List<LogWriter> writers, boolean garbageFree,
+                                 LogClock clock) {
             this.name = name;
             this.nameRegex = nameRegex;
             this.pattern = Pattern.compile(nameRegex);
             this.baseLevel = baseLevel;
             this.writers = writers;
-            logger = new BasicLogger(name, baseLevel, writers.toArray(new LogWriter[writers.size()]));
+            logger = new BasicLogger(name, baseLevel, writers.toArray(new LogWriter[writers.size()]), garbageFree, clock);
         }
         
         /**
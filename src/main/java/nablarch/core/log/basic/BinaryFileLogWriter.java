@@ -0,0 +1,320 @@
+package nablarch.core.log.basic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import nablarch.core.log.Logger;
+
+/**
+ * ログをバイナリ形式でファイルに書き込むクラス。<br>
+ * <br>
+ * ログは文字列へのフォーマットを行わず、フォーマッタに応じたバイナリ形式に変換して書き込む。
+ * <ul>
+ * <li>{@link BinaryLogFormatter}の場合は、ロガー名やメッセージのテンプレートなどの繰り返し出現する文字列を、
+ *     ファイル毎の辞書に1度だけ書き込む。ファイル形式は{@link BinaryLogFormatter}を参照。
+ *     書き込んだファイルは{@link BinaryLogDecoder}でテキスト形式に変換できる。
+ *     書き込みを開始する時点でリセットのレコードを書き込んで辞書をクリアする。</li>
+ * <li>{@link BinaryStructuredLogFormatter}の場合は、出力形式を示すヘッダに続けて、ログ毎にCBORまたはMessagePackで変換し、
+ *     バイト数を可変長の整数で前置して書き込む。ファイル形式は{@link BinaryStructuredLogFormatter}を参照。</li>
+ * </ul>
+ * 既存のファイルには追記する。本クラスはファイルのローテーションを行わない。<br>
+ * 追記する場合は、ファイルの先頭がフォーマッタに応じたヘッダと一致することを確認し、
+ * 書き込み途中で終了した場合などにより末尾に不完全なレコードが存在する場合は、そのレコード以降を切り詰めてから書き込む。
+ * そのため、初期処理では既存のファイルのレコードの長さを先頭から順に読み込む。<br>
+ * 書き込み処理では、書き込み後にすぐにフラッシュし、書き込んだ内容をファイルに反映する。<br>
+ * 本クラスでは、初期処理と終了処理時に、書き込み先のログファイルにINFOレベルでメッセージを出力する。<br>
+ * <br>
+ * プロパティファイルの記述ルールを下記に示す。<br>
+ * <dl>
+ * <dt>filePath</dt>
+ * <dd>書き込み先のファイルパス。必須。</dd>
+ *
+ * <dt>outputBufferSize</dt>
+ * <dd>出力バッファのサイズ。オプション。<br>
+ *     単位はキロバイト。1000バイトを1キロバイトと換算する。１以上を指定する。指定しなければ8KB。</dd>
+ *
+ * <dt>maxDictionarySize</dt>
+ * <dd>辞書に登録する文字列の件数の上限。オプション。<br>
+ *     上限に達した場合はリセットのレコードを書き込んで辞書をクリアする。指定しなければ4096。
+ *     {@link BinaryLogFormatter}を使用する場合のみ有効。</dd>
+ *
+ * <dt>formatter.className</dt>
+ * <dd>{@link BinaryLogFormatter}、{@link BinaryStructuredLogFormatter}またはそれらのサブクラスのFQCN。オプション。<br>
+ *     指定しなければ{@link BinaryLogFormatter}を使用する。</dd>
+ * </dl>
+ */
+public class BinaryFileLogWriter extends LogWriterSupport {
+
+    /** FQCN */
+    private static final String FQCN = BinaryFileLogWriter.class.getName();
+
+    /** 辞書に登録する文字列の件数の上限のデフォルト値 */
+    private static final int DEFAULT_MAX_DICTIONARY_SIZE = 4096;
+
+    /** 書き込み先のファイルパス */
+    private String filePath;
+
+    /** 出力バッファのサイズ */
+    private int outputBufferSize;
+
+    /** 辞書に登録する文字列の件数の上限 */
+    private int maxDictionarySize;
+
+    /** ファイルに書き込みを行う出力ストリーム */
+    private OutputStream out;
+
+    /** ログをレコードに変換する{@link BinaryRecordEncoder} */
+    private BinaryRecordEncoder encoder;
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * フォーマッタのクラス名が指定されていない場合は、{@link BinaryLogFormatter}を生成する。
+     */
+    @Override
+    protected LogFormatter createLogFormatter(ObjectSettings settings) {
+        LogFormatter formatter = super.createLogFormatter(settings);
+        return formatter != null ? formatter : new BinaryLogFormatter();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * プロパティファイルで指定された設定情報を取得し、ファイルへの書き込みを行う出力ストリームを初期化する。<br>
+     * 初期処理完了後、INFOレベルで設定情報を出力する。
+     */
+    @Override
+    protected void onInitialize(ObjectSettings settings) {
+
+        filePath = settings.getRequiredProp("filePath");
+
+        try {
+            outputBufferSize = Integer.parseInt(settings.getProp("outputBufferSize")) * FileLogWriter.KB;
+        } catch (NumberFormatException e) {
+            outputBufferSize = 8 * FileLogWriter.KB;
+        }
+
+        maxDictionarySize = ObjectSettingsSupport.getIntProp(settings, "maxDictionarySize", DEFAULT_MAX_DICTIONARY_SIZE);
+
+        LogFormatter formatter = getFormatter();
+        if (formatter instanceof BinaryLogFormatter) {
+            encoder = ((BinaryLogFormatter) formatter).createEncoder(maxDictionarySize);
+        } else if (formatter instanceof BinaryStructuredLogFormatter) {
+            encoder = ((BinaryStructuredLogFormatter) formatter).createEncoder();
+        } else {
+            throw new IllegalArgumentException(String.format(
+                    "BinaryFileLogWriter requires BinaryLogFormatter or BinaryStructuredLogFormatter."
+                    + " formatter class = [%s], name = [%s]",
+                    formatter.getClass().getName(), getName()));
+        }
+
+        initializeWriter();
+    }
+
+    /**
+     * 設定情報を取得する。<br>
+     * <br>
+     * 設定情報のフォーマットを下記に示す。<br>
+     * <br>
+     * WRITER NAME         = [&lt;{@link LogWriter}の名称&gt;]<br>
+     * WRITER CLASS        = [&lt;{@link LogWriter}のクラス名&gt;]<br>
+     * FORMATTER CLASS     = [&lt;{@link LogFormatter}のクラス名&gt;]<br>
+     * LEVEL               = [&lt;ログの出力制御の基準とする{@link LogLevel}&gt;]
+     * FILE PATH           = [&lt;書き込み先のファイルパス&gt;]<br>
+     * OUTPUT BUFFER SIZE  = [&lt;出力バッファのサイズ&gt;]<br>
+     * MAX DICTIONARY SIZE = [&lt;辞書に登録する文字列の件数の上限&gt;]<br>
+     * @return 設定情報
+     * @see LogWriterSupport#getSettings()
+     */
+    @Override
+    protected String getSettings() {
+        return new StringBuilder(512)
+                .append(super.getSettings())
+                .append("\tFILE PATH           = [").append(filePath).append("]").append(Logger.LS)
+                .append("\tOUTPUT BUFFER SIZE  = [").append(outputBufferSize).append("]").append(Logger.LS)
+                .append("\tMAX DICTIONARY SIZE = [").append(maxDictionarySize).append("]").append(Logger.LS)
+                .toString();
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * 終了処理の前に、INFOレベルで終了メッセージを出力する。<br>
+     * ファイルへの書き込みを行う出力ストリームをクローズする。
+     */
+    @Override
+    protected void onTerminate() {
+        synchronized (this) {
+            try {
+                writeRecords(new LogContext(FQCN, LogLevel.INFO, "terminated.", null));
+                out.close();
+                out = null;
+            } catch (IOException e) {
+                throw new IllegalStateException("termination failed. out name = [" + getName() + "]", e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * 文字列にフォーマットせずに、フォーマッタに応じたバイナリ形式に変換して書き込む。<br>
+     * 書き込み後にすぐにフラッシュし、書き込んだ内容をファイルに反映する。<br>
+     * <br>
+     * IO例外が発生した場合は、IO例外をラップして{@link IllegalStateException}を送出する。
+     */
+    @Override
+    protected void onWrite(LogContext context) {
+        synchronized (this) {
+            if (out == null) {
+                throw new IllegalStateException(String.format(
+                        "failed to write for BinaryFileLogWriter has already terminated. name = [%s]", getName()));
+            }
+            try {
+                encoder.encode(context).writeTo(out);
+                out.flush();
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to write. out name = [" + getName() + "]", e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * 本クラスのログは{@link #onWrite(LogContext)}で書き込むため、通常は呼び出されない。
+     * 呼び出された場合は、フォーマット済みのログをメッセージとするINFOレベルのログとして書き込む。
+     */
+    @Override
+    protected void onWrite(String formattedMessage) {
+        onWrite(new LogContext(FQCN, LogLevel.INFO, formattedMessage, null));
+    }
+
+    /**
+     * ファイルへの書き込みを行う出力ストリームを初期化する。<br>
+     * 空のファイルの場合はヘッダを書き込む。
+     * 続けて、書き込みを開始する時点の内容と、初期処理完了のメッセージを書き込む。
+     */
+    private void initializeWriter() {
+        try {
+            byte[] header = encoder.getHeader();
+            boolean empty = prepareFile(new File(filePath), header);
+            out = new BufferedOutputStream(new FileOutputStream(filePath, true), outputBufferSize);
+            if (empty) {
+                out.write(header);
+            }
+            encoder.start().writeTo(out);
+            LogContext context = new LogContext(FQCN, LogLevel.INFO, "initialized." + Logger.LS + getSettings(), null);
+            writeRecords(context);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format(
+                    "failed to create %s. file name = [%s], buffer size =[%s]",
+                    OutputStream.class.getName(), filePath, outputBufferSize), e);
+        }
+    }
+
+    /**
+     * 追記する既存のファイルを検証し、末尾の不完全なレコードを切り詰める。<br>
+     * ヘッダの途中までしか書き込まれていないファイルは、空のファイルとして扱う。
+     * @param file 書き込み先のファイル
+     * @param header ファイルの先頭に書き込むヘッダ
+     * @return 空のファイルの場合は<code>true</code>
+     * @throws IOException IO例外
+     * @throws IllegalArgumentException ファイルの先頭がヘッダと一致しない場合
+     */
+    private boolean prepareFile(File file, byte[] header) throws IOException {
+        long fileLength = file.length();
+        if (fileLength == 0) {
+            return true;
+        }
+        long validLength;
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            byte[] actual = new byte[header.length];
+            int read = 0;
+            while (read < header.length) {
+                int n = in.read(actual, read, header.length - read);
+                if (n == -1) {
+                    break;
+                }
+                read += n;
+            }
+            if (!Arrays.equals(Arrays.copyOf(actual, read), Arrays.copyOf(header, read))) {
+                throw new IllegalArgumentException(String.format(
+                        "failed to append. header of the existing file does not match. file name = [%s], name = [%s]",
+                        filePath, getName()));
+            }
+            validLength = read < header.length ? 0 : header.length + skipRecords(in, fileLength - header.length);
+        } finally {
+            in.close();
+        }
+        if (validLength < fileLength) {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(validLength);
+            } finally {
+                raf.close();
+            }
+        }
+        return validLength == 0;
+    }
+
+    /**
+     * バイト数を前置したレコードを、完全に読み込めるレコードの終端まで読み飛ばす。<br>
+     * バイト数が0のレコードと、バイト数に満たずに終端に達したレコードは、不完全なレコードとして扱う。
+     * @param in 入力ストリーム
+     * @param length 入力ストリームから読み込めるバイト数
+     * @return 完全に読み込めたレコードのバイト数の合計
+     * @throws IOException IO例外
+     */
+    private static long skipRecords(InputStream in, long length) throws IOException {
+        long validLength = 0;
+        while (validLength < length) {
+            long recordLength = 0;
+            int prefixLength = 0;
+            int b;
+            do {
+                b = in.read();
+                if (b == -1 || prefixLength == 5) {
+                    return validLength;
+                }
+                recordLength |= (long) (b & 0x7F) << (7 * prefixLength);
+                prefixLength++;
+            } while ((b & 0x80) != 0);
+            if (recordLength == 0 || validLength + prefixLength + recordLength > length) {
+                return validLength;
+            }
+            for (long remaining = recordLength; remaining > 0; ) {
+                long skipped = in.skip(remaining);
+                if (skipped <= 0) {
+                    return validLength;
+                }
+                remaining -= skipped;
+            }
+            validLength += prefixLength + recordLength;
+        }
+        return validLength;
+    }
+
+    /**
+     * 出力対象の場合に、ログを書き込んでフラッシュする。
+     * @param context {@link LogContext}
+     * @throws IOException IO例外
+     */
+    private void writeRecords(LogContext context) throws IOException {
+        // 本来はメッセージを連結する前にメッセージ出力要否をチェックすべきだが、
+        // 実行される回数が少なくパフォーマンスに与える影響が軽微と考えてあえてここでチェックする。
+        if (needsToWrite(context)) {
+            encoder.encode(context).writeTo(out);
+        }
+        out.flush();
+    }
+}
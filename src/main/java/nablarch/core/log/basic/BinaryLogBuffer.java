@@ -0,0 +1,277 @@
+package nablarch.core.log.basic;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * バイナリ形式のログを組み立てる、拡張可能なバイト配列のバッファ。<br>
+ * <br>
+ * 整数は可変長(7ビット毎に継続ビットを付与するリトルエンディアン)で書き込み、
+ * 文字列は可変長のバイト数に続けてUTF-8で文字エンコーディングしたバイト列を書き込む。<br>
+ * 書き込むまで確定しない長さは、領域を確保して内容を書き込んだ後に書き込む。
+ * 確保した領域と長さのバイト数が異なる場合のみ、内容をずらす。
+ */
+final class BinaryLogBuffer {
+
+    /** バッファの初期サイズ */
+    private static final int INITIAL_SIZE = 256;
+
+    /** レコードのバイト数として確保するバイト数(16383バイトまでのレコードを内容をずらさずに書き込める) */
+    private static final int RECORD_PREFIX_LENGTH = 2;
+
+    /** バッファ */
+    private byte[] bytes = new byte[INITIAL_SIZE];
+
+    /** 書き込んだバイト数 */
+    private int length;
+
+    /**
+     * 書き込んだ内容を破棄する。
+     */
+    void clear() {
+        length = 0;
+    }
+
+    /**
+     * 書き込んだバイト数を取得する。
+     * @return 書き込んだバイト数
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * 書き込み位置を変更する。<br>
+     * {@link #rewind(int, int, int)}で戻した書き込み位置を、内容の終端に戻すために使用する。
+     * @param length 書き込み位置
+     */
+    void setLength(int length) {
+        this.length = length;
+    }
+
+    /**
+     * 後から長さを書き込むための領域を確保する。
+     * @param size 確保するバイト数
+     */
+    void reserve(int size) {
+        ensureCapacity(length + size);
+        length += size;
+    }
+
+    /**
+     * 確保した領域に長さを書き込むために、書き込み位置を領域の先頭に戻す。<br>
+     * 長さのバイト数が確保した領域と異なる場合は、領域に続けて書き込んだ内容をずらす。
+     * @param start 確保した領域の先頭の位置
+     * @param reservedLength 確保したバイト数
+     * @param headerLength 長さを書き込むバイト数
+     * @return 内容の終端の位置
+     */
+    int rewind(int start, int reservedLength, int headerLength) {
+        int contentStart = start + reservedLength;
+        int contentLength = length - contentStart;
+        if (headerLength != reservedLength) {
+            ensureCapacity(start + headerLength + contentLength);
+            System.arraycopy(bytes, contentStart, bytes, start + headerLength, contentLength);
+        }
+        length = start;
+        return start + headerLength + contentLength;
+    }
+
+    /**
+     * レコードの書き込みを開始する。<br>
+     * レコードのバイト数を書き込む領域を確保し、続けてレコードの内容を書き込めるようにする。
+     * @return レコードの先頭の位置。{@link #endRecord(int)}に指定する
+     */
+    int beginRecord() {
+        int start = length;
+        reserve(RECORD_PREFIX_LENGTH);
+        return start;
+    }
+
+    /**
+     * レコードの書き込みを終了する。<br>
+     * {@link #beginRecord()}以降に書き込んだ内容のバイト数を、確保した領域に可変長で書き込む。
+     * @param start レコードの先頭の位置
+     */
+    void endRecord(int start) {
+        long recordLength = length - start - RECORD_PREFIX_LENGTH;
+        int end = rewind(start, RECORD_PREFIX_LENGTH, varLongLength(recordLength));
+        writeVarLong(recordLength);
+        length = end;
+    }
+
+    /**
+     * 1バイトを書き込む。
+     * @param b 書き込む値
+     */
+    void writeByte(int b) {
+        ensureCapacity(length + 1);
+        bytes[length++] = (byte) b;
+    }
+
+    /**
+     * 0以上の整数を可変長で書き込む。
+     * @param value 0以上の整数
+     */
+    void writeVarLong(long value) {
+        ensureCapacity(length + 10);
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            bytes[length++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        bytes[length++] = (byte) v;
+    }
+
+    /**
+     * 負の値を含む整数を、絶対値が小さいほど短くなるように変換して可変長で書き込む。
+     * @param value 整数
+     */
+    void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * 2バイトの整数をビッグエンディアンで書き込む。
+     * @param value 整数
+     */
+    void writeShort(int value) {
+        ensureCapacity(length + 2);
+        bytes[length++] = (byte) (value >>> 8);
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * 4バイトの整数をビッグエンディアンで書き込む。
+     * @param value 整数
+     */
+    void writeInt(int value) {
+        ensureCapacity(length + 4);
+        bytes[length++] = (byte) (value >>> 24);
+        bytes[length++] = (byte) (value >>> 16);
+        bytes[length++] = (byte) (value >>> 8);
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * 8バイトの整数をビッグエンディアンで書き込む。
+     * @param value 整数
+     */
+    void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    /**
+     * バイト配列をそのまま書き込む。
+     * @param value バイト配列
+     */
+    void writeBytes(byte[] value) {
+        ensureCapacity(length + value.length);
+        System.arraycopy(value, 0, bytes, length, value.length);
+        length += value.length;
+    }
+
+    /**
+     * 文字列をUTF-8で文字エンコーディングして書き込む。<br>
+     * バイト数は書き込まないため、必要な場合は{@link #reserve(int)}で確保した領域に後から書き込むこと。
+     * @param value 文字列
+     * @return 書き込んだバイト数
+     */
+    int writeUtf8(CharSequence value) {
+        int start = length;
+        ensureCapacity(start + Utf8Encoder.maxEncodedLength(value.length()));
+        length = Utf8Encoder.encode(value, bytes, start);
+        return length - start;
+    }
+
+    /**
+     * 書き込んだ内容をバイト配列にコピーする。
+     * @return 書き込んだ内容
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * <code>null</code>を含む文字列を書き込む。<br>
+     * <code>null</code>の場合は0を、それ以外の場合はバイト数に1を加えた値に続けてバイト列を書き込む。<br>
+     * バイト数は文字エンコーディング後に確定するため、1バイトで表せない場合のみバイト列を後ろにずらす。
+     * @param value 文字列
+     */
+    void writeNullableString(CharSequence value) {
+        if (value == null) {
+            writeByte(0);
+            return;
+        }
+        int start = length;
+        ensureCapacity(start + 1 + Utf8Encoder.maxEncodedLength(value.length()) + 5);
+        int end = Utf8Encoder.encode(value, bytes, start + 1);
+        int byteLength = end - start - 1;
+        int prefixLength = varLongLength(byteLength + 1L);
+        if (prefixLength > 1) {
+            System.arraycopy(bytes, start + 1, bytes, start + prefixLength, byteLength);
+        }
+        length = start;
+        writeVarLong(byteLength + 1L);
+        length += byteLength;
+    }
+
+    /**
+     * 指定されたバッファの内容を、バイト数を前置したレコードとして書き込む。
+     * @param record レコードの内容
+     */
+    void writeRecord(BinaryLogBuffer record) {
+        writeVarLong(record.length);
+        ensureCapacity(length + record.length);
+        System.arraycopy(record.bytes, 0, bytes, length, record.length);
+        length += record.length;
+    }
+
+    /**
+     * 書き込んだ内容を出力ストリームに書き込む。
+     * @param out 出力ストリーム
+     * @throws IOException IO例外
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * バッファの容量が指定されたサイズを超えている場合に、初期サイズのバッファに置き換える。<br>
+     * 書き込んだ内容は破棄する。
+     * @param maxSize 保持し続ける最大サイズ
+     */
+    void shrink(int maxSize) {
+        length = 0;
+        if (bytes.length > maxSize) {
+            bytes = new byte[INITIAL_SIZE];
+        }
+    }
+
+    /**
+     * 可変長で書き込んだ場合のバイト数を取得する。
+     * @param value 0以上の整数
+     * @return バイト数
+     */
+    private static int varLongLength(long value) {
+        int n = 1;
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            n++;
+            v >>>= 7;
+        }
+        return n;
+    }
+
+    /**
+     * バッファの容量が不足する場合は拡張する。
+     * @param capacity 必要な容量
+     */
+    private void ensureCapacity(int capacity) {
+        if (bytes.length < capacity) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+}
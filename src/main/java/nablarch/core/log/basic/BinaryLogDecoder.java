@@ -0,0 +1,413 @@
+package nablarch.core.log.basic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nablarch.core.ThreadContext;
+import nablarch.core.log.LogSettings;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * {@link BinaryFileLogWriter}で書き込んだファイルを、テキスト形式に変換するクラス。<br>
+ * <br>
+ * コマンドラインから下記の形式で実行し、変換結果を標準出力に出力する。
+ * <pre>
+ * java nablarch.core.log.basic.BinaryLogDecoder &lt;ファイルパス&gt; [basic|json] [プロパティファイルのパス]
+ * </pre>
+ * 2番目の引数で出力形式を指定する。basicの場合は{@link BasicLogFormatter}、jsonの場合は{@link JsonLogFormatter}を使用する。
+ * 指定しなければbasicとなる。<br>
+ * 3番目の引数で指定したプロパティファイルの、"formatter."から始まるプロパティをフォーマッタの設定として使用する。
+ * 例えば、{@link BasicLogFormatter}のフォーマットは"formatter.format"で指定する。
+ * 起動プロセスと処理方式はファイルに書き込まれないため、このプロパティファイルの設定から出力する。<br>
+ * <br>
+ * オプション情報のエントリの値は、書き込み時にtoString()した文字列として出力する。
+ * 書き込み途中で終了したファイルの末尾にある不完全なレコードは無視する。
+ */
+@Published(tag = "architect")
+public final class BinaryLogDecoder {
+
+    /** 使用方法 */
+    private static final String USAGE = "usage: java " + BinaryLogDecoder.class.getName()
+            + " <binary log file> [basic|json] [properties file]";
+
+    /** フォーマッタの設定のプレフィックス */
+    private static final String FORMATTER_SETTINGS_NAME = "formatter";
+
+    /** 変換に使用する{@link LogFormatter} */
+    private final LogFormatter formatter;
+
+    /** 辞書に登録された文字列 */
+    private final List<String> dictionary = new ArrayList<String>();
+
+    /** 直前のログの日時 */
+    private long lastTime;
+
+    /**
+     * コンストラクタ。
+     * @param formatter 変換に使用する{@link LogFormatter}
+     */
+    private BinaryLogDecoder(LogFormatter formatter) {
+        this.formatter = formatter;
+    }
+
+    /**
+     * ファイルをテキスト形式に変換し、標準出力に出力する。
+     * @param args ファイルパス、出力形式(basicまたはjson)、プロパティファイルのパス
+     * @throws IOException IO例外
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        LogFormatter formatter = createFormatter(args.length > 1 ? args[1] : "basic", args.length > 2 ? args[2] : null);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()));
+        InputStream in = new BufferedInputStream(new FileInputStream(args[0]));
+        try {
+            decode(in, formatter, out);
+        } finally {
+            in.close();
+            out.flush();
+        }
+    }
+
+    /**
+     * 出力形式に応じた{@link LogFormatter}を生成する。
+     * @param layout 出力形式
+     * @param settingsPath プロパティファイルのパス(nullでも可)
+     * @return 初期化済みの{@link LogFormatter}
+     */
+    private static LogFormatter createFormatter(String layout, String settingsPath) {
+        LogFormatter formatter;
+        if ("basic".equals(layout)) {
+            formatter = new BasicLogFormatter();
+        } else if ("json".equals(layout)) {
+            formatter = new JsonLogFormatter();
+        } else {
+            throw new IllegalArgumentException(
+                    String.format("[%s] is unknown layout. layout must be basic or json. %s", layout, USAGE));
+        }
+        formatter.initialize(new ObjectSettings(new DecoderLogSettings(settingsPath), FORMATTER_SETTINGS_NAME));
+        return formatter;
+    }
+
+    /**
+     * 入力ストリームから読み込んだバイナリ形式のログを、指定された{@link LogFormatter}でフォーマットして書き込む。<br>
+     * 変換中は、ログに書き込まれたユーザID、リクエストID、実行時IDを{@link ThreadContext}に設定し、
+     * 変換後に変換前の値に戻す。
+     * @param in 入力ストリーム
+     * @param formatter 変換に使用する{@link LogFormatter}
+     * @param out 書き込み先
+     * @throws IOException IO例外
+     * @throws IllegalArgumentException バイナリ形式のログとして読み込めない場合
+     */
+    public static void decode(InputStream in, LogFormatter formatter, Writer out) throws IOException {
+        String userId = ThreadContext.getUserId();
+        String requestId = ThreadContext.getRequestId();
+        String executionId = ThreadContext.getExecutionId();
+        try {
+            new BinaryLogDecoder(formatter).decodeAll(in, out);
+        } finally {
+            ThreadContext.setUserId(userId);
+            ThreadContext.setRequestId(requestId);
+            ThreadContext.setExecutionId(executionId);
+        }
+    }
+
+    /**
+     * ヘッダを検証し、全てのレコードを読み込んで変換する。
+     * @param in 入力ストリーム
+     * @param out 書き込み先
+     * @throws IOException IO例外
+     */
+    private void decodeAll(InputStream in, Writer out) throws IOException {
+        byte[] header = readFully(in, BinaryLogFormatter.MAGIC.length + 1);
+        if (header == null) {
+            throw new IllegalArgumentException("not a binary log file. header was not found.");
+        }
+        for (int i = 0; i < BinaryLogFormatter.MAGIC.length; i++) {
+            if (header[i] != BinaryLogFormatter.MAGIC[i]) {
+                throw new IllegalArgumentException("not a binary log file. magic number does not match.");
+            }
+        }
+        int version = header[BinaryLogFormatter.MAGIC.length];
+        if (version != BinaryLogFormatter.VERSION) {
+            throw new IllegalArgumentException(
+                    String.format("unsupported binary log file version. version = [%s]", version));
+        }
+        byte[] payload;
+        while ((payload = readRecord(in)) != null) {
+            RecordReader reader = new RecordReader(payload);
+            int type = reader.readByte();
+            switch (type) {
+                case BinaryLogFormatter.RECORD_RESET:
+                    dictionary.clear();
+                    lastTime = 0;
+                    break;
+                case BinaryLogFormatter.RECORD_DICTIONARY:
+                    long id = reader.readVarLong();
+                    if (id != dictionary.size()) {
+                        throw new IllegalArgumentException(String.format(
+                                "invalid dictionary id. id = [%s], expected = [%s]", id, dictionary.size()));
+                    }
+                    dictionary.add(reader.readNullableString());
+                    break;
+                case BinaryLogFormatter.RECORD_EVENT:
+                    out.write(formatter.format(readEvent(reader)));
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("unknown record type. type = [%s]", type));
+            }
+        }
+    }
+
+    /**
+     * ログのレコードを読み込み、{@link LogContext}に変換する。
+     * @param reader レコードの内容
+     * @return {@link LogContext}
+     */
+    private LogContext readEvent(RecordReader reader) {
+        lastTime += reader.readSignedVarLong();
+        Date date = new Date(lastTime);
+        LogLevel level = BinaryLogFormatter.toLevel(reader.readByte());
+        String loggerName = lookup(reader.readVarLong());
+        String runtimeLoggerName = lookup(reader.readVarLong());
+        ThreadContext.setRequestId(lookup(reader.readVarLong()));
+        ThreadContext.setUserId(lookup(reader.readVarLong()));
+        ThreadContext.setExecutionId(reader.readNullableString());
+
+        int messageType = reader.readByte();
+        String message = null;
+        Object[] args = null;
+        if (messageType == BinaryLogFormatter.MESSAGE_TEMPLATE) {
+            message = lookup(reader.readVarLong());
+            args = new Object[(int) reader.readVarLong()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = reader.readNullableString();
+            }
+        } else if (messageType == BinaryLogFormatter.MESSAGE_TEXT) {
+            message = reader.readNullableString();
+        } else if (messageType != BinaryLogFormatter.MESSAGE_NULL) {
+            throw new IllegalArgumentException(String.format("unknown message type. type = [%s]", messageType));
+        }
+
+        String stackTrace = reader.readNullableString();
+        Throwable error = stackTrace != null ? new DecodedError(stackTrace) : null;
+
+        int optionCount = (int) reader.readVarLong();
+        Object[] options = null;
+        if (optionCount > 0) {
+            Map<String, Object> payload = new LinkedHashMap<String, Object>();
+            for (int i = 0; i < optionCount; i++) {
+                String key = lookup(reader.readVarLong());
+                payload.put(key, reader.readNullableString());
+            }
+            options = new Object[] {payload};
+        }
+
+        LogContext context = args != null
+                ? new ParameterizedLogContext(loggerName, runtimeLoggerName, level, message, args)
+                : new LogContext();
+        context.set(loggerName, runtimeLoggerName, level, message, error, options, date);
+        return context;
+    }
+
+    /**
+     * 辞書のIDから文字列を取得する。
+     * @param reference 辞書のIDに1を加えた値。<code>null</code>の場合は0
+     * @return 文字列
+     */
+    private String lookup(long reference) {
+        if (reference == 0) {
+            return null;
+        }
+        if (reference > dictionary.size()) {
+            throw new IllegalArgumentException(
+                    String.format("undefined dictionary id. id = [%s]", reference - 1));
+        }
+        return dictionary.get((int) (reference - 1));
+    }
+
+    /**
+     * レコードの内容を読み込む。
+     * @param in 入力ストリーム
+     * @return レコードの内容。ファイルの終端または不完全なレコードの場合は<code>null</code>
+     * @throws IOException IO例外
+     */
+    private static byte[] readRecord(InputStream in) throws IOException {
+        long length = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                return null;
+            }
+            if (shift > 28) {
+                throw new IllegalArgumentException("invalid record length.");
+            }
+            length |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length == 0 || length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("invalid record length. length = [%s]", length));
+        }
+        return readFully(in, (int) length);
+    }
+
+    /**
+     * 指定されたバイト数を読み込む。
+     * @param in 入力ストリーム
+     * @param length バイト数
+     * @return 読み込んだバイト配列。指定されたバイト数に満たずに終端に達した場合は<code>null</code>
+     * @throws IOException IO例外
+     */
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(bytes, read, length - read);
+            if (n == -1) {
+                return null;
+            }
+            read += n;
+        }
+        return bytes;
+    }
+
+    /**
+     * レコードの内容を先頭から読み込むクラス。
+     */
+    private static final class RecordReader {
+
+        /** レコードの内容 */
+        private final byte[] bytes;
+
+        /** 読み込み位置 */
+        private int position;
+
+        /**
+         * コンストラクタ。
+         * @param bytes レコードの内容
+         */
+        RecordReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * 1バイトを読み込む。
+         * @return 0から255の値
+         */
+        int readByte() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("unexpected end of record.");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        /**
+         * 可変長の0以上の整数を読み込む。
+         * @return 整数
+         */
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("invalid variable-length integer.");
+        }
+
+        /**
+         * 可変長の負の値を含む整数を読み込む。
+         * @return 整数
+         */
+        long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * <code>null</code>を含む文字列を読み込む。
+         * @return 文字列
+         */
+        String readNullableString() {
+            long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            int byteLength = (int) (length - 1);
+            if (length - 1 > bytes.length - position) {
+                throw new IllegalArgumentException("unexpected end of record.");
+            }
+            String value = new String(bytes, position, byteLength, StandardCharsets.UTF_8);
+            position += byteLength;
+            return value;
+        }
+    }
+
+    /**
+     * 書き込み時に文字列に変換したスタックトレースを保持する例外。<br>
+     * {@link StackTraceRenderer}で出力した場合に、保持したスタックトレースをそのまま出力する。
+     */
+    private static final class DecodedError extends Throwable {
+
+        /** serialVersionUID */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * コンストラクタ。
+         * @param stackTrace スタックトレース
+         */
+        DecodedError(String stackTrace) {
+            super(stackTrace, null, false, false);
+        }
+
+        @Override
+        public String toString() {
+            return getMessage();
+        }
+    }
+
+    /**
+     * プロパティファイルの指定を省略できる{@link LogSettings}。
+     */
+    private static final class DecoderLogSettings extends LogSettings {
+
+        /**
+         * コンストラクタ。
+         * @param filePath プロパティファイルのパス(nullでも可)
+         */
+        DecoderLogSettings(String filePath) {
+            super(filePath);
+        }
+
+        /**
+         * {@inheritDoc}<br>
+         * <br>
+         * プロパティファイルのパスが指定されていない場合は、空の設定を返す。
+         */
+        @Override
+        protected Map<String, String> loadSettings(String filePath) {
+            if (filePath == null) {
+                return new HashMap<String, String>();
+            }
+            return super.loadSettings(filePath);
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package nablarch.core.log.basic;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * ログをコンパクトなバイナリ形式に変換するクラス。<br>
+ * <br>
+ * 本クラスは{@link BinaryFileLogWriter}と組み合わせて使用する。
+ * 書き込んだファイルは{@link BinaryLogDecoder}で{@link BasicLogFormatter}や{@link JsonLogFormatter}の形式に変換できる。
+ * 文字列を出力する{@link LogWriter}と組み合わせた場合は、{@link BasicLogFormatter}でフォーマットした文字列を出力する。<br>
+ * <br>
+ * ファイルは、マジックナンバー"NBLOG"とバージョンの1バイトに続けて、レコードを並べた構成となる。
+ * レコードは、内容のバイト数を可変長の整数で前置し、内容の1バイト目でレコードの種類を示す。
+ * <pre>
+ * リセット(0)
+ *     辞書と日時の基準をクリアする。ファイルを開いた時点と、辞書の件数が上限に達した時点に書き込む。
+ * 辞書(1)
+ *     辞書のIDと文字列。ロガー名、実行時ロガー名、リクエストID、ユーザID、メッセージのテンプレート、
+ *     オプション情報のキーは、初めて出現した時点で1度だけ辞書に登録し、以降はIDのみを書き込む。
+ * ログ(2)
+ *     直前のログとの日時の差分(ミリ秒)、ログレベルのコード(FATAL=1、ERROR=2、WARN=3、INFO=4、DEBUG=5、TRACE=6)、辞書のID、実行時ID、メッセージ、スタックトレース、
+ *     オプション情報({@code Map<String, Object>}のエントリの値をtoString()した文字列)。
+ *     メッセージは、{@link nablarch.core.log.Logger}のプレースホルダ形式で出力された場合は、
+ *     テンプレートを辞書のIDで、引数をtoString()した文字列で書き込む。
+ * </pre>
+ * 起動プロセスと処理方式は書き込まない。変換時に{@link BinaryLogDecoder}で使用するフォーマッタの設定から出力する。<br>
+ * <br>
+ * プロパティファイルの記述ルールを下記に示す。<br>
+ * <br>
+ * <dl>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.stackTrace.*}<dt/>
+ *   <dd>スタックトレースの出力に関する設定。オプション。<br>
+ *       {@link StackTraceRenderer#create(ObjectSettings)}を参照。<dd/>
+ * </dl>
+ * 文字列にフォーマットする場合は、{@link BasicLogFormatter}のプロパティも指定できる。
+ */
+@Published(tag = "architect")
+public class BinaryLogFormatter implements LogFormatter {
+
+    /** ファイルの先頭に書き込むマジックナンバー */
+    static final byte[] MAGIC = {'N', 'B', 'L', 'O', 'G'};
+
+    /** ファイル形式のバージョン */
+    static final int VERSION = 2;
+
+    /** ファイルの先頭に書き込むヘッダ。マジックナンバーとバージョンで構成する */
+    private static final byte[] HEADER = createHeader();
+
+    /** リセットを示すレコードの種類 */
+    static final int RECORD_RESET = 0;
+
+    /** 辞書を示すレコードの種類 */
+    static final int RECORD_DICTIONARY = 1;
+
+    /** ログを示すレコードの種類 */
+    static final int RECORD_EVENT = 2;
+
+    /** メッセージが<code>null</code>であることを示すメッセージの種類 */
+    static final int MESSAGE_NULL = 0;
+
+    /** メッセージを文字列で書き込んだことを示すメッセージの種類 */
+    static final int MESSAGE_TEXT = 1;
+
+    /** メッセージをテンプレートと引数で書き込んだことを示すメッセージの種類 */
+    static final int MESSAGE_TEMPLATE = 2;
+
+    /** レコードの組み立てに使用するバッファとして保持し続ける最大サイズ */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    /** スタックトレースの出力に使用する{@link StackTraceRenderer} */
+    private StackTraceRenderer stackTraceRenderer = StackTraceRenderer.DEFAULT;
+
+    /** 文字列へのフォーマットに使用する{@link BasicLogFormatter} */
+    private final BasicLogFormatter textFormatter = new BasicLogFormatter();
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * スタックトレースの出力に関する設定と、文字列へのフォーマットに関する設定を取得する。
+     */
+    public void initialize(ObjectSettings settings) {
+        stackTraceRenderer = StackTraceRenderer.create(settings);
+        textFormatter.initialize(settings);
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * 文字列を出力する{@link LogWriter}と組み合わせた場合に使用する。
+     * 同じ設定で初期化した{@link BasicLogFormatter}でフォーマットする。
+     */
+    public String format(LogContext context) {
+        return textFormatter.format(context);
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * 同じ設定で初期化した{@link BasicLogFormatter}でフォーマットする。
+     * {@link #isBufferAppendable()}が<code>false</code>を返す場合は、{@link #format(LogContext)}の結果を追加する。
+     */
+    @Override
+    public void appendTo(LogContext context, StringBuilder sb) {
+        if (!isBufferAppendable()) {
+            sb.append(format(context));
+            return;
+        }
+        textFormatter.appendTo(context, sb);
+    }
+
+    /**
+     * {@link #appendTo(LogContext, StringBuilder)}で、{@link #format(LogContext)}を経由せずにバッファへ直接追加するか否かを返す。<br>
+     * <br>
+     * <code>false</code>を返す場合は、{@link #format(LogContext)}の結果をバッファに追加する。
+     * サブクラスで{@link #format(LogContext)}をオーバーライドしている可能性があるため、
+     * デフォルト実装では本クラスのインスタンスの場合のみ<code>true</code>を返す。
+     * {@link #format(LogContext)}をオーバーライドしないサブクラスで直接追加する場合は、オーバーライドして<code>true</code>を返すこと。
+     * @return バッファへ直接追加する場合は<code>true</code>
+     */
+    protected boolean isBufferAppendable() {
+        return getClass() == BinaryLogFormatter.class;
+    }
+
+    /**
+     * マジックナンバーとバージョンで構成するヘッダを生成する。
+     * @return ヘッダ
+     */
+    private static byte[] createHeader() {
+        byte[] header = Arrays.copyOf(MAGIC, MAGIC.length + 1);
+        header[MAGIC.length] = VERSION;
+        return header;
+    }
+
+    /**
+     * {@link LogLevel}をファイルに書き込むコードに変換する。<br>
+     * 列挙子の順序に依存しないように、{@link LogLevel}毎に固定のコードを使用する。
+     * @param level {@link LogLevel}
+     * @return コード
+     */
+    static int toLevelCode(LogLevel level) {
+        switch (level) {
+            case FATAL:
+                return 1;
+            case ERROR:
+                return 2;
+            case WARN:
+                return 3;
+            case INFO:
+                return 4;
+            case DEBUG:
+                return 5;
+            case TRACE:
+                return 6;
+            default:
+                throw new IllegalArgumentException(String.format("unknown log level. level = [%s]", level));
+        }
+    }
+
+    /**
+     * ファイルに書き込んだコードを{@link LogLevel}に変換する。
+     * @param code コード
+     * @return {@link LogLevel}
+     */
+    static LogLevel toLevel(int code) {
+        switch (code) {
+            case 1:
+                return LogLevel.FATAL;
+            case 2:
+                return LogLevel.ERROR;
+            case 3:
+                return LogLevel.WARN;
+            case 4:
+                return LogLevel.INFO;
+            case 5:
+                return LogLevel.DEBUG;
+            case 6:
+                return LogLevel.TRACE;
+            default:
+                throw new IllegalArgumentException(String.format("unknown log level. level = [%s]", code));
+        }
+    }
+
+    /**
+     * ファイル毎の状態を保持して、ログをレコードに変換する{@link Encoder}を生成する。
+     * @param maxDictionarySize 辞書に登録する文字列の件数の上限
+     * @return {@link Encoder}
+     */
+    Encoder createEncoder(int maxDictionarySize) {
+        return new Encoder(maxDictionarySize);
+    }
+
+    /**
+     * スタックトレースを文字列に変換する。末尾の改行は含まない。
+     * @param error 例外オブジェクト
+     * @return スタックトレース
+     */
+    private String renderStackTrace(Throwable error) {
+        StringBuilder sb = new StringBuilder(512);
+        stackTraceRenderer.appendTo(error, sb);
+        int end = sb.length();
+        while (end > 0 && (sb.charAt(end - 1) == '\n' || sb.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString();
+    }
+
+    /**
+     * ファイル毎の辞書と日時の基準を保持して、ログをレコードに変換するクラス。<br>
+     * スレッドセーフではないため、書き込み先で同期して使用すること。
+     */
+    final class Encoder implements BinaryRecordEncoder {
+
+        /** 辞書に登録する文字列の件数の上限 */
+        private final int maxDictionarySize;
+
+        /** 辞書に登録した文字列とID */
+        private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+
+        /** 書き込むレコードを保持するバッファ */
+        private final BinaryLogBuffer records = new BinaryLogBuffer();
+
+        /** 組み立て中のレコードの内容を保持するバッファ */
+        private final BinaryLogBuffer record = new BinaryLogBuffer();
+
+        /** 辞書のレコードの内容を保持するバッファ */
+        private final BinaryLogBuffer entry = new BinaryLogBuffer();
+
+        /** 直前のログの日時 */
+        private long lastTime;
+
+        /**
+         * コンストラクタ。
+         * @param maxDictionarySize 辞書に登録する文字列の件数の上限
+         */
+        private Encoder(int maxDictionarySize) {
+            this.maxDictionarySize = maxDictionarySize;
+        }
+
+        /**
+         * {@inheritDoc}<br>
+         * <br>
+         * マジックナンバーとバージョンを返す。
+         */
+        @Override
+        public byte[] getHeader() {
+            return HEADER.clone();
+        }
+
+        /**
+         * {@inheritDoc}<br>
+         * <br>
+         * 辞書と日時の基準をクリアし、リセットのレコードを書き込む。
+         */
+        @Override
+        public BinaryLogBuffer start() {
+            records.clear();
+            writeReset();
+            return records;
+        }
+
+        /**
+         * {@inheritDoc}<br>
+         * <br>
+         * 必要な辞書のレコードとログのレコードに変換する。
+         * 辞書の件数が上限に達している場合は、先にリセットのレコードを書き込む。
+         */
+        @Override
+        public BinaryLogBuffer encode(LogContext context) {
+            records.shrink(MAX_RETAINED_BUFFER_SIZE);
+            record.shrink(MAX_RETAINED_BUFFER_SIZE);
+            if (dictionary.size() >= maxDictionarySize) {
+                writeReset();
+            }
+            record.writeByte(RECORD_EVENT);
+            long time = context.getDate().getTime();
+            record.writeSignedVarLong(time - lastTime);
+            lastTime = time;
+            record.writeByte(toLevelCode(context.getLevel()));
+            record.writeVarLong(reference(context.getLoggerName()));
+            record.writeVarLong(reference(context.getRuntimeLoggerName()));
+            record.writeVarLong(reference(context.getRequestId()));
+            record.writeVarLong(reference(context.getUserId()));
+            record.writeNullableString(context.getExecutionId());
+            writeMessage(context);
+            Throwable error = context.getError();
+            record.writeNullableString(error != null ? renderStackTrace(error) : null);
+            writeOptions(context.getOptions());
+            records.writeRecord(record);
+            return records;
+        }
+
+        /**
+         * メッセージを書き込む。<br>
+         * プレースホルダ形式の場合は、引数を埋め込まずにテンプレートのIDと引数を書き込む。
+         * @param context {@link LogContext}
+         */
+        private void writeMessage(LogContext context) {
+            if (context instanceof ParameterizedLogContext) {
+                ParameterizedLogContext parameterized = (ParameterizedLogContext) context;
+                String template = parameterized.getTemplate();
+                if (template != null) {
+                    record.writeByte(MESSAGE_TEMPLATE);
+                    record.writeVarLong(reference(template));
+                    int argCount = parameterized.getArgCount();
+                    record.writeVarLong(argCount);
+                    for (int i = 0; i < argCount; i++) {
+                        record.writeNullableString(String.valueOf(parameterized.getArg(i)));
+                    }
+                    return;
+                }
+            }
+            String message = context.getMessage();
+            if (message == null) {
+                record.writeByte(MESSAGE_NULL);
+            } else {
+                record.writeByte(MESSAGE_TEXT);
+                record.writeNullableString(message);
+            }
+        }
+
+        /**
+         * オプション情報に指定されたMapのエントリを書き込む。<br>
+         * キーが文字列でないエントリと、Map以外のオプション情報は書き込まない。
+         * @param options オプション情報
+         */
+        private void writeOptions(Object[] options) {
+            int count = 0;
+            if (options != null) {
+                for (Object option : options) {
+                    if (option instanceof Map) {
+                        for (Object key : ((Map<?, ?>) option).keySet()) {
+                            if (key instanceof String) {
+                                count++;
+                            }
+                        }
+                    }
+                }
+            }
+            record.writeVarLong(count);
+            if (count == 0) {
+                return;
+            }
+            for (Object option : options) {
+                if (!(option instanceof Map)) {
+                    continue;
+                }
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) option).entrySet()) {
+                    if (entry.getKey() instanceof String) {
+                        record.writeVarLong(reference((String) entry.getKey()));
+                        Object value = entry.getValue();
+                        record.writeNullableString(value != null ? value.toString() : null);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 文字列を辞書のIDに変換する。<br>
+         * 辞書に登録されていない文字列の場合は、辞書に登録して辞書のレコードを書き込む。
+         * @param value 文字列
+         * @return 辞書のIDに1を加えた値。文字列が<code>null</code>の場合は0
+         */
+        private int reference(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer id = dictionary.get(value);
+            if (id == null) {
+                id = dictionary.size();
+                dictionary.put(value, id);
+                entry.clear();
+                entry.writeByte(RECORD_DICTIONARY);
+                entry.writeVarLong(id);
+                entry.writeNullableString(value);
+                records.writeRecord(entry);
+            }
+            return id + 1;
+        }
+
+        /**
+         * 辞書と日時の基準をクリアし、リセットのレコードを書き込む。
+         */
+        private void writeReset() {
+            dictionary.clear();
+            lastTime = 0;
+            entry.clear();
+            entry.writeByte(RECORD_RESET);
+            records.writeRecord(entry);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package nablarch.core.log.basic;
+
+/**
+ * ログを{@link BinaryFileLogWriter}で書き込むバイナリ形式のレコードに変換するインタフェース。<br>
+ * <br>
+ * 書き込み先のファイル毎に生成し、ファイル毎の状態を保持する。
+ * 実装はスレッドセーフでなくてよく、書き込み先で同期して使用する。
+ */
+interface BinaryRecordEncoder {
+
+    /**
+     * 空のファイルの先頭に書き込むヘッダを取得する。<br>
+     * 既存のファイルに追記する場合は、ファイルの先頭がこのヘッダと一致することを確認する。
+     * @return ヘッダ。ヘッダを書き込まない場合は空の配列
+     */
+    byte[] getHeader();
+
+    /**
+     * ファイルへの書き込みを開始する時点で、ヘッダに続けて書き込む内容を取得する。
+     * @return 書き込む内容を保持したバッファ。次の呼び出しまで有効
+     */
+    BinaryLogBuffer start();
+
+    /**
+     * ログをレコードに変換する。
+     * @param context {@link LogContext}
+     * @return レコードを保持したバッファ。次の呼び出しまで有効
+     */
+    BinaryLogBuffer encode(LogContext context);
+}
@@ -0,0 +1,695 @@
+package nablarch.core.log.basic;
+
+import java.lang.reflect.Array;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nablarch.core.util.StringUtil;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * {@link JsonLogFormatter}と同じ出力項目を、CBORまたはMessagePackのmapに変換するクラス。<br>
+ * <br>
+ * 出力項目と設定は{@link JsonLogFormatter}と同じものを使用し、出力項目の順にmapのエントリを出力する。
+ * JSONの文字列と異なりエスケープを行わず、数値と真偽値はそのままの型で出力する。<br>
+ * ログ出力項目のMapを生成せずに、出力項目が設定した値をそのままmapのエントリとして書き込む。
+ * payloadのキーと固定の項目は{@link JsonLogFormatter}と同様に扱い、固定の項目は最後に出力する。<br>
+ * {@link BinaryFileLogWriter}と組み合わせた場合は、マジックナンバー"NBSLOG"と、
+ * バージョンと出力形式(CBOR=1、MessagePack=2)の各1バイトで構成するヘッダに続けて、
+ * ログ毎にバイト数を可変長の整数(7ビット毎に継続ビットを付与するリトルエンディアン)で前置して書き込む。
+ * 文字列を出力する{@link LogWriter}と組み合わせた場合は、{@link JsonLogFormatter}と同じJSONを出力する。<br>
+ * <br>
+ * 値は下記の型で出力する。
+ * <pre>
+ * 文字列、文字、列挙型
+ *     text string(CBOR)、str(MessagePack)。
+ * 整数
+ *     integer(CBOR)、int(MessagePack)。64ビットに収まらない{@link BigInteger}は文字列で出力する。
+ * 浮動小数点数
+ *     倍精度の浮動小数点数。
+ * 真偽値、null
+ *     true、false、null(CBOR)、nil(MessagePack)。
+ * 日時({@link Date})
+ *     エポックからのミリ秒の整数。
+ * バイト配列
+ *     byte string(CBOR)、bin(MessagePack)。
+ * Map、Collection、配列
+ *     map、array。Mapのキーは文字列に変換する。
+ * 構造化済みメッセージ
+ *     JSONのobjectの文字列。
+ * 上記以外
+ *     toString()の文字列。
+ * </pre>
+ * プロパティファイルの記述ルールを下記に示す。{@link JsonLogFormatter}のプロパティも指定できる。
+ * ただし、1件のログの長さの上限(maxRecordLength)は使用しない。<br>
+ * <br>
+ * <dl>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.encoding}<dt/>
+ *   <dd>出力形式。オプション。<br>
+ *       cborまたはmsgpackを指定する。指定しなければcbor。<dd/>
+ * </dl>
+ * @see BinaryFileLogWriter
+ */
+@Published(tag = "architect")
+public class BinaryStructuredLogFormatter extends JsonLogFormatter {
+
+    /** ファイルの先頭に書き込むマジックナンバー */
+    static final byte[] MAGIC = {'N', 'B', 'S', 'L', 'O', 'G'};
+
+    /** ファイル形式のバージョン */
+    static final int VERSION = 1;
+
+    /** CBORを示す出力形式のコード */
+    static final int FORMAT_CBOR = 1;
+
+    /** MessagePackを示す出力形式のコード */
+    static final int FORMAT_MESSAGE_PACK = 2;
+
+    /** 出力形式のプロパティ名 */
+    private static final String PROPS_ENCODING = "encoding";
+
+    /** CBORの出力形式 */
+    private static final String ENCODING_CBOR = "cbor";
+
+    /** MessagePackの出力形式 */
+    private static final String ENCODING_MESSAGE_PACK = "msgpack";
+
+    /** レコードの組み立てに使用するバッファとして保持し続ける最大サイズ */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    /** 値を書き込む{@link ValueEncoder} */
+    private ValueEncoder valueEncoder;
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * 出力形式を取得する。
+     */
+    @Override
+    public void initialize(ObjectSettings settings) {
+        super.initialize(settings);
+        String encoding = settings.getProp(PROPS_ENCODING);
+        if (StringUtil.isNullOrEmpty(encoding) || ENCODING_CBOR.equals(encoding)) {
+            valueEncoder = new CborEncoder();
+        } else if (ENCODING_MESSAGE_PACK.equals(encoding)) {
+            valueEncoder = new MessagePackEncoder();
+        } else {
+            throw new IllegalArgumentException(
+                    String.format("BinaryStructuredLogFormatter : [%s] is unknown encoding. property name = [%s.%s]",
+                            encoding, settings.getName(), PROPS_ENCODING));
+        }
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * デフォルト実装では本クラスのインスタンスの場合のみ<code>true</code>を返す。
+     * <code>false</code>を返す場合は、{@link #createStructuredObject(LogContext)}の処理結果を変換する。
+     */
+    @Override
+    protected boolean isBufferAppendable() {
+        return getClass() == BinaryStructuredLogFormatter.class;
+    }
+
+    /**
+     * ログをCBORまたはMessagePackのmapに変換する。<br>
+     * 呼び出し毎にバッファを生成する。{@link BinaryFileLogWriter}では使用せず、ファイル毎のバッファに直接書き込む。
+     * @param context {@link LogContext}
+     * @return 変換したバイト配列
+     */
+    public byte[] encode(LogContext context) {
+        BinaryLogBuffer buffer = new BinaryLogBuffer();
+        new EntryEncoder(buffer).write(context);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * ログ毎にバイト数を前置したレコードに変換する{@link BinaryRecordEncoder}を生成する。
+     * @return {@link BinaryRecordEncoder}
+     */
+    BinaryRecordEncoder createEncoder() {
+        return new BinaryRecordEncoder() {
+
+            /** 書き込むレコードを保持するバッファ */
+            private final BinaryLogBuffer records = new BinaryLogBuffer();
+
+            /** レコードの内容をバッファに書き込む{@link EntryEncoder} */
+            private final EntryEncoder entryEncoder = new EntryEncoder(records);
+
+            /**
+             * {@inheritDoc}<br>
+             * <br>
+             * マジックナンバー、バージョン、出力形式を返す。
+             */
+            @Override
+            public byte[] getHeader() {
+                return createHeader();
+            }
+
+            @Override
+            public BinaryLogBuffer start() {
+                records.clear();
+                return records;
+            }
+
+            /**
+             * {@inheritDoc}<br>
+             * <br>
+             * バイト数を書き込む領域を確保してレコードの内容を書き込み、確定したバイト数を後から書き込む。
+             */
+            @Override
+            public BinaryLogBuffer encode(LogContext context) {
+                records.shrink(MAX_RETAINED_BUFFER_SIZE);
+                int start = records.beginRecord();
+                entryEncoder.write(context);
+                records.endRecord(start);
+                return records;
+            }
+        };
+    }
+
+    /**
+     * マジックナンバー、バージョン、出力形式で構成するヘッダを生成する。
+     * @return ヘッダ
+     */
+    private byte[] createHeader() {
+        byte[] header = Arrays.copyOf(MAGIC, MAGIC.length + 2);
+        header[MAGIC.length] = VERSION;
+        header[MAGIC.length + 1] = (byte) valueEncoder.getFormatCode();
+        return header;
+    }
+
+    /**
+     * 値を型に応じて書き込む。
+     * @param value 値
+     * @param buffer 書き込み先のバッファ
+     */
+    private void writeValue(Object value, BinaryLogBuffer buffer) {
+        if (value == null) {
+            valueEncoder.writeNull(buffer);
+        } else if (value instanceof CharSequence) {
+            valueEncoder.writeString((CharSequence) value, buffer);
+        } else if (value instanceof Boolean) {
+            valueEncoder.writeBoolean((Boolean) value, buffer);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof AtomicInteger || value instanceof AtomicLong) {
+            valueEncoder.writeLong(((Number) value).longValue(), buffer);
+        } else if (value instanceof Double || value instanceof Float) {
+            valueEncoder.writeDouble(((Number) value).doubleValue(), buffer);
+        } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+            valueEncoder.writeLong(((BigInteger) value).longValue(), buffer);
+        } else if (value instanceof Date) {
+            valueEncoder.writeLong(((Date) value).getTime(), buffer);
+        } else if (value instanceof Enum) {
+            valueEncoder.writeString(((Enum<?>) value).name(), buffer);
+        } else if (value instanceof RawJsonObjectMembers) {
+            valueEncoder.writeString('{' + ((RawJsonObjectMembers) value).getRawJsonText() + '}', buffer);
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value, buffer);
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            valueEncoder.writeArrayHeader(collection.size(), buffer);
+            for (Object element : collection) {
+                writeValue(element, buffer);
+            }
+        } else if (value instanceof byte[]) {
+            valueEncoder.writeBinary((byte[]) value, buffer);
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            valueEncoder.writeArrayHeader(length, buffer);
+            for (int i = 0; i < length; i++) {
+                writeValue(Array.get(value, i), buffer);
+            }
+        } else {
+            valueEncoder.writeString(value.toString(), buffer);
+        }
+    }
+
+    /**
+     * Mapを書き込む。<br>
+     * 値がnullのエントリ(ignoreNullValueMemberがfalseの場合を除く)と、
+     * 空白文字のみの{@link RawJsonObjectMembers}は書き込まない。
+     * @param map Map
+     * @param buffer 書き込み先のバッファ
+     */
+    private void writeMap(Map<?, ?> map, BinaryLogBuffer buffer) {
+        int size = 0;
+        for (Object value : map.values()) {
+            if (!isSkip(value)) {
+                size++;
+            }
+        }
+        valueEncoder.writeMapHeader(size, buffer);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!isSkip(entry.getValue())) {
+                valueEncoder.writeString(String.valueOf(entry.getKey()), buffer);
+                writeValue(entry.getValue(), buffer);
+            }
+        }
+    }
+
+    /**
+     * 書き込まないエントリか否かを判定する。
+     * @param value 値
+     * @return 書き込まない場合は<code>true</code>
+     */
+    private boolean isSkip(Object value) {
+        if (value == null) {
+            return isIgnoreNullValueMember();
+        }
+        return value instanceof RawJsonObjectMembers && ((RawJsonObjectMembers) value).isJsonWhitespace();
+    }
+
+    /**
+     * ログ出力項目が設定したエントリを、mapのエントリとしてバッファに書き込むクラス。<br>
+     * エントリ数は書き込むまで確定しないため、領域を確保してエントリを書き込んだ後に書き込む。
+     */
+    private final class EntryEncoder extends OrderedEntryWriter {
+
+        /** 書き込み先のバッファ */
+        private final BinaryLogBuffer buffer;
+
+        /** 書き込んだエントリ数 */
+        private int entryCount;
+
+        /**
+         * コンストラクタ。
+         * @param buffer 書き込み先のバッファ
+         */
+        private EntryEncoder(BinaryLogBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * ログをmapに変換してバッファに書き込む。
+         * @param context {@link LogContext}
+         */
+        void write(LogContext context) {
+            int start = buffer.length();
+            int reservedLength = valueEncoder.getMapHeaderLength(0);
+            buffer.reserve(reservedLength);
+            entryCount = 0;
+            writeOrderedEntries(context, this);
+            int end = buffer.rewind(start, reservedLength, valueEncoder.getMapHeaderLength(entryCount));
+            valueEncoder.writeMapHeader(entryCount, buffer);
+            buffer.setLength(end);
+        }
+
+        /**
+         * {@inheritDoc}<br>
+         * <br>
+         * 値がnullのエントリ(ignoreNullValueMemberがfalseの場合を除く)と、
+         * 空白文字のみの{@link RawJsonObjectMembers}は書き込まない。
+         */
+        @Override
+        void encodeEntry(String name, Object value) {
+            if (!isSkip(value)) {
+                valueEncoder.writeString(name, buffer);
+                writeValue(value, buffer);
+                entryCount++;
+            }
+        }
+    }
+
+    /**
+     * 出力形式に応じて値を書き込むクラス。
+     */
+    private abstract static class ValueEncoder {
+
+        /**
+         * 出力形式のコードを取得する。
+         * @return 出力形式のコード
+         */
+        abstract int getFormatCode();
+
+        /**
+         * 文字列の長さを書き込む場合のバイト数を取得する。
+         * @param byteLength UTF-8で文字エンコーディングした場合のバイト数
+         * @return 文字列の長さのバイト数
+         */
+        abstract int getStringHeaderLength(int byteLength);
+
+        /**
+         * mapのエントリ数を書き込む場合のバイト数を取得する。
+         * @param size エントリ数
+         * @return エントリ数のバイト数
+         */
+        abstract int getMapHeaderLength(int size);
+
+        /**
+         * nullを書き込む。
+         * @param buffer 書き込み先のバッファ
+         */
+        abstract void writeNull(BinaryLogBuffer buffer);
+
+        /**
+         * 真偽値を書き込む。
+         * @param value 真偽値
+         * @param buffer 書き込み先のバッファ
+         */
+        abstract void writeBoolean(boolean value, BinaryLogBuffer buffer);
+
+        /**
+         * 整数を書き込む。
+         * @param value 整数
+         * @param buffer 書き込み先のバッファ
+         */
+        abstract void writeLong(long value, BinaryLogBuffer buffer);
+
+        /**
+         * 倍精度の浮動小数点数を書き込む。
+         * @param value 浮動小数点数
+         * @param buffer 書き込み先のバッファ
+         */
+        abstract void writeDouble(double value, BinaryLogBuffer buffer);
+
+        /**
+         * 文字列の長さを書き込む。
+         * @param byteLength UTF-8で文字エンコーディングした場合のバイト数
+         * @param buffer 書き込み先のバッファ
+         */
+        abstract void writeStringHeader(int byteLength, BinaryLogBuffer buffer);
+
+        /**
+         * バイト配列の長さを書き込む。
+         * @param length バイト数
+         * @param buffer 書き込み先のバッファ
+         */
+        abstract void writeBinaryHeader(int length, BinaryLogBuffer buffer);
+
+        /**
+         * arrayの要素数を書き込む。
+         * @param size 要素数
+         * @param buffer 書き込み先のバッファ
+         */
+        abstract void writeArrayHeader(int size, BinaryLogBuffer buffer);
+
+        /**
+         * mapのエントリ数を書き込む。
+         * @param size エントリ数
+         * @param buffer 書き込み先のバッファ
+         */
+        abstract void writeMapHeader(int size, BinaryLogBuffer buffer);
+
+        /**
+         * 文字列を書き込む。<br>
+         * UTF-8のバイト数は文字数以上となるため、文字数に応じた長さの領域を確保して文字エンコーディングし、
+         * 確定したバイト数を後から書き込む。バイト数に応じた長さのほうが長い場合のみ、文字列をずらす。
+         * @param value 文字列
+         * @param buffer 書き込み先のバッファ
+         */
+        void writeString(CharSequence value, BinaryLogBuffer buffer) {
+            int start = buffer.length();
+            int reservedLength = getStringHeaderLength(value.length());
+            buffer.reserve(reservedLength);
+            int byteLength = buffer.writeUtf8(value);
+            int end = buffer.rewind(start, reservedLength, getStringHeaderLength(byteLength));
+            writeStringHeader(byteLength, buffer);
+            buffer.setLength(end);
+        }
+
+        /**
+         * バイト配列を書き込む。
+         * @param value バイト配列
+         * @param buffer 書き込み先のバッファ
+         */
+        void writeBinary(byte[] value, BinaryLogBuffer buffer) {
+            writeBinaryHeader(value.length, buffer);
+            buffer.writeBytes(value);
+        }
+    }
+
+    /**
+     * CBOR(RFC 8949)で値を書き込むクラス。<br>
+     * 長さと整数は、値を表せる最小のバイト数で書き込む。
+     */
+    private static final class CborEncoder extends ValueEncoder {
+
+        /** 0以上の整数のメジャータイプ */
+        private static final int MAJOR_UNSIGNED = 0;
+
+        /** 負の整数のメジャータイプ */
+        private static final int MAJOR_NEGATIVE = 1 << 5;
+
+        /** byte stringのメジャータイプ */
+        private static final int MAJOR_BYTES = 2 << 5;
+
+        /** text stringのメジャータイプ */
+        private static final int MAJOR_TEXT = 3 << 5;
+
+        /** arrayのメジャータイプ */
+        private static final int MAJOR_ARRAY = 4 << 5;
+
+        /** mapのメジャータイプ */
+        private static final int MAJOR_MAP = 5 << 5;
+
+        @Override
+        int getFormatCode() {
+            return FORMAT_CBOR;
+        }
+
+        @Override
+        int getStringHeaderLength(int byteLength) {
+            return getHeadLength(byteLength);
+        }
+
+        @Override
+        int getMapHeaderLength(int size) {
+            return getHeadLength(size);
+        }
+
+        @Override
+        void writeNull(BinaryLogBuffer buffer) {
+            buffer.writeByte(0xF6);
+        }
+
+        @Override
+        void writeBoolean(boolean value, BinaryLogBuffer buffer) {
+            buffer.writeByte(value ? 0xF5 : 0xF4);
+        }
+
+        @Override
+        void writeLong(long value, BinaryLogBuffer buffer) {
+            if (value >= 0) {
+                writeHead(MAJOR_UNSIGNED, value, buffer);
+            } else {
+                writeHead(MAJOR_NEGATIVE, ~value, buffer);
+            }
+        }
+
+        @Override
+        void writeDouble(double value, BinaryLogBuffer buffer) {
+            buffer.writeByte(0xFB);
+            buffer.writeLong(Double.doubleToLongBits(value));
+        }
+
+        @Override
+        void writeStringHeader(int byteLength, BinaryLogBuffer buffer) {
+            writeHead(MAJOR_TEXT, byteLength, buffer);
+        }
+
+        @Override
+        void writeBinaryHeader(int length, BinaryLogBuffer buffer) {
+            writeHead(MAJOR_BYTES, length, buffer);
+        }
+
+        @Override
+        void writeArrayHeader(int size, BinaryLogBuffer buffer) {
+            writeHead(MAJOR_ARRAY, size, buffer);
+        }
+
+        @Override
+        void writeMapHeader(int size, BinaryLogBuffer buffer) {
+            writeHead(MAJOR_MAP, size, buffer);
+        }
+
+        /**
+         * メジャータイプと引数を書き込む場合のバイト数を取得する。
+         * @param argument 0以上の引数
+         * @return バイト数
+         */
+        private static int getHeadLength(int argument) {
+            if (argument < 24) {
+                return 1;
+            } else if (argument <= 0xFF) {
+                return 2;
+            } else if (argument <= 0xFFFF) {
+                return 3;
+            }
+            return 5;
+        }
+
+        /**
+         * メジャータイプと引数を書き込む。
+         * @param majorType メジャータイプ(上位3ビット)
+         * @param argument 符号なしの64ビット整数として扱う引数
+         * @param buffer 書き込み先のバッファ
+         */
+        private static void writeHead(int majorType, long argument, BinaryLogBuffer buffer) {
+            if (argument >= 0 && argument < 24) {
+                buffer.writeByte(majorType | (int) argument);
+            } else if (argument >= 0 && argument <= 0xFF) {
+                buffer.writeByte(majorType | 24);
+                buffer.writeByte((int) argument);
+            } else if (argument >= 0 && argument <= 0xFFFF) {
+                buffer.writeByte(majorType | 25);
+                buffer.writeShort((int) argument);
+            } else if (argument >= 0 && argument <= 0xFFFFFFFFL) {
+                buffer.writeByte(majorType | 26);
+                buffer.writeInt((int) argument);
+            } else {
+                buffer.writeByte(majorType | 27);
+                buffer.writeLong(argument);
+            }
+        }
+    }
+
+    /**
+     * MessagePackで値を書き込むクラス。<br>
+     * 長さと整数は、値を表せる最小のバイト数の形式で書き込む。
+     */
+    private static final class MessagePackEncoder extends ValueEncoder {
+
+        @Override
+        int getFormatCode() {
+            return FORMAT_MESSAGE_PACK;
+        }
+
+        @Override
+        int getStringHeaderLength(int byteLength) {
+            if (byteLength < 32) {
+                return 1;
+            } else if (byteLength <= 0xFF) {
+                return 2;
+            } else if (byteLength <= 0xFFFF) {
+                return 3;
+            }
+            return 5;
+        }
+
+        @Override
+        int getMapHeaderLength(int size) {
+            if (size < 16) {
+                return 1;
+            } else if (size <= 0xFFFF) {
+                return 3;
+            }
+            return 5;
+        }
+
+        @Override
+        void writeNull(BinaryLogBuffer buffer) {
+            buffer.writeByte(0xC0);
+        }
+
+        @Override
+        void writeBoolean(boolean value, BinaryLogBuffer buffer) {
+            buffer.writeByte(value ? 0xC3 : 0xC2);
+        }
+
+        @Override
+        void writeLong(long value, BinaryLogBuffer buffer) {
+            if (value >= 0) {
+                if (value <= 0x7F) {
+                    buffer.writeByte((int) value);
+                } else if (value <= 0xFF) {
+                    buffer.writeByte(0xCC);
+                    buffer.writeByte((int) value);
+                } else if (value <= 0xFFFF) {
+                    buffer.writeByte(0xCD);
+                    buffer.writeShort((int) value);
+                } else if (value <= 0xFFFFFFFFL) {
+                    buffer.writeByte(0xCE);
+                    buffer.writeInt((int) value);
+                } else {
+                    buffer.writeByte(0xCF);
+                    buffer.writeLong(value);
+                }
+            } else if (value >= -32) {
+                buffer.writeByte((int) value);
+            } else if (value >= Byte.MIN_VALUE) {
+                buffer.writeByte(0xD0);
+                buffer.writeByte((int) value);
+            } else if (value >= Short.MIN_VALUE) {
+                buffer.writeByte(0xD1);
+                buffer.writeShort((int) value);
+            } else if (value >= Integer.MIN_VALUE) {
+                buffer.writeByte(0xD2);
+                buffer.writeInt((int) value);
+            } else {
+                buffer.writeByte(0xD3);
+                buffer.writeLong(value);
+            }
+        }
+
+        @Override
+        void writeDouble(double value, BinaryLogBuffer buffer) {
+            buffer.writeByte(0xCB);
+            buffer.writeLong(Double.doubleToLongBits(value));
+        }
+
+        @Override
+        void writeStringHeader(int byteLength, BinaryLogBuffer buffer) {
+            if (byteLength < 32) {
+                buffer.writeByte(0xA0 | byteLength);
+            } else if (byteLength <= 0xFF) {
+                buffer.writeByte(0xD9);
+                buffer.writeByte(byteLength);
+            } else if (byteLength <= 0xFFFF) {
+                buffer.writeByte(0xDA);
+                buffer.writeShort(byteLength);
+            } else {
+                buffer.writeByte(0xDB);
+                buffer.writeInt(byteLength);
+            }
+        }
+
+        @Override
+        void writeBinaryHeader(int length, BinaryLogBuffer buffer) {
+            if (length <= 0xFF) {
+                buffer.writeByte(0xC4);
+                buffer.writeByte(length);
+            } else if (length <= 0xFFFF) {
+                buffer.writeByte(0xC5);
+                buffer.writeShort(length);
+            } else {
+                buffer.writeByte(0xC6);
+                buffer.writeInt(length);
+            }
+        }
+
+        @Override
+        void writeArrayHeader(int size, BinaryLogBuffer buffer) {
+            writeContainerHeader(0x90, 0xDC, size, buffer);
+        }
+
+        @Override
+        void writeMapHeader(int size, BinaryLogBuffer buffer) {
+            writeContainerHeader(0x80, 0xDE, size, buffer);
+        }
+
+        /**
+         * arrayまたはmapの要素数を書き込む。
+         * @param fixPrefix 要素数が15以下の場合の形式
+         * @param prefix16 要素数を2バイトで書き込む場合の形式。4バイトの場合は次の値を使用する
+         * @param size 要素数
+         * @param buffer 書き込み先のバッファ
+         */
+        private static void writeContainerHeader(int fixPrefix, int prefix16, int size, BinaryLogBuffer buffer) {
+            if (size < 16) {
+                buffer.writeByte(fixPrefix | size);
+            } else if (size <= 0xFFFF) {
+                buffer.writeByte(prefix16);
+                buffer.writeShort(size);
+            } else {
+                buffer.writeByte(prefix16 + 1);
+                buffer.writeInt(size);
+            }
+        }
+    }
+}
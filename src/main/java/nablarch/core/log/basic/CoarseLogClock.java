@@ -0,0 +1,77 @@
+package nablarch.core.log.basic;
+
+/**
+ * 一定間隔で更新した現在日時を返す{@link LogClock}。<br>
+ * <br>
+ * デーモンスレッドが指定された間隔で現在日時を更新し、{@link #currentTimeMillis()}は更新済みの値を返す。<br>
+ * ログ出力の度に{@link System#currentTimeMillis()}を呼び出さないため、
+ * 日時の精度を更新間隔まで落とす代わりに、ログ出力時の日時取得のコストを削減できる。
+ */
+class CoarseLogClock extends LogClock {
+
+    /** 更新間隔(ミリ秒) */
+    private final long intervalMillis;
+
+    /** 更新済みの現在日時(ミリ秒) */
+    private volatile long currentTimeMillis = System.currentTimeMillis();
+
+    /** 現在日時を更新するスレッド */
+    private final Thread ticker;
+
+    /** 停止したか否か */
+    private volatile boolean stopped;
+
+    /**
+     * コンストラクタ。
+     * @param intervalMillis 更新間隔(ミリ秒)
+     */
+    CoarseLogClock(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+        ticker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, "nablarch-log-clock");
+        ticker.setDaemon(true);
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * 更新済みの現在日時を返す。
+     */
+    @Override
+    public long currentTimeMillis() {
+        return currentTimeMillis;
+    }
+
+    /**
+     * 現在日時の更新を開始する。
+     */
+    void start() {
+        ticker.start();
+    }
+
+    /**
+     * 現在日時の更新を停止する。
+     */
+    void stop() {
+        stopped = true;
+        ticker.interrupt();
+    }
+
+    /**
+     * 停止するまで、更新間隔毎に現在日時を更新する。
+     */
+    private void tick() {
+        while (!stopped) {
+            currentTimeMillis = System.currentTimeMillis();
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
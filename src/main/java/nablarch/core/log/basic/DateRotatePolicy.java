@@ -166,6 +166,20 @@ public class DateRotatePolicy implements RotatePolicy {
         return currentDate.getTime() >= nextRotateDateTime.getTime();
     }
 
+    /**
+     * {@inheritDoc}<br>
+     * ローテーションの判定にメッセージを使用しないため、文字列と{@link Date}を生成せずに判定する。
+     * ただし、{@link #isGarbageFreeSupported()}が<code>false</code>を返す場合は、
+     * 文字列に変換して{@link #needsRotate(String, Charset)}を呼び出す。
+     */
+    @Override
+    public boolean needsRotate(CharSequence message, int byteLength, Charset charset) {
+        if (!isGarbageFreeSupported()) {
+            return needsRotate(message.toString(), charset);
+        }
+        return System.currentTimeMillis() >= nextRotateDateTime.getTime();
+    }
+
     /**
      * {@inheritDoc}
      * 古いログファイル名は、 <ログファイルパス>.yyyyMMddHHmmssSSS.old のフォーマットで出力される。
@@ -224,6 +238,22 @@ public class DateRotatePolicy implements RotatePolicy {
         return new Date();
     }
 
+    /**
+     * 文字列と{@link Date}を生成せずに、書き込み時のローテーション判定と処理を行うか否かを返す。<br>
+     * <br>
+     * <code>false</code>を返す場合は、{@link #needsRotate(CharSequence, int, Charset)}と
+     * {@link #onWrite(CharSequence, int, Charset)}で文字列に変換し、文字列を引数に取るメソッドを呼び出す。
+     * ローテーション判定の現在日時は{@link #currentDate()}から取得する。
+     * サブクラスでこれらのメソッドをオーバーライドしている可能性があるため、
+     * デフォルト実装では本クラスのインスタンスの場合のみ<code>true</code>を返す。
+     * これらのメソッドをオーバーライドしないサブクラスで文字列と{@link Date}を生成しない場合は、オーバーライドして<code>true</code>を返すこと。
+     *
+     * @return 文字列と{@link Date}を生成しない場合は<code>true</code>
+     */
+    protected boolean isGarbageFreeSupported() {
+        return getClass() == DateRotatePolicy.class;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -232,6 +262,19 @@ public class DateRotatePolicy implements RotatePolicy {
 
     }
 
+    /**
+     * {@inheritDoc}<br>
+     * 文字列に変換せずに何もしない。
+     * ただし、{@link #isGarbageFreeSupported()}が<code>false</code>を返す場合は、
+     * 文字列に変換して{@link #onWrite(String, Charset)}を呼び出す。
+     */
+    @Override
+    public void onWrite(CharSequence message, int byteLength, Charset charset) {
+        if (!isGarbageFreeSupported()) {
+            onWrite(message.toString(), charset);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
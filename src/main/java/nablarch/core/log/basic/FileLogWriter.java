@@ -6,7 +6,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 
 import nablarch.core.log.Logger;
 import nablarch.core.util.StringUtil;
@@ -24,6 +29,7 @@ import nablarch.core.util.ObjectUtil;
  * 本クラスでは、ファイルへのログ書き込みに{@link java.io.BufferedOutputStream}を使用する。<br>
  * 出力バッファのサイズは設定で変更できる。<br>
  * 書き込み処理では、書き込み後にすぐにフラッシュし、書き込んだ内容をファイルに反映する。<br>
+ * ガベージフリーモードの場合は、フォーマット済みのログを保持したバッファに文字エンコーディングして書き込む。<br>
  * <br>
  * プロパティファイルの記述ルールを下記に示す。<br>
  * <dl>
@@ -56,6 +62,12 @@ public class FileLogWriter extends LogWriterSupport {
     /** キロバイトを算出するための係数 */
     public static final int KB = 1000;
 
+    /** 文字エンコーディングに使用するバッファの初期サイズ */
+    private static final int INITIAL_ENCODE_BUFFER_SIZE = 512;
+
+    /** 文字エンコーディングに使用するバッファとして保持し続ける最大サイズ */
+    private static final int MAX_ENCODE_BUFFER_SIZE = 64 * 1024;
+
     /** 書き込み先のファイルパス */
     private String filePath;
 
@@ -71,6 +83,21 @@ public class FileLogWriter extends LogWriterSupport {
     /** ファイルローテーションを行うためのインターフェース */
     private RotatePolicy rotatePolicy;
 
+    /** ガベージフリーモードで使用する文字エンコーダ */
+    private CharsetEncoder encoder;
+
+    /** ガベージフリーモードで使用する文字のバッファ */
+    private char[] chars = new char[INITIAL_ENCODE_BUFFER_SIZE];
+
+    /** {@link #chars}をラップした{@link CharBuffer} */
+    private CharBuffer charBuffer = CharBuffer.wrap(chars);
+
+    /** ガベージフリーモードで使用する文字エンコーディング後のバッファ */
+    private ByteBuffer byteBuffer = ByteBuffer.allocate(INITIAL_ENCODE_BUFFER_SIZE);
+
+    /** 文字エンコーディングがUTF-8か否か */
+    private boolean utf8;
+
     /**
      * {@inheritDoc}
      * <p/>
@@ -86,6 +113,10 @@ public class FileLogWriter extends LogWriterSupport {
             encoding = System.getProperty("file.encoding");
         }
         charset = Charset.forName(encoding);
+        utf8 = StandardCharsets.UTF_8.equals(charset);
+        encoder = charset.newEncoder()
+                         .onMalformedInput(CodingErrorAction.REPLACE)
+                         .onUnmappableCharacter(CodingErrorAction.REPLACE);
 
         try {
             outputBufferSize = Integer.parseInt(settings.getProp("outputBufferSize")) * KB;
@@ -169,6 +200,100 @@ public class FileLogWriter extends LogWriterSupport {
         }
     }
 
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * ファイルへの書き込みは、スレッド毎に再利用するバッファから行う。
+     * ただし、サブクラスで{@link #onWrite(String)}メソッドの処理を変更している可能性があるため、
+     * 本クラスのインスタンスの場合のみ<code>true</code>を返す。
+     * {@link #onWrite(String)}メソッドの処理を変更しないサブクラスでバッファから書き込む場合は、オーバーライドして<code>true</code>を返すこと。
+     * @return 本クラスのインスタンスの場合は<code>true</code>
+     */
+    @Override
+    protected boolean isReusableBufferWritable() {
+        return getClass() == FileLogWriter.class;
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * フォーマット済みのログを保持したバッファに文字エンコーディングし、文字列やバイト配列を生成せずに書き込む。<br>
+     * 書き込み後にすぐにフラッシュし、書き込んだ内容をファイルに反映する。<br>
+     * <br>
+     * IO例外が発生した場合は、IO例外をラップして{@link IllegalStateException}を送出する。
+     */
+    @Override
+    protected void onWrite(CharSequence formattedMessage) {
+        synchronized (this) {
+            if (out == null) {
+                throw new IllegalStateException(
+                        String.format("failed to write for FileLogWriter has already terminated. name = [%s]", getName()));
+            }
+            int byteLength = encode(formattedMessage);
+            if (rotatePolicy.needsRotate(formattedMessage, byteLength, charset)) {
+                rotate();
+            }
+            try {
+                rotatePolicy.onWrite(formattedMessage, byteLength, charset);
+                out.write(byteBuffer.array(), 0, byteLength);
+                out.flush();
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to write. out name = [" + getName() + "]", e);
+            } finally {
+                shrinkEncodeBuffers();
+            }
+        }
+    }
+
+    /**
+     * メッセージを保持したバッファに文字エンコーディングする。<br>
+     * 文字エンコーディングがUTF-8の場合は、文字配列にコピーせずに{@link Utf8Encoder}で文字エンコーディングする。
+     * @param message メッセージ
+     * @return 文字エンコーディング後のバイト数
+     */
+    private int encode(CharSequence message) {
+        if (utf8) {
+            byteBuffer = Utf8Encoder.encode(message, byteBuffer);
+            return byteBuffer.position();
+        }
+        int length = message.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+        if (message instanceof StringBuilder) {
+            ((StringBuilder) message).getChars(0, length, chars, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[i] = message.charAt(i);
+            }
+        }
+        int maxByteLength = (int) Math.ceil(length * (double) encoder.maxBytesPerChar());
+        if (byteBuffer.capacity() < maxByteLength) {
+            byteBuffer = ByteBuffer.allocate(Math.max(maxByteLength, byteBuffer.capacity() * 2));
+        }
+        charBuffer.clear();
+        charBuffer.limit(length);
+        byteBuffer.clear();
+        encoder.reset();
+        encoder.encode(charBuffer, byteBuffer, true);
+        encoder.flush(byteBuffer);
+        return byteBuffer.position();
+    }
+
+    /**
+     * 文字エンコーディングに使用するバッファが最大サイズを超えている場合に、初期サイズのバッファに置き換える。
+     */
+    private void shrinkEncodeBuffers() {
+        if (chars.length > MAX_ENCODE_BUFFER_SIZE) {
+            chars = new char[INITIAL_ENCODE_BUFFER_SIZE];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+        if (byteBuffer.capacity() > MAX_ENCODE_BUFFER_SIZE) {
+            byteBuffer = ByteBuffer.allocate(INITIAL_ENCODE_BUFFER_SIZE);
+        }
+    }
+
     /**
      * ローテーションの種類毎にファイルをリネームする。<br>
      * ファイルをリネームする場合は、併せてファイルへの書き込みを行う出力ストリームを初期化する。
@@ -179,7 +304,13 @@ public class FileLogWriter extends LogWriterSupport {
         if (!rotatePolicy.needsRotate(formattedMessage,charset)) {
             return;
         }
+        rotate();
+    }
 
+    /**
+     * ファイルをリネームし、ファイルへの書き込みを行う出力ストリームを初期化する。
+     */
+    private void rotate() {
         String rotatedFilePath = rotatePolicy.decideRotatedFilePath();
         String message = "change [" + filePath + "] -> [" + rotatedFilePath + "]";
         terminateWriter(message);
@@ -82,6 +82,15 @@ public class FileSizeRotatePolicy implements RotatePolicy {
         return StringUtil.getBytes(message, charset).length + currentFileSize > maxFileSize;
     }
 
+    /**
+     * {@inheritDoc}<br>
+     * 文字エンコーディング後のバイト数を使用して判定する。
+     */
+    @Override
+    public boolean needsRotate(CharSequence message, int byteLength, Charset charset) {
+        return maxFileSize > 0 && byteLength + currentFileSize > maxFileSize;
+    }
+
     /**
      * {@inheritDoc}
      * 古いログファイル名は、 <ログファイルパス>.yyyyMMddHHmmssSSS.old のフォーマットで出力される。
@@ -111,6 +120,15 @@ public class FileSizeRotatePolicy implements RotatePolicy {
         this.currentFileSize += StringUtil.getBytes(message, charset).length;
     }
 
+    /**
+     * {@inheritDoc}<br>
+     * 文字エンコーディング後のバイト数を足すことで、現在のファイルサイズを更新する。
+     */
+    @Override
+    public void onWrite(CharSequence message, int byteLength, Charset charset) {
+        this.currentFileSize += byteLength;
+    }
+
     /**
      * {@inheritDoc}
      * 設定情報のフォーマットを下記に示す。<br>
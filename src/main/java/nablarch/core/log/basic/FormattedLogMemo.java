@@ -0,0 +1,116 @@
+package nablarch.core.log.basic;
+
+/**
+ * 1件のログを複数の{@link LogWriter}に書き込む間、フォーマット結果をスレッド毎に保持するクラス。<br>
+ * <br>
+ * {@link BasicLogger}が{@link #begin(LogContext)}から{@link #end()}までの間に各{@link LogWriter}を呼び出し、
+ * フォーマット結果を共有するキーが同じ{@link LogWriter}は、最初にフォーマットした結果を使用する。<br>
+ * 保持するフォーマット結果は直近のキーの1件のみとする。<br>
+ * 書き込み中に同じスレッドから別のログが出力された場合は、そのログのフォーマット結果は保持しない。
+ */
+final class FormattedLogMemo {
+
+    /** スレッド毎の{@link FormattedLogMemo} */
+    private static final ThreadLocal<FormattedLogMemo> MEMO = new ThreadLocal<FormattedLogMemo>() {
+        @Override
+        protected FormattedLogMemo initialValue() {
+            return new FormattedLogMemo();
+        }
+    };
+
+    /** 書き込み中のログ。書き込み中でない場合は<code>null</code> */
+    private LogContext context;
+
+    /** フォーマット結果を共有するキー。フォーマット結果を保持していない場合は<code>null</code> */
+    private Object key;
+
+    /** フォーマット結果を保持するバッファ */
+    private StringBuilder sb = new StringBuilder(ReusableStringBuilder.INITIAL_SIZE);
+
+    /** 文字列に変換したフォーマット結果。変換していない場合は<code>null</code> */
+    private String formatted;
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private FormattedLogMemo() {
+    }
+
+    /**
+     * ログの書き込みを開始する。<br>
+     * 現在のスレッドで別のログを書き込み中の場合は何もしない。
+     * @param context 書き込むログ
+     * @return 開始した場合は{@link FormattedLogMemo}。書き込み中の場合は<code>null</code>
+     */
+    static FormattedLogMemo begin(LogContext context) {
+        FormattedLogMemo memo = MEMO.get();
+        if (memo.context != null) {
+            return null;
+        }
+        memo.context = context;
+        return memo;
+    }
+
+    /**
+     * ログの書き込みを終了し、保持したフォーマット結果を破棄する。<br>
+     * 大きなログによりバッファが拡張された場合は、初期サイズのバッファに置き換える。
+     */
+    void end() {
+        context = null;
+        key = null;
+        formatted = null;
+        if (sb.capacity() > ReusableStringBuilder.MAX_REUSED_SIZE) {
+            sb = new StringBuilder(ReusableStringBuilder.INITIAL_SIZE);
+        } else {
+            sb.setLength(0);
+        }
+    }
+
+    /**
+     * ログを文字列にフォーマットする。<br>
+     * 書き込み中のログを同じキーでフォーマット済みの場合は、その結果を返す。
+     * @param key フォーマット結果を共有するキー
+     * @param formatter {@link LogFormatter}
+     * @param context ログ
+     * @return フォーマット済みのログ
+     */
+    static String format(Object key, LogFormatter formatter, LogContext context) {
+        FormattedLogMemo memo = MEMO.get();
+        if (memo.context != context) {
+            return formatter.format(context);
+        }
+        if (memo.key != key) {
+            memo.key = null;
+            memo.sb.setLength(0);
+            memo.formatted = formatter.format(context);
+            memo.key = key;
+        } else if (memo.formatted == null) {
+            memo.formatted = memo.sb.toString();
+        }
+        return memo.formatted;
+    }
+
+    /**
+     * ログをバッファにフォーマットする。<br>
+     * 書き込み中のログを同じキーでフォーマット済みの場合は、その結果を返す。
+     * 返したバッファは、書き込みの終了後に再利用するため保持してはならない。
+     * @param key フォーマット結果を共有するキー
+     * @param formatter {@link LogFormatter}
+     * @param context ログ
+     * @return フォーマット済みのログ。書き込み中のログでない場合は<code>null</code>
+     */
+    static CharSequence appendTo(Object key, LogFormatter formatter, LogContext context) {
+        FormattedLogMemo memo = MEMO.get();
+        if (memo.context != context) {
+            return null;
+        }
+        if (memo.key != key) {
+            memo.key = null;
+            memo.sb.setLength(0);
+            memo.formatted = null;
+            formatter.appendTo(context, memo.sb);
+            memo.key = key;
+        }
+        return memo.formatted != null ? memo.formatted : memo.sb;
+    }
+}
@@ -0,0 +1,18 @@
+package nablarch.core.log.basic;
+
+/**
+ * 構造化ログのオブジェクトのエントリを、Mapに保持せずに順に受け取るインタフェース。<br>
+ * <br>
+ * {@link StreamingJsonLogObjectBuilder#writeEntries(JsonLogEntryWriter, Object)}の書き込み先として使用する。
+ * JSON以外の形式で出力するフォーマッタが実装する。
+ */
+interface JsonLogEntryWriter {
+
+    /**
+     * エントリを書き込む。<br>
+     * 値は、{@link JsonLogObjectBuilder#build(java.util.Map, Object)}でMapに設定する値と同じとする。
+     * @param name 名前
+     * @param value 値
+     */
+    void writeEntry(String name, Object value);
+}
@@ -10,14 +10,18 @@ import nablarch.core.util.StringUtil;
 import nablarch.core.util.annotation.Published;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
 
 /**
  * {@link LogFormatter}のJSON形式フォーマット実装クラス。<br>
@@ -78,12 +82,50 @@ import java.util.Set;
  *   <dt>{@code writer.<LogWriterの名称>.formatter.structuredMessagePrefix}<dt/>
  *   <dd>各種ログで使用される組み込み処理用の接頭辞。オプション。<br>
  *       指定しなければ$JSON$を使用する。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.staticFields}<dt/>
+ *   <dd>全てのログに出力する固定の項目の名前をカンマ区切りで指定する。オプション。<br>
+ *       固定の項目は初期処理でシリアライズし、出力項目の後に出力する。
+ *       Mapのシリアライザが{@link AppLogMapToJsonSerializer}でない場合は、シリアライズ前の値をMapに格納して出力する。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.staticFields.<固定の項目の名前>}<dt/>
+ *   <dd>固定の項目の値。<br>
+ *       {@code ${システムプロパティ名}}形式で指定した場合は、システムプロパティの値を使用する。
+ *       項目の名前がhostまたはpidで値の指定がない場合は、ホスト名またはプロセスIDを使用する。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.fixedBootProcess}<dt/>
+ *   <dd>起動プロセスがプロセスの実行中に変わらないか否か。オプション。<br>
+ *       trueを指定した場合は、初期処理の時点の起動プロセスをシリアライズして出力する。
+ *       指定しなければfalse。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.stackTrace.format}<dt/>
+ *   <dd>スタックトレースの出力形式。オプション。<br>
+ *       textを指定した場合は1つの文字列、arrayを指定した場合は行毎の文字列の配列として出力する。
+ *       指定しなければtext。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.stackTrace.<プロパティ名>}<dt/>
+ *   <dd>スタックトレースの出力に使用する{@link StackTraceRenderer}の設定。オプション。<br>
+ *       指定しなければスタックトレースを省略せずに出力する。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.maxMessageLength}<dt/>
+ *   <dd>messageの長さの上限。オプション。<br>
+ *       上限を超えたメッセージは、上限までの文字列に"...[truncated N chars]"(Nは切り詰めた文字数)を付与して出力する。
+ *       構造化済みメッセージは切り詰めない。指定しなければ上限なし。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.maxFieldLength}<dt/>
+ *   <dd>文字列の値(payloadの値を含む)の長さの上限。オプション。<br>
+ *       上限を超えた値は、maxMessageLengthと同様に切り詰めて出力する。
+ *       入れ子のMapとListに含まれる文字列と、文字列に変換して出力する値も対象とする。指定しなければ上限なし。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.maxRecordLength}<dt/>
+ *   <dd>1件のログの長さ(末尾の改行を除く)の上限。オプション。<br>
+ *       出力項目毎にメンバーをバッファへ直接書き込む場合のみ有効。
+ *       上限を超えるメンバーはJSONとして正しい状態を保つためにメンバー単位で出力せず、
+ *       上限を超えた時点で以降のシリアライズ結果をバッファに書き込まずに文字数のみを数える。
+ *       出力しなかった文字数を示すtruncatedメンバーを最後に出力する。
+ *       truncatedメンバーを出力する余地がない場合は、直前のメンバーから順に出力しない。指定しなければ上限なし。<dd/>
  * </dl>
+ * シリアライズ管理クラスが{@link AppLogJsonSerializationManager}で、組み込みの出力項目のみを出力する場合は、
+ * Mapを生成せずに、出力項目毎にメンバーをバッファへ直接書き込む。
+ * この場合、メンバーは出力項目に指定した順に出力し、payloadのキーが他の出力項目や固定の項目と重複した場合は、他の項目を出力する。
+ * また、処理方式などの出力毎に値が変わらない出力項目は、初期処理でシリアライズした結果を出力する。
  * @see LogWriter
  * @author Shuji Kitamura
  */
 @Published(tag = "architect")
-public class JsonLogFormatter implements LogFormatter {
+public class JsonLogFormatter implements ShareableLogFormatter {
 
     /** 出力日時の項目名 */
     private static final String TARGET_NAME_DATE = "date";
@@ -115,15 +157,76 @@ public class JsonLogFormatter implements LogFormatter {
 
     /** 出力項目のプロパティ名 */
     private static final String PROPS_TARGETS = "targets";
+    /** スタックトレースの出力形式のプロパティ名 */
+    private static final String PROPS_STACK_TRACE_FORMAT = "stackTrace.format";
+    /** スタックトレースを文字列で出力する形式 */
+    private static final String STACK_TRACE_FORMAT_TEXT = "text";
+    /** スタックトレースを行毎の配列で出力する形式 */
+    private static final String STACK_TRACE_FORMAT_ARRAY = "array";
     /** 出力項目のデフォルト値 */
     private static final String DEFAULT_TARGETS = "date,logLevel,loggerName,runtimeLoggerName,"
             + "executionId,bootProcess,processingSystem,requestId,userId,message,payload,stackTrace";
 
+    /** 日時パターンのプロパティ名 */
+    private static final String PROPS_DATE_PATTERN = "datePattern";
+    /** 日時パターンのデフォルト値 */
+    private static final String DEFAULT_DATE_PATTERN = "yyyy-MM-dd HH:mm:ss.SSS";
+
     /** messageを構造化されていることを示す接頭辞のプロパティ名 */
     private static final String PROPS_STRUCTURED_MESSAGE_PREFIX = "structuredMessagePrefix";
     /** messageを構造化されていることを示す接頭辞のデフォルト値 */
     private static final String DEFAULT_STRUCTURED_MESSAGE_PREFIX = "$JSON$";
 
+    /** 値がnullのメンバーを出力しないか否かのプロパティ名 */
+    private static final String PROPS_IGNORE_NULL_VALUE_MEMBER = "ignoreNullValueMember";
+
+    /** 固定の項目のプロパティ名 */
+    private static final String PROPS_STATIC_FIELDS = "staticFields";
+
+    /** 起動プロセスがプロセスの実行中に変わらないか否かのプロパティ名 */
+    private static final String PROPS_FIXED_BOOT_PROCESS = "fixedBootProcess";
+
+    /** メッセージの長さの上限のプロパティ名 */
+    private static final String PROPS_MAX_MESSAGE_LENGTH = "maxMessageLength";
+
+    /** 文字列の値の長さの上限のプロパティ名 */
+    private static final String PROPS_MAX_FIELD_LENGTH = "maxFieldLength";
+
+    /** 1件のログの長さの上限のプロパティ名 */
+    private static final String PROPS_MAX_RECORD_LENGTH = "maxRecordLength";
+
+    /** ホスト名の固定の項目名 */
+    private static final String STATIC_FIELD_HOST = "host";
+
+    /** プロセスIDの固定の項目名 */
+    private static final String STATIC_FIELD_PID = "pid";
+
+    /** Mapを生成してシリアライズする場合に、固定の項目を格納するキー */
+    private static final String STATIC_FIELDS_KEY = "$staticFields$";
+
+    /** 出力日時のメンバー名 */
+    private static final String MEMBER_NAME_DATE = JsonObjectWriter.toMemberName(TARGET_NAME_DATE);
+    /** ログレベルのメンバー名 */
+    private static final String MEMBER_NAME_LOG_LEVEL = JsonObjectWriter.toMemberName(TARGET_NAME_LOG_LEVEL);
+    /** ロガー名のメンバー名 */
+    private static final String MEMBER_NAME_LOGGER_NAME = JsonObjectWriter.toMemberName(TARGET_NAME_LOGGER_NAME);
+    /** 実行時ロガー名のメンバー名 */
+    private static final String MEMBER_NAME_RUNTIME_LOGGER_NAME = JsonObjectWriter.toMemberName(TARGET_NAME_RUNTIME_LOGGER_NAME);
+    /** 起動プロセスのメンバー名 */
+    private static final String MEMBER_NAME_BOOT_PROCESS = JsonObjectWriter.toMemberName(TARGET_NAME_BOOT_PROCESS);
+    /** 処理方式のメンバー名 */
+    private static final String MEMBER_NAME_PROCESSING_SYSTEM = JsonObjectWriter.toMemberName(TARGET_NAME_PROCESSING_SYSTEM);
+    /** リクエストIDのメンバー名 */
+    private static final String MEMBER_NAME_REQUEST_ID = JsonObjectWriter.toMemberName(TARGET_NAME_REQUEST_ID);
+    /** 実行時IDのメンバー名 */
+    private static final String MEMBER_NAME_EXECUTION_ID = JsonObjectWriter.toMemberName(TARGET_NAME_EXECUTION_ID);
+    /** ユーザIDのメンバー名 */
+    private static final String MEMBER_NAME_USER_ID = JsonObjectWriter.toMemberName(TARGET_NAME_USER_ID);
+    /** メッセージのメンバー名 */
+    private static final String MEMBER_NAME_MESSAGE = JsonObjectWriter.toMemberName(TARGET_NAME_MESSAGE);
+    /** スタックトレースのメンバー名 */
+    private static final String MEMBER_NAME_STACK_TRACE = JsonObjectWriter.toMemberName(TARGET_NAME_STACK_TRACE);
+
     /** Jsonのシリアライズに使用する管理クラス */
     private JsonSerializationManager serializationManager;
 
@@ -133,6 +236,42 @@ public class JsonLogFormatter implements LogFormatter {
     /** フォーマットエラーを処理するクラス */
     private FormatErrorSupport formatErrorSupport;
 
+    /** ログ出力項目をバッファへ直接書き込むか否か */
+    private boolean bufferAppendable;
+
+    /** バッファへ直接書き込むログ出力項目。Mapを生成してシリアライズする場合は<code>null</code> */
+    private List<StreamingJsonLogObjectBuilder<LogContext>> streamingTargets;
+
+    /** 出力対象の組み込みの出力項目の名前 */
+    private Set<String> reservedNames;
+
+    /** 値がnullのメンバーを出力しないか否か */
+    private boolean ignoreNullValueMember;
+
+    /** 起動プロセスがプロセスの実行中に変わらないか否か */
+    private boolean fixedBootProcess;
+
+    /** シリアライズ済みの固定の項目。固定の項目の指定がない場合は<code>null</code> */
+    private String staticFields;
+
+    /** シリアライズ前の固定の項目の値 */
+    private final Map<String, Object> staticFieldValues = new LinkedHashMap<String, Object>();
+
+    /** Mapのシリアライザが{@link RawJsonObjectMembers}をメンバーとして出力できるか否か */
+    private boolean rawMembersSupported;
+
+    /** メッセージの長さの上限 */
+    private int maxMessageLength;
+
+    /** 文字列の値の長さの上限 */
+    private int maxFieldLength;
+
+    /** 1件のログの長さの上限 */
+    private int maxRecordLength;
+
+    /** フォーマット結果を他の{@link LogWriter}と共有できるか否か */
+    private boolean shareable;
+
     /**
      * {@inheritDoc}<br>
      * <br>
@@ -140,6 +279,7 @@ public class JsonLogFormatter implements LogFormatter {
      */
     @Override
     public void initialize(ObjectSettings settings) {
+        shareable = !StackTraceRenderer.isDeduplicating(settings);
         formatErrorSupport = createFormatErrorSupport();
 
         serializationManager = createSerializationManager(settings);
@@ -148,7 +288,203 @@ public class JsonLogFormatter implements LogFormatter {
                 settings.getProps(), settings.getName() + ".", settings.getFilePath());
         serializationManager.initialize(jsonSettings);
 
+        maxMessageLength = ObjectSettingsSupport.getIntProp(settings, PROPS_MAX_MESSAGE_LENGTH, LogTruncation.UNLIMITED);
+        maxFieldLength = ObjectSettingsSupport.getIntProp(settings, PROPS_MAX_FIELD_LENGTH, LogTruncation.UNLIMITED);
+        maxRecordLength = ObjectSettingsSupport.getIntProp(settings, PROPS_MAX_RECORD_LENGTH, LogTruncation.UNLIMITED);
+
         structuredTargets = createStructuredTargets(settings);
+
+        String ignoreNullValue = settings.getProp(PROPS_IGNORE_NULL_VALUE_MEMBER);
+        ignoreNullValueMember = StringUtil.isNullOrEmpty(ignoreNullValue) || Boolean.parseBoolean(ignoreNullValue);
+        fixedBootProcess = Boolean.parseBoolean(settings.getProp(PROPS_FIXED_BOOT_PROCESS));
+        reservedNames = new HashSet<String>(getTargets(settings));
+        reservedNames.remove(TARGET_NAME_PAYLOAD);
+        staticFields = createStaticFields(settings);
+        rawMembersSupported = serializationManager.getSerializer(new HashMap<String, Object>())
+                instanceof AppLogMapToJsonSerializer;
+        bufferAppendable = isBufferAppendable();
+        streamingTargets = createStreamingTargets();
+    }
+
+    /**
+     * 設定で指定された固定の項目をシリアライズする。<br>
+     * 固定の項目の名前は、payloadのキーとの重複を判定するために組み込みの出力項目の名前に追加する。
+     * @param settings LogFormatterの設定
+     * @return シリアライズ済みの固定の項目。固定の項目の指定がない場合は<code>null</code>
+     */
+    private String createStaticFields(ObjectSettings settings) {
+        String fieldsStr = settings.getProp(PROPS_STATIC_FIELDS);
+        if (StringUtil.isNullOrEmpty(fieldsStr)) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        JsonObjectWriter writer = new JsonObjectWriter(sb, serializationManager, ignoreNullValueMember,
+                                                       Collections.<String>emptySet());
+        try {
+            for (String field : fieldsStr.split(",")) {
+                String name = field.trim();
+                if (StringUtil.isNullOrEmpty(name)) {
+                    continue;
+                }
+                if (!reservedNames.add(name)) {
+                    throw new IllegalArgumentException(
+                            String.format("JsonLogFormatter : [%s] is duplicated static field. property name = [%s.%s]",
+                                    name, settings.getName(), PROPS_STATIC_FIELDS));
+                }
+                Object value = getStaticFieldValue(settings, name);
+                staticFieldValues.put(name, value);
+                writer.writeDynamicMember(name, value);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return sb.length() != 0 ? sb.toString() : null;
+    }
+
+    /**
+     * 固定の項目の値を取得する。
+     * @param settings LogFormatterの設定
+     * @param name 固定の項目の名前
+     * @return 固定の項目の値
+     */
+    private Object getStaticFieldValue(ObjectSettings settings, String name) {
+        String propName = PROPS_STATIC_FIELDS + "." + name;
+        String value = settings.getProp(propName);
+        if (!StringUtil.isNullOrEmpty(value)) {
+            if (value.startsWith("${") && value.endsWith("}")) {
+                return System.getProperty(value.substring(2, value.length() - 1));
+            }
+            return value;
+        }
+        if (STATIC_FIELD_HOST.equals(name)) {
+            return getHostName();
+        }
+        if (STATIC_FIELD_PID.equals(name)) {
+            return getProcessId();
+        }
+        throw new IllegalArgumentException(
+                String.format("JsonLogFormatter : [%s] static field value was not specified. property name = [%s.%s]",
+                        name, settings.getName(), propName));
+    }
+
+    /**
+     * ホスト名を取得する。
+     * @return ホスト名。取得できない場合は<code>null</code>
+     */
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    /**
+     * プロセスIDを取得する。
+     * @return プロセスID。取得できない場合は<code>null</code>
+     */
+    private static Long getProcessId() {
+        try {
+            return ProcessHandle.current().pid();
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * バッファへ直接書き込むログ出力項目を生成する。<br>
+     * <br>
+     * シリアライズ管理クラスが{@link AppLogJsonSerializationManager}で、
+     * 全てのログ出力項目が組み込みの出力項目の場合のみ生成する。
+     * {@link #isBufferAppendable()}が<code>false</code>を返す場合は、
+     * {@link #createStructuredObject(LogContext)}の処理結果を出力するために生成しない。
+     * @return バッファへ直接書き込むログ出力項目。直接書き込めない場合は<code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    private List<StreamingJsonLogObjectBuilder<LogContext>> createStreamingTargets() {
+        if (serializationManager.getClass() != AppLogJsonSerializationManager.class
+                || !bufferAppendable) {
+            return null;
+        }
+        List<StreamingJsonLogObjectBuilder<LogContext>> targets
+                = new ArrayList<StreamingJsonLogObjectBuilder<LogContext>>(structuredTargets.size() + 1);
+        StringBuilder constants = new StringBuilder();
+        JsonObjectWriter constantsWriter = new JsonObjectWriter(constants, serializationManager, ignoreNullValueMember,
+                                                                Collections.<String>emptySet());
+        try {
+            for (JsonLogObjectBuilder<LogContext> builder : structuredTargets) {
+                if (!isStreamingBuilder(builder)) {
+                    return null;
+                }
+                StreamingJsonLogObjectBuilder<LogContext> target = (StreamingJsonLogObjectBuilder<LogContext>) builder;
+                if (isConstantTarget(target)) {
+                    target.writeMembers(constantsWriter, null);
+                } else {
+                    addConstantMembers(targets, constants);
+                    constantsWriter = new JsonObjectWriter(constants, serializationManager, ignoreNullValueMember,
+                                                           Collections.<String>emptySet());
+                    targets.add(target);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (staticFields != null) {
+            constantsWriter.writeRawMembers(staticFields);
+        }
+        addConstantMembers(targets, constants);
+        return targets;
+    }
+
+    /**
+     * Mapを生成せずに直接書き込むログ出力項目か否かを判定する。<br>
+     * サブクラスで{@link JsonLogObjectBuilder#build(Map, Object)}をオーバーライドしている可能性があるため、
+     * 本クラスで定義した組み込みの出力項目のみを対象とする。
+     * @param builder ログ出力項目
+     * @return 直接書き込むログ出力項目の場合は<code>true</code>
+     */
+    private static boolean isStreamingBuilder(JsonLogObjectBuilder<LogContext> builder) {
+        return builder instanceof StreamingJsonLogObjectBuilder
+                && builder.getClass().getEnclosingClass() == JsonLogFormatter.class;
+    }
+
+    /**
+     * 出力毎に値が変わらない出力項目か否かを判定する。<br>
+     * 処理方式と、起動プロセスが変わらないことが設定で指定された場合の起動プロセスを対象とする。
+     * @param target 出力項目
+     * @return 出力毎に値が変わらない出力項目の場合は<code>true</code>
+     */
+    private boolean isConstantTarget(StreamingJsonLogObjectBuilder<LogContext> target) {
+        return target instanceof ProcessingSystemBuilder
+            || (fixedBootProcess && target instanceof BootProcessBuilder);
+    }
+
+    /**
+     * シリアライズ済みの出力項目がある場合は、そのまま出力する出力項目として追加する。
+     * @param targets バッファへ直接書き込むログ出力項目
+     * @param constants シリアライズ済みの出力項目
+     */
+    private static void addConstantMembers(List<StreamingJsonLogObjectBuilder<LogContext>> targets, StringBuilder constants) {
+        if (constants.length() != 0) {
+            targets.add(new RawMembersBuilder(constants.toString()));
+            constants.setLength(0);
+        }
+    }
+
+    /**
+     * {@link #format(LogContext)}と{@link #createStructuredObject(LogContext)}を経由せずに、
+     * ログ出力項目をバッファへ直接書き込むか否かを返す。<br>
+     * <br>
+     * <code>false</code>を返す場合は、{@link #createStructuredObject(LogContext)}で作成したオブジェクトをシリアライズし、
+     * {@link #appendTo(LogContext, StringBuilder)}は{@link #format(LogContext)}の結果を追加する。
+     * サブクラスでこれらのメソッドをオーバーライドしている可能性があるため、
+     * デフォルト実装では本クラスのインスタンスの場合のみ<code>true</code>を返す。
+     * これらのメソッドをオーバーライドしないサブクラスで直接書き込む場合は、オーバーライドして<code>true</code>を返すこと。<br>
+     * 初期処理で1度だけ呼び出される。
+     * @return バッファへ直接書き込む場合は<code>true</code>
+     */
+    protected boolean isBufferAppendable() {
+        return getClass() == JsonLogFormatter.class;
     }
 
     /**
@@ -175,7 +511,7 @@ public class JsonLogFormatter implements LogFormatter {
      */
     protected List<JsonLogObjectBuilder<LogContext>> createStructuredTargets(ObjectSettings settings) {
         Map<String, JsonLogObjectBuilder<LogContext>> builderMap = new HashMap<String, JsonLogObjectBuilder<LogContext>>();
-        builderMap.put(TARGET_NAME_DATE, new DateBuilder());
+        builderMap.put(TARGET_NAME_DATE, createDateBuilder(settings));
         builderMap.put(TARGET_NAME_LOG_LEVEL, new LogLevelBuilder(getLogLevelLabelProvider(settings)));
         builderMap.put(TARGET_NAME_LOGGER_NAME, new LoggerNameBuilder());
         builderMap.put(TARGET_NAME_RUNTIME_LOGGER_NAME, new RuntimeLoggerNameBuilder());
@@ -185,35 +521,53 @@ public class JsonLogFormatter implements LogFormatter {
         builderMap.put(TARGET_NAME_REQUEST_ID, new RequestIdBuilder());
         builderMap.put(TARGET_NAME_EXECUTION_ID, new ExecutionIdBuilder());
         builderMap.put(TARGET_NAME_USER_ID, new UserIdBuilder());
-        builderMap.put(TARGET_NAME_MESSAGE, new MessageBuilder(getStructuredMessagePrefix(settings)));
-        builderMap.put(TARGET_NAME_STACK_TRACE, new StackTraceBuilder());
+        builderMap.put(TARGET_NAME_MESSAGE, new MessageBuilder(getStructuredMessagePrefix(settings),
+                                                                 Math.min(maxMessageLength, maxFieldLength)));
+        builderMap.put(TARGET_NAME_STACK_TRACE, new StackTraceBuilder(
+                StackTraceRenderer.create(settings), isStackTraceArray(settings)));
         builderMap.put(TARGET_NAME_PAYLOAD, new PayloadBuilder(formatErrorSupport));
 
         List<JsonLogObjectBuilder<LogContext>> list = new ArrayList<JsonLogObjectBuilder<LogContext>>();
 
-        String targetsStr = settings.getProp(PROPS_TARGETS);
-        if (StringUtil.isNullOrEmpty(targetsStr)) {
-            targetsStr = DEFAULT_TARGETS;
-        }
+        for (String key : getTargets(settings)) {
+            if (!builderMap.containsKey(key)) {
+                throw new IllegalArgumentException(
+                        String.format("JsonLogFormatter : [%s] is unknown target. property name = [%s.%s]",
+                                key, settings.getName(), PROPS_TARGETS)
+                );
+            }
 
-        String[] targets = targetsStr.split(",");
-        Set<String> keys = new HashSet<String>(targets.length);
-        for (String target: targets) {
-            String key = target.trim();
-            if (!StringUtil.isNullOrEmpty(key) && !keys.contains(key)) {
-                keys.add(key);
+            list.add(builderMap.get(key));
+        }
+        return list;
+    }
 
-                if (!builderMap.containsKey(key)) {
-                    throw new IllegalArgumentException(
-                            String.format("JsonLogFormatter : [%s] is unknown target. property name = [%s.%s]",
-                                    key, settings.getName(), PROPS_TARGETS)
-                    );
-                }
+    /**
+     * 設定から出力項目の名前を取得する。<br>
+     * 空の名前と重複した名前は除外する。
+     * @param settings LogFormatterの設定
+     * @return 出力項目の名前
+     */
+    private List<String> getTargets(ObjectSettings settings) {
+        return ObjectSettingsSupport.getTargets(settings, PROPS_TARGETS, DEFAULT_TARGETS);
+    }
 
-                list.add(builderMap.get(key));
-            }
+    /**
+     * 出力日時を処理するクラスを生成する。<br>
+     * <br>
+     * デフォルトの{@link AppLogJsonSerializationManager}を使用し、日時パターンを{@link TimestampRenderer}で扱える場合は、
+     * 直前の秒のフォーマット結果を再利用してフォーマットした文字列を出力する。
+     * それ以外の場合は、日時のフォーマットをシリアライザに委譲する。
+     * @param settings LogFormatterの設定
+     * @return 出力日時を処理するクラス
+     */
+    private DateBuilder createDateBuilder(ObjectSettings settings) {
+        if (!(serializationManager instanceof AppLogJsonSerializationManager)) {
+            return new DateBuilder();
         }
-        return list;
+        TimestampRenderer renderer = TimestampRenderer.of(
+                ObjectSettingsSupport.getProp(settings, PROPS_DATE_PATTERN, DEFAULT_DATE_PATTERN), TimeZone.getDefault());
+        return renderer != null ? new DateBuilder(renderer) : new DateBuilder();
     }
 
     /**
@@ -226,6 +580,24 @@ public class JsonLogFormatter implements LogFormatter {
         return !StringUtil.isNullOrEmpty(prefix) ? prefix : DEFAULT_STRUCTURED_MESSAGE_PREFIX;
     }
 
+    /**
+     * スタックトレースをフレーム毎の配列として出力するか否かを設定から取得する。
+     * @param settings LogFormatterの設定
+     * @return 配列として出力する場合は<code>true</code>
+     */
+    private static boolean isStackTraceArray(ObjectSettings settings) {
+        String format = settings.getProp(PROPS_STACK_TRACE_FORMAT);
+        if (format == null || STACK_TRACE_FORMAT_TEXT.equals(format)) {
+            return false;
+        }
+        if (STACK_TRACE_FORMAT_ARRAY.equals(format)) {
+            return true;
+        }
+        throw new IllegalArgumentException(
+                String.format("JsonLogFormatter : [%s] is unknown stack trace format. property name = [%s.%s]",
+                        format, settings.getName(), PROPS_STACK_TRACE_FORMAT));
+    }
+
     /**
      * LogLevelLabelProviderを取得する。
      * @param settings LogFormatterの設定
@@ -235,12 +607,34 @@ public class JsonLogFormatter implements LogFormatter {
         return new LogLevelLabelProvider(settings);
     }
 
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * スタックトレースの繰り返しを判定する場合は、出力内容がそれまでに出力したスタックトレースに依存するため共有できない。
+     */
+    @Override
+    public boolean isShareable() {
+        return shareable;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public String format(LogContext context) {
+        if (streamingTargets != null) {
+            StringBuilder sb = ReusableStringBuilder.acquire();
+            try {
+                appendTo(context, sb);
+                return sb.toString();
+            } finally {
+                ReusableStringBuilder.release(sb);
+            }
+        }
         Map<String, Object> structuredObject = createStructuredObject(context);
+        if (maxFieldLength != LogTruncation.UNLIMITED) {
+            truncateValues(structuredObject);
+        }
         JsonSerializer serializer = serializationManager.getSerializer(structuredObject);
         StringWriter writer = new StringWriter();
         String message;
@@ -259,7 +653,50 @@ public class JsonLogFormatter implements LogFormatter {
     }
 
     /**
-     * ログコンテキストからシリアライズ用のオブジェクトを作成する。
+     * {@inheritDoc}<br>
+     * <br>
+     * {@link #isBufferAppendable()}が<code>false</code>を返す場合と、出力項目毎にメンバーをバッファへ直接書き込めない場合は、
+     * {@link #format(LogContext)}の結果を追加する。
+     */
+    @Override
+    public void appendTo(LogContext context, StringBuilder sb) {
+        if (streamingTargets == null) {
+            sb.append(format(context));
+            return;
+        }
+        JsonObjectWriter writer = new JsonObjectWriter(sb, serializationManager, ignoreNullValueMember, reservedNames);
+        writer.setLimits(maxFieldLength, maxRecordLength);
+        writer.beginObject();
+        try {
+            for (StreamingJsonLogObjectBuilder<LogContext> target : streamingTargets) {
+                target.writeMembers(writer, context);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        writer.endObject();
+        sb.append(Logger.LS);
+    }
+
+    /**
+     * シリアライズ用のオブジェクトの文字列の値のうち、長さの上限を超えたものを切り詰める。<br>
+     * 入れ子のMapとListに含まれる値も切り詰める。
+     * メッセージは{@link MessageBuilder}で切り詰めるため対象外とする。
+     * @param structuredObject シリアライズ用のオブジェクト
+     */
+    private void truncateValues(Map<String, Object> structuredObject) {
+        for (Map.Entry<String, Object> entry : structuredObject.entrySet()) {
+            if (!TARGET_NAME_MESSAGE.equals(entry.getKey())) {
+                entry.setValue(LogTruncation.truncateValue(entry.getValue(), maxFieldLength));
+            }
+        }
+    }
+
+    /**
+     * ログコンテキストからシリアライズ用のオブジェクトを作成する。<br>
+     * <br>
+     * 固定の項目は、Mapのシリアライザが{@link AppLogMapToJsonSerializer}の場合はシリアライズ済みのメンバーとして、
+     * それ以外の場合はシリアライズ前の値として格納する。
      * @param context ログコンテキスト
      * @return シリアライズ用のオブジェクト
      */
@@ -268,21 +705,167 @@ public class JsonLogFormatter implements LogFormatter {
         for (JsonLogObjectBuilder<LogContext> builder: structuredTargets) {
             builder.build(structuredObject, context);
         }
+        if (staticFields != null) {
+            if (rawMembersSupported) {
+                structuredObject.put(STATIC_FIELDS_KEY, new RawJsonObjectMembers(staticFields));
+            } else {
+                structuredObject.putAll(staticFieldValues);
+            }
+        }
         return structuredObject;
     }
 
+    /**
+     * ログ出力項目の順に、シリアライズ用のオブジェクトのエントリを書き込む。<br>
+     * <br>
+     * JSON以外の形式で出力するために使用する。組み込みの出力項目は、Mapを生成せずに
+     * {@link StreamingJsonLogObjectBuilder#writeEntries(JsonLogEntryWriter, Object)}でエントリを書き込む。
+     * それ以外の出力項目は、出力項目毎に生成したMapに設定したエントリを書き込む。
+     * 固定の項目は、{@link #appendTo(LogContext, StringBuilder)}と同様に最後にシリアライズ前の値で書き込む。
+     * {@link #isBufferAppendable()}が<code>false</code>を返す場合は、{@link #createStructuredObject(LogContext)}の処理結果を書き込む。
+     * @param context ログコンテキスト
+     * @param writer 書き込み先
+     */
+    @SuppressWarnings("unchecked")
+    void writeOrderedEntries(LogContext context, OrderedEntryWriter writer) {
+        if (!bufferAppendable) {
+            for (Map.Entry<String, Object> entry : createStructuredObject(context).entrySet()) {
+                String key = entry.getKey();
+                if (!STATIC_FIELDS_KEY.equals(key) && !staticFieldValues.containsKey(key)) {
+                    writer.writeEntry(key, entry.getValue());
+                }
+            }
+        } else {
+            for (JsonLogObjectBuilder<LogContext> builder : structuredTargets) {
+                writer.payload = builder instanceof PayloadBuilder;
+                if (writer.payload) {
+                    writer.payloadKeys.clear();
+                }
+                if (isStreamingBuilder(builder)) {
+                    ((StreamingJsonLogObjectBuilder<LogContext>) builder).writeEntries(writer, context);
+                } else {
+                    Map<String, Object> entries = new LinkedHashMap<String, Object>();
+                    builder.build(entries, context);
+                    for (Map.Entry<String, Object> entry : entries.entrySet()) {
+                        writer.writeEntry(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            writer.payload = false;
+        }
+        for (Map.Entry<String, Object> entry : staticFieldValues.entrySet()) {
+            writer.writeEntry(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 値がnullのメンバーを出力しないか否かを取得する。
+     * @return 出力しない場合は<code>true</code>
+     */
+    boolean isIgnoreNullValueMember() {
+        return ignoreNullValueMember;
+    }
+
+    /**
+     * ログ出力項目のエントリを、Mapに保持せずに書き込むクラス。<br>
+     * <br>
+     * {@link #writeOrderedEntries(LogContext, OrderedEntryWriter)}で、ログ出力項目の書き込み先として使用する。
+     * 文字列の値は長さの上限まで切り詰めてから書き込む。
+     * payloadのキーは、{@link #appendTo(LogContext, StringBuilder)}と同様に、
+     * 他の出力項目や固定の項目と重複する場合と、先に書き込んだキーと重複する場合は書き込まない。
+     */
+    abstract class OrderedEntryWriter implements JsonLogEntryWriter {
+
+        /** payloadのエントリを書き込んでいる場合は<code>true</code> */
+        private boolean payload;
+
+        /** 書き込んだpayloadのキー */
+        private final Set<String> payloadKeys = new HashSet<String>();
+
+        /**
+         * {@inheritDoc}<br>
+         * <br>
+         * 書き込む対象のエントリのみ、文字列の値を切り詰めて{@link #encodeEntry(String, Object)}で書き込む。
+         */
+        @Override
+        public final void writeEntry(String name, Object value) {
+            if (payload && (reservedNames.contains(name) || !payloadKeys.add(name))) {
+                return;
+            }
+            if (maxFieldLength != LogTruncation.UNLIMITED && !TARGET_NAME_MESSAGE.equals(name)) {
+                encodeEntry(name, LogTruncation.truncateValue(value, maxFieldLength));
+            } else {
+                encodeEntry(name, value);
+            }
+        }
+
+        /**
+         * エントリを出力形式に変換して書き込む。
+         * @param name 名前
+         * @param value 値
+         */
+        abstract void encodeEntry(String name, Object value);
+    }
+
     /**
      * 出力日時を処理するクラス。
      * @author Shuji Kitamura
      */
-    public static class DateBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class DateBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
+
+        /** 日時をフォーマットする{@link TimestampRenderer}。シリアライザでフォーマットする場合は<code>null</code> */
+        private final TimestampRenderer renderer;
+
+        /**
+         * コンストラクタ。<br>
+         * 日時のフォーマットはシリアライザで行う。
+         */
+        public DateBuilder() {
+            this(null);
+        }
+
+        /**
+         * 日時をフォーマットする{@link TimestampRenderer}を指定するコンストラクタ。
+         * @param renderer 日時をフォーマットする{@link TimestampRenderer}
+         */
+        DateBuilder(TimestampRenderer renderer) {
+            this.renderer = renderer;
+        }
 
         /**
          * {@inheritDoc}
          */
         @Override
         public void build(Map<String, Object> structuredObject, LogContext context) {
-            structuredObject.put(TARGET_NAME_DATE, context.getDate());
+            structuredObject.put(TARGET_NAME_DATE, getValue(context));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            writer.writeMember(MEMBER_NAME_DATE, getValue(context));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(TARGET_NAME_DATE, getValue(context));
+        }
+
+        /**
+         * 出力日時を取得する。
+         * @param context ログコンテキスト
+         * @return フォーマットした出力日時。シリアライザでフォーマットする場合は出力日時
+         */
+        private Object getValue(LogContext context) {
+            if (renderer != null) {
+                return renderer.format(context.getDate().getTime());
+            }
+            return context.getDate();
         }
     }
 
@@ -290,7 +873,7 @@ public class JsonLogFormatter implements LogFormatter {
      * ログレベルを処理するクラス。
      * @author Shuji Kitamura
      */
-    public static class LogLevelBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class LogLevelBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
 
         /** ログレベルを表す文言を提供するクラス */
         private final LogLevelLabelProvider levelLabelProvider;
@@ -311,13 +894,29 @@ public class JsonLogFormatter implements LogFormatter {
             structuredObject.put(TARGET_NAME_LOG_LEVEL,
                 levelLabelProvider.getLevelLabel(context.getLevel()));
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            writer.writeMember(MEMBER_NAME_LOG_LEVEL, levelLabelProvider.getLevelLabel(context.getLevel()));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(TARGET_NAME_LOG_LEVEL, levelLabelProvider.getLevelLabel(context.getLevel()));
+        }
     }
 
     /**
      * ロガー名を処理するクラス。
      * @author Shuji Kitamura
      */
-    public static class LoggerNameBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class LoggerNameBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
 
         /**
          * {@inheritDoc}
@@ -326,13 +925,29 @@ public class JsonLogFormatter implements LogFormatter {
         public void build(Map<String, Object> structuredObject, LogContext context) {
             structuredObject.put(TARGET_NAME_LOGGER_NAME, context.getLoggerName());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            writer.writeMember(MEMBER_NAME_LOGGER_NAME, context.getLoggerName());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(TARGET_NAME_LOGGER_NAME, context.getLoggerName());
+        }
     }
 
     /**
      * 実行時ロガー名を処理するクラス。
      * @author Shuji Kitamura
      */
-    public static class RuntimeLoggerNameBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class RuntimeLoggerNameBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
 
         /**
          * {@inheritDoc}
@@ -341,13 +956,29 @@ public class JsonLogFormatter implements LogFormatter {
         public void build(Map<String, Object> structuredObject, LogContext context) {
             structuredObject.put(TARGET_NAME_RUNTIME_LOGGER_NAME, context.getRuntimeLoggerName());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            writer.writeMember(MEMBER_NAME_RUNTIME_LOGGER_NAME, context.getRuntimeLoggerName());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(TARGET_NAME_RUNTIME_LOGGER_NAME, context.getRuntimeLoggerName());
+        }
     }
 
     /**
      * 起動プロセスを処理するクラス。
      * @author Shuji Kitamura
      */
-    public static class BootProcessBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class BootProcessBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
 
         /**
          * {@inheritDoc}
@@ -356,13 +987,29 @@ public class JsonLogFormatter implements LogFormatter {
         public void build(Map<String, Object> structuredObject, LogContext context) {
             structuredObject.put(TARGET_NAME_BOOT_PROCESS, LogUtil.getBootProcess());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            writer.writeMember(MEMBER_NAME_BOOT_PROCESS, LogUtil.getBootProcess());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(TARGET_NAME_BOOT_PROCESS, LogUtil.getBootProcess());
+        }
     }
 
     /**
      * 処理方式を処理するクラス。
      * @author Shuji Kitamura
      */
-    public static class ProcessingSystemBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class ProcessingSystemBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
 
         /** 処理方式 */
         private final String processingSystem;
@@ -382,13 +1029,29 @@ public class JsonLogFormatter implements LogFormatter {
         public void build(Map<String, Object> structuredObject, LogContext context) {
             structuredObject.put(TARGET_NAME_PROCESSING_SYSTEM, processingSystem);
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            writer.writeMember(MEMBER_NAME_PROCESSING_SYSTEM, processingSystem);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(TARGET_NAME_PROCESSING_SYSTEM, processingSystem);
+        }
     }
 
     /**
      * リクエストIDを処理するクラス。
      * @author Shuji Kitamura
      */
-    public static class RequestIdBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class RequestIdBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
 
         /**
          * {@inheritDoc}
@@ -397,13 +1060,29 @@ public class JsonLogFormatter implements LogFormatter {
         public void build(Map<String, Object> structuredObject, LogContext context) {
             structuredObject.put(TARGET_NAME_REQUEST_ID, context.getRequestId());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            writer.writeMember(MEMBER_NAME_REQUEST_ID, context.getRequestId());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(TARGET_NAME_REQUEST_ID, context.getRequestId());
+        }
     }
 
     /**
      * 実行時IDを処理するクラス。
      * @author Shuji Kitamura
      */
-    public static class ExecutionIdBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class ExecutionIdBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
 
         /**
          * {@inheritDoc}
@@ -412,13 +1091,29 @@ public class JsonLogFormatter implements LogFormatter {
         public void build(Map<String, Object> structuredObject, LogContext context) {
             structuredObject.put(TARGET_NAME_EXECUTION_ID, context.getExecutionId());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            writer.writeMember(MEMBER_NAME_EXECUTION_ID, context.getExecutionId());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(TARGET_NAME_EXECUTION_ID, context.getExecutionId());
+        }
     }
 
     /**
      * ユーザIDを処理するクラス。
      * @author Shuji Kitamura
      */
-    public static class UserIdBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class UserIdBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
 
         /**
          * {@inheritDoc}
@@ -427,23 +1122,52 @@ public class JsonLogFormatter implements LogFormatter {
         public void build(Map<String, Object> structuredObject, LogContext context) {
             structuredObject.put(TARGET_NAME_USER_ID, context.getUserId());
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            writer.writeMember(MEMBER_NAME_USER_ID, context.getUserId());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(TARGET_NAME_USER_ID, context.getUserId());
+        }
     }
 
     /**
      * メッセージを処理するクラス。
      * @author Shuji Kitamura
      */
-    public static class MessageBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class MessageBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
 
         /** 構造化済みメッセージであることを示す接頭辞 */
         private final String structuredMessagePrefix;
 
+        /** メッセージの長さの上限 */
+        private final int maxMessageLength;
+
         /**
          * コンストラクタ。
          * @param structuredMessagePrefix 構造化済みメッセージであることを示す接頭辞
          */
         public MessageBuilder(String structuredMessagePrefix) {
+            this(structuredMessagePrefix, LogTruncation.UNLIMITED);
+        }
+
+        /**
+         * メッセージの長さの上限を指定するコンストラクタ。
+         * @param structuredMessagePrefix 構造化済みメッセージであることを示す接頭辞
+         * @param maxMessageLength メッセージの長さの上限
+         */
+        MessageBuilder(String structuredMessagePrefix, int maxMessageLength) {
             this.structuredMessagePrefix = structuredMessagePrefix;
+            this.maxMessageLength = maxMessageLength;
         }
 
         /**
@@ -451,52 +1175,151 @@ public class JsonLogFormatter implements LogFormatter {
          */
         @Override
         public void build(Map<String, Object> structuredObject, LogContext context) {
-            if (context.getMessage() == null) {
-                structuredObject.put(TARGET_NAME_MESSAGE, null);
-            } else if (context.getMessage().startsWith(structuredMessagePrefix)) {
-                String message = context.getMessage();
-                structuredObject.put(TARGET_NAME_MESSAGE,
-                        new RawJsonObjectMembers(message.substring(structuredMessagePrefix.length() + 1, message.length() - 1)));
-            } else {
-                structuredObject.put(TARGET_NAME_MESSAGE, context.getMessage());
+            structuredObject.put(TARGET_NAME_MESSAGE, getEntryValue(context));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            writer.writeMember(MEMBER_NAME_MESSAGE, getValue(context), maxMessageLength);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(TARGET_NAME_MESSAGE, getEntryValue(context));
+        }
+
+        /**
+         * エントリの値とするメッセージを取得する。<br>
+         * 構造化済みメッセージの場合は{@link RawJsonObjectMembers}を、それ以外の場合は長さの上限まで切り詰めたメッセージを返す。
+         * @param context ログコンテキスト
+         * @return エントリの値とするメッセージ
+         */
+        private Object getEntryValue(LogContext context) {
+            Object value = getValue(context);
+            if (value instanceof StructuredMessage) {
+                return ((StructuredMessage) value).toRawJsonObjectMembers();
+            } else if (value instanceof String) {
+                return LogTruncation.truncate((String) value, maxMessageLength);
             }
+            return value;
+        }
+
+        /**
+         * メッセージを取得する。<br>
+         * {@link StructuredMessage}で保持する構造化済みメッセージの場合は、{@link StructuredMessage}を返す。<br>
+         * 接頭辞を付与した文字列の構造化済みメッセージの場合は、接頭辞とobjectの開始、終了マーカーを除いた範囲を、
+         * 部分文字列を生成せずに{@link RawJsonObjectMembers}として返す。
+         * @param context ログコンテキスト
+         * @return 構造化済みメッセージの場合は{@link StructuredMessage}または{@link RawJsonObjectMembers}、
+         *          それ以外の場合はメッセージ
+         */
+        private Object getValue(LogContext context) {
+            if (context instanceof StructuredMessageLogContext) {
+                return ((StructuredMessageLogContext) context).getStructuredMessage();
+            }
+            String message = context.getMessage();
+            if (message != null && message.startsWith(structuredMessagePrefix)) {
+                return new RawJsonObjectMembers(message, structuredMessagePrefix.length() + 1, message.length() - 1);
+            }
+            return message;
         }
     }
 
     /**
-     * エラー情報に指定された例外オブジェクトのスタックトレースを処理するクラス。
+     * エラー情報に指定された例外オブジェクトのスタックトレースを処理するクラス。<br>
+     * <br>
+     * スタックトレースは{@link StackTraceRenderer}で出力する。
      * @author Shuji Kitamura
      */
-    public static class StackTraceBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class StackTraceBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
+
+        /** スタックトレースの出力に使用する{@link StackTraceRenderer} */
+        private final StackTraceRenderer renderer;
+
+        /** 行毎の配列として出力するか否か */
+        private final boolean array;
+
+        /**
+         * コンストラクタ。<br>
+         * スタックトレースを省略せずに1つの文字列として出力する。
+         */
+        public StackTraceBuilder() {
+            this(StackTraceRenderer.DEFAULT, false);
+        }
+
+        /**
+         * コンストラクタ。
+         * @param renderer スタックトレースの出力に使用する{@link StackTraceRenderer}
+         * @param array 行毎の配列として出力する場合は<code>true</code>
+         */
+        public StackTraceBuilder(StackTraceRenderer renderer, boolean array) {
+            this.renderer = renderer;
+            this.array = array;
+        }
 
         /**
          * {@inheritDoc}
          */
         @Override
         public void build(Map<String, Object> structuredObject, LogContext context) {
+            structuredObject.put(TARGET_NAME_STACK_TRACE, getValue(context));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            Throwable error = context.getError();
+            if (error == null || array) {
+                writer.writeMember(MEMBER_NAME_STACK_TRACE, getValue(context));
+                return;
+            }
+            writer.writeStackTraceMember(MEMBER_NAME_STACK_TRACE, renderer, error);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(TARGET_NAME_STACK_TRACE, getValue(context));
+        }
+
+        /**
+         * スタックトレースを取得する。
+         * @param context ログコンテキスト
+         * @return 配列として出力する場合は行の{@link List}、それ以外の場合はスタックトレース。
+         *          エラー情報の指定がない場合は<code>null</code>
+         */
+        private Object getValue(LogContext context) {
             Throwable error = context.getError();
             if (error == null) {
-                structuredObject.put(TARGET_NAME_STACK_TRACE, null);
-            } else {
-                StringWriter sw;
-                PrintWriter pw = null;
-                try {
-                    sw = new StringWriter();
-                    pw = new PrintWriter(sw);
-                    error.printStackTrace(pw);
-                    structuredObject.put(TARGET_NAME_STACK_TRACE, sw.toString());
-                } finally {
-                    FileUtil.closeQuietly(pw);
-                }
+                return null;
+            }
+            if (array) {
+                return renderer.toLines(error);
             }
+            StringBuilder sb = new StringBuilder(512);
+            renderer.appendTo(error, sb);
+            return sb.toString();
         }
     }
 
     /**
-     * オプション情報に指定されたオブジェクトを処理するクラス。
+     * オプション情報に指定されたオブジェクトを処理するクラス。<br>
+     * <br>
+     * オプション情報には、{@link Map}または{@link StructuredLogEvent}を指定できる。
+     * {@link StructuredLogEvent}の基本データ型の項目は、ボクシングせずに書き込む。
      * @author Shuji Kitamura
      */
-    public static class PayloadBuilder implements JsonLogObjectBuilder<LogContext> {
+    public static class PayloadBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
 
         private final FormatErrorSupport errorSupport;
 
@@ -511,14 +1334,31 @@ public class JsonLogFormatter implements LogFormatter {
          * {@inheritDoc}
          */
         @Override
-        public void build(Map<String, Object> structuredObject, LogContext context) {
+        public void build(final Map<String, Object> structuredObject, LogContext context) {
+            writeEntries(new JsonLogEntryWriter() {
+                @Override
+                public void writeEntry(String name, Object value) {
+                    structuredObject.put(name, value);
+                }
+            }, context);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
             if (context.getOptions() == null) {
                 return;
             }
 
             for (Object option : context.getOptions()) {
                 if (option instanceof Map) {
-                    mapToStructuredObject(((Map<?, ?>) option), structuredObject);
+                    writeMapEntries(((Map<?, ?>) option), writer);
+                } else if (option instanceof StructuredLogEvent) {
+                    for (Map.Entry<String, Object> entry : ((StructuredLogEvent) option).toMap().entrySet()) {
+                        writer.writeEntry(entry.getKey(), entry.getValue());
+                    }
                 } else {
                     errorSupport.outputFormatError("objects in options must be Map<String, Object>. : [" + option + "]");
                 }
@@ -526,15 +1366,66 @@ public class JsonLogFormatter implements LogFormatter {
         }
 
         /**
-         * オプション情報を structuredObject に詰め替える。
+         * {@inheritDoc}<br>
+         * <br>
+         * 他の出力項目と重複するキーと、先に書き込んだオプション情報と重複するキーは書き込まない。
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) throws IOException {
+            Object[] options = context.getOptions();
+            if (options == null) {
+                return;
+            }
+
+            Set<String> writtenKeys = options.length > 1 ? new HashSet<String>() : null;
+            for (Object option : options) {
+                if (option instanceof Map) {
+                    writeMapMembers(writer, (Map<?, ?>) option, writtenKeys);
+                } else if (option instanceof StructuredLogEvent) {
+                    ((StructuredLogEvent) option).writeMembers(writer, writtenKeys);
+                } else {
+                    errorSupport.outputFormatError("objects in options must be Map<String, Object>. : [" + option + "]");
+                }
+            }
+        }
+
+        /**
+         * オプション情報をメンバーとして書き込む。
+         * @param writer 書き込み先
          * @param option オプション情報
-         * @param structuredObject 構築先のオブジェクト
+         * @param writtenKeys 書き込んだキー。オプション情報が1つの場合は<code>null</code>
+         * @throws IOException シリアライズに失敗した場合
          */
-        private void mapToStructuredObject(Map<?, ?> option, Map<String, Object> structuredObject) {
+        private void writeMapMembers(JsonObjectWriter writer, Map<?, ?> option, Set<String> writtenKeys) throws IOException {
+            List<Object> illegalTypeMemberKeys = null;
+            for (Map.Entry<?, ?> entry : option.entrySet()) {
+                Object key = entry.getKey();
+                if (!(key instanceof String)) {
+                    if (illegalTypeMemberKeys == null) {
+                        illegalTypeMemberKeys = new ArrayList<Object>();
+                    }
+                    illegalTypeMemberKeys.add(key);
+                } else if (!writer.isReservedName((String) key)
+                        && (writtenKeys == null || writtenKeys.add((String) key))) {
+                    writer.writeDynamicMember((String) key, entry.getValue());
+                }
+            }
+
+            if (illegalTypeMemberKeys != null) {
+                errorSupport.outputFormatError("illegal type in keys : " + StringUtil.join(", ", toString(illegalTypeMemberKeys)));
+            }
+        }
+
+        /**
+         * オプション情報をエントリとして書き込む。
+         * @param option オプション情報
+         * @param writer 書き込み先
+         */
+        private void writeMapEntries(Map<?, ?> option, JsonLogEntryWriter writer) {
             List<Object> illegalTypeMemberKeys = new ArrayList<Object>();
             for (Map.Entry<?, ?> entry : option.entrySet()) {
                 if (entry.getKey() instanceof String) {
-                    structuredObject.put((String)entry.getKey(), entry.getValue());
+                    writer.writeEntry((String) entry.getKey(), entry.getValue());
                 } else {
                     illegalTypeMemberKeys.add(entry.getKey());
                 }
@@ -559,4 +1450,44 @@ public class JsonLogFormatter implements LogFormatter {
         }
     }
 
+    /**
+     * シリアライズ済みのメンバーをそのまま出力するクラス。
+     */
+    private static final class RawMembersBuilder implements StreamingJsonLogObjectBuilder<LogContext> {
+
+        /** シリアライズ済みのメンバー */
+        private final String rawJsonText;
+
+        /**
+         * コンストラクタ。
+         * @param rawJsonText シリアライズ済みのメンバー
+         */
+        private RawMembersBuilder(String rawJsonText) {
+            this.rawJsonText = rawJsonText;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void build(Map<String, Object> structuredObject, LogContext context) {
+            structuredObject.put(STATIC_FIELDS_KEY, new RawJsonObjectMembers(rawJsonText));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeMembers(JsonObjectWriter writer, LogContext context) {
+            writer.writeRawMembers(rawJsonText);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void writeEntries(JsonLogEntryWriter writer, LogContext context) {
+            writer.writeEntry(STATIC_FIELDS_KEY, new RawJsonObjectMembers(rawJsonText));
+        }
+    }
 }
@@ -0,0 +1,495 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.text.json.JsonSerializationManager;
+import nablarch.core.text.json.JsonSerializer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * JSONのobjectのメンバーを、バッファへ直接書き込むクラス。<br>
+ * <br>
+ * {@link AppLogMapToJsonSerializer}でMapをシリアライズした場合と同じ内容を、Mapを生成せずに書き込む。
+ * 値が<code>null</code>のメンバー(ignoreNullValueMemberがfalseの場合を除く)と、
+ * 空白文字のみの{@link RawJsonObjectMembers}は書き込まない。
+ * 値のシリアライズは{@link JsonSerializationManager}から取得したシリアライザに委譲する。
+ * {@link StructuredMessage}は、保持するオブジェクトをバッファへ直接シリアライズし、objectのメンバーとして書き込む。<br>
+ * <br>
+ * 長さの上限を指定した場合は、上限を超えた文字列の値を{@link LogTruncation}で切り詰める。
+ * 入れ子のMapとListに含まれる文字列と、文字列に変換して出力する値も切り詰める。
+ * 1件のログの長さの上限を超えたメンバーは、JSONとして正しい状態を保つためにメンバー単位で取り除き、
+ * 取り除いた文字数を示すtruncatedメンバーをobjectの最後に書き込む。
+ * 上限を超えた時点で以降のシリアライズ結果はバッファに書き込まずに文字数のみを数えるため、
+ * 巨大な値を持つメンバーであってもバッファは上限の長さまでしか拡張しない。
+ * truncatedメンバーを書き込む余地がない場合は、余地ができるまで直前のメンバーから順に取り除く。
+ */
+final class JsonObjectWriter extends Writer {
+
+    /** objectの開始 */
+    private static final char BEGIN_OBJECT = '{';
+
+    /** objectの終了 */
+    private static final char END_OBJECT = '}';
+
+    /** 名前と値の区切り */
+    private static final char NAME_SEPARATOR = ':';
+
+    /** 値の区切り */
+    private static final char VALUE_SEPARATOR = ',';
+
+    /** 文字列の開始、終了を表す引用符 */
+    private static final char QUOTE = '"';
+
+    /** 取り除いたメンバーの文字数を示すメンバーの名前 */
+    private static final String TRUNCATED_MEMBER_NAME = toMemberName("truncated");
+
+    /** 書き込み先のバッファ */
+    private final StringBuilder sb;
+
+    /** シリアライズに使用する管理クラス */
+    private final JsonSerializationManager manager;
+
+    /** 値が<code>null</code>のメンバーを書き込まないか否か */
+    private final boolean ignoreNullValueMember;
+
+    /** 出力対象の組み込みの出力項目の名前 */
+    private final Set<String> reservedNames;
+
+    /** 最初のメンバーか否か */
+    private boolean first = true;
+
+    /** 文字列の値の長さの上限 */
+    private int maxFieldLength = LogTruncation.UNLIMITED;
+
+    /** objectの終了を含めて書き込めるバッファの長さ。上限を指定しない場合は<code>-1</code> */
+    private int recordLimit = -1;
+
+    /** 書き込んだメンバーの開始位置。上限を指定しない場合は<code>null</code> */
+    private int[] memberStarts;
+
+    /** 書き込んだメンバーの数 */
+    private int memberCount;
+
+    /** 上限を超えたため取り除いたメンバーの文字数 */
+    private int truncatedLength;
+
+    /** 書き込み中のメンバーのうち、上限を超えたためバッファに書き込まなかった文字数 */
+    private int overflowLength;
+
+    /**
+     * コンストラクタ。
+     * @param sb 書き込み先のバッファ
+     * @param manager シリアライズに使用する管理クラス
+     * @param ignoreNullValueMember 値が<code>null</code>のメンバーを書き込まないか否か
+     * @param reservedNames 出力対象の組み込みの出力項目の名前
+     */
+    JsonObjectWriter(StringBuilder sb, JsonSerializationManager manager, boolean ignoreNullValueMember,
+                     Set<String> reservedNames) {
+        this.sb = sb;
+        this.manager = manager;
+        this.ignoreNullValueMember = ignoreNullValueMember;
+        this.reservedNames = reservedNames;
+    }
+
+    /**
+     * 長さの上限を設定する。objectを開始する前に呼び出すこと。
+     * @param maxFieldLength 文字列の値の長さの上限
+     * @param maxRecordLength 1件のログの長さ(objectの開始から終了まで)の上限
+     */
+    void setLimits(int maxFieldLength, int maxRecordLength) {
+        this.maxFieldLength = maxFieldLength;
+        if (maxRecordLength != LogTruncation.UNLIMITED) {
+            recordLimit = sb.length() + maxRecordLength;
+            memberStarts = new int[16];
+        }
+    }
+
+    /**
+     * エスケープが不要な名前に、引用符と名前と値の区切りを付与した文字列を生成する。<br>
+     * 組み込みの出力項目の名前に対して一度だけ生成し、{@link #writeMember(String, Object)}に指定する。
+     * @param name 英数字のみで構成される名前
+     * @return 引用符と区切りを付与した名前
+     */
+    static String toMemberName(String name) {
+        return '"' + name + '"' + NAME_SEPARATOR;
+    }
+
+    /**
+     * 組み込みの出力項目の名前か否かを判定する。
+     * @param name 名前
+     * @return 組み込みの出力項目の名前の場合は<code>true</code>
+     */
+    boolean isReservedName(String name) {
+        return reservedNames.contains(name);
+    }
+
+    /**
+     * objectを開始する。
+     */
+    void beginObject() {
+        sb.append(BEGIN_OBJECT);
+    }
+
+    /**
+     * objectを終了する。<br>
+     * 上限を超えたため取り除いたメンバーがある場合は、取り除いた文字数を示すメンバーを書き込む。
+     */
+    void endObject() {
+        if (truncatedLength != 0) {
+            while (memberCount > 0 && sb.length() + getTruncatedMemberLength() + 1 > recordLimit) {
+                removeLastMember();
+            }
+            if (!first) {
+                sb.append(VALUE_SEPARATOR);
+            }
+            sb.append(TRUNCATED_MEMBER_NAME).append('"');
+            LogTruncation.appendMarker(sb, truncatedLength);
+            sb.append('"');
+        }
+        sb.append(END_OBJECT);
+    }
+
+    /**
+     * 取り除いたメンバーの文字数を示すメンバーの長さを取得する。
+     * @return 値の区切りを含むメンバーの長さ
+     */
+    private int getTruncatedMemberLength() {
+        StringBuilder member = new StringBuilder(TRUNCATED_MEMBER_NAME).append('"');
+        LogTruncation.appendMarker(member, truncatedLength);
+        return (first ? 0 : 1) + member.length() + 1;
+    }
+
+    /**
+     * エスケープ済みの名前を使用してメンバーを書き込む。
+     * @param escapedName {@link #toMemberName(String)}で生成した名前と区切り
+     * @param value 値
+     * @throws IOException シリアライズに失敗した場合
+     */
+    void writeMember(String escapedName, Object value) throws IOException {
+        writeMember(escapedName, value, maxFieldLength);
+    }
+
+    /**
+     * 文字列の値の長さの上限を指定して、エスケープ済みの名前を使用してメンバーを書き込む。
+     * @param escapedName {@link #toMemberName(String)}で生成した名前と区切り
+     * @param value 値
+     * @param maxLength 文字列の値の長さの上限
+     * @throws IOException シリアライズに失敗した場合
+     */
+    void writeMember(String escapedName, Object value, int maxLength) throws IOException {
+        if (isSkip(value)) {
+            return;
+        }
+        if (value instanceof StructuredMessage) {
+            writeStructuredMessage((StructuredMessage) value);
+            return;
+        }
+        appendSeparator();
+        if (value instanceof RawJsonObjectMembers) {
+            ((RawJsonObjectMembers) value).writeTo(this);
+        } else {
+            sb.append(escapedName);
+            writeValue(truncate(value, maxLength));
+        }
+        endMember();
+    }
+
+    /**
+     * 構造化済みメッセージのオブジェクトをバッファへ直接シリアライズし、
+     * objectの開始、終了マーカーを取り除いてメンバーとして書き込む。<br>
+     * メンバーを持たないobjectの場合は何も書き込まない。
+     * 1件のログの長さの上限を超えた場合は、開始、終了マーカーを除いた文字数を取り除いた文字数とする。
+     * @param message 構造化済みメッセージ
+     * @throws IOException シリアライズに失敗した場合
+     */
+    private void writeStructuredMessage(StructuredMessage message) throws IOException {
+        int start = sb.length();
+        boolean wasFirst = first;
+        appendSeparator();
+        int objectStart = sb.length();
+        message.writeTo(this);
+        if (overflowLength != 0) {
+            overflowLength -= 2;
+            removeLastMember();
+            return;
+        }
+        sb.setLength(sb.length() - 1);
+        sb.deleteCharAt(objectStart);
+        if (sb.length() == objectStart) {
+            if (memberStarts != null) {
+                memberCount--;
+            }
+            sb.setLength(start);
+            first = wasFirst;
+            return;
+        }
+        endMember();
+    }
+
+    /**
+     * エスケープ済みの名前を使用して、スタックトレースを文字列の値とするメンバーを書き込む。<br>
+     * <br>
+     * スタックトレースは文字列を生成せずにバッファへ直接出力し、その場でエスケープする。
+     * 文字列の値の長さの上限を超えた時点で以降の行の出力を打ち切る。
+     * 文字列のシリアライザが{@link AppLogStringToJsonSerializer}でない場合と、その場でエスケープできない場合は、
+     * 出力したスタックトレースを文字列に変換してシリアライザに委譲する。
+     * @param escapedName {@link #toMemberName(String)}で生成した名前と区切り
+     * @param renderer スタックトレースの出力に使用する{@link StackTraceRenderer}
+     * @param error 例外オブジェクト
+     * @throws IOException シリアライズに失敗した場合
+     */
+    void writeStackTraceMember(String escapedName, StackTraceRenderer renderer, Throwable error) throws IOException {
+        appendSeparator();
+        sb.append(escapedName);
+        int quote = sb.length();
+        sb.append(QUOTE);
+        int start = sb.length();
+        if (maxFieldLength == LogTruncation.UNLIMITED) {
+            renderer.appendTo(error, sb);
+        } else {
+            boolean complete = renderer.appendLimited(error, sb, start + maxFieldLength);
+            LogTruncation.truncate(sb, start, maxFieldLength, complete);
+        }
+        JsonSerializer serializer = manager.getSerializer("");
+        if (serializer instanceof AppLogStringToJsonSerializer
+                && ((AppLogStringToJsonSerializer) serializer).escapeInPlace(sb, start)) {
+            sb.append(QUOTE);
+        } else {
+            String stackTrace = sb.substring(start);
+            sb.setLength(quote);
+            serializer.serialize(this, stackTrace);
+        }
+        endMember();
+    }
+
+    /**
+     * 名前をエスケープしてメンバーを書き込む。<br>
+     * 名前が実行時に決まるメンバーに使用する。
+     * @param name 名前
+     * @param value 値
+     * @throws IOException シリアライズに失敗した場合
+     */
+    void writeDynamicMember(String name, Object value) throws IOException {
+        if (isSkip(value)) {
+            return;
+        }
+        appendSeparator();
+        if (value instanceof RawJsonObjectMembers) {
+            ((RawJsonObjectMembers) value).writeTo(this);
+        } else {
+            writeValue(name);
+            sb.append(NAME_SEPARATOR);
+            writeValue(truncate(value, maxFieldLength));
+        }
+        endMember();
+    }
+
+    /**
+     * 名前をエスケープしてlong型のメンバーを書き込む。<br>
+     * 値はボクシングせずに書き込む。
+     * @param name 名前
+     * @param value 値
+     * @throws IOException シリアライズに失敗した場合
+     */
+    void writeDynamicMember(String name, long value) throws IOException {
+        appendSeparator();
+        writeValue(name);
+        sb.append(NAME_SEPARATOR).append(value);
+        endMember();
+    }
+
+    /**
+     * 名前をエスケープしてdouble型のメンバーを書き込む。<br>
+     * 有限の値はボクシングせずに書き込む。
+     * 無限大と非数は、ラッパーに変換した場合と同じ結果になるようにシリアライザに委譲する。
+     * @param name 名前
+     * @param value 値
+     * @throws IOException シリアライズに失敗した場合
+     */
+    void writeDynamicMember(String name, double value) throws IOException {
+        appendSeparator();
+        writeValue(name);
+        sb.append(NAME_SEPARATOR);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeValue(value);
+        } else {
+            sb.append(value);
+        }
+        endMember();
+    }
+
+    /**
+     * 名前をエスケープしてboolean型のメンバーを書き込む。<br>
+     * 値はボクシングせずに書き込む。
+     * @param name 名前
+     * @param value 値
+     * @throws IOException シリアライズに失敗した場合
+     */
+    void writeDynamicMember(String name, boolean value) throws IOException {
+        appendSeparator();
+        writeValue(name);
+        sb.append(NAME_SEPARATOR).append(value);
+        endMember();
+    }
+
+    /**
+     * シリアライズ済みのメンバーをそのまま書き込む。
+     * @param rawJsonText シリアライズ済みのメンバー。objectの開始、終了マーカーは含まないこと
+     */
+    void writeRawMembers(String rawJsonText) {
+        if (rawJsonText.length() == 0) {
+            return;
+        }
+        appendSeparator();
+        sb.append(rawJsonText);
+        endMember();
+    }
+
+    /**
+     * 書き込まないメンバーか否かを判定する。
+     * @param value 値
+     * @return 書き込まない場合は<code>true</code>
+     */
+    private boolean isSkip(Object value) {
+        if (value == null) {
+            return ignoreNullValueMember;
+        }
+        return value instanceof RawJsonObjectMembers && ((RawJsonObjectMembers) value).isJsonWhitespace();
+    }
+
+    /**
+     * 長さの上限を超えた文字列の値を切り詰める。
+     * @param value 値
+     * @param maxLength 長さの上限
+     * @return 切り詰めた値。上限を超える文字列を含まない場合は指定された値
+     * @see LogTruncation#truncateValue(Object, int)
+     */
+    private static Object truncate(Object value, int maxLength) {
+        if (maxLength == LogTruncation.UNLIMITED) {
+            return value;
+        }
+        return LogTruncation.truncateValue(value, maxLength);
+    }
+
+    /**
+     * メンバーの書き込みを終了する。<br>
+     * objectの終了を含めて1件のログの長さの上限を超えた場合は、書き込んだメンバーを取り除く。
+     */
+    private void endMember() {
+        if (memberStarts != null && (overflowLength != 0 || sb.length() + 1 > recordLimit)) {
+            removeLastMember();
+        }
+    }
+
+    /**
+     * 最後に書き込んだメンバーを取り除く。
+     */
+    private void removeLastMember() {
+        int start = memberStarts[--memberCount];
+        truncatedLength += sb.length() - start + overflowLength;
+        overflowLength = 0;
+        sb.setLength(start);
+        first = memberCount == 0;
+    }
+
+    /**
+     * 書き込む文字列がobjectの終了を含めて1件のログの長さの上限を超えるか否かを判定する。<br>
+     * 一度上限を超えた場合は、メンバーを取り除くまで以降の文字列も上限を超えるものとして、文字数のみを数える。
+     * @param length 書き込む文字列の長さ
+     * @return 上限を超える場合は<code>true</code>
+     */
+    private boolean overflows(int length) {
+        if (memberStarts == null) {
+            return false;
+        }
+        if (overflowLength != 0 || sb.length() + length + 1 > recordLimit) {
+            overflowLength += length;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * メンバーの書き込みを開始し、2つ目以降のメンバーの場合は、値の区切りを書き込む。
+     */
+    private void appendSeparator() {
+        if (memberStarts != null) {
+            if (memberCount == memberStarts.length) {
+                memberStarts = Arrays.copyOf(memberStarts, memberCount * 2);
+            }
+            memberStarts[memberCount++] = sb.length();
+        }
+        if (first) {
+            first = false;
+        } else {
+            sb.append(VALUE_SEPARATOR);
+        }
+    }
+
+    /**
+     * 値をシリアライズして書き込む。
+     * @param value 値
+     * @throws IOException シリアライズに失敗した場合
+     */
+    private void writeValue(Object value) throws IOException {
+        JsonSerializer serializer = manager.getSerializer(value);
+        serializer.serialize(this, value);
+    }
+
+    @Override
+    public void write(int c) {
+        if (!overflows(1)) {
+            sb.append((char) c);
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        if (!overflows(len)) {
+            sb.append(cbuf, off, len);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        if (!overflows(len)) {
+            sb.append(str, off, off + len);
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq) {
+        CharSequence text = csq == null ? "null" : csq;
+        if (!overflows(text.length())) {
+            sb.append(text);
+        }
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) {
+        CharSequence text = csq == null ? "null" : csq;
+        if (!overflows(end - start)) {
+            sb.append(text, start, end);
+        }
+        return this;
+    }
+
+    @Override
+    public Writer append(char c) {
+        if (!overflows(1)) {
+            sb.append(c);
+        }
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,22 @@
+package nablarch.core.log.basic;
+
+/**
+ * 出力の長さの上限を超えた時点で、以降の出力を打ち切ることができるログ出力項目。<br>
+ * <br>
+ * スタックトレースやオプション情報のように出力が長くなる可能性があるログ出力項目で、
+ * 切り詰める部分まで出力しないようにするために使用する。
+ *
+ * @param <CTX> ログ出力項目の取得に使用するコンテキストの型
+ */
+interface LimitedLogItem<CTX> extends AppendableLogItem<CTX> {
+
+    /**
+     * ログ出力項目をバッファに追加する。<br>
+     * バッファの長さが上限位置を超えた時点で、以降の出力を打ち切ってよい。
+     * @param context ログ出力項目の取得に使用するコンテキスト
+     * @param sb ログ出力項目を追加するバッファ
+     * @param limit 出力を打ち切ってよいバッファの長さ
+     * @return 最後まで出力した場合は<code>true</code>、出力を打ち切った場合は<code>false</code>
+     */
+    boolean appendTo(CTX context, StringBuilder sb, int limit);
+}
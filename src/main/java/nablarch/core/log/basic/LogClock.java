@@ -0,0 +1,26 @@
+package nablarch.core.log.basic;
+
+/**
+ * {@link LogContext}の日時に使用する現在日時を提供するクラス。<br>
+ * <br>
+ * {@link BasicLoggerFactory}が設定に応じて生成して保持し、{@link BasicLogger}が生成する{@link LogContext}の日時のみに使用する。
+ * ファイルのローテーションなど、{@link LogWriter}が使用する日時には使用しない。
+ * グローバルな状態としては保持しないため、{@link BasicLoggerFactory}毎に異なる{@link LogClock}を使用できる。<br>
+ * 設定がない場合は{@link System#currentTimeMillis()}を使用する{@link #SYSTEM}を使用する。
+ */
+abstract class LogClock {
+
+    /** {@link System#currentTimeMillis()}を使用する{@link LogClock} */
+    static final LogClock SYSTEM = new LogClock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * 現在日時をミリ秒で取得する。
+     * @return 現在日時(ミリ秒)
+     */
+    public abstract long currentTimeMillis();
+}
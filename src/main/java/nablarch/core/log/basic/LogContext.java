@@ -67,13 +67,70 @@ public class LogContext {
      * @param options オプション情報(nullでも可)
      */
     public LogContext(String loggerName, String runtimeLoggerName, LogLevel level, String message, Throwable error, Object... options) {
+        this(loggerName, runtimeLoggerName, level, message, error, options, LogClock.SYSTEM);
+    }
+
+    /**
+     * 日時を取得する{@link LogClock}を指定するコンストラクタ。
+     * @param loggerName ロガー名
+     * @param runtimeLoggerName 実行時ロガー名
+     * @param level {@link LogLevel}
+     * @param message メッセージ
+     * @param error エラー情報(nullでも可)
+     * @param options オプション情報(nullでも可)
+     * @param clock 日時を取得する{@link LogClock}
+     */
+    LogContext(String loggerName, String runtimeLoggerName, LogLevel level, String message, Throwable error,
+               Object[] options, LogClock clock) {
+        set(loggerName, runtimeLoggerName, level, message, error, options, new Date(clock.currentTimeMillis()));
+    }
+
+    /**
+     * 指定された{@link LogContext}の内容を、オプション情報を置き換えてコピーするコンストラクタ。<br>
+     * 日時はコピー元と異なるインスタンスを生成して保持する。
+     * @param source コピー元の{@link LogContext}
+     * @param options オプション情報(nullでも可)
+     */
+    LogContext(LogContext source, Object[] options) {
+        this.loggerName = source.getLoggerName();
+        this.runtimeLoggerName = source.getRuntimeLoggerName();
+        this.level = source.getLevel();
+        this.message = source.getMessage();
+        this.error = source.getError();
+        this.options = options;
+        this.date = new Date(source.getDate().getTime());
+        this.userId = source.userId;
+        this.requestId = source.requestId;
+        this.executionId = source.executionId;
+    }
+
+    /**
+     * 再利用する{@link LogContext}のためのコンストラクタ。<br>
+     * 内容は{@link #set}メソッドで設定する。
+     */
+    LogContext() {
+    }
+
+    /**
+     * ログ出力に必要な情報を設定する。<br>
+     * スレッドに紐付く値は、本メソッドを呼び出したスレッドから取得する。
+     * @param loggerName ロガー名
+     * @param runtimeLoggerName 実行時ロガー名
+     * @param level {@link LogLevel}
+     * @param message メッセージ
+     * @param error エラー情報(nullでも可)
+     * @param options オプション情報(nullでも可)
+     * @param date 日時
+     */
+    final void set(String loggerName, String runtimeLoggerName, LogLevel level, String message, Throwable error,
+                   Object[] options, Date date) {
         this.loggerName = loggerName;
         this.runtimeLoggerName = runtimeLoggerName;
         this.level = level;
         this.message = message;
         this.error = error;
         this.options = options;
-        this.date = new Date();
+        this.date = date;
         this.userId = ThreadContext.getUserId();
         this.requestId = ThreadContext.getRequestId();
         this.executionId = ThreadContext.getExecutionId();
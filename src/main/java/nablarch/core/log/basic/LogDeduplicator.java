@@ -0,0 +1,345 @@
+package nablarch.core.log.basic;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 同一内容のログが短時間に繰り返し出力される場合に、2件目以降の出力を抑止するクラス。<br>
+ * <br>
+ * ロガー名、実行時ロガー名、{@link LogLevel}、メッセージ、例外の型、例外のスタックトレースの先頭からハッシュ値を算出し、
+ * 直近に出力したログの判定に使用する値のみを固定サイズのキャッシュに保持する。
+ * {@link LogContext}、例外、オプション情報は保持しない。
+ * 例外のスタックトレースは、判定に使用する先頭のフレームのみを保持する。<br>
+ * 型とメッセージが同じでも、発生箇所が異なる例外は重複と判定しない。<br>
+ * キャッシュに一致するログが一定時間内に再度出力された場合は、そのログを出力せずに繰り返し件数のみを集計する。<br>
+ * 集計した繰り返し件数は、時間経過後またはキャッシュから追い出された時点で、
+ * "previous message repeated N times"というメッセージで1件のログとして出力する。<br>
+ * <br>
+ * 重複しないログに対しては、判定に使用する値を保持するエントリのみを生成する。
+ * 例外を持つログでは、スタックトレースを取得するために配列を生成する。
+ * メッセージのハッシュ値の算出では、メッセージ全体を走査する場合がある。<br>
+ * キャッシュはハッシュ値をインデックスとする配列をアトミックに更新するため、ロックを使用しない。
+ * 繰り返し件数を通知したエントリは閉じた状態とし、以降はカウントアップしないため、通知後の件数が失われることはない。
+ */
+class LogDeduplicator {
+
+    /** キャッシュサイズのデフォルト値 */
+    private static final int DEFAULT_CACHE_SIZE = 256;
+
+    /** 重複の判定に使用するスタックトレースのフレーム数のデフォルト値 */
+    private static final int DEFAULT_STACK_FRAMES = 5;
+
+    /** スタックトレースを判定に使用しない場合のフレーム */
+    private static final StackTraceElement[] NO_FRAMES = new StackTraceElement[0];
+
+    /**
+     * 繰り返し出力されたログを受け取るインタフェース。
+     */
+    interface RepeatListener {
+
+        /**
+         * 繰り返し出力されたログを受け取る。
+         * @param context 繰り返し件数を示すメッセージを持つ{@link LogContext}。
+         *                ロガー名、実行時ロガー名、{@link LogLevel}は最初に出力したログと同じ値となる
+         */
+        void onRepeated(LogContext context);
+    }
+
+    /** 直近に出力したログのキャッシュ */
+    private final AtomicReferenceArray<Entry> entries;
+
+    /** キャッシュのインデックスを算出するためのマスク */
+    private final int mask;
+
+    /** 重複を判定する時間幅(ナノ秒) */
+    private final long windowNanos;
+
+    /** 重複の判定に使用するスタックトレースのフレーム数 */
+    private final int stackFrames;
+
+    /** 次に期限切れのエントリを確認する時刻(ナノ秒) */
+    private final AtomicLong nextSweepTime;
+
+    /**
+     * コンストラクタ。
+     * @param cacheSize キャッシュサイズ。2のべき乗に切り上げる。
+     * @param windowNanos 重複を判定する時間幅(ナノ秒)
+     * @param stackFrames 重複の判定に使用するスタックトレースのフレーム数。0以下の場合はスタックトレースを使用しない。
+     * @param now 現在時刻(ナノ秒)
+     */
+    LogDeduplicator(int cacheSize, long windowNanos, int stackFrames, long now) {
+        int size = Integer.highestOneBit(Math.max(cacheSize, 1) * 2 - 1);
+        entries = new AtomicReferenceArray<Entry>(size);
+        mask = size - 1;
+        this.windowNanos = windowNanos;
+        this.stackFrames = stackFrames;
+        nextSweepTime = new AtomicLong(now + windowNanos);
+    }
+
+    /**
+     * 設定を使用して{@link LogDeduplicator}を生成する。<br>
+     * <br>
+     * 重複を判定する時間幅が指定されていない場合は<code>null</code>を返す。
+     * @param settings {@link LogWriter}の設定
+     * @return 生成した{@link LogDeduplicator}。重複の抑止を行わない場合は<code>null</code>
+     */
+    static LogDeduplicator create(ObjectSettings settings) {
+        int window = ObjectSettingsSupport.getIntProp(settings, "dedupe.window", 0);
+        if (window <= 0) {
+            return null;
+        }
+        return new LogDeduplicator(ObjectSettingsSupport.getIntProp(settings, "dedupe.cacheSize", DEFAULT_CACHE_SIZE),
+                                   TimeUnit.SECONDS.toNanos(window),
+                                   ObjectSettingsSupport.getIntProp(settings, "dedupe.stackFrames", DEFAULT_STACK_FRAMES),
+                                   System.nanoTime());
+    }
+
+    /**
+     * 指定されたログが、時間幅内に出力済みのログと重複するか否かを判定する。<br>
+     * <br>
+     * 重複する場合は繰り返し件数をカウントアップする。<br>
+     * 期限切れまたはキャッシュから追い出されたエントリに繰り返し件数がある場合は、{@link RepeatListener}に通知する。
+     * @param context {@link LogContext}
+     * @param now 現在時刻(ナノ秒)
+     * @param listener 繰り返し件数の通知先
+     * @return 重複する場合は<code>true</code>
+     */
+    boolean isDuplicate(LogContext context, long now, RepeatListener listener) {
+        sweepIfNecessary(now, listener);
+
+        String message = context.getMessage();
+        Throwable error = context.getError();
+        Class<?> errorClass = error != null ? error.getClass() : null;
+        StackTraceElement[] frames = error != null && stackFrames > 0 ? error.getStackTrace() : NO_FRAMES;
+        int frameCount = Math.min(frames.length, stackFrames);
+        long hash = hash(context, message, errorClass, frames, frameCount);
+        int index = (int) hash & mask;
+        Entry entry = entries.get(index);
+        if (entry != null && entry.matches(hash, context, message, errorClass, frames, frameCount)
+                && now - entry.windowStart < windowNanos && entry.countUp()) {
+            return true;
+        }
+        Entry created = new Entry(hash, context.getLoggerName(), context.getRuntimeLoggerName(), context.getLevel(),
+                                  message, errorClass, frameCount == 0 ? NO_FRAMES : Arrays.copyOf(frames, frameCount), now);
+        if (entries.compareAndSet(index, entry, created) && entry != null) {
+            report(entry, listener);
+        }
+        return false;
+    }
+
+    /**
+     * キャッシュ内の全てのエントリの繰り返し件数を通知し、キャッシュを空にする。
+     * @param listener 繰り返し件数の通知先
+     */
+    void flush(RepeatListener listener) {
+        for (int i = 0; i < entries.length(); i++) {
+            Entry entry = entries.getAndSet(i, null);
+            if (entry != null) {
+                report(entry, listener);
+            }
+        }
+    }
+
+    /**
+     * 確認時刻に達している場合に、期限切れのエントリの繰り返し件数を通知し、キャッシュから取り除く。<br>
+     * 複数スレッドから同時に呼び出された場合でも、確認を行うのは1スレッドのみとなる。
+     * @param now 現在時刻(ナノ秒)
+     * @param listener 繰り返し件数の通知先
+     */
+    private void sweepIfNecessary(long now, RepeatListener listener) {
+        long next = nextSweepTime.get();
+        if (now - next < 0 || !nextSweepTime.compareAndSet(next, now + windowNanos)) {
+            return;
+        }
+        for (int i = 0; i < entries.length(); i++) {
+            Entry entry = entries.get(i);
+            if (entry != null && now - entry.windowStart >= windowNanos && entries.compareAndSet(i, entry, null)) {
+                report(entry, listener);
+            }
+        }
+    }
+
+    /**
+     * エントリを閉じ、繰り返し件数がある場合に通知する。
+     * @param entry エントリ
+     * @param listener 繰り返し件数の通知先
+     */
+    private void report(Entry entry, RepeatListener listener) {
+        long repeats = entry.close();
+        if (repeats > 0) {
+            listener.onRepeated(new LogContext(entry.loggerName, entry.runtimeLoggerName, entry.level,
+                    "previous message repeated " + repeats + " times. message = [" + entry.message + "]", null));
+        }
+    }
+
+    /**
+     * ログのハッシュ値を算出する。
+     * @param context {@link LogContext}
+     * @param message メッセージ
+     * @param errorClass 例外の型。例外がない場合は<code>null</code>
+     * @param frames 例外のスタックトレース
+     * @param frameCount 判定に使用するスタックトレースのフレーム数
+     * @return ハッシュ値
+     */
+    private static long hash(LogContext context, String message, Class<?> errorClass,
+                             StackTraceElement[] frames, int frameCount) {
+        long h = hashCode(context.getLoggerName());
+        h = h * 31 + hashCode(context.getRuntimeLoggerName());
+        h = h * 31 + context.getLevel().ordinal();
+        h = h * 31 + hashCode(message);
+        h = h * 31 + hashCode(errorClass);
+        for (int i = 0; i < frameCount; i++) {
+            h = h * 31 + frames[i].hashCode();
+        }
+        // 下位ビットをキャッシュのインデックスに使用するため、上位ビットを拡散させる
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * nullを許容してハッシュ値を取得する。
+     * @param o オブジェクト
+     * @return ハッシュ値。nullの場合は0
+     */
+    private static int hashCode(Object o) {
+        return o != null ? o.hashCode() : 0;
+    }
+
+    /**
+     * キャッシュのエントリ。<br>
+     * 重複の判定に使用する値のみを保持する。
+     */
+    private static final class Entry {
+
+        /** 繰り返し件数を更新するための{@link AtomicLongFieldUpdater} */
+        private static final AtomicLongFieldUpdater<Entry> REPEATS = AtomicLongFieldUpdater.newUpdater(Entry.class, "repeats");
+
+        /** 繰り返し件数を通知済みで、カウントアップしないことを示す値 */
+        private static final long CLOSED = -1;
+
+        /** ハッシュ値 */
+        private final long hash;
+
+        /** ロガー名 */
+        private final String loggerName;
+
+        /** 実行時ロガー名 */
+        private final String runtimeLoggerName;
+
+        /** {@link LogLevel} */
+        private final LogLevel level;
+
+        /** メッセージ */
+        private final String message;
+
+        /** 例外の型。例外がない場合は<code>null</code> */
+        private final Class<?> errorClass;
+
+        /** 例外のスタックトレースの先頭のフレーム */
+        private final StackTraceElement[] frames;
+
+        /** 重複判定の開始時刻(ナノ秒) */
+        private final long windowStart;
+
+        /** 繰り返し件数。通知済みの場合は{@link #CLOSED} */
+        private volatile long repeats;
+
+        /**
+         * コンストラクタ。
+         * @param hash ハッシュ値
+         * @param loggerName ロガー名
+         * @param runtimeLoggerName 実行時ロガー名
+         * @param level {@link LogLevel}
+         * @param message メッセージ
+         * @param errorClass 例外の型
+         * @param frames 例外のスタックトレースの先頭のフレーム
+         * @param windowStart 重複判定の開始時刻(ナノ秒)
+         */
+        private Entry(long hash, String loggerName, String runtimeLoggerName, LogLevel level,
+                      String message, Class<?> errorClass, StackTraceElement[] frames, long windowStart) {
+            this.hash = hash;
+            this.loggerName = loggerName;
+            this.runtimeLoggerName = runtimeLoggerName;
+            this.level = level;
+            this.message = message;
+            this.errorClass = errorClass;
+            this.frames = frames;
+            this.windowStart = windowStart;
+        }
+
+        /**
+         * 指定されたログがこのエントリと一致するか否かを判定する。
+         * @param otherHash 指定されたログのハッシュ値
+         * @param other 指定されたログの{@link LogContext}
+         * @param otherMessage 指定されたログのメッセージ
+         * @param otherErrorClass 指定されたログの例外の型
+         * @param otherFrames 指定されたログの例外のスタックトレース
+         * @param otherFrameCount 判定に使用するスタックトレースのフレーム数
+         * @return 一致する場合は<code>true</code>
+         */
+        private boolean matches(long otherHash, LogContext other, String otherMessage, Class<?> otherErrorClass,
+                                StackTraceElement[] otherFrames, int otherFrameCount) {
+            return hash == otherHash
+                && level == other.getLevel()
+                && errorClass == otherErrorClass
+                && frames.length == otherFrameCount
+                && equals(loggerName, other.getLoggerName())
+                && equals(runtimeLoggerName, other.getRuntimeLoggerName())
+                && equals(message, otherMessage)
+                && framesEqual(otherFrames);
+        }
+
+        /**
+         * 指定されたスタックトレースの先頭が、このエントリのフレームと一致するか否かを判定する。
+         * @param otherFrames 指定されたログの例外のスタックトレース
+         * @return 一致する場合は<code>true</code>
+         */
+        private boolean framesEqual(StackTraceElement[] otherFrames) {
+            for (int i = 0; i < frames.length; i++) {
+                if (!frames[i].equals(otherFrames[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 繰り返し件数をカウントアップする。
+         * @return カウントアップした場合は<code>true</code>。通知済みの場合は<code>false</code>
+         */
+        private boolean countUp() {
+            long current;
+            do {
+                current = repeats;
+                if (current == CLOSED) {
+                    return false;
+                }
+            } while (!REPEATS.compareAndSet(this, current, current + 1));
+            return true;
+        }
+
+        /**
+         * エントリを閉じ、それまでの繰り返し件数を取得する。
+         * @return 繰り返し件数。既に閉じている場合は0
+         */
+        private long close() {
+            long repeats = REPEATS.getAndSet(this, CLOSED);
+            return repeats == CLOSED ? 0 : repeats;
+        }
+
+        /**
+         * nullを許容してオブジェクトを比較する。
+         * @param a オブジェクト
+         * @param b オブジェクト
+         * @return 等しい場合は<code>true</code>
+         */
+        private static boolean equals(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
@@ -24,4 +24,22 @@ public interface LogFormatter {
      * @return フォーマット済みのログ
      */
     String format(LogContext context);
+
+    /**
+     * フォーマット済みのログを指定されたバッファに追加する。<br>
+     * <br>
+     * {@link #format(LogContext)}と同じ内容をバッファに追加する。
+     * {@link LogWriterSupport}は、スレッド毎に再利用するバッファにフォーマットする場合、
+     * {@link #format(LogContext)}のオーバーライドの有無を判定せずに本メソッドを呼び出す。<br>
+     * デフォルト実装では、{@link #format(LogContext)}の結果を追加する。
+     * 文字列を生成せずにバッファへ直接追加するためにオーバーライドする場合は、
+     * サブクラスで{@link #format(LogContext)}がオーバーライドされても同じ内容を追加すること。
+     * 本パッケージのフォーマッタは、<code>isBufferAppendable()</code>が<code>true</code>を返す場合のみ直接追加し、
+     * それ以外の場合は{@link #format(LogContext)}の結果を追加する。
+     * @param context {@link LogContext}
+     * @param sb フォーマット済みのログを追加するバッファ
+     */
+    default void appendTo(LogContext context, StringBuilder sb) {
+        sb.append(format(context));
+    }
 }
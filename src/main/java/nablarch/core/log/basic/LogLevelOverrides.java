@@ -0,0 +1,241 @@
+package nablarch.core.log.basic;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import nablarch.core.ThreadContext;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 特定のリクエストID、ユーザID、実行時IDに限定してログレベルを引き下げる設定を保持するクラス。<br>
+ * <br>
+ * 本番環境で全体のログレベルを変更せずに、特定のリクエストのみDEBUGレベルのログを出力したい場合などに使用する。<br>
+ * ログ出力時点の{@link ThreadContext}の値が登録されたエントリに一致する場合、
+ * {@link BasicLogger}と{@link LogWriterSupport}は、設定されたログレベルに関わらず、
+ * エントリに指定された{@link LogLevel}以上のログを出力する。<br>
+ * 複数のエントリに一致する場合は、最も詳細なレベルが有効となる。<br>
+ * <br>
+ * エントリは実行時に追加、削除できる。<br>
+ * エントリが1件も登録されていない場合、判定処理はvolatile変数の読み込み1回のみで完了するため、
+ * 一致しないスレッドのログ出力性能には影響しない。
+ */
+@Published(tag = "architect")
+public final class LogLevelOverrides {
+
+    /** 登録されているエントリ。エントリが1件もない場合は<code>null</code> */
+    private static volatile OverrideTable table;
+
+    /** 隠蔽コンストラクタ。 */
+    private LogLevelOverrides() {
+    }
+
+    /**
+     * リクエストIDに対するログレベルを登録する。
+     * @param requestId リクエストID
+     * @param level 出力対象とする{@link LogLevel}
+     */
+    public static synchronized void putRequestId(String requestId, LogLevel level) {
+        OverrideTable current = getTableOrEmpty();
+        update(new OverrideTable(put(current.requestIds, requestId, level), current.userIds, current.executionIds));
+    }
+
+    /**
+     * ユーザIDに対するログレベルを登録する。
+     * @param userId ユーザID
+     * @param level 出力対象とする{@link LogLevel}
+     */
+    public static synchronized void putUserId(String userId, LogLevel level) {
+        OverrideTable current = getTableOrEmpty();
+        update(new OverrideTable(current.requestIds, put(current.userIds, userId, level), current.executionIds));
+    }
+
+    /**
+     * 実行時IDに対するログレベルを登録する。
+     * @param executionId 実行時ID
+     * @param level 出力対象とする{@link LogLevel}
+     */
+    public static synchronized void putExecutionId(String executionId, LogLevel level) {
+        OverrideTable current = getTableOrEmpty();
+        update(new OverrideTable(current.requestIds, current.userIds, put(current.executionIds, executionId, level)));
+    }
+
+    /**
+     * リクエストIDに対するログレベルの登録を削除する。
+     * @param requestId リクエストID
+     */
+    public static synchronized void removeRequestId(String requestId) {
+        OverrideTable current = getTableOrEmpty();
+        update(new OverrideTable(remove(current.requestIds, requestId), current.userIds, current.executionIds));
+    }
+
+    /**
+     * ユーザIDに対するログレベルの登録を削除する。
+     * @param userId ユーザID
+     */
+    public static synchronized void removeUserId(String userId) {
+        OverrideTable current = getTableOrEmpty();
+        update(new OverrideTable(current.requestIds, remove(current.userIds, userId), current.executionIds));
+    }
+
+    /**
+     * 実行時IDに対するログレベルの登録を削除する。
+     * @param executionId 実行時ID
+     */
+    public static synchronized void removeExecutionId(String executionId) {
+        OverrideTable current = getTableOrEmpty();
+        update(new OverrideTable(current.requestIds, current.userIds, remove(current.executionIds, executionId)));
+    }
+
+    /**
+     * 全てのエントリを削除する。
+     */
+    public static synchronized void clear() {
+        table = null;
+    }
+
+    /**
+     * 現在のスレッドに紐付く値に対して、指定された{@link LogLevel}のログ出力が有効になっているか否かを判定する。
+     * @param level {@link LogLevel}
+     * @return 有効になっている場合は<code>true</code>
+     */
+    static boolean isEnabled(LogLevel level) {
+        OverrideTable current = table;
+        if (current == null) {
+            return false;
+        }
+        return current.isEnabled(level, ThreadContext.getRequestId(), ThreadContext.getUserId(), ThreadContext.getExecutionId());
+    }
+
+    /**
+     * {@link LogContext}が保持する値に対して、{@link LogContext}の{@link LogLevel}のログ出力が有効になっているか否かを判定する。
+     * @param context {@link LogContext}
+     * @return 有効になっている場合は<code>true</code>
+     */
+    static boolean isEnabled(LogContext context) {
+        OverrideTable current = table;
+        if (current == null) {
+            return false;
+        }
+        return current.isEnabled(context.getLevel(), context.getRequestId(), context.getUserId(), context.getExecutionId());
+    }
+
+    /**
+     * 登録されているエントリを取得する。
+     * @return 登録されているエントリ。エントリが1件もない場合は空のエントリ
+     */
+    private static OverrideTable getTableOrEmpty() {
+        OverrideTable current = table;
+        return current != null ? current : OverrideTable.EMPTY;
+    }
+
+    /**
+     * エントリを置き換える。<br>
+     * 置き換え後のエントリが空の場合は<code>null</code>を設定する。
+     * @param newTable 置き換え後のエントリ
+     */
+    private static void update(OverrideTable newTable) {
+        table = newTable.isEmpty() ? null : newTable;
+    }
+
+    /**
+     * 指定されたマップのコピーにエントリを追加して返す。
+     * @param src 追加元のマップ
+     * @param key キー
+     * @param level {@link LogLevel}
+     * @return エントリを追加したマップ
+     */
+    private static Map<String, LogLevel> put(Map<String, LogLevel> src, String key, LogLevel level) {
+        if (key == null || level == null) {
+            throw new IllegalArgumentException("key and level must not be null. key = [" + key + "], level = [" + level + "]");
+        }
+        Map<String, LogLevel> copy = new HashMap<String, LogLevel>(src);
+        copy.put(key, level);
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * 指定されたマップのコピーからエントリを削除して返す。
+     * @param src 削除元のマップ
+     * @param key キー
+     * @return エントリを削除したマップ
+     */
+    private static Map<String, LogLevel> remove(Map<String, LogLevel> src, String key) {
+        if (!src.containsKey(key)) {
+            return src;
+        }
+        Map<String, LogLevel> copy = new HashMap<String, LogLevel>(src);
+        copy.remove(key);
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * 登録されたエントリを保持する不変クラス。
+     */
+    private static final class OverrideTable {
+
+        /** 空のエントリ */
+        private static final OverrideTable EMPTY = new OverrideTable(
+                Collections.<String, LogLevel>emptyMap(),
+                Collections.<String, LogLevel>emptyMap(),
+                Collections.<String, LogLevel>emptyMap());
+
+        /** リクエストIDに対するログレベル */
+        private final Map<String, LogLevel> requestIds;
+
+        /** ユーザIDに対するログレベル */
+        private final Map<String, LogLevel> userIds;
+
+        /** 実行時IDに対するログレベル */
+        private final Map<String, LogLevel> executionIds;
+
+        /**
+         * コンストラクタ。
+         * @param requestIds リクエストIDに対するログレベル
+         * @param userIds ユーザIDに対するログレベル
+         * @param executionIds 実行時IDに対するログレベル
+         */
+        private OverrideTable(Map<String, LogLevel> requestIds, Map<String, LogLevel> userIds, Map<String, LogLevel> executionIds) {
+            this.requestIds = requestIds;
+            this.userIds = userIds;
+            this.executionIds = executionIds;
+        }
+
+        /**
+         * エントリが空か否かを判定する。
+         * @return 空の場合は<code>true</code>
+         */
+        private boolean isEmpty() {
+            return requestIds.isEmpty() && userIds.isEmpty() && executionIds.isEmpty();
+        }
+
+        /**
+         * 指定された値のいずれかに一致するエントリで、指定された{@link LogLevel}が有効になっているか否かを判定する。
+         * @param level {@link LogLevel}
+         * @param requestId リクエストID
+         * @param userId ユーザID
+         * @param executionId 実行時ID
+         * @return 有効になっている場合は<code>true</code>
+         */
+        private boolean isEnabled(LogLevel level, String requestId, String userId, String executionId) {
+            return matches(requestIds, requestId, level)
+                || matches(userIds, userId, level)
+                || matches(executionIds, executionId, level);
+        }
+
+        /**
+         * マップに登録されたエントリで、指定された{@link LogLevel}が有効になっているか否かを判定する。
+         * @param entries エントリ
+         * @param key キー
+         * @param level {@link LogLevel}
+         * @return 有効になっている場合は<code>true</code>
+         */
+        private static boolean matches(Map<String, LogLevel> entries, String key, LogLevel level) {
+            if (key == null || entries.isEmpty()) {
+                return false;
+            }
+            LogLevel overriddenLevel = entries.get(key);
+            return overriddenLevel != null && level.getValue() <= overriddenLevel.getValue();
+        }
+    }
+}
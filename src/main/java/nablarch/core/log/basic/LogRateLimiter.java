@@ -0,0 +1,222 @@
+package nablarch.core.log.basic;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link LogWriter}毎にログの出力量を制限するクラス。<br>
+ * <br>
+ * 下記の2種類の制限を提供する。
+ * <ul>
+ * <li>トークンバケットによる1秒あたりの出力件数の制限</li>
+ * <li>指定された{@link LogLevel}に対するN件に1件のサンプリング</li>
+ * </ul>
+ * 制限により出力されなかったログの件数は{@link LogLevel}毎に集計し、{@link #pollSuppressedCounts(long)}により一定間隔で取得できる。
+ * 終了時は{@link #drainSuppressedCounts()}により、出力間隔に関わらず残りの件数を取得できる。<br>
+ * <br>
+ * 複数スレッドから同時に呼び出されることを前提に、ロックを使用せずアトミック変数のみで実装している。
+ * そのため、本クラスがスレッド間の競合箇所になることはない。
+ */
+class LogRateLimiter {
+
+    /** 1秒あたりのナノ秒 */
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /** 抑止件数を出力する間隔(秒)のデフォルト値 */
+    private static final long DEFAULT_SUMMARY_INTERVAL_SECONDS = 60;
+
+    /** 1件のログ出力に必要な間隔(ナノ秒)。出力件数を制限しない場合は0 */
+    private final long emissionIntervalNanos;
+
+    /** バーストを許容する時間幅(ナノ秒) */
+    private final long burstToleranceNanos;
+
+    /** 次のログ出力が理論上許可される時刻(ナノ秒)。GCRA(Generic Cell Rate Algorithm)によるトークンバケットの実装に使用する。 */
+    private final AtomicLong theoreticalArrivalTime;
+
+    /** サンプリング対象の{@link LogLevel}。{@link LogLevel#ordinal()}をインデックスとする。 */
+    private final boolean[] sampledLevels;
+
+    /** サンプリングの間隔(N件に1件)。サンプリングしない場合は1 */
+    private final long samplingRate;
+
+    /** {@link LogLevel}毎のサンプリング用カウンタ */
+    private final AtomicLongArray samplingCounters;
+
+    /** {@link LogLevel}毎の出力されなかったログの件数。{@link LogLevel#ordinal()}をインデックスとする。 */
+    private final LongAdder[] suppressedCounts;
+
+    /** 抑止件数を出力する{@link LogLevel}。抑止したログと同じレベルで出力する場合は<code>null</code> */
+    private final LogLevel summaryLevel;
+
+    /** 抑止件数を出力する間隔(ナノ秒) */
+    private final long summaryIntervalNanos;
+
+    /** 次に抑止件数を出力する時刻(ナノ秒) */
+    private final AtomicLong nextSummaryTime;
+
+    /**
+     * コンストラクタ。
+     * @param permitsPerSecond 1秒あたりの出力件数の上限。制限しない場合は0
+     * @param burst バーストとして連続で出力できる件数
+     * @param sampledLevels サンプリング対象の{@link LogLevel}
+     * @param samplingRate サンプリングの間隔(N件に1件)。サンプリングしない場合は1
+     * @param summaryIntervalNanos 抑止件数を出力する間隔(ナノ秒)
+     * @param summaryLevel 抑止件数を出力する{@link LogLevel}。抑止したログと同じレベルで出力する場合は<code>null</code>
+     * @param now 現在時刻(ナノ秒)
+     */
+    LogRateLimiter(long permitsPerSecond, long burst, LogLevel[] sampledLevels, long samplingRate,
+                   long summaryIntervalNanos, LogLevel summaryLevel, long now) {
+        emissionIntervalNanos = permitsPerSecond > 0 ? Math.max(NANOS_PER_SECOND / permitsPerSecond, 1) : 0;
+        burstToleranceNanos = emissionIntervalNanos * Math.max(burst - 1, 0);
+        theoreticalArrivalTime = new AtomicLong(now);
+        this.sampledLevels = new boolean[LogLevel.values().length];
+        for (LogLevel level : sampledLevels) {
+            this.sampledLevels[level.ordinal()] = true;
+        }
+        this.samplingRate = Math.max(samplingRate, 1);
+        samplingCounters = new AtomicLongArray(LogLevel.values().length);
+        suppressedCounts = new LongAdder[LogLevel.values().length];
+        for (int i = 0; i < suppressedCounts.length; i++) {
+            suppressedCounts[i] = new LongAdder();
+        }
+        this.summaryIntervalNanos = summaryIntervalNanos;
+        this.summaryLevel = summaryLevel;
+        nextSummaryTime = new AtomicLong(now + summaryIntervalNanos);
+    }
+
+    /**
+     * 設定を使用して{@link LogRateLimiter}を生成する。<br>
+     * <br>
+     * 出力件数の制限とサンプリングのいずれも指定されていない場合は<code>null</code>を返す。
+     * @param settings {@link LogWriter}の設定
+     * @return 生成した{@link LogRateLimiter}。制限を行わない場合は<code>null</code>
+     */
+    static LogRateLimiter create(ObjectSettings settings) {
+        long permitsPerSecond = ObjectSettingsSupport.getLongProp(settings, "rateLimit.permitsPerSecond", 0);
+        long burst = ObjectSettingsSupport.getLongProp(settings, "rateLimit.burst", permitsPerSecond);
+        long samplingRate = ObjectSettingsSupport.getLongProp(settings, "sampling.rate", 1);
+        LogLevel[] sampledLevels = getLevels(settings, "sampling.levels");
+        if (permitsPerSecond <= 0 && (samplingRate <= 1 || sampledLevels.length == 0)) {
+            return null;
+        }
+        long summaryInterval = ObjectSettingsSupport.getLongProp(settings, "suppressedSummaryInterval", DEFAULT_SUMMARY_INTERVAL_SECONDS);
+        LogLevel[] summaryLevels = getLevels(settings, "suppressedSummaryLevel");
+        return new LogRateLimiter(permitsPerSecond, burst, sampledLevels, samplingRate,
+                                  TimeUnit.SECONDS.toNanos(summaryInterval),
+                                  summaryLevels.length != 0 ? summaryLevels[0] : null, System.nanoTime());
+    }
+
+    /**
+     * ログの出力可否を判定する。<br>
+     * <br>
+     * 出力できない場合は、抑止件数をカウントアップする。
+     * @param level 出力するログの{@link LogLevel}
+     * @param now 現在時刻(ナノ秒)
+     * @return 出力できる場合は<code>true</code>
+     */
+    boolean tryAcquire(LogLevel level, long now) {
+        if (isSampledOut(level) || !tryAcquirePermit(now)) {
+            suppressedCounts[level.ordinal()].increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 抑止件数を出力する時刻に達している場合に、前回の取得以降の{@link LogLevel}毎の抑止件数を取得する。<br>
+     * <br>
+     * 複数スレッドから同時に呼び出された場合でも、1回の出力間隔で抑止件数を取得できるのは1スレッドのみとなる。
+     * @param now 現在時刻(ナノ秒)
+     * @return {@link LogLevel#ordinal()}をインデックスとする抑止件数。出力する時刻に達していない場合と、抑止件数がない場合は<code>null</code>
+     */
+    long[] pollSuppressedCounts(long now) {
+        long next = nextSummaryTime.get();
+        if (now - next < 0) {
+            return null;
+        }
+        if (!nextSummaryTime.compareAndSet(next, now + summaryIntervalNanos)) {
+            return null;
+        }
+        return drainSuppressedCounts();
+    }
+
+    /**
+     * 出力間隔に関わらず、前回の取得以降の{@link LogLevel}毎の抑止件数を取得する。<br>
+     * 終了時に残りの抑止件数を出力するために使用する。
+     * @return {@link LogLevel#ordinal()}をインデックスとする抑止件数。抑止件数がない場合は<code>null</code>
+     */
+    long[] drainSuppressedCounts() {
+        long[] counts = null;
+        for (int i = 0; i < suppressedCounts.length; i++) {
+            long count = suppressedCounts[i].sumThenReset();
+            if (count > 0) {
+                if (counts == null) {
+                    counts = new long[suppressedCounts.length];
+                }
+                counts[i] = count;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 抑止件数を出力する{@link LogLevel}を取得する。
+     * @return 抑止件数を出力する{@link LogLevel}。抑止したログと同じレベルで出力する場合は<code>null</code>
+     */
+    LogLevel getSummaryLevel() {
+        return summaryLevel;
+    }
+
+    /**
+     * サンプリングにより出力対象外となるか否かを判定する。
+     * @param level 出力するログの{@link LogLevel}
+     * @return 出力対象外となる場合は<code>true</code>
+     */
+    private boolean isSampledOut(LogLevel level) {
+        int index = level.ordinal();
+        return sampledLevels[index] && samplingCounters.getAndIncrement(index) % samplingRate != 0;
+    }
+
+    /**
+     * 出力件数の上限を超えていない場合に、1件分の出力を許可する。
+     * @param now 現在時刻(ナノ秒)
+     * @return 出力を許可した場合は<code>true</code>
+     */
+    private boolean tryAcquirePermit(long now) {
+        if (emissionIntervalNanos == 0) {
+            return true;
+        }
+        while (true) {
+            long tat = theoreticalArrivalTime.get();
+            long base = tat - now > 0 ? tat : now;
+            if (base - now > burstToleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, base + emissionIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * カンマ区切りで指定された{@link LogLevel}のプロパティを取得する。
+     * @param settings {@link LogWriter}の設定
+     * @param propName プロパティ名
+     * @return 指定された{@link LogLevel}。指定がない場合は空の配列
+     */
+    private static LogLevel[] getLevels(ObjectSettings settings, String propName) {
+        String value = settings.getProp(propName);
+        if (value == null || value.trim().length() == 0) {
+            return new LogLevel[0];
+        }
+        String[] names = value.split(",");
+        LogLevel[] levels = new LogLevel[names.length];
+        for (int i = 0; i < names.length; i++) {
+            levels[i] = LogLevel.valueOf(names[i].trim());
+        }
+        return levels;
+    }
+}
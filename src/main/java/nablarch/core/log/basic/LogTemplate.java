@@ -0,0 +1,174 @@
+package nablarch.core.log.basic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import nablarch.core.log.LogItem;
+
+/**
+ * フォーマットを解析したログ出力項目を、出力毎の処理が少なくなるように変換したテンプレート。<br>
+ * <br>
+ * 出力毎に値が変わらないログ出力項目(フォーマットの固定文字列など)は、生成時に文字列に変換し、
+ * 隣接する固定文字列と連結して1つの固定文字列として保持する。<br>
+ * また、出力したログの長さの移動平均を保持し、バッファの確保に使用するサイズの目安として提供する。
+ *
+ * @param <CTX> ログ出力項目の取得に使用するコンテキストの型
+ */
+final class LogTemplate<CTX> {
+
+    /** 移動平均の算出に使用するシフト量(直近の約16件の平均となる) */
+    private static final int AVERAGE_SHIFT = 4;
+
+    /** 変換後のログ出力項目 */
+    private final AppendableLogItem<CTX>[] items;
+
+    /**
+     * 出力したログの長さの移動平均。<br>
+     * 目安としてのみ使用するため、複数スレッドからの更新が失われることは許容する。
+     */
+    private int averageLength = ReusableStringBuilder.INITIAL_SIZE;
+
+    /**
+     * コンストラクタ。
+     * @param items 変換後のログ出力項目
+     */
+    private LogTemplate(AppendableLogItem<CTX>[] items) {
+        this.items = items;
+    }
+
+    /**
+     * フォーマットを解析したログ出力項目からテンプレートを生成する。<br>
+     * <br>
+     * 出力毎に値が変わるログ出力項目以外は、コンテキストに<code>null</code>を指定して値を取得し、固定文字列に変換する。
+     * @param formattedLogItems フォーマットを解析したログ出力項目
+     * @param variableItems 出力毎に値が変わるログ出力項目
+     * @param <CTX> ログ出力項目の取得に使用するコンテキストの型
+     * @return テンプレート
+     */
+    static <CTX> LogTemplate<CTX> compile(LogItem<CTX>[] formattedLogItems, Set<LogItem<CTX>> variableItems) {
+        return compile(Arrays.asList(formattedLogItems), variableItems);
+    }
+
+    /**
+     * フォーマットを解析したログ出力項目のリストからテンプレートを生成する。
+     * @param formattedLogItems フォーマットを解析したログ出力項目
+     * @param variableItems 出力毎に値が変わるログ出力項目
+     * @param <CTX> ログ出力項目の取得に使用するコンテキストの型
+     * @return テンプレート
+     * @see #compile(LogItem[], Set)
+     */
+    static <CTX> LogTemplate<CTX> compile(List<LogItem<CTX>> formattedLogItems, Set<LogItem<CTX>> variableItems) {
+        List<LogItem<CTX>> compiled = new ArrayList<LogItem<CTX>>(formattedLogItems.size());
+        StringBuilder literal = new StringBuilder();
+        for (LogItem<CTX> item : formattedLogItems) {
+            if (variableItems.contains(item)) {
+                addLiteral(compiled, literal);
+                compiled.add(item);
+            } else {
+                literal.append(item.get(null));
+            }
+        }
+        addLiteral(compiled, literal);
+        return new LogTemplate<CTX>(AppendableLogItemAdapter.adapt(compiled));
+    }
+
+    /**
+     * 連結した固定文字列がある場合は、ログ出力項目として追加する。
+     * @param compiled 変換後のログ出力項目
+     * @param literal 連結した固定文字列
+     * @param <CTX> ログ出力項目の取得に使用するコンテキストの型
+     */
+    private static <CTX> void addLiteral(List<LogItem<CTX>> compiled, StringBuilder literal) {
+        if (literal.length() != 0) {
+            compiled.add(new LiteralItem<CTX>(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * ログ出力項目をバッファに追加する。
+     * @param context ログ出力項目の取得に使用するコンテキスト
+     * @param sb ログ出力項目を追加するバッファ
+     */
+    void appendTo(CTX context, StringBuilder sb) {
+        for (AppendableLogItem<CTX> item : items) {
+            item.appendTo(context, sb);
+        }
+    }
+
+    /**
+     * 出力を打ち切ってよいバッファの長さを指定して、ログ出力項目をバッファに追加する。<br>
+     * {@link LimitedLogItem}が出力を打ち切った場合は、以降のログ出力項目を追加しない。
+     * @param context ログ出力項目の取得に使用するコンテキスト
+     * @param sb ログ出力項目を追加するバッファ
+     * @param limit 出力を打ち切ってよいバッファの長さ
+     * @return 最後まで出力した場合は<code>true</code>、出力を打ち切った場合は<code>false</code>
+     */
+    boolean appendTo(CTX context, StringBuilder sb, int limit) {
+        for (AppendableLogItem<CTX> item : items) {
+            if (item instanceof LimitedLogItem) {
+                if (!((LimitedLogItem<CTX>) item).appendTo(context, sb, limit)) {
+                    return false;
+                }
+            } else {
+                item.appendTo(context, sb);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 出力するログの長さの目安を取得する。
+     * @return 出力したログの長さの移動平均
+     */
+    int getEstimatedLength() {
+        return averageLength;
+    }
+
+    /**
+     * 出力したログの長さを移動平均に反映する。
+     * @param length 出力したログの長さ
+     */
+    void recordLength(int length) {
+        int average = averageLength;
+        averageLength = average + ((length - average) >> AVERAGE_SHIFT);
+    }
+
+    /**
+     * 変換後のログ出力項目の数を取得する。
+     * @return 変換後のログ出力項目の数
+     */
+    int size() {
+        return items.length;
+    }
+
+    /**
+     * 固定文字列を出力するログ出力項目。
+     * @param <CTX> ログ出力項目の取得に使用するコンテキストの型
+     */
+    private static final class LiteralItem<CTX> implements AppendableLogItem<CTX> {
+
+        /** 固定文字列 */
+        private final String value;
+
+        /**
+         * コンストラクタ。
+         * @param value 固定文字列
+         */
+        private LiteralItem(String value) {
+            this.value = value;
+        }
+
+        /** {@inheritDoc} */
+        public String get(CTX context) {
+            return value;
+        }
+
+        /** {@inheritDoc} */
+        public void appendTo(CTX context, StringBuilder sb) {
+            sb.append(value);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package nablarch.core.log.basic;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 長さの上限を超えた文字列を切り詰めるクラス。<br>
+ * <br>
+ * 上限を超えた文字列は、上限までの文字列に"...[truncated N chars]"(Nは切り詰めた文字数)を付与する。
+ * 上限を超えた時点で出力を打ち切ったため切り詰めた文字数が不明な場合は、"...[truncated]"を付与する。
+ * 切り詰める位置がサロゲートペアの間になる場合は、その前で切り詰める。<br>
+ * 元の文字列は上限までの範囲のみ読み出し、全体を複製しない。
+ */
+final class LogTruncation {
+
+    /** 長さを制限しない場合の上限 */
+    static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /** 切り詰めたことを示す文字列の接頭辞 */
+    private static final String MARKER_PREFIX = "...[truncated ";
+
+    /** 切り詰めたことを示す文字列の接尾辞 */
+    private static final String MARKER_SUFFIX = " chars]";
+
+    /** 切り詰めた文字数が不明な場合に、切り詰めたことを示す文字列 */
+    private static final String UNKNOWN_LENGTH_MARKER = "...[truncated]";
+
+    /** 切り詰めた文字数が不明であることを示す値 */
+    static final long UNKNOWN_LENGTH = -1;
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private LogTruncation() {
+    }
+
+    /**
+     * 文字列を、長さの上限まで切り詰めてバッファに追加する。
+     * @param sb 追加先のバッファ
+     * @param text 文字列(nullでも可)
+     * @param maxLength 長さの上限
+     */
+    static void append(StringBuilder sb, CharSequence text, int maxLength) {
+        if (text == null || text.length() <= maxLength) {
+            sb.append(text);
+            return;
+        }
+        int end = cutPoint(text, 0, maxLength);
+        sb.append(text, 0, end);
+        appendMarker(sb, text.length() - end);
+    }
+
+    /**
+     * バッファの指定位置以降が長さの上限を超える場合に、上限まで切り詰める。
+     * @param sb バッファ
+     * @param start 長さを数える開始位置
+     * @param maxLength 長さの上限
+     */
+    static void truncate(StringBuilder sb, int start, int maxLength) {
+        truncate(sb, start, maxLength, true);
+    }
+
+    /**
+     * バッファの指定位置以降が長さの上限を超える場合に、上限まで切り詰める。<br>
+     * 上限を超えた時点で出力を打ち切った場合は、切り詰めた文字数が不明であることを示す文字列を付与する。
+     * @param sb バッファ
+     * @param start 長さを数える開始位置
+     * @param maxLength 長さの上限
+     * @param complete 最後まで出力した場合は<code>true</code>、出力を打ち切った場合は<code>false</code>
+     */
+    static void truncate(StringBuilder sb, int start, int maxLength, boolean complete) {
+        int length = sb.length() - start;
+        if (length <= maxLength) {
+            return;
+        }
+        int end = start + cutPoint(sb, start, maxLength);
+        sb.setLength(end);
+        appendMarker(sb, complete ? start + length - end : UNKNOWN_LENGTH);
+    }
+
+    /**
+     * 文字列を、長さの上限まで切り詰める。
+     * @param text 文字列
+     * @param maxLength 長さの上限
+     * @return 切り詰めた文字列。上限を超えない場合は指定された文字列
+     */
+    static String truncate(CharSequence text, int maxLength) {
+        if (text.length() <= maxLength) {
+            return text.toString();
+        }
+        StringBuilder sb = new StringBuilder(maxLength + MARKER_PREFIX.length() + MARKER_SUFFIX.length() + 10);
+        append(sb, text, maxLength);
+        return sb.toString();
+    }
+
+    /**
+     * 値に含まれる文字列を、長さの上限まで切り詰める。<br>
+     * <br>
+     * {@link Map}、{@link List}、配列は要素を再帰的に処理し、切り詰めた要素がある場合のみ複製して返す。
+     * 数値、真偽値、日時以外の文字列でない値は、toStringの結果が上限を超える場合に切り詰めた文字列に置き換える。
+     * シリアライズ済みのメンバー({@link RawJsonObjectMembers}、{@link StructuredMessage})は切り詰めない。
+     * @param value 値(nullでも可)
+     * @param maxLength 長さの上限
+     * @return 切り詰めた値。切り詰める文字列を含まない場合は指定された値
+     */
+    static Object truncateValue(Object value, int maxLength) {
+        if (value == null || maxLength == UNLIMITED || isUntruncatedValue(value)) {
+            return value;
+        }
+        if (value instanceof CharSequence) {
+            CharSequence text = (CharSequence) value;
+            return text.length() > maxLength ? truncate(text, maxLength) : value;
+        }
+        if (value instanceof Map) {
+            return truncateMap((Map<?, ?>) value, maxLength);
+        }
+        if (value instanceof List) {
+            return truncateList((List<?>) value, maxLength);
+        }
+        if (value instanceof Object[]) {
+            return truncateArray((Object[]) value, maxLength);
+        }
+        if (value.getClass().isArray()) {
+            return value;
+        }
+        String text = value.toString();
+        return text != null && text.length() > maxLength ? truncate(text, maxLength) : value;
+    }
+
+    /**
+     * 切り詰めの対象としない値か否かを判定する。
+     * @param value 値
+     * @return 切り詰めの対象としない場合は<code>true</code>
+     */
+    private static boolean isUntruncatedValue(Object value) {
+        return value instanceof Number
+            || value instanceof Boolean
+            || value instanceof Character
+            || value instanceof Date
+            || value instanceof Calendar
+            || value instanceof TemporalAccessor
+            || value instanceof RawJsonObjectMembers
+            || value instanceof StructuredMessage;
+    }
+
+    /**
+     * Mapの値に含まれる文字列を、長さの上限まで切り詰める。
+     * @param map Map
+     * @param maxLength 長さの上限
+     * @return 切り詰めた値がある場合は複製したMap、それ以外の場合は指定されたMap
+     */
+    private static Map<?, ?> truncateMap(Map<?, ?> map, int maxLength) {
+        Map<Object, Object> truncated = null;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            Object truncatedValue = truncateValue(value, maxLength);
+            if (truncatedValue != value) {
+                if (truncated == null) {
+                    truncated = new LinkedHashMap<Object, Object>(map);
+                }
+                truncated.put(entry.getKey(), truncatedValue);
+            }
+        }
+        return truncated != null ? truncated : map;
+    }
+
+    /**
+     * Listの要素に含まれる文字列を、長さの上限まで切り詰める。
+     * @param list List
+     * @param maxLength 長さの上限
+     * @return 切り詰めた要素がある場合は複製したList、それ以外の場合は指定されたList
+     */
+    private static List<?> truncateList(List<?> list, int maxLength) {
+        List<Object> truncated = null;
+        int i = 0;
+        for (Object element : list) {
+            Object truncatedElement = truncateValue(element, maxLength);
+            if (truncatedElement != element) {
+                if (truncated == null) {
+                    truncated = new ArrayList<Object>(list);
+                }
+                truncated.set(i, truncatedElement);
+            }
+            i++;
+        }
+        return truncated != null ? truncated : list;
+    }
+
+    /**
+     * 配列の要素に含まれる文字列を、長さの上限まで切り詰める。
+     * @param array 配列
+     * @param maxLength 長さの上限
+     * @return 切り詰めた要素がある場合は複製した配列、それ以外の場合は指定された配列
+     */
+    private static Object[] truncateArray(Object[] array, int maxLength) {
+        Object[] truncated = null;
+        for (int i = 0; i < array.length; i++) {
+            Object truncatedElement = truncateValue(array[i], maxLength);
+            if (truncatedElement != array[i]) {
+                if (truncated == null) {
+                    truncated = Arrays.copyOf(array, array.length, Object[].class);
+                }
+                truncated[i] = truncatedElement;
+            }
+        }
+        return truncated != null ? truncated : array;
+    }
+
+    /**
+     * 切り詰める位置を取得する。<br>
+     * サロゲートペアの間で切り詰めないように、上限の位置が下位サロゲートの場合は1文字前を返す。
+     * 文字列は複製せずに、開始位置からの相対位置で参照する。
+     * @param text 文字列
+     * @param offset 長さを数える開始位置
+     * @param maxLength 長さの上限
+     * @return 開始位置からの相対位置で表した切り詰める位置
+     */
+    private static int cutPoint(CharSequence text, int offset, int maxLength) {
+        if (maxLength > 0 && Character.isHighSurrogate(text.charAt(offset + maxLength - 1))
+                && Character.isLowSurrogate(text.charAt(offset + maxLength))) {
+            return maxLength - 1;
+        }
+        return maxLength;
+    }
+
+    /**
+     * 切り詰めたことを示す文字列を追加する。
+     * @param sb 追加先のバッファ
+     * @param truncatedLength 切り詰めた文字数。不明な場合は{@link #UNKNOWN_LENGTH}
+     */
+    static void appendMarker(StringBuilder sb, long truncatedLength) {
+        if (truncatedLength == UNKNOWN_LENGTH) {
+            sb.append(UNKNOWN_LENGTH_MARKER);
+            return;
+        }
+        sb.append(MARKER_PREFIX).append(truncatedLength).append(MARKER_SUFFIX);
+    }
+}
@@ -29,12 +29,65 @@ import nablarch.core.util.annotation.Published;
  * <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.<プロパティ名>
  * <dd>{@link LogFormatter}毎のプロパティに設定する値。<br>
  *     設定内容は、使用する{@link LogFormatter}のJavadocを参照すること。
+ *
+ * <dt>writer.&lt;{@link LogWriter}の名称&gt;.rateLimit.permitsPerSecond
+ * <dd>1秒あたりに出力するログ件数の上限。オプション。<br>
+ *     上限を超えたログは出力しない。
+ *     指定がない場合は出力件数を制限しない。
+ *
+ * <dt>writer.&lt;{@link LogWriter}の名称&gt;.rateLimit.burst
+ * <dd>一時的に上限を超えて連続で出力できるログ件数。オプション。<br>
+ *     指定がない場合はrateLimit.permitsPerSecondと同じ値を使用する。
+ *
+ * <dt>writer.&lt;{@link LogWriter}の名称&gt;.sampling.levels
+ * <dd>サンプリング対象とする{@link LogLevel}の名称。オプション。<br>
+ *     複数指定する場合はカンマ区切り。
+ *
+ * <dt>writer.&lt;{@link LogWriter}の名称&gt;.sampling.rate
+ * <dd>サンプリングの間隔。オプション。<br>
+ *     sampling.levelsに指定したレベルのログを、ここで指定した件数毎に1件のみ出力する。
+ *     指定がない場合はサンプリングを行わない。
+ *
+ * <dt>writer.&lt;{@link LogWriter}の名称&gt;.suppressedSummaryInterval
+ * <dd>出力件数の制限とサンプリングにより出力しなかったログ件数を出力する間隔(秒)。オプション。<br>
+ *     出力しなかったログが存在する場合、この間隔を経過した後の最初の書き込み時と、終了時に件数を出力する。
+ *     指定がない場合は60秒。
+ *
+ * <dt>writer.&lt;{@link LogWriter}の名称&gt;.suppressedSummaryLevel
+ * <dd>出力しなかったログ件数を出力する{@link LogLevel}の名称。オプション。<br>
+ *     指定した場合は、全レベルの合計件数をこのレベルで出力する。
+ *     指定がない場合は、出力しなかったログの{@link LogLevel}毎に、そのレベルで件数を出力する。
+ *
+ * <dt>writer.&lt;{@link LogWriter}の名称&gt;.dedupe.window
+ * <dd>同一内容のログの出力を抑止する時間幅(秒)。オプション。<br>
+ *     ロガー名、{@link LogLevel}、メッセージ、例外の型、例外のスタックトレースの先頭のフレームが一致するログを、
+ *     最初の出力からこの時間内は出力せず、時間経過後に繰り返し件数を1件のログとして出力する。
+ *     指定がない場合は抑止しない。
+ *
+ * <dt>writer.&lt;{@link LogWriter}の名称&gt;.dedupe.cacheSize
+ * <dd>重複の判定のために保持する直近のログの件数。オプション。<br>
+ *     指定がない場合は256件。
+ *
+ * <dt>writer.&lt;{@link LogWriter}の名称&gt;.dedupe.stackFrames
+ * <dd>重複の判定に使用する例外のスタックトレースの先頭からのフレーム数。オプション。<br>
+ *     0を指定した場合は、スタックトレースを判定に使用しない。
+ *     指定がない場合は5フレーム。
  * </dl>
+ * ログ出力の設定でガベージフリーモードが指定された場合と、{@link #isReusableBufferWritable()}が<code>true</code>を返す場合は、
+ * スレッド毎に再利用するバッファに{@link LogFormatter#appendTo(LogContext, StringBuilder)}でフォーマットする。
+ * バッファから{@link #onWrite(CharSequence)}メソッドで書き込むのは、{@link #isReusableBufferWritable()}が<code>true</code>を返す場合のみとし、
+ * それ以外の場合は文字列に変換して{@link #onWrite(String)}メソッドで書き込む。<br>
+ * 出力件数の制限、サンプリング、重複の抑止は、ロックを使用せずに実装しているため、
+ * 複数スレッドからのログ出力が競合する箇所にはならない。
  * 
  * @author Kiyohito Itoh
  */
 @Published(tag = "architect")
 public abstract class LogWriterSupport implements LogWriter {
+
+    /** FQCN */
+    private static final String FQCN = LogWriterSupport.class.getName();
+
     
     /** 設定で指定された{@link LogWriter}の名称 */
     private String name;
@@ -47,6 +100,29 @@ public abstract class LogWriterSupport implements LogWriter {
     
     /** {@link LogFormatter} */
     private LogFormatter formatter = new BasicLogFormatter();
+
+    /** 他の{@link LogWriter}とフォーマット結果を共有するためのキー。共有しない場合は{@link #formatter} */
+    private Object formatKey;
+
+    /** ログの出力件数を制限する{@link LogRateLimiter}。制限しない場合は<code>null</code> */
+    private LogRateLimiter rateLimiter;
+
+    /** 同一内容のログの出力を抑止する{@link LogDeduplicator}。抑止しない場合は<code>null</code> */
+    private LogDeduplicator deduplicator;
+
+    /** スレッド毎に再利用するバッファにフォーマットして書き込むか否か */
+    private boolean useReusableBuffer;
+
+    /** スレッド毎に再利用するバッファから{@link #onWrite(CharSequence)}メソッドで書き込むか否か */
+    private boolean reusableBufferWritable;
+
+    /** 繰り返し出力されたログの件数を書き込む{@link LogDeduplicator.RepeatListener} */
+    private final LogDeduplicator.RepeatListener repeatListener = new LogDeduplicator.RepeatListener() {
+        @Override
+        public void onRepeated(LogContext context) {
+            onWrite(context);
+        }
+    };
     
     /**
      * {@inheritDoc}<br>
@@ -69,10 +145,17 @@ public abstract class LogWriterSupport implements LogWriter {
             formatter = createdFormatter;
         }
         formatter.initialize(formatterSettings);
+        formatKey = formatter;
+
+        boolean garbageFree = Boolean.parseBoolean(settings.getLogSettings().getProps().get("garbageFree"));
+        rateLimiter = LogRateLimiter.create(settings);
+        deduplicator = LogDeduplicator.create(settings);
         
         onInitialize(settings);
+        reusableBufferWritable = isReusableBufferWritable();
+        useReusableBuffer = garbageFree || reusableBufferWritable;
     }
-    
+
     /**
      * 設定を使用して{@link LogFormatter}を生成する。
      * @param settings {@link LogFormatter}の設定
@@ -96,9 +179,18 @@ public abstract class LogWriterSupport implements LogWriter {
     }
     
     /**
-     * {@inheritDoc}
+     * {@inheritDoc}<br>
+     * <br>
+     * 重複の抑止により出力していない繰り返し件数と、出力件数の制限とサンプリングにより出力しなかったログ件数がある場合は、
+     * 終了処理の前に出力する。
      */
     public void terminate() {
+        if (deduplicator != null) {
+            deduplicator.flush(repeatListener);
+        }
+        if (rateLimiter != null) {
+            writeSuppressedSummary(rateLimiter.drainSuppressedCounts());
+        }
         onTerminate();
     }
     
@@ -113,32 +205,192 @@ public abstract class LogWriterSupport implements LogWriter {
     /**
      * フォーマット済みのログを出力先に書き込む。<br>
      * <br>
-     * 設定で{@link LogLevel}が指定されている場合は、有効なレベルの場合のみ{@link #onWrite(String)}メソッドを呼び出す。<br>
-     * 有効なレベルのログでない場合は、何も処理しない。
+     * 設定で{@link LogLevel}が指定されている場合は、有効なレベルの場合のみ{@link #onWrite(LogContext)}メソッドを呼び出す。<br>
+     * 有効なレベルのログでない場合は、何も処理しない。<br>
+     * 出力件数の制限、サンプリング、重複の抑止が設定されている場合は、それらにより出力対象外となったログも何も処理しない。
      * 
      * @param context {@link LogContext}
      */
     public void write(LogContext context) {
-        if (needsToWrite(context)) {
-            onWrite(formatter.format(context));
+        if (needsToWrite(context) && !isDuplicate(context) && tryAcquire(context)) {
+            onWrite(context);
+        }
+    }
+
+    /**
+     * 出力対象のログを出力先に書き込む。<br>
+     * <br>
+     * デフォルト実装では、{@link LogFormatter}でフォーマットし、{@link #onWrite(String)}メソッドか、
+     * スレッド毎に再利用するバッファから書き込む場合は{@link #onWrite(CharSequence)}メソッドを呼び出す。
+     * 文字列にフォーマットせずに書き込む場合はオーバーライドすること。<br>
+     * 指定された{@link LogContext}は呼び出し元で再利用する場合があるため、本メソッドの処理の完了後に保持してはならない。
+     * @param context {@link LogContext}
+     */
+    protected void onWrite(LogContext context) {
+        if (useReusableBuffer) {
+            writeWithReusableBuffer(context);
+        } else {
+            onWrite(FormattedLogMemo.format(formatKey, formatter, context));
+        }
+    }
+
+    /**
+     * スレッド毎に再利用するバッファに{@link LogFormatter#appendTo(LogContext, StringBuilder)}でフォーマットし、書き込む。<br>
+     * 書き込み処理の中で同じスレッドから再度呼び出された場合は、使用中のバッファを上書きしないように新たなバッファを使用する。<br>
+     * フォーマット結果を共有する他の{@link LogWriter}が同じログをフォーマット済みの場合は、その結果を書き込む。
+     * @param context {@link LogContext}
+     */
+    private void writeWithReusableBuffer(LogContext context) {
+        CharSequence memoized = FormattedLogMemo.appendTo(formatKey, formatter, context);
+        if (memoized != null) {
+            writeFromBuffer(memoized);
+            return;
+        }
+        StringBuilder sb = ReusableStringBuilder.acquire();
+        try {
+            formatter.appendTo(context, sb);
+            writeFromBuffer(sb);
+        } finally {
+            ReusableStringBuilder.release(sb);
+        }
+    }
+
+    /**
+     * バッファにフォーマット済みのログを書き込む。<br>
+     * {@link #isReusableBufferWritable()}が<code>false</code>を返す場合は、文字列に変換して{@link #onWrite(String)}メソッドで書き込む。
+     * @param formattedMessage フォーマット済みのログ
+     */
+    private void writeFromBuffer(CharSequence formattedMessage) {
+        if (reusableBufferWritable) {
+            onWrite(formattedMessage);
+        } else {
+            onWrite(formattedMessage.toString());
+        }
+    }
+
+    /**
+     * 重複の抑止の設定から、指定されたログエントリが出力済みのログと重複するか否かを判定する。
+     * @param context ログエントリオブジェクト
+     * @return 重複する場合はtrue
+     */
+    private boolean isDuplicate(LogContext context) {
+        return deduplicator != null && deduplicator.isDuplicate(context, System.nanoTime(), repeatListener);
+    }
+
+    /**
+     * 出力件数の制限とサンプリングの設定から、指定されたログエントリを出力できるか否かを判定する。<br>
+     * <br>
+     * 出力しなかったログの件数を出力する時刻に達している場合は、併せてその件数を出力する。
+     * @param context ログエントリオブジェクト
+     * @return ログを出力できる場合はtrue
+     */
+    private boolean tryAcquire(LogContext context) {
+        if (rateLimiter == null) {
+            return true;
         }
+        long now = System.nanoTime();
+        writeSuppressedSummary(rateLimiter.pollSuppressedCounts(now));
+        return rateLimiter.tryAcquire(context.getLevel(), now);
+    }
+
+    /**
+     * 出力件数の制限とサンプリングにより出力しなかったログの件数を出力する。<br>
+     * <br>
+     * 出力する{@link LogLevel}が設定されている場合は、合計件数をそのレベルで出力する。
+     * 設定されていない場合は、出力しなかったログの{@link LogLevel}毎に、そのレベルで件数を出力する。
+     * @param suppressedCounts {@link LogLevel#ordinal()}をインデックスとする件数。件数がない場合は<code>null</code>
+     */
+    private void writeSuppressedSummary(long[] suppressedCounts) {
+        if (suppressedCounts == null) {
+            return;
+        }
+        LogLevel summaryLevel = rateLimiter.getSummaryLevel();
+        if (summaryLevel != null) {
+            long total = 0;
+            for (long count : suppressedCounts) {
+                total += count;
+            }
+            writeSuppressedSummary(summaryLevel, total);
+            return;
+        }
+        LogLevel[] levels = LogLevel.values();
+        for (int i = 0; i < suppressedCounts.length; i++) {
+            if (suppressedCounts[i] > 0) {
+                writeSuppressedSummary(levels[i], suppressedCounts[i]);
+            }
+        }
+    }
+
+    /**
+     * 出力しなかったログの件数を、指定された{@link LogLevel}で出力する。
+     * @param level {@link LogLevel}
+     * @param suppressedCount 出力しなかったログの件数
+     */
+    private void writeSuppressedSummary(LogLevel level, long suppressedCount) {
+        String message = "suppressed " + suppressedCount + " log records by rate limit or sampling. writer name = [" + name + "]";
+        onWrite(new LogContext(FQCN, level, message, null));
     }
     
     /**
-     * 現在の設定から、指定されたログエントリを出力するか否かを返す。
+     * 現在の設定から、指定されたログエントリを出力するか否かを返す。<br>
+     * <br>
+     * 設定された{@link LogLevel}で出力対象外となる場合でも、
+     * {@link LogLevelOverrides}に一致するエントリが登録されている場合は出力する。
      * @param context ログエントリオブジェクト
      * @return ログを出力する場合はtrue
      */
     public boolean needsToWrite(LogContext context) {
         return (baseLevel == null)
-            || (baseLevelValue >= context.getLevel().getValue());
+            || (baseLevelValue >= context.getLevel().getValue())
+            || LogLevelOverrides.isEnabled(context);
     }
     
+    /**
+     * スレッド毎に再利用するバッファから{@link #onWrite(CharSequence)}メソッドで書き込むか否かを返す。<br>
+     * <br>
+     * <code>true</code>を返す場合は、ガベージフリーモードでない場合も、ログ毎に文字列を生成せずに{@link #onWrite(CharSequence)}メソッドを呼び出す。
+     * <code>false</code>を返す場合は、{@link #onWrite(CharSequence)}メソッドを呼び出さず、{@link #onWrite(String)}メソッドを呼び出す。
+     * {@link #onWrite(CharSequence)}メソッドで、文字列を生成せずにバッファから直接書き込む場合にオーバーライドする。
+     * {@link #onWrite(String)}メソッドの処理を変更するサブクラスでは、<code>false</code>を返すこと。<br>
+     * {@link #onInitialize(ObjectSettings)}メソッドの呼び出し後に1度だけ呼び出される。
+     * デフォルト実装では<code>false</code>を返す。
+     * @return スレッド毎に再利用するバッファから書き込む場合は<code>true</code>
+     */
+    protected boolean isReusableBufferWritable() {
+        return false;
+    }
+
+    /**
+     * 書き込み処理の完了後も{@link LogContext}を保持するか否かを返す。<br>
+     * <br>
+     * ガベージフリーモードでは{@link LogContext}をスレッド毎に再利用するため、<code>true</code>を返す場合は、
+     * 再利用しない{@link LogContext}のコピーを{@link #write(LogContext)}メソッドに渡す。
+     * {@link #write(LogContext)}メソッドをオーバーライドし、書き込み処理の完了後も{@link LogContext}を保持する場合は、
+     * オーバーライドして<code>true</code>を返すこと。<br>
+     * デフォルト実装では、フォーマット済みのログのみを出力先に渡すため<code>false</code>を返す。
+     * @return 書き込み処理の完了後も{@link LogContext}を保持する場合は<code>true</code>
+     */
+    protected boolean isLogContextRetained() {
+        return false;
+    }
+
     /**
      * フォーマット済みのログを出力先に書き込む。
      * @param formattedMessage フォーマット済みのログ
      */
     protected abstract void onWrite(String formattedMessage);
+
+    /**
+     * 再利用するバッファにフォーマット済みのログを出力先に書き込む。<br>
+     * {@link #isReusableBufferWritable()}が<code>true</code>を返す場合のみ呼び出される。
+     * 指定されたバッファは呼び出し元で再利用するため、本メソッドの処理の完了後に保持してはならない。<br>
+     * デフォルト実装では、文字列に変換して{@link #onWrite(String)}メソッドを呼び出す。
+     * 文字列を生成せずに書き込む場合はオーバーライドすること。
+     * @param formattedMessage フォーマット済みのログ
+     */
+    protected void onWrite(CharSequence formattedMessage) {
+        onWrite(formattedMessage.toString());
+    }
     
     /**
      * 設定情報を取得する。<br>
@@ -176,4 +428,22 @@ public abstract class LogWriterSupport implements LogWriter {
     protected LogFormatter getFormatter() {
         return formatter;
     }
+
+    /**
+     * フォーマット結果を共有するためのキーを取得する。
+     * @return フォーマット結果を共有するためのキー
+     */
+    Object getFormatKey() {
+        return formatKey;
+    }
+
+    /**
+     * 他の{@link LogWriter}とフォーマット結果を共有するためのキーを設定する。<br>
+     * 同じキーを設定した{@link LogWriter}間では、1件のログを書き込む間、最初にフォーマットした結果を使用する。
+     * 同じ設定で初期化した同じクラスの{@link ShareableLogFormatter}を使用する{@link LogWriter}にのみ設定すること。
+     * @param formatKey フォーマット結果を共有するためのキー
+     */
+    void shareFormatKey(Object formatKey) {
+        this.formatKey = formatKey;
+    }
 }
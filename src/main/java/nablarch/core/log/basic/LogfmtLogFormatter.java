@@ -0,0 +1,638 @@
+package nablarch.core.log.basic;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import nablarch.core.log.LogItem;
+import nablarch.core.log.Logger;
+import nablarch.core.log.basic.BasicLogFormatter.BootProcessItem;
+import nablarch.core.log.basic.BasicLogFormatter.DateItem;
+import nablarch.core.log.basic.BasicLogFormatter.ExecutionIdItem;
+import nablarch.core.log.basic.BasicLogFormatter.LogLevelItem;
+import nablarch.core.log.basic.BasicLogFormatter.LoggerNameItem;
+import nablarch.core.log.basic.BasicLogFormatter.MessageItem;
+import nablarch.core.log.basic.BasicLogFormatter.ProcessingSystemItem;
+import nablarch.core.log.basic.BasicLogFormatter.RequestIdItem;
+import nablarch.core.log.basic.BasicLogFormatter.RuntimeLoggerNameItem;
+import nablarch.core.log.basic.BasicLogFormatter.UserIdItem;
+import nablarch.core.util.StringUtil;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * ログをlogfmt形式(スペース区切りの{@code key=value})でフォーマットするクラス。<br>
+ * <br>
+ * 出力項目は{@link JsonLogFormatter}と同じものを指定できる。
+ * 値は、スペース、"="、"\""、制御文字を含む場合のみダブルクォートで囲み、
+ * "\""、"\"、改行、タブなどをバックスラッシュでエスケープする。
+ * 値が<code>null</code>または空文字の項目は出力しない。<br>
+ * <br>
+ * 出力項目には下記を指定する。
+ * <pre>
+ * date
+ *     このログ出力を要求した時点の日時。
+ * logLevel
+ *     このログ出力のログレベル。
+ * loggerName
+ *     このログ出力が対応するロガー設定の名称。
+ * runtimeLoggerName
+ *     実行時に、{@link nablarch.core.log.LoggerManager}からロガー取得に指定した名称。
+ * bootProcess
+ *     起動プロセスを識別する名前。
+ * processingSystem
+ *     処理方式を識別する文字列。
+ * requestId
+ *     このログ出力を要求した時点のリクエストID。
+ * executionId
+ *     このログ出力を要求した時点の実行時ID。
+ * userId
+ *     このログ出力を要求した時点のログインユーザのユーザID。
+ * message
+ *     このログ出力のメッセージ。
+ * payload
+ *     オプション情報に指定されたオブジェクトのフィールド情報。
+ *     オブジェクトの型は {@code Map<String, Object> } または{@link StructuredLogEvent}でなければならない。
+ *     Mapのエントリを項目として出力し、値はtoString()の結果を出力する。
+ *     {@link StructuredLogEvent}の基本データ型の項目は、ボクシングせずに出力する。
+ *     キーに使用できない文字は"_"に置き換え、空文字のキーは出力しない。
+ *     他の出力項目と重複するキーと、先に出力したキーと重複するキーは出力しない。
+ * stackTrace
+ *     エラー情報に指定された例外オブジェクトのスタックトレース。
+ *     エラー情報の指定がない場合は表示しない。
+ * </pre>
+ * プロパティファイルの記述ルールを下記に示す。<br>
+ * <br>
+ * <dl>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.label.<LogLevelの名称の小文字>}<dt/>
+ *   <dd>{@link LogLevel}に使用するラベル。オプション。<br>
+ *       指定しなければ{@link LogLevel}の名称を使用する。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.targets}<dt/>
+ *   <dd>出力項目をカンマ区切りで指定する。オプション。
+ *       指定しなければ全ての出力項目が出力の対象となる。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.datePattern}<dt/>
+ *   <dd>日時のフォーマットに使用するパターン。オプション。<br>
+ *       指定しなければyyyy-MM-dd'T'HH:mm:ss.SSSXXXを使用する。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.fixedBootProcess}<dt/>
+ *   <dd>起動プロセスがプロセスの実行中に変わらないか否か。オプション。<br>
+ *       trueを指定した場合は、初期処理の時点の起動プロセスをフォーマットして出力する。
+ *       指定しなければfalse。<dd/>
+ *   <dt>{@code writer.<LogWriterの名称>.formatter.stackTrace.<プロパティ名>}<dt/>
+ *   <dd>スタックトレースの出力に使用する{@link StackTraceRenderer}の設定。オプション。<br>
+ *       指定しなければスタックトレースを省略せずに出力する。<dd/>
+ * </dl>
+ * 出力項目は初期処理でテンプレートに変換し、シリアライザやMapを使用せずにバッファへ直接追加する。
+ * 処理方式などの出力毎に値が変わらない出力項目は、初期処理でフォーマットした結果を出力する。
+ * @see LogWriter
+ */
+@Published(tag = "architect")
+public class LogfmtLogFormatter implements ShareableLogFormatter {
+
+    /** 出力日時の項目名 */
+    private static final String TARGET_NAME_DATE = "date";
+    /** ログレベルの項目名 */
+    private static final String TARGET_NAME_LOG_LEVEL = "logLevel";
+    /** ロガー名の項目名 */
+    private static final String TARGET_NAME_LOGGER_NAME = "loggerName";
+    /** 実行時ロガー名の項目名 */
+    private static final String TARGET_NAME_RUNTIME_LOGGER_NAME = "runtimeLoggerName";
+    /** 起動プロセスの項目名 */
+    private static final String TARGET_NAME_BOOT_PROCESS = "bootProcess";
+    /** 処理方式の項目名 */
+    private static final String TARGET_NAME_PROCESSING_SYSTEM = "processingSystem";
+    /** リクエストIDの項目名 */
+    private static final String TARGET_NAME_REQUEST_ID = "requestId";
+    /** 実行時IDの項目名 */
+    private static final String TARGET_NAME_EXECUTION_ID = "executionId";
+    /** ユーザIDの項目名 */
+    private static final String TARGET_NAME_USER_ID = "userId";
+    /** メッセージの項目名 */
+    private static final String TARGET_NAME_MESSAGE = "message";
+    /** エラー情報に指定された例外オブジェクトのスタックトレースの項目名 */
+    private static final String TARGET_NAME_STACK_TRACE = "stackTrace";
+    /** オプション情報に指定されたオブジェクトの項目名 */
+    private static final String TARGET_NAME_PAYLOAD = "payload";
+
+    /** システムプロパティから処理方式を識別する文字列を取得する際に使用するキー */
+    private static final String SYSTEM_PROP_PROCESSING_SYSTEM = "nablarch.processingSystem";
+
+    /** 出力項目のプロパティ名 */
+    private static final String PROPS_TARGETS = "targets";
+    /** 出力項目のデフォルト値 */
+    private static final String DEFAULT_TARGETS = "date,logLevel,loggerName,runtimeLoggerName,"
+            + "executionId,bootProcess,processingSystem,requestId,userId,message,payload,stackTrace";
+
+    /** 日時パターンのプロパティ名 */
+    private static final String PROPS_DATE_PATTERN = "datePattern";
+    /** 日時パターンのデフォルト値 */
+    private static final String DEFAULT_DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX";
+
+    /** 起動プロセスがプロセスの実行中に変わらないか否かのプロパティ名 */
+    private static final String PROPS_FIXED_BOOT_PROCESS = "fixedBootProcess";
+
+    /** 項目の区切り */
+    private static final char PAIR_SEPARATOR = ' ';
+
+    /** キーと値の区切り */
+    private static final char KEY_VALUE_SEPARATOR = '=';
+
+    /** 値を囲む引用符 */
+    private static final char QUOTE = '"';
+
+    /** 16進数の文字 */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** 出力項目を変換したテンプレート */
+    private LogTemplate<LogContext> template;
+
+    /** フォーマット結果を他の{@link LogWriter}と共有できるか否か */
+    private boolean shareable;
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * 出力項目をテンプレートに変換する。
+     */
+    @Override
+    public void initialize(ObjectSettings settings) {
+        shareable = !StackTraceRenderer.isDeduplicating(settings);
+        boolean fixedBootProcess = Boolean.parseBoolean(settings.getProp(PROPS_FIXED_BOOT_PROCESS));
+        List<String> targets = ObjectSettingsSupport.getTargets(settings, PROPS_TARGETS, DEFAULT_TARGETS);
+        Map<String, LogItem<LogContext>> valueItems = createValueItems(settings);
+        Set<String> reservedNames = new HashSet<String>(targets);
+        reservedNames.remove(TARGET_NAME_PAYLOAD);
+
+        List<LogItem<LogContext>> items = new ArrayList<LogItem<LogContext>>(targets.size());
+        Set<LogItem<LogContext>> variableItems = Collections.newSetFromMap(new IdentityHashMap<LogItem<LogContext>, Boolean>());
+        for (String target : targets) {
+            LogItem<LogContext> item;
+            if (TARGET_NAME_PAYLOAD.equals(target)) {
+                item = new PayloadItem(reservedNames, createFormatErrorSupport());
+            } else if (TARGET_NAME_STACK_TRACE.equals(target)) {
+                item = new StackTraceItem(StackTraceRenderer.create(settings));
+            } else if (valueItems.containsKey(target)) {
+                item = new PairItem(target, valueItems.get(target));
+            } else {
+                throw new IllegalArgumentException(
+                        String.format("LogfmtLogFormatter : [%s] is unknown target. property name = [%s.%s]",
+                                target, settings.getName(), PROPS_TARGETS));
+            }
+            items.add(item);
+            if (!TARGET_NAME_PROCESSING_SYSTEM.equals(target)
+                    && !(fixedBootProcess && TARGET_NAME_BOOT_PROCESS.equals(target))) {
+                variableItems.add(item);
+            }
+        }
+        template = LogTemplate.compile(items, variableItems);
+    }
+
+    /**
+     * 値を1つのみ出力する出力項目について、値を取得するログ出力項目を生成する。
+     * @param settings LogFormatterの設定
+     * @return 出力項目の名前をキーとしたログ出力項目
+     */
+    private Map<String, LogItem<LogContext>> createValueItems(ObjectSettings settings) {
+        Map<String, LogItem<LogContext>> items = new HashMap<String, LogItem<LogContext>>();
+        items.put(TARGET_NAME_DATE, new DateItem(new SimpleDateFormat(
+                ObjectSettingsSupport.getProp(settings, PROPS_DATE_PATTERN, DEFAULT_DATE_PATTERN))));
+        items.put(TARGET_NAME_LOG_LEVEL, new LogLevelItem(getLogLevelLabelProvider(settings)));
+        items.put(TARGET_NAME_LOGGER_NAME, new LoggerNameItem());
+        items.put(TARGET_NAME_RUNTIME_LOGGER_NAME, new RuntimeLoggerNameItem());
+        items.put(TARGET_NAME_BOOT_PROCESS, new BootProcessItem());
+        items.put(TARGET_NAME_PROCESSING_SYSTEM, new ProcessingSystemItem(
+                settings.getLogSettings().getProps().get(SYSTEM_PROP_PROCESSING_SYSTEM)));
+        items.put(TARGET_NAME_REQUEST_ID, new RequestIdItem());
+        items.put(TARGET_NAME_EXECUTION_ID, new ExecutionIdItem());
+        items.put(TARGET_NAME_USER_ID, new UserIdItem());
+        items.put(TARGET_NAME_MESSAGE, new MessageItem());
+        return items;
+    }
+
+    /**
+     * LogLevelLabelProviderを取得する。
+     * @param settings LogFormatterの設定
+     * @return LogLevelLabelProvider
+     */
+    protected LogLevelLabelProvider getLogLevelLabelProvider(ObjectSettings settings) {
+        return new LogLevelLabelProvider(settings);
+    }
+
+    /**
+     * フォーマットエラーを処理するクラスを生成する。
+     * @return フォーマットエラーを処理するクラス
+     */
+    protected FormatErrorSupport createFormatErrorSupport() {
+        return new StandardErrorFormatErrorSupport();
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * スタックトレースの繰り返しを判定する場合は、出力内容がそれまでに出力したスタックトレースに依存するため共有できない。
+     */
+    @Override
+    public boolean isShareable() {
+        return shareable;
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * スレッド毎に再利用するバッファにフォーマットし、文字列に変換する。
+     */
+    @Override
+    public String format(LogContext context) {
+        StringBuilder sb = ReusableStringBuilder.acquire();
+        try {
+            appendFormatted(context, sb);
+            return sb.toString();
+        } finally {
+            ReusableStringBuilder.release(sb);
+        }
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * 出力項目毎に項目の区切りを付与してバッファに直接追加し、最後の区切りを改行に置き換える。
+     * {@link #isBufferAppendable()}が<code>false</code>を返す場合は、{@link #format(LogContext)}の結果を追加する。
+     */
+    @Override
+    public void appendTo(LogContext context, StringBuilder sb) {
+        if (!isBufferAppendable()) {
+            sb.append(format(context));
+            return;
+        }
+        appendFormatted(context, sb);
+    }
+
+    /**
+     * {@link #appendTo(LogContext, StringBuilder)}で、{@link #format(LogContext)}を経由せずにバッファへ直接追加するか否かを返す。<br>
+     * <br>
+     * <code>false</code>を返す場合は、{@link #format(LogContext)}の結果をバッファに追加する。
+     * サブクラスで{@link #format(LogContext)}をオーバーライドしている可能性があるため、
+     * デフォルト実装では本クラスのインスタンスの場合のみ<code>true</code>を返す。
+     * {@link #format(LogContext)}をオーバーライドしないサブクラスで直接追加する場合は、オーバーライドして<code>true</code>を返すこと。
+     * @return バッファへ直接追加する場合は<code>true</code>
+     */
+    protected boolean isBufferAppendable() {
+        return getClass() == LogfmtLogFormatter.class;
+    }
+
+    /**
+     * フォーマット済みのログをバッファに直接追加する。
+     * @param context {@link LogContext}
+     * @param sb フォーマット済みのログを追加するバッファ
+     */
+    private void appendFormatted(LogContext context, StringBuilder sb) {
+        int start = sb.length();
+        sb.ensureCapacity(start + template.getEstimatedLength());
+        template.appendTo(context, sb);
+        if (sb.length() > start && sb.charAt(sb.length() - 1) == PAIR_SEPARATOR) {
+            sb.setLength(sb.length() - 1);
+        }
+        sb.append(Logger.LS);
+        template.recordLength(sb.length() - start);
+    }
+
+    /**
+     * キーと値を項目としてバッファに追加する。<br>
+     * 値が<code>null</code>または空文字の場合は追加しない。
+     * @param sb 追加先のバッファ
+     * @param key エスケープが不要なキー
+     * @param value 値
+     */
+    private static void appendPair(StringBuilder sb, String key, CharSequence value) {
+        if (value == null || value.length() == 0) {
+            return;
+        }
+        sb.append(key).append(KEY_VALUE_SEPARATOR);
+        appendValue(sb, value);
+        sb.append(PAIR_SEPARATOR);
+    }
+
+    /**
+     * 値をバッファに追加する。引用符で囲む必要がある場合は、エスケープして引用符で囲む。
+     * @param sb 追加先のバッファ
+     * @param value 値
+     */
+    private static void appendValue(StringBuilder sb, CharSequence value) {
+        if (!needsQuote(value, 0, value.length())) {
+            sb.append(value);
+            return;
+        }
+        sb.append(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < ' ' || c == '\u007f') {
+                        sb.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xf]);
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append(QUOTE);
+    }
+
+    /**
+     * 値を引用符で囲む必要があるか否かを判定する。
+     * @param value 値
+     * @param start 判定する範囲の開始位置
+     * @param end 判定する範囲の終了位置
+     * @return 引用符で囲む必要がある場合は<code>true</code>
+     */
+    private static boolean needsQuote(CharSequence value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c <= ' ' || c == KEY_VALUE_SEPARATOR || c == QUOTE || c == '\u007f') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * キーに使用できない文字を"_"に置き換える。
+     * @param key キー
+     * @return キーに使用できる文字のみで構成されたキー
+     */
+    private static String toKey(String key) {
+        if (!needsQuote(key, 0, key.length())) {
+            return key;
+        }
+        StringBuilder sb = new StringBuilder(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            sb.append(needsQuote(key, i, i + 1) ? '_' : c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 値を1つのみ出力する出力項目を、キーと値の項目として追加するクラス。<br>
+     * <br>
+     * {@link AppendableLogItem}を実装するログ出力項目は、値をバッファに直接追加し、
+     * 引用符で囲む必要がある場合のみ追加した値を置き換える。
+     */
+    private static final class PairItem implements AppendableLogItem<LogContext> {
+
+        /** キー */
+        private final String key;
+
+        /** 値を取得するログ出力項目 */
+        private final LogItem<LogContext> valueItem;
+
+        /**
+         * コンストラクタ。
+         * @param key キー
+         * @param valueItem 値を取得するログ出力項目
+         */
+        private PairItem(String key, LogItem<LogContext> valueItem) {
+            this.key = key;
+            this.valueItem = valueItem;
+        }
+
+        /**
+         * キーと値の項目を取得する。
+         * @param context ログコンテキスト
+         * @return キーと値の項目
+         */
+        @Override
+        public String get(LogContext context) {
+            StringBuilder sb = new StringBuilder();
+            appendTo(context, sb);
+            return sb.toString();
+        }
+
+        /**
+         * キーと値の項目をバッファに追加する。
+         * @param context ログコンテキスト
+         * @param sb 追加先のバッファ
+         */
+        @Override
+        public void appendTo(LogContext context, StringBuilder sb) {
+            if (!(valueItem instanceof AppendableLogItem)) {
+                appendPair(sb, key, valueItem.get(context));
+                return;
+            }
+            int pairStart = sb.length();
+            sb.append(key).append(KEY_VALUE_SEPARATOR);
+            int valueStart = sb.length();
+            ((AppendableLogItem<LogContext>) valueItem).appendTo(context, sb);
+            if (sb.length() == valueStart) {
+                sb.setLength(pairStart);
+                return;
+            }
+            if (needsQuote(sb, valueStart, sb.length())) {
+                String value = sb.substring(valueStart);
+                sb.setLength(valueStart);
+                appendValue(sb, value);
+            }
+            sb.append(PAIR_SEPARATOR);
+        }
+    }
+
+    /**
+     * エラー情報に指定された例外オブジェクトのスタックトレースを、項目として追加するクラス。<br>
+     * <br>
+     * スタックトレースは{@link StackTraceRenderer}で出力し、改行をエスケープした1つの値として追加する。
+     */
+    private static final class StackTraceItem implements AppendableLogItem<LogContext> {
+
+        /** スタックトレースの出力に使用する{@link StackTraceRenderer} */
+        private final StackTraceRenderer renderer;
+
+        /**
+         * コンストラクタ。
+         * @param renderer スタックトレースの出力に使用する{@link StackTraceRenderer}
+         */
+        private StackTraceItem(StackTraceRenderer renderer) {
+            this.renderer = renderer;
+        }
+
+        /**
+         * スタックトレースの項目を取得する。
+         * @param context ログコンテキスト
+         * @return スタックトレースの項目
+         */
+        @Override
+        public String get(LogContext context) {
+            StringBuilder sb = new StringBuilder();
+            appendTo(context, sb);
+            return sb.toString();
+        }
+
+        /**
+         * スタックトレースの項目をバッファに追加する。
+         * @param context ログコンテキスト
+         * @param sb 追加先のバッファ
+         */
+        @Override
+        public void appendTo(LogContext context, StringBuilder sb) {
+            Throwable error = context.getError();
+            if (error == null) {
+                return;
+            }
+            StringBuilder stackTrace = new StringBuilder(1024);
+            renderer.appendTo(error, stackTrace);
+            int end = stackTrace.length();
+            while (end > 0 && (stackTrace.charAt(end - 1) == '\n' || stackTrace.charAt(end - 1) == '\r')) {
+                end--;
+            }
+            stackTrace.setLength(end);
+            appendPair(sb, TARGET_NAME_STACK_TRACE, stackTrace);
+        }
+    }
+
+    /**
+     * オプション情報に指定されたMapのエントリを、項目として追加するクラス。
+     */
+    private static final class PayloadItem implements AppendableLogItem<LogContext> {
+
+        /** 出力対象の組み込みの出力項目の名前 */
+        private final Set<String> reservedNames;
+
+        /** フォーマットエラーを処理するクラス */
+        private final FormatErrorSupport errorSupport;
+
+        /**
+         * コンストラクタ。
+         * @param reservedNames 出力対象の組み込みの出力項目の名前
+         * @param errorSupport フォーマットエラーを処理するクラス
+         */
+        private PayloadItem(Set<String> reservedNames, FormatErrorSupport errorSupport) {
+            this.reservedNames = reservedNames;
+            this.errorSupport = errorSupport;
+        }
+
+        /**
+         * オプション情報の項目を取得する。
+         * @param context ログコンテキスト
+         * @return オプション情報の項目
+         */
+        @Override
+        public String get(LogContext context) {
+            StringBuilder sb = new StringBuilder();
+            appendTo(context, sb);
+            return sb.toString();
+        }
+
+        /**
+         * オプション情報の項目をバッファに追加する。<br>
+         * 他の出力項目と重複するキーと、先に追加したオプション情報と重複するキーは追加しない。
+         * @param context ログコンテキスト
+         * @param sb 追加先のバッファ
+         */
+        @Override
+        public void appendTo(LogContext context, StringBuilder sb) {
+            Object[] options = context.getOptions();
+            if (options == null) {
+                return;
+            }
+            Set<String> writtenKeys = options.length > 1 ? new HashSet<String>() : null;
+            for (Object option : options) {
+                if (option instanceof Map) {
+                    appendMapPairs(sb, (Map<?, ?>) option, writtenKeys);
+                } else if (option instanceof StructuredLogEvent) {
+                    appendEventPairs(sb, (StructuredLogEvent) option, writtenKeys);
+                } else {
+                    errorSupport.outputFormatError("objects in options must be Map<String, Object>. : [" + option + "]");
+                }
+            }
+        }
+
+        /**
+         * Mapのエントリを項目としてバッファに追加する。
+         * @param sb 追加先のバッファ
+         * @param option オプション情報
+         * @param writtenKeys 追加したキー。オプション情報が1つの場合は<code>null</code>
+         */
+        private void appendMapPairs(StringBuilder sb, Map<?, ?> option, Set<String> writtenKeys) {
+            List<String> illegalTypeMemberKeys = null;
+            for (Map.Entry<?, ?> entry : option.entrySet()) {
+                Object key = entry.getKey();
+                if (!(key instanceof String)) {
+                    if (illegalTypeMemberKeys == null) {
+                        illegalTypeMemberKeys = new ArrayList<String>();
+                    }
+                    illegalTypeMemberKeys.add(String.valueOf(key));
+                } else if (isAppendable((String) key, writtenKeys)) {
+                    appendObjectPair(sb, (String) key, entry.getValue());
+                }
+            }
+            if (illegalTypeMemberKeys != null) {
+                errorSupport.outputFormatError("illegal type in keys : " + StringUtil.join(", ", illegalTypeMemberKeys));
+            }
+        }
+
+        /**
+         * {@link StructuredLogEvent}の項目をバッファに追加する。<br>
+         * 同じ項目名を複数回追加した場合は、最後に追加した値を追加する。
+         * 基本データ型の値はボクシングせずに追加する。
+         * @param sb 追加先のバッファ
+         * @param event 構造化ログの項目
+         * @param writtenKeys 追加したキー。オプション情報が1つの場合は<code>null</code>
+         */
+        private void appendEventPairs(StringBuilder sb, StructuredLogEvent event, Set<String> writtenKeys) {
+            for (int i = 0; i < event.getSize(); i++) {
+                String name = event.getName(i);
+                if (name == null || !isAppendable(name, writtenKeys)) {
+                    continue;
+                }
+                if (event.isPrimitiveValue(i)) {
+                    sb.append(toKey(name)).append(KEY_VALUE_SEPARATOR);
+                    event.appendPrimitiveValue(i, sb);
+                    sb.append(PAIR_SEPARATOR);
+                } else {
+                    appendObjectPair(sb, name, event.getObjectValue(i));
+                }
+            }
+        }
+
+        /**
+         * 項目として追加するキーか否かを判定する。<br>
+         * 空文字のキーと、他の出力項目と重複するキーと、先に追加したキーと重複するキーは追加しない。
+         * @param key キー
+         * @param writtenKeys 追加したキー。オプション情報が1つの場合は<code>null</code>
+         * @return 追加する場合は<code>true</code>
+         */
+        private boolean isAppendable(String key, Set<String> writtenKeys) {
+            return key.length() != 0 && !reservedNames.contains(key)
+                && (writtenKeys == null || writtenKeys.add(key));
+        }
+
+        /**
+         * オブジェクトの値を項目として追加する。値が<code>null</code>の場合は追加しない。
+         * @param sb 追加先のバッファ
+         * @param key キー
+         * @param value 値
+         */
+        private static void appendObjectPair(StringBuilder sb, String key, Object value) {
+            if (value != null) {
+                appendPair(sb, toKey(key), value instanceof CharSequence ? (CharSequence) value : value.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package nablarch.core.log.basic;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import nablarch.core.util.StringUtil;
+
+/**
+ * {@link ObjectSettings}からプロパティを取得する処理をまとめたクラス。<br>
+ * <br>
+ * 複数の{@link LogFormatter}や{@link LogWriter}で共通するプロパティの解釈に使用する。
+ */
+final class ObjectSettingsSupport {
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private ObjectSettingsSupport() {
+    }
+
+    /**
+     * カンマ区切りで指定された出力項目の名前を取得する。<br>
+     * 空の名前と重複した名前は除外する。
+     * @param settings {@link LogFormatter}の設定
+     * @param propName プロパティ名
+     * @param defaultTargets 指定がない場合に使用するカンマ区切りの出力項目の名前
+     * @return 出力項目の名前
+     */
+    static List<String> getTargets(ObjectSettings settings, String propName, String defaultTargets) {
+        String targetsStr = settings.getProp(propName);
+        if (StringUtil.isNullOrEmpty(targetsStr)) {
+            targetsStr = defaultTargets;
+        }
+
+        String[] targets = targetsStr.split(",");
+        Set<String> keys = new HashSet<String>(targets.length);
+        List<String> list = new ArrayList<String>(targets.length);
+        for (String target : targets) {
+            String key = target.trim();
+            if (!StringUtil.isNullOrEmpty(key) && keys.add(key)) {
+                list.add(key);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 文字列のプロパティを取得する。
+     * @param settings {@link LogFormatter}の設定
+     * @param propName プロパティ名
+     * @param defaultValue 指定がない場合のデフォルト値
+     * @return プロパティの値。指定がない場合と空文字の場合はデフォルト値
+     */
+    static String getProp(ObjectSettings settings, String propName, String defaultValue) {
+        String value = settings.getProp(propName);
+        return !StringUtil.isNullOrEmpty(value) ? value : defaultValue;
+    }
+
+    /**
+     * int型のプロパティを取得する。
+     * @param settings 設定
+     * @param propName プロパティ名
+     * @param defaultValue 指定がない場合のデフォルト値
+     * @return プロパティの値。指定がない場合と空白のみの場合はデフォルト値
+     * @throws IllegalArgumentException int型に変換できない値が指定された場合
+     */
+    static int getIntProp(ObjectSettings settings, String propName, int defaultValue) {
+        String value = settings.getProp(propName);
+        if (value == null || value.trim().length() == 0) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                String.format("invalid property was specified. '%s' must be able to convert to Integer. value = [%s], name = [%s]",
+                              propName, value, settings.getName()), e);
+        }
+    }
+
+    /**
+     * long型のプロパティを取得する。
+     * @param settings 設定
+     * @param propName プロパティ名
+     * @param defaultValue 指定がない場合のデフォルト値
+     * @return プロパティの値。指定がない場合と空白のみの場合はデフォルト値
+     * @throws IllegalArgumentException long型に変換できない値が指定された場合
+     */
+    static long getLongProp(ObjectSettings settings, String propName, long defaultValue) {
+        String value = settings.getProp(propName);
+        if (value == null || value.trim().length() == 0) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                String.format("invalid property was specified. '%s' must be able to convert to Long. value = [%s], name = [%s]",
+                              propName, value, settings.getName()), e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package nablarch.core.log.basic;
+
+/**
+ * メッセージを{@code {}}形式のプレースホルダを含むテンプレートと引数で保持する{@link LogContext}。<br>
+ * <br>
+ * テンプレートへの引数の埋め込みは、{@link #getMessage()}が最初に呼ばれた時点、
+ * つまり{@link LogFormatter}によるフォーマット時に行う。<br>
+ * そのため、出力対象外のログに対してメッセージを組み立てることはない。<br>
+ * 引数が3つ以下の場合は、可変長引数の配列を生成しないように個別のフィールドで保持する。
+ */
+class ParameterizedLogContext extends LogContext {
+
+    /** プレースホルダ */
+    private static final String PLACEHOLDER = "{}";
+
+    /** 引数の数 */
+    private final int argCount;
+
+    /** 1番目の引数 */
+    private final Object arg1;
+
+    /** 2番目の引数 */
+    private final Object arg2;
+
+    /** 3番目の引数 */
+    private final Object arg3;
+
+    /** 4つ以上の引数が指定された場合の引数 */
+    private final Object[] args;
+
+    /** 引数を埋め込んだメッセージ */
+    private String formattedMessage;
+
+    /**
+     * 引数が3つ以下の場合のコンストラクタ。
+     * @param loggerName ロガー名
+     * @param runtimeLoggerName 実行時ロガー名
+     * @param level {@link LogLevel}
+     * @param template メッセージのテンプレート
+     * @param argCount 引数の数
+     * @param arg1 1番目の引数
+     * @param arg2 2番目の引数
+     * @param arg3 3番目の引数
+     */
+    ParameterizedLogContext(String loggerName, String runtimeLoggerName, LogLevel level, String template,
+                            int argCount, Object arg1, Object arg2, Object arg3) {
+        super(loggerName, runtimeLoggerName, level, template, null, (Object[]) null);
+        this.argCount = argCount;
+        this.arg1 = arg1;
+        this.arg2 = arg2;
+        this.arg3 = arg3;
+        this.args = null;
+    }
+
+    /**
+     * 任意の数の引数を指定する場合のコンストラクタ。
+     * @param loggerName ロガー名
+     * @param runtimeLoggerName 実行時ロガー名
+     * @param level {@link LogLevel}
+     * @param template メッセージのテンプレート
+     * @param args 引数
+     */
+    ParameterizedLogContext(String loggerName, String runtimeLoggerName, LogLevel level, String template, Object[] args) {
+        super(loggerName, runtimeLoggerName, level, template, null, (Object[]) null);
+        this.argCount = args != null ? args.length : 0;
+        this.arg1 = null;
+        this.arg2 = null;
+        this.arg3 = null;
+        this.args = args;
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * テンプレートのプレースホルダに引数を埋め込んだメッセージを返す。
+     * 埋め込み結果は保持し、2回目以降の呼び出しでは再利用する。
+     */
+    @Override
+    public String getMessage() {
+        String message = formattedMessage;
+        if (message == null) {
+            message = format(super.getMessage());
+            formattedMessage = message;
+        }
+        return message;
+    }
+
+    /**
+     * 引数を埋め込む前のメッセージのテンプレートを取得する。
+     * @return メッセージのテンプレート
+     */
+    String getTemplate() {
+        return super.getMessage();
+    }
+
+    /**
+     * 引数の数を取得する。
+     * @return 引数の数
+     */
+    int getArgCount() {
+        return argCount;
+    }
+
+    /**
+     * テンプレートのプレースホルダに引数を埋め込む。<br>
+     * 引数の数より多いプレースホルダはそのまま出力し、プレースホルダより多い引数は無視する。
+     * @param template メッセージのテンプレート
+     * @return 引数を埋め込んだメッセージ
+     */
+    private String format(String template) {
+        if (template == null || argCount == 0) {
+            return template;
+        }
+        int index = template.indexOf(PLACEHOLDER);
+        if (index == -1) {
+            return template;
+        }
+        StringBuilder sb = new StringBuilder(template.length() + 16 * argCount);
+        int start = 0;
+        int argIndex = 0;
+        while (index != -1 && argIndex < argCount) {
+            sb.append(template, start, index).append(getArg(argIndex++));
+            start = index + PLACEHOLDER.length();
+            index = template.indexOf(PLACEHOLDER, start);
+        }
+        sb.append(template, start, template.length());
+        return sb.toString();
+    }
+
+    /**
+     * 指定されたインデックスの引数を取得する。
+     * @param index インデックス
+     * @return 引数
+     */
+    Object getArg(int index) {
+        if (args != null) {
+            return args[index];
+        }
+        switch (index) {
+            case 0: return arg1;
+            case 1: return arg2;
+            default: return arg3;
+        }
+    }
+}
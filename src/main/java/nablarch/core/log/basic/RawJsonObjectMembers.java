@@ -1,5 +1,8 @@
 package nablarch.core.log.basic;
 
+import java.io.IOException;
+import java.io.Writer;
+
 /**
  * Jsonのobjectへの埋め込み用クラス。
  * <p>
@@ -7,19 +10,41 @@ package nablarch.core.log.basic;
  * 組み立て済みのJSON構文は、objectのmember要素とし、前後にオブジェクトの開始、終了マーカーや値のセパレーターは含まないこと。<br>
  * 例：{@code "\"key1\":\"value1\",\"key2\":\"value2\""}
  * </p>
+ * <p>
+ * 構造化済みメッセージのように、文字列の一部が組み立て済みのJSON構文となる場合は、
+ * 部分文字列を生成せずに範囲を指定して保持し、出力時に範囲内の文字列のみを書き込む。
+ * </p>
  * @author Shuji Kitamura
  */
 public class RawJsonObjectMembers {
 
-    /** 組み立て済みのJSON構文 */
+    /** 組み立て済みのJSON構文を含む文字列 */
     private final String rawJsonText;
 
+    /** 組み立て済みのJSON構文の開始位置 */
+    private final int start;
+
+    /** 組み立て済みのJSON構文の終了位置 */
+    private final int end;
+
     /**
      * コンストラクタ
      * @param rawJsonText 組み立て済みのJSON構文
      */
     public RawJsonObjectMembers(String rawJsonText) {
-        this.rawJsonText = rawJsonText;
+        this(rawJsonText, 0, rawJsonText != null ? rawJsonText.length() : 0);
+    }
+
+    /**
+     * 文字列の一部を組み立て済みのJSON構文とするコンストラクタ。
+     * @param text 組み立て済みのJSON構文を含む文字列
+     * @param start 組み立て済みのJSON構文の開始位置
+     * @param end 組み立て済みのJSON構文の終了位置
+     */
+    RawJsonObjectMembers(String text, int start, int end) {
+        this.rawJsonText = text;
+        this.start = start;
+        this.end = end;
     }
 
     /**
@@ -27,7 +52,27 @@ public class RawJsonObjectMembers {
      * @return 組み立て済みのJSON構文
      */
     public String getRawJsonText() {
-        return rawJsonText;
+        if (rawJsonText == null || (start == 0 && end == rawJsonText.length())) {
+            return rawJsonText;
+        }
+        return rawJsonText.substring(start, end);
+    }
+
+    /**
+     * 組み立て済みのJSON構文を、部分文字列を生成せずにバッファへ追加する。
+     * @param sb 追加先のバッファ
+     */
+    void appendTo(StringBuilder sb) {
+        sb.append(rawJsonText, start, end);
+    }
+
+    /**
+     * 組み立て済みのJSON構文を、部分文字列を生成せずに書き込む。
+     * @param writer 書き込み先
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void writeTo(Writer writer) throws IOException {
+        writer.append(rawJsonText, start, end);
     }
 
     /**
@@ -35,9 +80,8 @@ public class RawJsonObjectMembers {
      * @return 半角スペース, 水平タブ, 改行(Line feed), 復帰改行(Carriage return)のみで構成されるときtrue
      */
     public boolean isJsonWhitespace() {
-        int len = rawJsonText.length();
         char c;
-        for (int i = 0; i < len; i++) {
+        for (int i = start; i < end; i++) {
             c = rawJsonText.charAt(i);
             if (c != 0x20 && c != 0x09 && c != 0x0A && c!= 0x0d) {
                 return false;
@@ -0,0 +1,103 @@
+package nablarch.core.log.basic;
+
+import java.util.Date;
+
+/**
+ * ガベージフリーモードで使用する、スレッド毎に再利用する{@link LogContext}。<br>
+ * <br>
+ * ログ出力の度に{@link LogContext}と日時を生成せず、スレッド毎に保持したインスタンスの内容を書き換えて使用する。<br>
+ * 本クラスのインスタンスは、書き込み処理の完了後に保持しない{@link LogWriter}にのみ渡す。
+ * 保持する可能性がある{@link LogWriter}には、{@link #copy(LogContext)}でコピーしたインスタンスを渡す。<br>
+ * <br>
+ * {@link LogWriter}の書き込み処理の中で同じスレッドからログが出力された場合は、
+ * 使用中のインスタンスを書き換えないように、通常の{@link LogContext}を生成する。
+ */
+final class ReusableLogContext extends LogContext {
+
+    /** スレッド毎に再利用する{@link ReusableLogContext} */
+    private static final ThreadLocal<ReusableLogContext> CONTEXT = new ThreadLocal<ReusableLogContext>() {
+        @Override
+        protected ReusableLogContext initialValue() {
+            return new ReusableLogContext();
+        }
+    };
+
+    /** 再利用する日時 */
+    private final Date date = new Date(0);
+
+    /** 使用中か否か */
+    private boolean inUse;
+
+    /**
+     * コンストラクタ。
+     */
+    private ReusableLogContext() {
+        super();
+    }
+
+    /**
+     * 現在のスレッドで再利用する{@link LogContext}を取得し、ログ出力に必要な情報を設定する。<br>
+     * <br>
+     * 現在のスレッドで使用中の場合は、新たに生成した{@link LogContext}を返す。
+     * 取得した{@link LogContext}は、使用後に{@link #release(LogContext)}で解放すること。
+     * @param loggerName ロガー名
+     * @param runtimeLoggerName 実行時ロガー名
+     * @param level {@link LogLevel}
+     * @param message メッセージ
+     * @param error エラー情報(nullでも可)
+     * @param options オプション情報(nullでも可)
+     * @param clock 日時を取得する{@link LogClock}
+     * @return {@link LogContext}
+     */
+    static LogContext acquire(String loggerName, String runtimeLoggerName, LogLevel level, String message,
+                              Throwable error, Object[] options, LogClock clock) {
+        ReusableLogContext context = CONTEXT.get();
+        if (context.inUse) {
+            return new LogContext(loggerName, runtimeLoggerName, level, message, error, options, clock);
+        }
+        context.inUse = true;
+        context.date.setTime(clock.currentTimeMillis());
+        context.set(loggerName, runtimeLoggerName, level, message, error, options, context.date);
+        return context;
+    }
+
+    /**
+     * {@link #acquire}で取得した{@link LogContext}を解放する。<br>
+     * 再利用するインスタンスの場合は、メッセージやオプション情報への参照を保持し続けないようにクリアする。
+     * @param context {@link #acquire}で取得した{@link LogContext}
+     */
+    static void release(LogContext context) {
+        if (context instanceof ReusableLogContext) {
+            ReusableLogContext reusable = (ReusableLogContext) context;
+            reusable.set(null, null, null, null, null, null, reusable.date);
+            reusable.inUse = false;
+        }
+    }
+
+    /**
+     * 指定された{@link LogWriter}が、書き込み処理の完了後も{@link LogContext}を保持する可能性があるか否かを判定する。<br>
+     * <br>
+     * {@link LogWriterSupport}は、{@link LogWriterSupport#isLogContextRetained()}の結果に従う。
+     * {@link LogPublisher}のように{@link LogWriterSupport}を継承しない{@link LogWriter}は、保持する可能性があるものとする。
+     * @param writer {@link LogWriter}
+     * @return 保持する可能性がある場合は<code>true</code>
+     */
+    static boolean isRetainedBy(LogWriter writer) {
+        return !(writer instanceof LogWriterSupport) || ((LogWriterSupport) writer).isLogContextRetained();
+    }
+
+    /**
+     * 書き込み処理の完了後も保持するために、{@link LogContext}をコピーする。<br>
+     * オプション情報に含まれるスレッド毎に再利用する{@link StructuredLogEvent}は、{@link java.util.Map}に置き換える。<br>
+     * 再利用するインスタンスでなく、オプション情報の置き換えも不要な場合は、指定された{@link LogContext}をそのまま返す。
+     * @param context {@link LogContext}
+     * @return 保持できる{@link LogContext}
+     */
+    static LogContext copy(LogContext context) {
+        Object[] options = StructuredLogEvent.snapshot(context.getOptions());
+        if (context instanceof ReusableLogContext || options != context.getOptions()) {
+            return new LogContext(context, options);
+        }
+        return context;
+    }
+}
@@ -0,0 +1,68 @@
+package nablarch.core.log.basic;
+
+/**
+ * ログのフォーマットに使用するバッファをスレッド毎に再利用するクラス。<br>
+ * <br>
+ * {@link #acquire()}メソッドで取得したバッファは、使用後に{@link #release(StringBuilder)}メソッドで解放する。
+ * バッファの使用中に同じスレッドから再度取得した場合は、使用中のバッファを上書きしないように新たなバッファを返す。<br>
+ * 大きなログによりバッファが拡張された場合は、解放時に初期サイズのバッファに置き換え、メモリを保持し続けないようにする。
+ */
+final class ReusableStringBuilder {
+
+    /** バッファの初期サイズ */
+    static final int INITIAL_SIZE = 512;
+
+    /** バッファとして保持し続ける最大サイズ */
+    static final int MAX_REUSED_SIZE = 64 * 1024;
+
+    /** スレッド毎に再利用するバッファ */
+    private static final ThreadLocal<ReusableStringBuilder> BUFFERS = new ThreadLocal<ReusableStringBuilder>() {
+        @Override
+        protected ReusableStringBuilder initialValue() {
+            return new ReusableStringBuilder();
+        }
+    };
+
+    /** バッファ */
+    private StringBuilder sb = new StringBuilder(INITIAL_SIZE);
+
+    /** 使用中か否か */
+    private boolean inUse;
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private ReusableStringBuilder() {
+    }
+
+    /**
+     * 現在のスレッドのバッファを空にして取得する。<br>
+     * 使用中の場合は新たなバッファを返す。
+     * @return バッファ
+     */
+    static StringBuilder acquire() {
+        ReusableStringBuilder buffer = BUFFERS.get();
+        if (buffer.inUse) {
+            return new StringBuilder(INITIAL_SIZE);
+        }
+        buffer.inUse = true;
+        buffer.sb.setLength(0);
+        return buffer.sb;
+    }
+
+    /**
+     * {@link #acquire()}メソッドで取得したバッファを解放する。<br>
+     * 使用中のため新たに生成したバッファが指定された場合は何もしない。
+     * @param sb バッファ
+     */
+    static void release(StringBuilder sb) {
+        ReusableStringBuilder buffer = BUFFERS.get();
+        if (buffer.sb != sb) {
+            return;
+        }
+        if (sb.capacity() > MAX_REUSED_SIZE) {
+            buffer.sb = new StringBuilder(INITIAL_SIZE);
+        }
+        buffer.inUse = false;
+    }
+}
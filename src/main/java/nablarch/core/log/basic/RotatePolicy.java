@@ -25,6 +25,19 @@ public interface RotatePolicy {
      */
     boolean needsRotate(String message, Charset charset);
 
+    /**
+     * 文字エンコーディング済みのメッセージに対して、ローテーションが必要かの判定を行う。<br>
+     * ガベージフリーモードの{@link FileLogWriter}から、文字列を生成せずに呼び出される。<br>
+     * デフォルト実装では、文字列に変換して{@link #needsRotate(String, Charset)}を呼び出す。
+     * @param message ログファイルに書き込まれるメッセージ
+     * @param byteLength 文字エンコーディング後のメッセージのバイト数
+     * @param charset 書き込み時に使用する文字エンコーディング
+     * @return ローテーションが必要な場合はtrue
+     */
+    default boolean needsRotate(CharSequence message, int byteLength, Charset charset) {
+        return needsRotate(message.toString(), charset);
+    }
+
     /**
      * ローテーション先のファイル名を決定する。
      * @return ローテーション先のファイル名
@@ -52,6 +65,18 @@ public interface RotatePolicy {
      */
     void onWrite(String message, Charset charset);
 
+    /**
+     * 文字エンコーディング済みのメッセージのログファイル書き込み時に発生するイベント。<br>
+     * ガベージフリーモードの{@link FileLogWriter}から、文字列を生成せずに呼び出される。<br>
+     * デフォルト実装では、文字列に変換して{@link #onWrite(String, Charset)}を呼び出す。
+     * @param message ログファイルに書き込まれるメッセージ
+     * @param byteLength 文字エンコーディング後のメッセージのバイト数
+     * @param charset 書き込み時に使用する文字エンコーディング
+     */
+    default void onWrite(CharSequence message, int byteLength, Charset charset) {
+        onWrite(message.toString(), charset);
+    }
+
     /**
      * ログファイル読み込み時に発生するイベント。<br>
      * ファイルサイズによるローテーションなどを独自で実装したい場合に使用する。
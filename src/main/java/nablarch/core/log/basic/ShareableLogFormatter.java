@@ -0,0 +1,23 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * フォーマッタの設定が同じ{@link LogWriter}間で、フォーマット結果を共有できる{@link LogFormatter}。<br>
+ * <br>
+ * {@link BasicLoggerFactory}は、本インタフェースを実装し{@link #isShareable()}が<code>true</code>を返す{@link LogFormatter}のみを対象に、
+ * 1件のログを複数の{@link LogWriter}に書き込む際のフォーマットを1回で済ませる。
+ * 各{@link LogWriter}はそれぞれの{@link LogFormatter}を保持し続け、インスタンスは共有しない。<br>
+ * 同じ設定で初期化したインスタンスが、同じログから常に同じ結果を出力する場合のみ共有できる。
+ * それまでに出力したログに応じて出力内容を変える状態を持つ場合は、<code>false</code>を返すこと。
+ */
+@Published(tag = "architect")
+public interface ShareableLogFormatter extends LogFormatter {
+
+    /**
+     * フォーマット結果を他の{@link LogWriter}と共有できるか否かを判定する。<br>
+     * 初期処理の後に呼び出す。
+     * @return 共有できる場合は<code>true</code>
+     */
+    boolean isShareable();
+}
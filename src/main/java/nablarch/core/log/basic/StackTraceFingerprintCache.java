@@ -0,0 +1,74 @@
+package nablarch.core.log.basic;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 直近にスタックトレースを出力した例外のフィンガープリントを保持するキャッシュ。<br>
+ * <br>
+ * フィンガープリントをインデックスとする固定サイズの配列に、フィンガープリントと最初に出力した時刻を保持する。
+ * インデックスが衝突した場合は新しいフィンガープリントで上書きするため、直近に出力したものほど残りやすい。<br>
+ * 配列はアトミックに更新するため、ロックを使用しない。
+ */
+final class StackTraceFingerprintCache {
+
+    /** 直近に出力したフィンガープリントのキャッシュ */
+    private final AtomicReferenceArray<Entry> entries;
+
+    /** キャッシュのインデックスを算出するためのマスク */
+    private final int mask;
+
+    /** 繰り返しを判定する時間幅(ナノ秒) */
+    private final long windowNanos;
+
+    /**
+     * コンストラクタ。
+     * @param cacheSize キャッシュサイズ。2のべき乗に切り上げる。
+     * @param windowNanos 繰り返しを判定する時間幅(ナノ秒)
+     */
+    StackTraceFingerprintCache(int cacheSize, long windowNanos) {
+        int size = Integer.highestOneBit(Math.max(cacheSize, 1) * 2 - 1);
+        entries = new AtomicReferenceArray<Entry>(size);
+        mask = size - 1;
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * 指定されたフィンガープリントのスタックトレースを、時間幅内に出力済みか否かを判定する。<br>
+     * 出力済みでない場合は、指定された時刻から時間幅を開始する。
+     * @param fingerprint フィンガープリント
+     * @param now 現在時刻(ナノ秒)
+     * @return 出力済みの場合は<code>true</code>
+     */
+    boolean isRepeated(long fingerprint, long now) {
+        int index = (int) fingerprint & mask;
+        Entry entry = entries.get(index);
+        if (entry != null && entry.fingerprint == fingerprint && now - entry.windowStart < windowNanos) {
+            return true;
+        }
+        // 同時に更新された場合は、いずれかのスレッドの時刻が残る
+        entries.set(index, new Entry(fingerprint, now));
+        return false;
+    }
+
+    /**
+     * キャッシュのエントリ。
+     */
+    private static final class Entry {
+
+        /** フィンガープリント */
+        private final long fingerprint;
+
+        /** 時間幅の開始時刻(ナノ秒) */
+        private final long windowStart;
+
+        /**
+         * コンストラクタ。
+         * @param fingerprint フィンガープリント
+         * @param windowStart 時間幅の開始時刻(ナノ秒)
+         */
+        private Entry(long fingerprint, long windowStart) {
+            this.fingerprint = fingerprint;
+            this.windowStart = windowStart;
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package nablarch.core.log.basic;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.log.Logger;
+
+/**
+ * 例外オブジェクトのスタックトレースを、{@link Throwable#printStackTrace()}を使用せずにバッファへ直接書き込むクラス。<br>
+ * <br>
+ * 出力するフレーム数と原因例外の深さの上限、まとめて出力するパッケージを指定しない場合は、
+ * {@link Throwable#printStackTrace()}と同じ内容を出力する。<br>
+ * 指定した場合は、下記のとおり出力を省略する。
+ * <ul>
+ * <li>1つの例外で出力するフレーム数が上限を超えた場合は、残りのフレームを"... N frames omitted"の1行で出力する。</li>
+ * <li>連続するフレームのクラスが、まとめて出力するパッケージに含まれる場合は、それらのフレームを"... N framework frames"の1行で出力する。</li>
+ * <li>原因例外と抑制された例外の深さが上限を超えた場合は、その例外の文字列表現の行のみを出力し、
+ * スタックトレースと、それ以降の原因例外は出力しない。</li>
+ * </ul>
+ * 繰り返しを判定する時間幅を指定した場合は、例外の型とフレームからフィンガープリントを算出し、
+ * 先頭に"stackTraceId=フィンガープリント"の行を出力する。
+ * 時間幅内に同じフィンガープリントのスタックトレースを出力済みの場合は、
+ * 例外の文字列表現と先頭のフレームのみを出力し、残りは"... stack trace omitted"の1行で出力する。
+ * フィンガープリントは例外のメッセージを含まずに算出するため、メッセージのみが異なる例外は同じフィンガープリントとなる。<br>
+ * <br>
+ * 例外クラスが{@link Throwable#printStackTrace(PrintWriter)}をオーバーライドしている場合は、
+ * 出力内容が変更されている可能性があるため、{@link Throwable#printStackTrace(PrintWriter)}の出力をそのまま使用する。
+ * この場合、出力の省略、フィンガープリントの出力、出力の打ち切りは行わない。<br>
+ * <br>
+ * プロパティファイルの記述ルールを下記に示す。
+ * <dl>
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.stackTrace.maxFrames
+ *   <dd>1つの例外で出力するフレーム数の上限。オプション。<br>
+ *       まとめて出力したフレームは1フレームとして数える。指定しなければ上限なし。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.stackTrace.maxCauseDepth
+ *   <dd>スタックトレースを出力する原因例外の深さの上限。オプション。<br>
+ *       0を指定した場合は、原因例外のスタックトレースを出力しない。指定しなければ上限なし。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.stackTrace.collapsePackages
+ *   <dd>フレームをまとめて出力するパッケージ。オプション。<br>
+ *       複数指定する場合はカンマ区切り。指定したパッケージのサブパッケージも対象となる。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.stackTrace.dedupWindow
+ *   <dd>同じスタックトレースの繰り返しを判定する時間幅(秒)。オプション。<br>
+ *       指定しなければフィンガープリントを出力せず、スタックトレースを毎回出力する。
+ *   <dt>writer.&lt;{@link LogWriter}の名称&gt;.formatter.stackTrace.dedupCacheSize
+ *   <dd>出力済みのフィンガープリントを保持する数。オプション。<br>
+ *       指定しなければ256。
+ * </dl>
+ */
+public final class StackTraceRenderer {
+
+    /** 出力を省略しない{@link StackTraceRenderer} */
+    public static final StackTraceRenderer DEFAULT = new StackTraceRenderer(Integer.MAX_VALUE, Integer.MAX_VALUE, new String[0]);
+
+    /** 原因例外の見出し */
+    private static final String CAUSE_CAPTION = "Caused by: ";
+
+    /** 抑制された例外の見出し */
+    private static final String SUPPRESSED_CAPTION = "Suppressed: ";
+
+    /** 同じスタックトレースの繰り返しを判定する時間幅のプロパティ名 */
+    private static final String PROPS_DEDUP_WINDOW = "stackTrace.dedupWindow";
+
+    /** 出力済みのフィンガープリントを保持する数のデフォルト値 */
+    private static final int DEFAULT_DEDUP_CACHE_SIZE = 256;
+
+    /** フィンガープリントの算出に使用する原因例外の深さの上限 */
+    private static final int MAX_FINGERPRINT_DEPTH = 32;
+
+    /** FNV-1aハッシュの初期値 */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    /** FNV-1aハッシュの乗数 */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** 16進数の文字 */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** 例外クラス毎の、{@link Throwable#printStackTrace(PrintWriter)}をオーバーライドしているか否か */
+    private static final ClassValue<Boolean> PRINT_STACK_TRACE_OVERRIDDEN = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type; c != Throwable.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("printStackTrace", PrintWriter.class);
+                    return Boolean.TRUE;
+                } catch (NoSuchMethodException e) {
+                    // このクラスでは宣言されていないため、スーパークラスを確認する
+                }
+            }
+            return Boolean.FALSE;
+        }
+    };
+
+    /** 1つの例外で出力するフレーム数の上限 */
+    private final int maxFrames;
+
+    /** スタックトレースを出力する原因例外の深さの上限 */
+    private final int maxCauseDepth;
+
+    /** フレームをまとめて出力するパッケージ("."で終わる) */
+    private final String[] collapsePackages;
+
+    /** 出力済みのフィンガープリントのキャッシュ。繰り返しを判定しない場合は<code>null</code> */
+    private final StackTraceFingerprintCache fingerprints;
+
+    /**
+     * コンストラクタ。<br>
+     * 同じスタックトレースの繰り返しを判定しない。
+     * @param maxFrames 1つの例外で出力するフレーム数の上限
+     * @param maxCauseDepth スタックトレースを出力する原因例外の深さの上限
+     * @param collapsePackages フレームをまとめて出力するパッケージ
+     */
+    public StackTraceRenderer(int maxFrames, int maxCauseDepth, String[] collapsePackages) {
+        this(maxFrames, maxCauseDepth, collapsePackages, 0, 0);
+    }
+
+    /**
+     * コンストラクタ。
+     * @param maxFrames 1つの例外で出力するフレーム数の上限
+     * @param maxCauseDepth スタックトレースを出力する原因例外の深さの上限
+     * @param collapsePackages フレームをまとめて出力するパッケージ
+     * @param dedupWindow 同じスタックトレースの繰り返しを判定する時間幅(秒)。0以下の場合は判定しない
+     * @param dedupCacheSize 出力済みのフィンガープリントを保持する数
+     */
+    public StackTraceRenderer(int maxFrames, int maxCauseDepth, String[] collapsePackages,
+                              int dedupWindow, int dedupCacheSize) {
+        if (maxFrames < 1) {
+            throw new IllegalArgumentException("maxFrames must be greater than 0. maxFrames = [" + maxFrames + "]");
+        }
+        if (maxCauseDepth < 0) {
+            throw new IllegalArgumentException("maxCauseDepth must not be negative. maxCauseDepth = [" + maxCauseDepth + "]");
+        }
+        this.maxFrames = maxFrames;
+        this.maxCauseDepth = maxCauseDepth;
+        List<String> packages = new ArrayList<String>();
+        for (String packageName : collapsePackages) {
+            String trimmed = packageName.trim();
+            if (trimmed.length() != 0) {
+                packages.add(trimmed.endsWith(".") ? trimmed : trimmed + '.');
+            }
+        }
+        this.collapsePackages = packages.toArray(new String[packages.size()]);
+        fingerprints = dedupWindow > 0
+                     ? new StackTraceFingerprintCache(dedupCacheSize, TimeUnit.SECONDS.toNanos(dedupWindow))
+                     : null;
+    }
+
+    /**
+     * {@link LogFormatter}の設定から{@link StackTraceRenderer}を生成する。<br>
+     * 出力を省略する設定がない場合は{@link #DEFAULT}を返す。
+     * @param settings {@link LogFormatter}の設定
+     * @return {@link StackTraceRenderer}
+     */
+    public static StackTraceRenderer create(ObjectSettings settings) {
+        String collapsePackages = settings.getProp("stackTrace.collapsePackages");
+        int maxFrames = ObjectSettingsSupport.getIntProp(settings, "stackTrace.maxFrames", Integer.MAX_VALUE);
+        int maxCauseDepth = ObjectSettingsSupport.getIntProp(settings, "stackTrace.maxCauseDepth", Integer.MAX_VALUE);
+        int dedupWindow = ObjectSettingsSupport.getIntProp(settings, PROPS_DEDUP_WINDOW, 0);
+        if (collapsePackages == null && maxFrames == Integer.MAX_VALUE && maxCauseDepth == Integer.MAX_VALUE
+                && dedupWindow <= 0) {
+            return DEFAULT;
+        }
+        return new StackTraceRenderer(maxFrames, maxCauseDepth,
+                                      collapsePackages != null ? collapsePackages.split(",") : new String[0],
+                                      dedupWindow,
+                                      ObjectSettingsSupport.getIntProp(settings, "stackTrace.dedupCacheSize", DEFAULT_DEDUP_CACHE_SIZE));
+    }
+
+    /**
+     * {@link LogFormatter}の設定で、同じスタックトレースの繰り返しを判定するか否かを判定する。<br>
+     * 繰り返しを判定する場合は、出力内容がそれまでに出力したスタックトレースに依存する。
+     * @param settings {@link LogFormatter}の設定
+     * @return 繰り返しを判定する場合は<code>true</code>
+     */
+    static boolean isDeduplicating(ObjectSettings settings) {
+        return ObjectSettingsSupport.getIntProp(settings, PROPS_DEDUP_WINDOW, 0) > 0;
+    }
+
+    /**
+     * スタックトレースをバッファに追加する。<br>
+     * 各行は改行で終わる。
+     * @param error 例外オブジェクト
+     * @param sb 追加先のバッファ
+     */
+    public void appendTo(Throwable error, StringBuilder sb) {
+        render(error, sb, null, fingerprints != null ? System.nanoTime() : 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 出力を打ち切ってよいバッファの長さを指定して、スタックトレースをバッファに追加する。<br>
+     * 行の先頭でバッファの長さが上限位置を超えている場合は、以降の行を出力しない。
+     * @param error 例外オブジェクト
+     * @param sb 追加先のバッファ
+     * @param limit 出力を打ち切ってよいバッファの長さ
+     * @return 最後まで出力した場合は<code>true</code>
+     */
+    boolean appendLimited(Throwable error, StringBuilder sb, int limit) {
+        return render(error, sb, null, fingerprints != null ? System.nanoTime() : 0, limit);
+    }
+
+    /**
+     * 現在時刻を指定して、スタックトレースをバッファに追加する。
+     * @param error 例外オブジェクト
+     * @param sb 追加先のバッファ
+     * @param now 現在時刻(ナノ秒)
+     */
+    void appendTo(Throwable error, StringBuilder sb, long now) {
+        render(error, sb, null, now, Integer.MAX_VALUE);
+    }
+
+    /**
+     * スタックトレースを行毎に取得する。<br>
+     * 各行は、行頭のタブ文字と改行を含まない。
+     * @param error 例外オブジェクト
+     * @return スタックトレースの行
+     */
+    public List<String> toLines(Throwable error) {
+        List<String> lines = new ArrayList<String>();
+        render(error, new StringBuilder(128), lines, fingerprints != null ? System.nanoTime() : 0, Integer.MAX_VALUE);
+        return lines;
+    }
+
+    /**
+     * 例外オブジェクトのフィンガープリントを算出する。<br>
+     * 原因例外を含む例外の型と、各フレームのクラス名、メソッド名、行番号から算出する。
+     * 例外のメッセージは含まない。
+     * @param error 例外オブジェクト
+     * @return フィンガープリント
+     */
+    public static long fingerprint(Throwable error) {
+        long h = FNV_OFFSET_BASIS;
+        Throwable t = error;
+        for (int depth = 0; t != null && depth < MAX_FINGERPRINT_DEPTH; depth++) {
+            h = mix(h, t.getClass().getName().hashCode());
+            for (StackTraceElement frame : t.getStackTrace()) {
+                h = mix(h, frame.getClassName().hashCode());
+                h = mix(h, frame.getMethodName().hashCode());
+                h = mix(h, frame.getLineNumber());
+            }
+            t = t.getCause();
+        }
+        return h;
+    }
+
+    /**
+     * ハッシュ値に値を混ぜ合わせる。<br>
+     * 文字列のハッシュ値は{@link String}内部にキャッシュされ、かつ仕様で算出方法が決まっているため、
+     * プロセスが異なっても同じフィンガープリントとなる。
+     * @param h ハッシュ値
+     * @param value 値
+     * @return 混ぜ合わせたハッシュ値
+     */
+    private static long mix(long h, int value) {
+        return (h ^ (value & 0xffffffffL)) * FNV_PRIME;
+    }
+
+    /**
+     * スタックトレースを出力する。
+     * @param error 例外オブジェクト
+     * @param sb 出力先のバッファ
+     * @param lines 行毎に出力する場合は行の追加先。バッファに出力する場合は<code>null</code>
+     * @param now 現在時刻(ナノ秒)
+     * @param limit 出力を打ち切ってよいバッファの長さ
+     * @return 最後まで出力した場合は<code>true</code>
+     */
+    private boolean render(Throwable error, StringBuilder sb, List<String> lines, long now, int limit) {
+        if (PRINT_STACK_TRACE_OVERRIDDEN.get(error.getClass())) {
+            appendPrintedStackTrace(error, sb, lines);
+            return true;
+        }
+        if (fingerprints != null && appendStackTraceId(error, sb, lines, now)) {
+            return true;
+        }
+        Set<Throwable> dejaVu = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+        dejaVu.add(error);
+        int start = sb.length();
+        sb.append(error);
+        endLine(sb, start, lines);
+        StackTraceElement[] trace = error.getStackTrace();
+        return appendFrames(trace, trace.length, "", sb, lines, limit)
+            && appendEnclosedTraces(error, trace, "", 0, dejaVu, sb, lines, limit);
+    }
+
+    /**
+     * {@link Throwable#printStackTrace(PrintWriter)}の出力を、そのまま出力する。
+     * @param error 例外オブジェクト
+     * @param sb 出力先のバッファ
+     * @param lines 行の追加先(nullでも可)
+     */
+    private static void appendPrintedStackTrace(Throwable error, StringBuilder sb, List<String> lines) {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        error.printStackTrace(pw);
+        pw.flush();
+        if (lines == null) {
+            sb.append(sw.getBuffer());
+            return;
+        }
+        for (String line : sw.toString().split("\\r?\\n")) {
+            int start = sb.length();
+            sb.append(line);
+            endLine(sb, start, lines);
+        }
+    }
+
+    /**
+     * フィンガープリントの行を出力する。<br>
+     * 時間幅内に同じフィンガープリントのスタックトレースを出力済みの場合は、続けて要約を出力する。
+     * @param error 例外オブジェクト
+     * @param sb 出力先のバッファ
+     * @param lines 行の追加先(nullでも可)
+     * @param now 現在時刻(ナノ秒)
+     * @return 要約を出力した場合は<code>true</code>
+     */
+    private boolean appendStackTraceId(Throwable error, StringBuilder sb, List<String> lines, long now) {
+        long fingerprint = fingerprint(error);
+        boolean repeated = fingerprints.isRepeated(fingerprint, now);
+        int start = sb.length();
+        sb.append("stackTraceId=");
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            sb.append(HEX_DIGITS[(int) (fingerprint >>> shift) & 0xf]);
+        }
+        if (!repeated) {
+            endLine(sb, start, lines);
+            return false;
+        }
+        sb.append(" (repeated)");
+        endLine(sb, start, lines);
+        start = sb.length();
+        sb.append(error);
+        endLine(sb, start, lines);
+        StackTraceElement[] trace = error.getStackTrace();
+        if (trace.length != 0) {
+            start = sb.length();
+            sb.append("\tat ").append(trace[0]);
+            endLine(sb, start, lines);
+        }
+        start = sb.length();
+        sb.append("\t... stack trace omitted");
+        endLine(sb, start, lines);
+        return true;
+    }
+
+    /**
+     * 抑制された例外と原因例外のスタックトレースを出力する。
+     * @param error 例外オブジェクト
+     * @param trace 例外オブジェクトのフレーム
+     * @param prefix 行頭に付与する文字列
+     * @param depth 例外オブジェクトの深さ
+     * @param dejaVu 出力済みの例外オブジェクト
+     * @param sb 出力先のバッファ
+     * @param lines 行の追加先(nullでも可)
+     * @param limit 出力を打ち切ってよいバッファの長さ
+     * @return 最後まで出力した場合は<code>true</code>
+     */
+    private boolean appendEnclosedTraces(Throwable error, StackTraceElement[] trace, String prefix, int depth,
+                                         Set<Throwable> dejaVu, StringBuilder sb, List<String> lines, int limit) {
+        for (Throwable suppressed : error.getSuppressed()) {
+            if (!appendEnclosedTrace(suppressed, trace, SUPPRESSED_CAPTION, prefix + '\t', depth + 1, dejaVu,
+                                     sb, lines, limit)) {
+                return false;
+            }
+        }
+        Throwable cause = error.getCause();
+        return cause == null
+            || appendEnclosedTrace(cause, trace, CAUSE_CAPTION, prefix, depth + 1, dejaVu, sb, lines, limit);
+    }
+
+    /**
+     * 原因例外または抑制された例外のスタックトレースを出力する。<br>
+     * 外側の例外と共通する末尾のフレームは"... N more"の1行で出力する。
+     * @param error 例外オブジェクト
+     * @param enclosingTrace 外側の例外のフレーム
+     * @param caption 見出し
+     * @param prefix 行頭に付与する文字列
+     * @param depth 例外オブジェクトの深さ
+     * @param dejaVu 出力済みの例外オブジェクト
+     * @param sb 出力先のバッファ
+     * @param lines 行の追加先(nullでも可)
+     * @param limit 出力を打ち切ってよいバッファの長さ
+     * @return 最後まで出力した場合は<code>true</code>
+     */
+    private boolean appendEnclosedTrace(Throwable error, StackTraceElement[] enclosingTrace, String caption,
+                                        String prefix, int depth, Set<Throwable> dejaVu, StringBuilder sb,
+                                        List<String> lines, int limit) {
+        int start = sb.length();
+        if (start > limit) {
+            return false;
+        }
+        if (!dejaVu.add(error)) {
+            sb.append(prefix).append(caption).append("[CIRCULAR REFERENCE: ").append(error).append(']');
+            endLine(sb, start, lines);
+            return true;
+        }
+        sb.append(prefix).append(caption).append(error);
+        endLine(sb, start, lines);
+        if (depth > maxCauseDepth) {
+            return true;
+        }
+        StackTraceElement[] trace = error.getStackTrace();
+        int m = trace.length - 1;
+        int n = enclosingTrace.length - 1;
+        while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+            m--;
+            n--;
+        }
+        int framesInCommon = trace.length - 1 - m;
+        if (!appendFrames(trace, m + 1, prefix, sb, lines, limit)) {
+            return false;
+        }
+        if (framesInCommon != 0) {
+            start = sb.length();
+            sb.append(prefix).append("\t... ").append(framesInCommon).append(" more");
+            endLine(sb, start, lines);
+        }
+        return appendEnclosedTraces(error, trace, prefix, depth, dejaVu, sb, lines, limit);
+    }
+
+    /**
+     * フレームを出力する。
+     * @param trace フレーム
+     * @param count 出力対象とする先頭からのフレーム数
+     * @param prefix 行頭に付与する文字列
+     * @param sb 出力先のバッファ
+     * @param lines 行の追加先(nullでも可)
+     * @param limit 出力を打ち切ってよいバッファの長さ
+     * @return 最後まで出力した場合は<code>true</code>
+     */
+    private boolean appendFrames(StackTraceElement[] trace, int count, String prefix, StringBuilder sb,
+                                 List<String> lines, int limit) {
+        int written = 0;
+        int i = 0;
+        while (i < count) {
+            int start = sb.length();
+            if (start > limit) {
+                return false;
+            }
+            sb.append(prefix);
+            if (written == maxFrames) {
+                sb.append("\t... ").append(count - i).append(" frames omitted");
+                endLine(sb, start, lines);
+                return true;
+            }
+            int collapsed = countCollapsedFrames(trace, i, count);
+            if (collapsed != 0) {
+                sb.append("\t... ").append(collapsed).append(" framework frames");
+                i += collapsed;
+            } else {
+                sb.append("\tat ").append(trace[i]);
+                i++;
+            }
+            endLine(sb, start, lines);
+            written++;
+        }
+        return true;
+    }
+
+    /**
+     * 指定位置から連続する、まとめて出力するパッケージのフレーム数を数える。
+     * @param trace フレーム
+     * @param from 開始位置
+     * @param count 出力対象とする先頭からのフレーム数
+     * @return まとめて出力するフレーム数
+     */
+    private int countCollapsedFrames(StackTraceElement[] trace, int from, int count) {
+        int i = from;
+        while (i < count && isCollapsed(trace[i].getClassName())) {
+            i++;
+        }
+        return i - from;
+    }
+
+    /**
+     * まとめて出力するパッケージのクラスか否かを判定する。
+     * @param className クラス名
+     * @return まとめて出力する場合は<code>true</code>
+     */
+    private boolean isCollapsed(String className) {
+        for (String packageName : collapsePackages) {
+            if (className.startsWith(packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 行を終了する。<br>
+     * 行毎に出力する場合は、行頭のタブ文字を除いた行を追加し、バッファから取り除く。
+     * それ以外の場合は改行を追加する。
+     * @param sb 出力先のバッファ
+     * @param start 行の開始位置
+     * @param lines 行の追加先(nullでも可)
+     */
+    private static void endLine(StringBuilder sb, int start, List<String> lines) {
+        if (lines == null) {
+            sb.append(Logger.LS);
+            return;
+        }
+        int lineStart = start;
+        while (lineStart < sb.length() && sb.charAt(lineStart) == '\t') {
+            lineStart++;
+        }
+        lines.add(sb.substring(lineStart));
+        sb.setLength(start);
+    }
+}
@@ -1,14 +1,60 @@
 package nablarch.core.log.basic;
 
+import java.nio.ByteBuffer;
+
 /**
  * 標準出力にログを書き込むクラス。<br>
  * <br>
- * 開発時にコンソール上で出力されたログを確認する場合などに使用できる。
+ * 開発時にコンソール上で出力されたログを確認する場合などに使用できる。<br>
+ * <br>
+ * プロパティファイルの記述ルールを下記に示す。<br>
+ * <dl>
+ * <dt>directUtf8Output</dt>
+ * <dd>フォーマット済みのログを文字列に変換せずに、UTF-8で文字エンコーディングしたバイト列を
+ *     {@link System#out}に直接書き込むか否か。オプション。<br>
+ *     {@link System#out}の文字エンコーディングを経由しないため、標準出力がUTF-8の場合のみ<code>true</code>を指定する。
+ *     指定しなければ<code>false</code>。</dd>
+ * </dl>
  * 
  * @author Kiyohito Itoh
  */
 public class StandardOutputLogWriter extends LogWriterSupport {
 
+    /** 文字エンコーディング後のバッファの初期サイズ */
+    private static final int INITIAL_ENCODE_BUFFER_SIZE = 512;
+
+    /** 文字エンコーディング後のバッファとして保持し続ける最大サイズ */
+    private static final int MAX_ENCODE_BUFFER_SIZE = 64 * 1024;
+
+    /** UTF-8で文字エンコーディングしたバイト列を直接書き込むか否か */
+    private boolean directUtf8Output;
+
+    /** 文字エンコーディング後のバッファ */
+    private ByteBuffer byteBuffer = ByteBuffer.allocate(INITIAL_ENCODE_BUFFER_SIZE);
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * UTF-8で文字エンコーディングしたバイト列を直接書き込むか否かを設定から取得する。
+     */
+    @Override
+    protected void onInitialize(ObjectSettings settings) {
+        directUtf8Output = Boolean.parseBoolean(settings.getProp("directUtf8Output"));
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * UTF-8で文字エンコーディングしたバイト列を直接書き込む場合は、スレッド毎に再利用するバッファから書き込む。
+     * ただし、サブクラスで{@link #onWrite(String)}メソッドの処理を変更している可能性があるため、
+     * 本クラスのインスタンスの場合のみ<code>true</code>を返す。
+     * @return 本クラスのインスタンスでUTF-8で文字エンコーディングしたバイト列を直接書き込む場合は<code>true</code>
+     */
+    @Override
+    protected boolean isReusableBufferWritable() {
+        return directUtf8Output && getClass() == StandardOutputLogWriter.class;
+    }
+
     /**
      * 標準出力にログを書き込む。
      * @param formattedMessage フォーマット済みのログ
@@ -16,4 +62,24 @@ public class StandardOutputLogWriter extends LogWriterSupport {
     protected void onWrite(String formattedMessage) {
         System.out.print(formattedMessage);
     }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * UTF-8で文字エンコーディングしたバイト列を直接書き込む場合は、そのバイト列を書き込む。
+     */
+    @Override
+    protected void onWrite(CharSequence formattedMessage) {
+        if (!directUtf8Output) {
+            super.onWrite(formattedMessage);
+            return;
+        }
+        synchronized (this) {
+            byteBuffer = Utf8Encoder.encode(formattedMessage, byteBuffer);
+            System.out.write(byteBuffer.array(), 0, byteBuffer.position());
+            if (byteBuffer.capacity() > MAX_ENCODE_BUFFER_SIZE) {
+                byteBuffer = ByteBuffer.allocate(INITIAL_ENCODE_BUFFER_SIZE);
+            }
+        }
+    }
 }
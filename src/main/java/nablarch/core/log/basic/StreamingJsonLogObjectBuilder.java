@@ -0,0 +1,29 @@
+package nablarch.core.log.basic;
+
+import java.io.IOException;
+
+/**
+ * 構造化ログのオブジェクトのメンバーを、Mapを生成せずに直接書き込むインタフェース。<br>
+ * <br>
+ * {@link JsonLogFormatter}の組み込みの出力項目が実装する。
+ * {@link JsonObjectWriter}と{@link JsonLogEntryWriter}への書き込みは、
+ * {@link #build(java.util.Map, Object)}でMapに設定した場合と同じ内容となるように実装する。
+ * @param <CTX> オブジェクトのデータの取得に使用するコンテキストの型
+ */
+interface StreamingJsonLogObjectBuilder<CTX> extends JsonLogObjectBuilder<CTX> {
+
+    /**
+     * 構造化ログのオブジェクトのメンバーを書き込む。
+     * @param writer 書き込み先
+     * @param context ログコンテキスト
+     * @throws IOException シリアライズに失敗した場合
+     */
+    void writeMembers(JsonObjectWriter writer, CTX context) throws IOException;
+
+    /**
+     * 構造化ログのオブジェクトのエントリを、{@link #build(java.util.Map, Object)}でMapに設定する順に書き込む。
+     * @param writer 書き込み先
+     * @param context ログコンテキスト
+     */
+    void writeEntries(JsonLogEntryWriter writer, CTX context);
+}
@@ -0,0 +1,409 @@
+package nablarch.core.log.basic;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 構造化ログの項目を、基本データ型のままボクシングせずに指定してログを出力するクラス。<br>
+ * <br>
+ * {@link BasicLogger#atInfo()}などで取得し、{@link #with}メソッドで項目を追加した後に{@link #log}メソッドで出力する。
+ * <pre>
+ * logger.atInfo().with("rows", rows).with("ms", elapsed).log("batch completed.");
+ * </pre>
+ * 項目は、スレッド毎に再利用するインスタンスに基本データ型の配列で保持し、
+ * {@link JsonLogFormatter}によるフォーマット時にボクシングせずにJSONへ書き込む。
+ * そのため、{@link #log}メソッドの呼び出し後はインスタンスを使用してはならない。
+ * 使用中に同じスレッドで取得した場合は、新たに生成したインスタンスを返し、以降はそのインスタンスを再利用する。
+ * そのため、例外などにより{@link #log}メソッドを呼び出さずに破棄されたインスタンスは、再利用の対象から外れ、項目への参照を保持し続けない。<br>
+ * <br>
+ * 出力対象外のレベルの場合は、項目を保持しないインスタンスを返すため、{@link #with}メソッドは何もしない。<br>
+ * 項目は、オプション情報として{@link LogWriter}に渡す。
+ * {@link LogPublisher}のように書き込み処理の完了後も{@link LogContext}を保持する可能性がある{@link LogWriter}には、
+ * 項目を{@link Map}に置き換えたコピーを渡す。
+ * {@link JsonLogFormatter}以外のフォーマッタでは、{@link #toString()}の結果を出力する。
+ */
+public final class StructuredLogEvent {
+
+    /** 出力対象外のレベルの場合に返すインスタンス */
+    static final StructuredLogEvent DISABLED = new StructuredLogEvent();
+
+    /** 項目の初期の保持数 */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** 再利用時に保持し続ける最大の項目数 */
+    private static final int MAX_REUSED_CAPACITY = 64;
+
+    /** long型の値 */
+    private static final byte TYPE_LONG = 0;
+
+    /** double型の値 */
+    private static final byte TYPE_DOUBLE = 1;
+
+    /** boolean型の値 */
+    private static final byte TYPE_BOOLEAN = 2;
+
+    /** オブジェクトの値 */
+    private static final byte TYPE_OBJECT = 3;
+
+    /** スレッド毎に再利用する{@link StructuredLogEvent} */
+    private static final ThreadLocal<StructuredLogEvent> EVENTS = new ThreadLocal<StructuredLogEvent>() {
+        @Override
+        protected StructuredLogEvent initialValue() {
+            return new StructuredLogEvent();
+        }
+    };
+
+    /** オプション情報として渡す配列 */
+    private final Object[] options = new Object[] {this};
+
+    /** ログを出力する{@link BasicLogger} */
+    private BasicLogger logger;
+
+    /** {@link LogLevel} */
+    private LogLevel level;
+
+    /** 使用中か否か */
+    private boolean inUse;
+
+    /** 項目数 */
+    private int size;
+
+    /** 項目名 */
+    private String[] names = new String[INITIAL_CAPACITY];
+
+    /** 値の型 */
+    private byte[] types = new byte[INITIAL_CAPACITY];
+
+    /** long型とboolean型の値 */
+    private long[] longValues = new long[INITIAL_CAPACITY];
+
+    /** double型の値 */
+    private double[] doubleValues = new double[INITIAL_CAPACITY];
+
+    /** オブジェクトの値 */
+    private Object[] objectValues = new Object[INITIAL_CAPACITY];
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private StructuredLogEvent() {
+    }
+
+    /**
+     * 現在のスレッドで再利用する{@link StructuredLogEvent}を取得する。<br>
+     * 現在のスレッドで使用中の場合は、新たに生成したインスタンスを返し、以降の再利用の対象とする。
+     * 使用中のインスタンスは、入れ子で取得した場合と、{@link #log}メソッドを呼び出さずに破棄された場合とを区別できないため、
+     * 初期化せずにそのまま使用させ、再利用の対象からのみ外す。
+     * @param logger ログを出力する{@link BasicLogger}
+     * @param level {@link LogLevel}
+     * @return {@link StructuredLogEvent}
+     */
+    static StructuredLogEvent acquire(BasicLogger logger, LogLevel level) {
+        StructuredLogEvent event = EVENTS.get();
+        if (event.inUse) {
+            event = new StructuredLogEvent();
+            EVENTS.set(event);
+        }
+        event.inUse = true;
+        event.logger = logger;
+        event.level = level;
+        return event;
+    }
+
+    /**
+     * long型の項目を追加する。
+     * @param name 項目名
+     * @param value 値
+     * @return 本インスタンス
+     */
+    public StructuredLogEvent with(String name, long value) {
+        if (logger != null) {
+            longValues[add(name, TYPE_LONG)] = value;
+        }
+        return this;
+    }
+
+    /**
+     * double型の項目を追加する。
+     * @param name 項目名
+     * @param value 値
+     * @return 本インスタンス
+     */
+    public StructuredLogEvent with(String name, double value) {
+        if (logger != null) {
+            doubleValues[add(name, TYPE_DOUBLE)] = value;
+        }
+        return this;
+    }
+
+    /**
+     * boolean型の項目を追加する。
+     * @param name 項目名
+     * @param value 値
+     * @return 本インスタンス
+     */
+    public StructuredLogEvent with(String name, boolean value) {
+        if (logger != null) {
+            longValues[add(name, TYPE_BOOLEAN)] = value ? 1 : 0;
+        }
+        return this;
+    }
+
+    /**
+     * 項目を追加する。<br>
+     * 値は、{@link Map}で指定したオプション情報の値と同様にシリアライズする。
+     * @param name 項目名
+     * @param value 値
+     * @return 本インスタンス
+     */
+    public StructuredLogEvent with(String name, Object value) {
+        if (logger != null) {
+            objectValues[add(name, TYPE_OBJECT)] = value;
+        }
+        return this;
+    }
+
+    /**
+     * ログを出力する。
+     * @param message メッセージ
+     */
+    public void log(String message) {
+        log(message, null);
+    }
+
+    /**
+     * ログを出力する。
+     * @param message メッセージ
+     * @param error エラー情報(nullでも可)
+     */
+    public void log(String message, Throwable error) {
+        if (logger == null) {
+            return;
+        }
+        try {
+            logger.logEvent(level, message, error, size == 0 ? null : options);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * 項目を追加する領域を確保する。
+     * @param name 項目名
+     * @param type 値の型
+     * @return 追加する項目のインデックス
+     */
+    private int add(String name, byte type) {
+        if (size == names.length) {
+            resize(size * 2);
+        }
+        names[size] = name;
+        types[size] = type;
+        return size++;
+    }
+
+    /**
+     * 項目を保持する配列の大きさを変更する。
+     * @param capacity 項目の保持数
+     */
+    private void resize(int capacity) {
+        names = Arrays.copyOf(names, capacity);
+        types = Arrays.copyOf(types, capacity);
+        longValues = Arrays.copyOf(longValues, capacity);
+        doubleValues = Arrays.copyOf(doubleValues, capacity);
+        objectValues = Arrays.copyOf(objectValues, capacity);
+    }
+
+    /**
+     * 使用を終了し、項目への参照を保持し続けないようにクリアする。<br>
+     * 項目が多く配列が拡張された場合は、初期の大きさの配列に置き換える。
+     */
+    private void release() {
+        if (names.length > MAX_REUSED_CAPACITY) {
+            names = new String[INITIAL_CAPACITY];
+            types = new byte[INITIAL_CAPACITY];
+            longValues = new long[INITIAL_CAPACITY];
+            doubleValues = new double[INITIAL_CAPACITY];
+            objectValues = new Object[INITIAL_CAPACITY];
+        } else {
+            Arrays.fill(names, 0, size, null);
+            Arrays.fill(objectValues, 0, size, null);
+        }
+        size = 0;
+        logger = null;
+        level = null;
+        inUse = false;
+    }
+
+    /**
+     * 項目をJSONのメンバーとして書き込む。<br>
+     * 同じ項目名を複数回追加した場合は、最後に追加した値を書き込む。<br>
+     * 項目名が<code>null</code>の項目と、他の出力項目と重複する項目名と、
+     * 先に書き込んだオプション情報と重複する項目名は書き込まない。
+     * @param writer 書き込み先
+     * @param writtenNames 書き込んだ項目名。重複を確認しない場合は<code>null</code>
+     * @throws IOException シリアライズに失敗した場合
+     */
+    void writeMembers(JsonObjectWriter writer, Set<String> writtenNames) throws IOException {
+        for (int i = 0; i < size; i++) {
+            String name = names[i];
+            if (name == null || isOverwritten(i) || writer.isReservedName(name)
+                    || (writtenNames != null && !writtenNames.add(name))) {
+                continue;
+            }
+            switch (types[i]) {
+                case TYPE_LONG:
+                    writer.writeDynamicMember(name, longValues[i]);
+                    break;
+                case TYPE_DOUBLE:
+                    writer.writeDynamicMember(name, doubleValues[i]);
+                    break;
+                case TYPE_BOOLEAN:
+                    writer.writeDynamicMember(name, longValues[i] != 0);
+                    break;
+                default:
+                    writer.writeDynamicMember(name, objectValues[i]);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 項目数を取得する。
+     * @return 項目数
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * 指定されたインデックスの項目名を取得する。
+     * @param index インデックス
+     * @return 項目名。項目名が<code>null</code>の場合と、後から追加された同じ項目名の項目で上書きされている場合は<code>null</code>
+     */
+    String getName(int index) {
+        String name = names[index];
+        return name == null || isOverwritten(index) ? null : name;
+    }
+
+    /**
+     * 指定されたインデックスの値が基本データ型か否かを判定する。
+     * @param index インデックス
+     * @return 基本データ型の場合は<code>true</code>
+     */
+    boolean isPrimitiveValue(int index) {
+        return types[index] != TYPE_OBJECT;
+    }
+
+    /**
+     * 指定されたインデックスの基本データ型の値を、ボクシングせずにバッファに追加する。
+     * @param index インデックス
+     * @param sb 追加先のバッファ
+     */
+    void appendPrimitiveValue(int index, StringBuilder sb) {
+        switch (types[index]) {
+            case TYPE_LONG:
+                sb.append(longValues[index]);
+                break;
+            case TYPE_DOUBLE:
+                sb.append(doubleValues[index]);
+                break;
+            case TYPE_BOOLEAN:
+                sb.append(longValues[index] != 0);
+                break;
+            default:
+                throw new IllegalArgumentException("value is not primitive. index = [" + index + "]");
+        }
+    }
+
+    /**
+     * 指定されたインデックスのオブジェクトの値を取得する。
+     * @param index インデックス
+     * @return 値
+     */
+    Object getObjectValue(int index) {
+        return objectValues[index];
+    }
+
+    /**
+     * 指定されたインデックスの項目が、後から追加された同じ項目名の項目で上書きされているか否かを判定する。
+     * @param index インデックス
+     * @return 上書きされている場合は<code>true</code>
+     */
+    private boolean isOverwritten(int index) {
+        String name = names[index];
+        for (int i = index + 1; i < size; i++) {
+            if (name.equals(names[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 項目を{@link Map}に変換する。<br>
+     * 基本データ型の値はラッパーに変換する。項目名が<code>null</code>の項目は含めない。
+     * @return 項目を格納した{@link Map}
+     */
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < size; i++) {
+            if (names[i] != null) {
+                map.put(names[i], getValue(i));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 指定されたインデックスの値を取得する。
+     * @param index インデックス
+     * @return 値
+     */
+    private Object getValue(int index) {
+        switch (types[index]) {
+            case TYPE_LONG:
+                return longValues[index];
+            case TYPE_DOUBLE:
+                return doubleValues[index];
+            case TYPE_BOOLEAN:
+                return longValues[index] != 0;
+            default:
+                return objectValues[index];
+        }
+    }
+
+    /**
+     * 書き込み処理の完了後も保持するために、オプション情報に含まれる{@link StructuredLogEvent}を{@link Map}に置き換える。<br>
+     * 含まれない場合は、指定されたオプション情報をそのまま返す。
+     * @param options オプション情報(nullでも可)
+     * @return 保持できるオプション情報
+     */
+    static Object[] snapshot(Object[] options) {
+        if (options == null) {
+            return null;
+        }
+        Object[] copied = options;
+        for (int i = 0; i < options.length; i++) {
+            if (options[i] instanceof StructuredLogEvent) {
+                if (copied == options) {
+                    copied = options.clone();
+                }
+                copied[i] = ((StructuredLogEvent) options[i]).toMap();
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * 項目を"{名前=値, ...}"形式で返す。
+     * @return 項目の文字列表現
+     */
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
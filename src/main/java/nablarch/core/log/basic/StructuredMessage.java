@@ -0,0 +1,100 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.text.json.JsonSerializationManager;
+import nablarch.core.util.annotation.Published;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * 構造化済みメッセージを、シリアライズ前のオブジェクトのまま保持するクラス。<br>
+ * <br>
+ * {@link BasicLogger#logStructured(LogLevel, StructuredMessage, Throwable, Object...)}に指定すると、
+ * {@link JsonLogFormatter}はオブジェクトを出力先のバッファへ直接シリアライズし、
+ * 構造化済みメッセージを示す接頭辞を含む文字列の生成と、接頭辞の判定を行わない。<br>
+ * 文字列としてメッセージを出力する{@link LogFormatter}には、{@link #toString()}で生成した、
+ * 接頭辞とシリアライズ結果を連結した文字列を渡す。
+ * 文字列は最初に必要になった時点で一度だけ生成し、以降は生成した文字列を使用する。
+ */
+@Published(tag = "architect")
+public final class StructuredMessage {
+
+    /** 構造化済みメッセージであることを示す接頭辞 */
+    private final String prefix;
+
+    /** 構造化対象のオブジェクト */
+    private final Object object;
+
+    /** シリアライズに使用する管理クラス */
+    private final JsonSerializationManager serializationManager;
+
+    /** 接頭辞とシリアライズ結果を連結した文字列 */
+    private String text;
+
+    /**
+     * コンストラクタ。
+     * @param prefix 構造化済みメッセージであることを示す接頭辞
+     * @param object 構造化対象のオブジェクト。シリアライズ結果がJSONのobjectとなること
+     * @param serializationManager シリアライズに使用する管理クラス
+     */
+    public StructuredMessage(String prefix, Object object, JsonSerializationManager serializationManager) {
+        this.prefix = prefix;
+        this.object = object;
+        this.serializationManager = serializationManager;
+    }
+
+    /**
+     * 構造化対象のオブジェクトを取得する。
+     * @return 構造化対象のオブジェクト
+     */
+    public Object getObject() {
+        return object;
+    }
+
+    /**
+     * オブジェクトをシリアライズしたJSONのobjectを書き込む。<br>
+     * 文字列を生成済みの場合は、生成済みの文字列から接頭辞を除いた範囲を書き込む。
+     * @param writer 書き込み先
+     * @throws IOException シリアライズに失敗した場合
+     */
+    void writeTo(Writer writer) throws IOException {
+        String generated = text;
+        if (generated != null) {
+            writer.append(generated, prefix.length(), generated.length());
+            return;
+        }
+        serializationManager.getSerializer(object).serialize(writer, object);
+    }
+
+    /**
+     * 組み込み用のJSONのobjectのメンバーに変換する。<br>
+     * Mapを経由して出力する場合に使用する。
+     * @return 接頭辞とobjectの開始、終了マーカーを除いた範囲を持つ{@link RawJsonObjectMembers}
+     */
+    RawJsonObjectMembers toRawJsonObjectMembers() {
+        String generated = toString();
+        return new RawJsonObjectMembers(generated, prefix.length() + 1, generated.length() - 1);
+    }
+
+    /**
+     * 接頭辞とオブジェクトのシリアライズ結果を連結した文字列を返す。
+     * @return 構造化済みメッセージ
+     */
+    @Override
+    public String toString() {
+        String generated = text;
+        if (generated == null) {
+            StringWriter writer = new StringWriter();
+            writer.write(prefix);
+            try {
+                serializationManager.getSerializer(object).serialize(writer, object);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            generated = writer.toString();
+            text = generated;
+        }
+        return generated;
+    }
+}
@@ -0,0 +1,47 @@
+package nablarch.core.log.basic;
+
+/**
+ * メッセージを{@link StructuredMessage}で保持する{@link LogContext}。<br>
+ * <br>
+ * {@link JsonLogFormatter}は{@link #getStructuredMessage()}から取得したオブジェクトを直接シリアライズする。<br>
+ * {@link #getMessage()}は、{@link StructuredMessage#toString()}で生成した文字列を返す。
+ * そのため、文字列としてメッセージを出力する{@link LogFormatter}のみが文字列を生成する。
+ */
+class StructuredMessageLogContext extends LogContext {
+
+    /** 構造化済みメッセージ */
+    private final StructuredMessage structuredMessage;
+
+    /**
+     * コンストラクタ。
+     * @param loggerName ロガー名
+     * @param runtimeLoggerName 実行時ロガー名
+     * @param level {@link LogLevel}
+     * @param structuredMessage 構造化済みメッセージ
+     * @param error エラー情報(nullでも可)
+     * @param options オプション情報(nullでも可)
+     */
+    StructuredMessageLogContext(String loggerName, String runtimeLoggerName, LogLevel level,
+                                StructuredMessage structuredMessage, Throwable error, Object... options) {
+        super(loggerName, runtimeLoggerName, level, null, error, options);
+        this.structuredMessage = structuredMessage;
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * <br>
+     * 構造化済みメッセージを文字列に変換して返す。
+     */
+    @Override
+    public String getMessage() {
+        return structuredMessage.toString();
+    }
+
+    /**
+     * 構造化済みメッセージを取得する。
+     * @return 構造化済みメッセージ
+     */
+    StructuredMessage getStructuredMessage() {
+        return structuredMessage;
+    }
+}
@@ -0,0 +1,262 @@
+package nablarch.core.log.basic;
+
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * ログに出力する日時をフォーマットするスレッドセーフなクラス。<br>
+ * <br>
+ * {@link DateTimeFormatter}を使用してフォーマットし、直前にフォーマットした秒の結果を保持する。<br>
+ * 日時パターンにミリ秒(SSS)が含まれる場合は、ミリ秒の前後の文字列を秒単位で保持し、ミリ秒の3桁のみを埋め込む。
+ * そのため、同じ秒に出力されるログに対して、日時パターンの解析やフォーマットを繰り返すことはない。<br>
+ * <br>
+ * {@link SimpleDateFormat}と{@link DateTimeFormatter}でパターン文字の意味が異なる場合があるため、
+ * 両者で同じ結果となり、数値のみを出力するパターン文字で構成された日時パターンのみをサポートする。
+ * 曜日、午前/午後、月の名称、タイムゾーン名などの文字列はロケールや{@link java.text.DateFormatSymbols}に依存するため、サポートしない。
+ * また、グレゴリオ暦以外の暦や、ASCII以外の数字を使用する{@link SimpleDateFormat}もサポートしない。
+ * サポートしない場合、{@link #of}メソッドは<code>null</code>を返す。
+ */
+final class TimestampRenderer {
+
+    /** 両者で同じ結果となり、数値のみを出力するパターン文字(ミリ秒を除く) */
+    private static final String SUPPORTED_LETTERS = "yMdHhKkmsDZX";
+
+    /** 数値で出力する月のパターンの最大桁数 */
+    private static final int MAX_NUMERIC_MONTH_LENGTH = 2;
+
+    /** {@link DateTimeFormatter}で特別な意味を持つ記号 */
+    private static final String RESERVED_SYMBOLS = "[]{}#";
+
+    /** ミリ秒のパターン */
+    private static final String MILLIS_PATTERN = "SSS";
+
+    /** ミリ秒より前の部分のフォーマッタ */
+    private final DateTimeFormatter prefixFormatter;
+
+    /** ミリ秒より後の部分のフォーマッタ。日時パターンにミリ秒が含まれない場合は<code>null</code> */
+    private final DateTimeFormatter suffixFormatter;
+
+    /** 直前にフォーマットした秒の結果 */
+    private volatile CachedSecond cache;
+
+    /**
+     * コンストラクタ。
+     * @param prefixFormatter ミリ秒より前の部分のフォーマッタ
+     * @param suffixFormatter ミリ秒より後の部分のフォーマッタ。日時パターンにミリ秒が含まれない場合は<code>null</code>
+     */
+    private TimestampRenderer(DateTimeFormatter prefixFormatter, DateTimeFormatter suffixFormatter) {
+        this.prefixFormatter = prefixFormatter;
+        this.suffixFormatter = suffixFormatter;
+    }
+
+    /**
+     * {@link DateFormat}と同じ結果となる{@link TimestampRenderer}を生成する。
+     * @param dateFormat 日時フォーマット
+     * @return {@link TimestampRenderer}。{@link SimpleDateFormat}でない場合、グレゴリオ暦以外の暦かASCII以外の数字を使用する場合、
+     *         サポートしない日時パターンの場合は<code>null</code>
+     */
+    static TimestampRenderer of(DateFormat dateFormat) {
+        if (!(dateFormat instanceof SimpleDateFormat)
+                || dateFormat.getCalendar().getClass() != GregorianCalendar.class
+                || !isAsciiDigits(dateFormat.getNumberFormat())) {
+            return null;
+        }
+        return create(((SimpleDateFormat) dateFormat).toPattern(), dateFormat.getTimeZone());
+    }
+
+    /**
+     * 日時パターンとタイムゾーンを指定して{@link TimestampRenderer}を生成する。<br>
+     * <br>
+     * デフォルトロケールで生成した{@link SimpleDateFormat}と同じ結果となる場合のみ生成する。
+     * @param pattern 日時パターン({@link SimpleDateFormat}の形式)
+     * @param timeZone タイムゾーン
+     * @return {@link TimestampRenderer}。{@link SimpleDateFormat}と同じ結果とならない場合は<code>null</code>
+     */
+    static TimestampRenderer of(String pattern, TimeZone timeZone) {
+        SimpleDateFormat dateFormat;
+        try {
+            dateFormat = new SimpleDateFormat(pattern);
+        } catch (IllegalArgumentException e) {
+            // SimpleDateFormatで不正な日時パターンの場合
+            return null;
+        }
+        dateFormat.setTimeZone(timeZone);
+        return of(dateFormat);
+    }
+
+    /**
+     * 数値のフォーマットがASCIIの数字を使用するか否かを判定する。
+     * @param numberFormat 数値のフォーマット
+     * @return ASCIIの数字を使用する場合は<code>true</code>
+     */
+    private static boolean isAsciiDigits(NumberFormat numberFormat) {
+        return numberFormat instanceof DecimalFormat
+            && ((DecimalFormat) numberFormat).getDecimalFormatSymbols().getZeroDigit() == '0';
+    }
+
+    /**
+     * 日時パターンとタイムゾーンから{@link TimestampRenderer}を生成する。
+     * @param pattern 日時パターン({@link SimpleDateFormat}の形式)
+     * @param timeZone タイムゾーン
+     * @return {@link TimestampRenderer}。サポートしない日時パターンの場合は<code>null</code>
+     */
+    private static TimestampRenderer create(String pattern, TimeZone timeZone) {
+        int millisIndex = findMillisIndex(pattern);
+        if (millisIndex == -2) {
+            return null;
+        }
+        ZoneId zoneId = timeZone.toZoneId();
+        try {
+            if (millisIndex == -1) {
+                return new TimestampRenderer(createFormatter(pattern, zoneId), null);
+            }
+            return new TimestampRenderer(createFormatter(pattern.substring(0, millisIndex), zoneId),
+                                         createFormatter(pattern.substring(millisIndex + MILLIS_PATTERN.length()), zoneId));
+        } catch (IllegalArgumentException e) {
+            // パターン文字の桁数がDateTimeFormatterで許容されない場合
+            return null;
+        }
+    }
+
+    /**
+     * 日時パターンを解析し、ミリ秒の位置を取得する。
+     * @param pattern 日時パターン
+     * @return ミリ秒の位置。ミリ秒が含まれない場合は-1、サポートしない日時パターンの場合は-2
+     */
+    private static int findMillisIndex(String pattern) {
+        int millisIndex = -1;
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (quoted) {
+                continue;
+            } else if (c == 'S') {
+                int end = i;
+                while (end < pattern.length() && pattern.charAt(end) == 'S') {
+                    end++;
+                }
+                if (end - i != MILLIS_PATTERN.length() || millisIndex != -1) {
+                    return -2;
+                }
+                millisIndex = i;
+                i = end - 1;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                if (SUPPORTED_LETTERS.indexOf(c) == -1 || (c == 'Z' && pattern.startsWith("ZZZZ", i))) {
+                    return -2;
+                }
+                if (c == 'M') {
+                    int end = i;
+                    while (end < pattern.length() && pattern.charAt(end) == 'M') {
+                        end++;
+                    }
+                    if (end - i > MAX_NUMERIC_MONTH_LENGTH) {
+                        // 月の名称はロケールに依存する
+                        return -2;
+                    }
+                    i = end - 1;
+                }
+            } else if (RESERVED_SYMBOLS.indexOf(c) != -1) {
+                return -2;
+            }
+        }
+        return quoted ? -2 : millisIndex;
+    }
+
+    /**
+     * フォーマッタを生成する。
+     * @param pattern 日時パターン
+     * @param zoneId タイムゾーン
+     * @return フォーマッタ
+     */
+    private static DateTimeFormatter createFormatter(String pattern, ZoneId zoneId) {
+        return DateTimeFormatter.ofPattern(pattern).withZone(zoneId);
+    }
+
+    /**
+     * 日時をフォーマットする。
+     * @param epochMillis 日時(ミリ秒)
+     * @return フォーマットした日時
+     */
+    String format(long epochMillis) {
+        CachedSecond second = getCachedSecond(epochMillis);
+        if (second.suffix == null) {
+            return second.prefix;
+        }
+        return appendTo(epochMillis, new StringBuilder(second.prefix.length() + 3 + second.suffix.length())).toString();
+    }
+
+    /**
+     * フォーマットした日時を指定されたバッファに追加する。<br>
+     * 同じ秒の日時に対しては、文字列を生成しない。
+     * @param epochMillis 日時(ミリ秒)
+     * @param sb フォーマットした日時を追加するバッファ
+     * @return 指定されたバッファ
+     */
+    StringBuilder appendTo(long epochMillis, StringBuilder sb) {
+        CachedSecond second = getCachedSecond(epochMillis);
+        sb.append(second.prefix);
+        if (second.suffix != null) {
+            int millis = (int) Math.floorMod(epochMillis, 1000L);
+            sb.append((char) ('0' + millis / 100))
+              .append((char) ('0' + millis / 10 % 10))
+              .append((char) ('0' + millis % 10))
+              .append(second.suffix);
+        }
+        return sb;
+    }
+
+    /**
+     * 指定された日時の秒に対するフォーマット結果を取得する。<br>
+     * 直前にフォーマットした秒と異なる場合は、フォーマットして保持する。
+     * 複数スレッドから同時にフォーマットした場合は、いずれかの結果を保持する。
+     * @param epochMillis 日時(ミリ秒)
+     * @return 秒に対するフォーマット結果
+     */
+    private CachedSecond getCachedSecond(long epochMillis) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000L);
+        CachedSecond second = cache;
+        if (second == null || second.epochSecond != epochSecond) {
+            Instant instant = Instant.ofEpochSecond(epochSecond);
+            second = new CachedSecond(epochSecond, prefixFormatter.format(instant),
+                                      suffixFormatter != null ? suffixFormatter.format(instant) : null);
+            cache = second;
+        }
+        return second;
+    }
+
+    /**
+     * 秒に対するフォーマット結果。
+     */
+    private static final class CachedSecond {
+
+        /** 秒 */
+        private final long epochSecond;
+
+        /** ミリ秒より前の部分 */
+        private final String prefix;
+
+        /** ミリ秒より後の部分。日時パターンにミリ秒が含まれない場合は<code>null</code> */
+        private final String suffix;
+
+        /**
+         * コンストラクタ。
+         * @param epochSecond 秒
+         * @param prefix ミリ秒より前の部分
+         * @param suffix ミリ秒より後の部分
+         */
+        private CachedSecond(long epochSecond, String prefix, String suffix) {
+            this.epochSecond = epochSecond;
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package nablarch.core.log.basic;
+
+import java.nio.ByteBuffer;
+
+/**
+ * フォーマット済みのログを、文字列や文字配列に変換せずにUTF-8で文字エンコーディングするクラス。<br>
+ * <br>
+ * {@link java.nio.charset.CharsetEncoder}を使用せず、{@link CharSequence}から1文字ずつ読み出してバッファに書き込む。
+ * ASCII文字のみの区間は、1文字を1バイトとしてそのまま書き込む。<br>
+ * 対になっていないサロゲート文字は、{@link String#getBytes(java.nio.charset.Charset)}と同様に"?"に置き換える。
+ */
+final class Utf8Encoder {
+
+    /** 1文字あたりの最大バイト数(サロゲートペアは2文字で4バイトとなるため3バイトとなる) */
+    private static final int MAX_BYTES_PER_CHAR = 3;
+
+    /** 対になっていないサロゲート文字の置換文字 */
+    private static final byte REPLACEMENT = '?';
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private Utf8Encoder() {
+    }
+
+    /**
+     * メッセージをUTF-8で文字エンコーディングし、バッファの先頭から書き込む。<br>
+     * バッファの容量が不足する場合は、容量を拡張したバッファを生成して書き込む。
+     * 書き込み後のバッファの位置は、文字エンコーディング後のバイト数となる。
+     * @param message メッセージ
+     * @param buffer 書き込み先のバッファ。{@link ByteBuffer#hasArray()}が<code>true</code>であること
+     * @return 書き込んだバッファ
+     */
+    static ByteBuffer encode(CharSequence message, ByteBuffer buffer) {
+        int length = message.length();
+        ByteBuffer out = ensureCapacity(buffer, length);
+        byte[] bytes = out.array();
+        int position = 0;
+        int i = 0;
+        // ASCII文字のみの区間を書き込む
+        while (i < length) {
+            char c = message.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            bytes[position++] = (byte) c;
+            i++;
+        }
+        if (i < length) {
+            out = ensureCapacity(out, position + (length - i) * MAX_BYTES_PER_CHAR);
+            bytes = out.array();
+            position = encodeNonAscii(message, i, bytes, position);
+        }
+        out.clear();
+        out.position(position);
+        return out;
+    }
+
+    /**
+     * メッセージをUTF-8で文字エンコーディングし、バイト配列の指定された位置から書き込む。<br>
+     * バイト配列には、指定された位置から{@link #maxEncodedLength(int)}以上の容量が必要となる。
+     * @param message メッセージ
+     * @param bytes 書き込み先のバイト配列
+     * @param offset 書き込みを開始する位置
+     * @return 書き込み後の位置
+     */
+    static int encode(CharSequence message, byte[] bytes, int offset) {
+        return encodeNonAscii(message, 0, bytes, offset);
+    }
+
+    /**
+     * 文字エンコーディング後の最大バイト数を取得する。
+     * @param length 文字数
+     * @return 文字エンコーディング後の最大バイト数
+     */
+    static int maxEncodedLength(int length) {
+        return length * MAX_BYTES_PER_CHAR;
+    }
+
+    /**
+     * 非ASCII文字を含む区間を文字エンコーディングする。
+     * @param message メッセージ
+     * @param start 開始位置
+     * @param bytes 書き込み先のバイト配列
+     * @param offset 書き込みを開始する位置
+     * @return 書き込み後の位置
+     */
+    private static int encodeNonAscii(CharSequence message, int start, byte[] bytes, int offset) {
+        int length = message.length();
+        int position = offset;
+        for (int i = start; i < length; i++) {
+            char c = message.charAt(i);
+            if (c < 0x80) {
+                bytes[position++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | (c >> 6));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                bytes[position++] = (byte) (0xE0 | (c >> 12));
+                bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(message.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, message.charAt(++i));
+                bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                bytes[position++] = REPLACEMENT;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * バッファの容量が不足する場合は、内容をコピーした容量を拡張したバッファを生成する。
+     * @param buffer バッファ
+     * @param capacity 必要な容量
+     * @return 容量が足りるバッファ
+     */
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int capacity) {
+        if (buffer.capacity() >= capacity) {
+            return buffer;
+        }
+        ByteBuffer expanded = ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+        System.arraycopy(buffer.array(), 0, expanded.array(), 0, buffer.capacity());
+        return expanded;
+    }
+}
@@ -19,6 +19,8 @@ import java.util.HashMap;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assume.assumeTrue;
 
 /**
@@ -51,6 +53,7 @@ public class AppLogJsonSerializationManagerTest {
         Object value = "test";
         JsonSerializer serializer = manager.getSerializer(value);
         assertThat(serializer, is(instanceOf(StringToJsonSerializer.class)));
+        assertThat(serializer, is(instanceOf(AppLogStringToJsonSerializer.class)));
 
         value = new Date();
         serializer = manager.getSerializer(value);
@@ -92,4 +95,21 @@ public class AppLogJsonSerializationManagerTest {
         assertThat(serializer, is(instanceOf(LocalDateTimeToJsonSerializer.class)));
     }
 
+    @Test
+    public void 型毎にキャッシュしたシリアライザが返されること() throws Exception {
+        manager.initialize();
+
+        JsonSerializer stringSerializer = manager.getSerializer("test");
+        assertThat(manager.getSerializer("other"), is(sameInstance(stringSerializer)));
+        assertThat(manager.getSerializer(false), is(instanceOf(BooleanToJsonSerializer.class)));
+
+        JsonSerializer numberSerializer = manager.getSerializer(1L);
+        assertThat(numberSerializer, is(instanceOf(NumberToJsonSerializer.class)));
+        assertThat(manager.getSerializer(2L), is(sameInstance(numberSerializer)));
+        assertThat(manager.getSerializer(3), is(instanceOf(NumberToJsonSerializer.class)));
+
+        manager.initialize();
+        assertThat("再初期化後は新たなシリアライザが返される", manager.getSerializer(4L), is(not(sameInstance(numberSerializer))));
+        assertThat(manager.getSerializer("test"), is(not(sameInstance(stringSerializer))));
+    }
 }
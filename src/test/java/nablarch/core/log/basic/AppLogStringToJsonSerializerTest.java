@@ -0,0 +1,92 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.text.json.JsonSerializationSettings;
+import nablarch.core.text.json.StringToJsonSerializer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * {@link AppLogStringToJsonSerializer}のテストクラス
+ */
+public class AppLogStringToJsonSerializerTest {
+
+    private AppLogStringToJsonSerializer sut;
+
+    private StringToJsonSerializer expected;
+
+    @Before
+    public void setup() {
+        sut = new AppLogStringToJsonSerializer();
+        sut.initialize(new JsonSerializationSettings());
+        expected = new StringToJsonSerializer();
+        expected.initialize(new JsonSerializationSettings());
+    }
+
+    @Test
+    public void StringToJsonSerializerと同じ結果にシリアライズされること() throws Exception {
+        assertSameResult("");
+        assertSameResult("plain ascii message");
+        assertSameResult("\"quoted\" and \\backslash\\");
+        assertSameResult("\b\f\n\r\t\u0000\u001f\u007f/");
+        assertSameResult("\u3042\u3044\u3046 \u00e9 \ud83d\ude00 \u2028\u2029");
+
+        StringBuilder allAscii = new StringBuilder();
+        for (char c = 0; c < 128; c++) {
+            allAscii.append(c).append("xy");
+        }
+        assertSameResult(allAscii.toString());
+    }
+
+    @Test
+    public void スタックトレースがStringToJsonSerializerと同じ結果にシリアライズされること() throws Exception {
+        StringWriter stackTrace = new StringWriter();
+        Exception error = new IllegalStateException("\"error\"", new IllegalArgumentException("cause"));
+        while (stackTrace.getBuffer().length() < 10 * 1024) {
+            error.printStackTrace(new PrintWriter(stackTrace));
+        }
+        assertSameResult(stackTrace.toString());
+    }
+
+    @Test
+    public void バッファ内でエスケープした結果がStringToJsonSerializerと同じになること() throws Exception {
+        String value = "at \"a\".b(A.java:1)\n\tat \\c\r\n\u0000end";
+        StringBuilder sb = new StringBuilder("prefix:");
+        int start = sb.length();
+        sb.append(value);
+        assertThat(sut.escapeInPlace(sb, start), is(true));
+
+        StringWriter expectedWriter = new StringWriter();
+        expected.serialize(expectedWriter, value);
+        assertThat("\"" + sb.substring(start) + "\"", is(expectedWriter.toString()));
+        assertThat(sb.substring(0, start), is("prefix:"));
+    }
+
+    @Test
+    public void 初期化前はバッファ内でエスケープしないこと() throws Exception {
+        sut = new AppLogStringToJsonSerializer();
+        StringBuilder sb = new StringBuilder("\n");
+        assertThat(sut.escapeInPlace(sb, 0), is(false));
+        assertThat(sb.toString(), is("\n"));
+    }
+
+    @Test
+    public void 初期化前はStringToJsonSerializerでシリアライズされること() throws Exception {
+        sut = new AppLogStringToJsonSerializer();
+        assertSameResult("\"not initialized\"\n");
+    }
+
+    private void assertSameResult(String value) throws IOException {
+        StringWriter actualWriter = new StringWriter();
+        sut.serialize(actualWriter, value);
+        StringWriter expectedWriter = new StringWriter();
+        expected.serialize(expectedWriter, value);
+        assertThat(actualWriter.toString(), is(expectedWriter.toString()));
+    }
+}
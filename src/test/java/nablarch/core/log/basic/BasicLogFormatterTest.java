@@ -13,6 +13,8 @@ import java.util.Map;
 import java.util.regex.Pattern;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNot.not;
 import static org.junit.Assert.*;
@@ -459,4 +461,300 @@ public class BasicLogFormatterTest extends LogTestSupport {
         
         assertThat(message, is("<TRACE> root 想定していない例外が発生しました。" + Logger.LS));
     }
+
+    /**
+     * バッファへの追加で{@link BasicLogFormatter#format(LogContext)}と同じ内容が追加されること。
+     * {@link AppendableLogItem}を実装しないログ出力項目もフォーマットできること。
+     */
+    @Test
+    public void testAppendTo() throws Exception {
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.format", "$date$ <$logLevel$> [$bootProcess$] $message$$information$");
+        settings.put("formatter.datePattern", "yyyy/MM/dd HH-mm-ss[SSS]");
+        settings.put("formatter.bootProcess", "CUSTOM_PROCESS");
+
+        LogFormatter formatter = new CustomLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        LogContext context = new LogContext("root", LogLevel.INFO, "append", null, "option");
+        String expected = new SimpleDateFormat("yyyy/MM/dd HH-mm-ss[SSS]").format(context.getDate())
+                + " <INFO> [CUSTOM_PROCESS] append" + Logger.LS
+                + "Object Information[0]: Class Name = [java.lang.String]" + Logger.LS
+                + "\ttoString() = [option]" + Logger.LS;
+        assertThat(formatter.format(context), is(expected));
+
+        StringBuilder sb = new StringBuilder("prefix:");
+        formatter.appendTo(context, sb);
+        assertThat(sb.toString(), is("prefix:" + expected));
+    }
+
+    /**
+     * 入れ子のオブジェクトのフィールドを、指定した深さまで出力できること。
+     * 出力中のオブジェクトを参照するフィールドは入れ子として出力しないこと。
+     */
+    @Test
+    public void testInformationWithDepth() {
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.format", "$message$$information$");
+        settings.put("formatter.information.maxDepth", "3");
+
+        LogFormatter formatter = new BasicLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        String message = formatter.format(new LogContext("root", LogLevel.INFO, "nested", null, new Order()));
+        assertThat(message, is("nested" + Logger.LS
+                + "Object Information[0]: Class Name = [" + Order.class.getName() + "]" + Logger.LS
+                + "\tid = [0001]" + Logger.LS
+                + "\tcustomer = [customer]" + Logger.LS
+                + "\t\tname = [yamada]" + Logger.LS
+                + "\t\torder = [order]" + Logger.LS
+                + "\tnote = [express delivery]" + Logger.LS
+                + "\ttoString() = [order]" + Logger.LS));
+    }
+
+    /**
+     * 出力するフィールド数と値の長さを制限できること。
+     */
+    @Test
+    public void testInformationWithLimits() {
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.format", "$message$$information$");
+        settings.put("formatter.information.maxFields", "2");
+        settings.put("formatter.information.maxValueLength", "5");
+
+        LogFormatter formatter = new BasicLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        String message = formatter.format(new LogContext("root", LogLevel.INFO, "limited", null, new Order()));
+        assertThat(message, is("limited" + Logger.LS
+                + "Object Information[0]: Class Name = [" + Order.class.getName() + "]" + Logger.LS
+                + "\tid = [0001]" + Logger.LS
+                + "\tcustomer = [custo...]" + Logger.LS
+                + "\t... 1 more fields" + Logger.LS
+                + "\ttoString() = [order]" + Logger.LS));
+
+        settings.put("formatter.information.maxFields", "many");
+        try {
+            new BasicLogFormatter().initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+            fail("数値に変換できない場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("invalid property was specified. 'information.maxFields'"
+                    + " must be able to convert to Integer. value = [many], name = [formatter]"));
+        }
+    }
+
+    /**
+     * アクセスできないフィールドを持つJDKのクラスでもフォーマットできること。
+     */
+    @Test
+    public void testInformationWithJdkClass() {
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.format", "$message$$information$");
+
+        LogFormatter formatter = new BasicLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        List<String> list = new java.util.ArrayList<String>();
+        list.add("a");
+        String message = formatter.format(new LogContext("root", LogLevel.INFO, "jdk", null, list));
+        assertThat(message, containsString("Object Information[0]: Class Name = [java.util.ArrayList]"));
+        assertThat(message, containsString("\tsize = ["));
+        assertThat(message, containsString("\ttoString() = [[a]]"));
+    }
+
+    /**
+     * {@link LogFormatter}のデフォルト実装では、フォーマット結果がバッファに追加されること。
+     */
+    @Test
+    public void testDefaultAppendTo() {
+        LogFormatter formatter = new LogFormatter() {
+            public void initialize(ObjectSettings settings) {
+            }
+            public String format(LogContext context) {
+                return "[" + context.getMessage() + "]";
+            }
+        };
+        StringBuilder sb = new StringBuilder("prefix:");
+        formatter.appendTo(new LogContext("root", LogLevel.INFO, "default", null), sb);
+        assertThat(sb.toString(), is("prefix:[default]"));
+    }
+
+    /**
+     * サブクラスで{@link BasicLogFormatter#format(LogContext)}をオーバーライドした場合は、その結果がバッファに追加されること。
+     * {@link BasicLogFormatter#isBufferAppendable()}で直接追加することを指定したサブクラスでは、バッファに直接追加されること。
+     */
+    @Test
+    public void testSubclassAppendTo() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.format", "$logLevel$ $message$");
+        LogContext context = new LogContext("root", LogLevel.INFO, "append", null);
+
+        LogFormatter formatter = new BasicLogFormatter() {
+            @Override
+            public String format(LogContext context) {
+                return super.format(context).toUpperCase();
+            }
+        };
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+        StringBuilder sb = new StringBuilder();
+        formatter.appendTo(context, sb);
+        assertThat(sb.toString(), is("INFO APPEND" + Logger.LS));
+
+        formatter = new BasicLogFormatter() {
+            @Override
+            protected boolean isBufferAppendable() {
+                return true;
+            }
+        };
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+        sb.setLength(0);
+        formatter.appendTo(context, sb);
+        assertThat(sb.toString(), is("INFO append" + Logger.LS));
+    }
+
+    /**
+     * ログ出力項目のサブクラスで{@code get}メソッドをオーバーライドした場合は、その結果がバッファに追加されること。
+     */
+    @Test
+    public void testSubclassItemAppendTo() {
+        LogContext context = new LogContext("root", LogLevel.ERROR, "error", new IllegalStateException("error"), "option");
+
+        BasicLogFormatter.InformationItem information = new BasicLogFormatter.InformationItem() {
+            @Override
+            public String get(LogContext context) {
+                return "[information]";
+            }
+        };
+        StringBuilder sb = new StringBuilder();
+        information.appendTo(context, sb);
+        assertThat(sb.toString(), is("[information]"));
+
+        BasicLogFormatter.StackTraceItem stackTrace = new BasicLogFormatter.StackTraceItem() {
+            @Override
+            public String get(LogContext context) {
+                return "[stackTrace]";
+            }
+        };
+        sb.setLength(0);
+        stackTrace.appendTo(context, sb);
+        assertThat(sb.toString(), is("[stackTrace]"));
+    }
+
+    /**
+     * メッセージ、ログ出力項目、1件のログの長さの上限を超えた場合に切り詰めること。
+     */
+    @Test
+    public void testTruncation() {
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.format", "$message$ [$userId$] $processingSystem$");
+        settings.put("formatter.maxMessageLength", "5");
+        settings.put("formatter.maxFieldLength", "10");
+        settings.put("nablarch.processingSystem", "0123456789abcdef");
+
+        LogFormatter formatter = new BasicLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        ThreadContext.setUserId("user0123456789");
+        try {
+            assertThat(formatter.format(new LogContext("root", LogLevel.INFO, "abcdefghij", null)),
+                       is("abcde...[truncated 5 chars] [user012345...[truncated 4 chars]] 0123456789abcdef" + Logger.LS));
+            assertThat("サロゲートペアの間では切り詰めないこと",
+                       formatter.format(new LogContext("root", LogLevel.INFO, "abcd\uD83D\uDE00xyz", null)),
+                       is("abcd...[truncated 5 chars] [user012345...[truncated 4 chars]] 0123456789abcdef" + Logger.LS));
+
+            settings.put("formatter.maxRecordLength", "20");
+            formatter = new BasicLogFormatter();
+            formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+            assertThat(formatter.format(new LogContext("root", LogLevel.INFO, "abc", null)),
+                       is("abc [user012345...[t...[truncated 35 chars]" + Logger.LS));
+        } finally {
+            ThreadContext.setUserId(null);
+        }
+
+        settings.put("formatter.maxRecordLength", "short");
+        try {
+            new BasicLogFormatter().initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+            fail("数値に変換できない場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("invalid property was specified. 'maxRecordLength'"
+                    + " must be able to convert to Integer. value = [short], name = [formatter]"));
+        }
+    }
+
+    /**
+     * 1件のログの長さの上限を超えた時点で、スタックトレースとオプション情報の出力を打ち切ること。
+     */
+    @Test
+    public void testTruncationWhileRendering() {
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.format", "$message$$information$$stackTrace$");
+        settings.put("formatter.maxRecordLength", "100");
+
+        LogFormatter formatter = new BasicLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        final int[] rendered = new int[1];
+        Object[] options = new Object[100];
+        for (int i = 0; i < options.length; i++) {
+            options[i] = new Object() {
+                @Override
+                public String toString() {
+                    rendered[0]++;
+                    return "option";
+                }
+            };
+        }
+        String message = formatter.format(new LogContext("root", LogLevel.INFO, "limited", null, options));
+        assertThat(message, endsWith("...[truncated]" + Logger.LS));
+        assertThat(message.length(), is(100 + "...[truncated]".length() + Logger.LS.length()));
+        assertThat("上限を超えた後のオプション情報は出力しないこと", rendered[0] < 3, is(true));
+
+        Exception error = new IllegalStateException("outer", new IllegalArgumentException("cause"));
+        message = formatter.format(new LogContext("root", LogLevel.INFO, "error", error));
+        assertThat(message, startsWith("error" + Logger.LS + "Stack Trace Information : " + Logger.LS
+                                       + "java.lang.IllegalStateException: outer"));
+        assertThat(message, endsWith("...[truncated]" + Logger.LS));
+        assertThat(message, not(containsString("Caused by")));
+
+        settings.put("formatter.maxFieldLength", "30");
+        formatter = new BasicLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+        message = formatter.format(new LogContext("root", LogLevel.INFO, "error", error));
+        assertThat("項目の長さの上限で打ち切った場合は1件のログとして最後まで出力すること",
+                   message, is("error" + (Logger.LS + "Stack Trace Information : " + Logger.LS
+                                                 + "java.lang.IllegalStateException: outer").substring(0, 30)
+                               + "...[truncated]" + Logger.LS));
+    }
+
+    private static class Order {
+        private final String id = "0001";
+        private final Customer customer = new Customer("yamada", this);
+        private final String note = "express delivery";
+
+        @Override
+        public String toString() {
+            return "order";
+        }
+    }
+
+    private static class Customer {
+        private final String name;
+        private final Order order;
+
+        Customer(String name, Order order) {
+            this.name = name;
+            this.order = order;
+        }
+
+        @Override
+        public String toString() {
+            return "customer";
+        }
+    }
 }
@@ -0,0 +1,400 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.ThreadContext;
+import nablarch.core.log.LogTestSupport;
+import nablarch.core.log.LogTestUtil;
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link BinaryFileLogWriter}と{@link BinaryLogDecoder}のテスト。
+ */
+public class BinaryFileLogWriterTest extends LogTestSupport {
+
+    private static final String FORMAT = "$date$ -$logLevel$- $loggerName$ $runtimeLoggerName$ [$executionId$]"
+            + " req_id = [$requestId$] usr_id = [$userId$] $message$$stackTrace$";
+
+    @After
+    public void clearThreadContext() {
+        ThreadContext.clear();
+    }
+
+    /**
+     * 書き込んだログを、元のログをフォーマットした場合と同じ内容に変換できること。
+     */
+    @Test
+    public void testWriteAndDecode() throws Exception {
+
+        File file = LogTestUtil.cleanupLog("/binary-app.blog");
+        BinaryFileLogWriter writer = createWriter("./log/binary-app.blog", "WARN", null);
+        LogFormatter formatter = createBasicFormatter();
+
+        List<LogContext> contexts = new ArrayList<LogContext>();
+        ThreadContext.setUserId("user01");
+        ThreadContext.setRequestId("REQ001");
+        ThreadContext.setExecutionId("EXE001");
+        contexts.add(new LogContext("app", "app.Action", LogLevel.WARN, "plain message", null));
+        contexts.add(new ParameterizedLogContext("app", "app.Action", LogLevel.WARN,
+                "count = {}, name = {}", 2, 10, null, null));
+        ThreadContext.setUserId(null);
+        ThreadContext.setExecutionId("EXE002");
+        contexts.add(new ParameterizedLogContext("app", "app.Service", LogLevel.ERROR,
+                "{} {} {} {}", new Object[] {"a", 'b', 3, "\u65e5\u672c\u8a9e"}));
+        contexts.add(new LogContext("app", "app.Service", LogLevel.ERROR, null, createError()));
+        contexts.add(new LogContext("sql", "app.Dao", LogLevel.FATAL, "\u30a8\u30e9\u30fc", createError()));
+
+        StringBuilder expected = new StringBuilder();
+        for (LogContext context : contexts) {
+            writer.write(context);
+            expected.append(formatter.format(context));
+        }
+        writer.write(new LogContext("app", "app.Action", LogLevel.INFO, "not written", null));
+        writer.terminate();
+
+        ThreadContext.setUserId("current");
+        assertThat(decode(file, formatter), is(expected.toString()));
+        assertThat("変換前のスレッドコンテキストに戻ること", ThreadContext.getUserId(), is("current"));
+    }
+
+    /**
+     * 初期処理と終了処理時に、INFOレベルでメッセージが書き込まれること。
+     */
+    @Test
+    public void testInitializedAndTerminatedMessage() throws Exception {
+
+        File file = LogTestUtil.cleanupLog("/binary-initialized-app.blog");
+        BinaryFileLogWriter writer = createWriter("./log/binary-initialized-app.blog", "INFO", null);
+        writer.terminate();
+
+        String log = decode(file, createBasicFormatter());
+        assertThat(log, containsString("-INFO- " + BinaryFileLogWriter.class.getName()));
+        assertThat(log, containsString("initialized."));
+        assertThat(log, containsString("WRITER CLASS        = [nablarch.core.log.basic.BinaryFileLogWriter]"));
+        assertThat(log, containsString("FORMATTER CLASS     = [nablarch.core.log.basic.BinaryLogFormatter]"));
+        assertThat(log, containsString("FILE PATH           = [./log/binary-initialized-app.blog]"));
+        assertThat(log, containsString("OUTPUT BUFFER SIZE  = [8000]"));
+        assertThat(log, containsString("MAX DICTIONARY SIZE = [4096]"));
+        assertThat(log, containsString("terminated."));
+    }
+
+    /**
+     * ロガー名やメッセージのテンプレートは、辞書に1度だけ書き込まれること。
+     */
+    @Test
+    public void testDictionaryIsWrittenOnce() throws Exception {
+
+        File file = LogTestUtil.cleanupLog("/binary-dictionary-app.blog");
+        BinaryFileLogWriter writer = createWriter("./log/binary-dictionary-app.blog", "WARN", null);
+
+        long start = file.length();
+        writer.write(new ParameterizedLogContext("dictionaryLogger", "dictionaryRuntimeLogger", LogLevel.WARN,
+                "dictionary template {}", 1, "arg", null, null));
+        long first = file.length() - start;
+        writer.write(new ParameterizedLogContext("dictionaryLogger", "dictionaryRuntimeLogger", LogLevel.WARN,
+                "dictionary template {}", 1, "arg", null, null));
+        long second = file.length() - start - first;
+        writer.terminate();
+
+        assertTrue("first = " + first + ", second = " + second, second < 20);
+        assertTrue("first = " + first + ", second = " + second, second < first - 40);
+        String bytes = new String(readBytes(file), StandardCharsets.ISO_8859_1);
+        assertThat(countOf(bytes, "dictionaryRuntimeLogger"), is(1));
+        assertThat(countOf(bytes, "dictionary template {}"), is(1));
+        assertThat(countOf(decode(file, createBasicFormatter()), "dictionary template arg"), is(2));
+    }
+
+    /**
+     * 辞書の件数が上限に達した場合は、辞書をクリアして書き込みを続けること。
+     */
+    @Test
+    public void testDictionaryReset() throws Exception {
+
+        File file = LogTestUtil.cleanupLog("/binary-reset-app.blog");
+        BinaryFileLogWriter writer = createWriter("./log/binary-reset-app.blog", "WARN", "3");
+        LogFormatter formatter = createBasicFormatter();
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            LogContext context = new LogContext("logger" + (i % 4), "runtime" + i, LogLevel.WARN, "message" + i, null);
+            writer.write(context);
+            expected.append(formatter.format(context));
+        }
+        writer.terminate();
+
+        assertThat(decode(file, formatter), is(expected.toString()));
+    }
+
+    /**
+     * 既存のファイルに追記した場合も、全てのログを変換できること。
+     */
+    @Test
+    public void testAppend() throws Exception {
+
+        File file = LogTestUtil.cleanupLog("/binary-append-app.blog");
+        LogFormatter formatter = createBasicFormatter();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2; i++) {
+            BinaryFileLogWriter writer = createWriter("./log/binary-append-app.blog", "WARN", null);
+            LogContext context = new LogContext("app", "app.Action" + i, LogLevel.WARN, "message" + i, null);
+            writer.write(context);
+            expected.append(formatter.format(context));
+            writer.terminate();
+        }
+
+        assertThat(decode(file, formatter), is(expected.toString()));
+    }
+
+    /**
+     * 末尾に不完全なレコードが存在するファイルに追記した場合は、不完全なレコードを切り詰めて書き込むこと。
+     */
+    @Test
+    public void testAppendAfterIncompleteRecord() throws Exception {
+
+        File file = LogTestUtil.cleanupLog("/binary-incomplete-app.blog");
+        LogFormatter formatter = createBasicFormatter();
+        StringBuilder expected = new StringBuilder();
+
+        BinaryFileLogWriter writer = createWriter("./log/binary-incomplete-app.blog", "WARN", null);
+        LogContext first = new LogContext("app", "app.Action", LogLevel.WARN, "first", null);
+        writer.write(first);
+        expected.append(formatter.format(first));
+        writer.terminate();
+
+        FileOutputStream out = new FileOutputStream(file, true);
+        try {
+            out.write(new byte[] {0x40, 0x02, 0x03});
+        } finally {
+            out.close();
+        }
+
+        writer = createWriter("./log/binary-incomplete-app.blog", "WARN", null);
+        LogContext second = new LogContext("app", "app.Action", LogLevel.ERROR, "second", null);
+        writer.write(second);
+        expected.append(formatter.format(second));
+        writer.terminate();
+
+        assertThat(decode(file, formatter), is(expected.toString()));
+    }
+
+    /**
+     * ヘッダが一致しない既存のファイルには追記しないこと。
+     */
+    @Test
+    public void testAppendToOtherFile() throws Exception {
+
+        LogTestUtil.cleanupLog("/binary-other-app.blog");
+        FileOutputStream out = new FileOutputStream("./log/binary-other-app.blog");
+        try {
+            out.write("2024-01-01 INFO text log".getBytes(StandardCharsets.UTF_8));
+        } finally {
+            out.close();
+        }
+        try {
+            createWriter("./log/binary-other-app.blog", "WARN", null);
+            fail("ヘッダが一致しない場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("failed to append. header of the existing file does not match."
+                    + " file name = [./log/binary-other-app.blog], name = [binaryFile]"));
+        }
+    }
+
+    /**
+     * 文字列にフォーマットする場合は、{@link BasicLogFormatter}と同じ形式でフォーマットすること。
+     */
+    @Test
+    public void testFormatToText() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.format", FORMAT);
+        LogFormatter formatter = new BinaryLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        LogContext context = new LogContext("app", "app.Action", LogLevel.WARN, "message", createError());
+        assertThat(formatter.format(context), is(createBasicFormatter().format(context)));
+    }
+
+    /**
+     * サブクラスで{@code format}メソッドをオーバーライドした場合は、その結果がバッファに追加されること。
+     */
+    @Test
+    public void testSubclassAppendTo() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.format", "$logLevel$ $message$");
+        LogContext context = new LogContext("app", LogLevel.INFO, "append", null);
+
+        LogFormatter formatter = new BinaryLogFormatter() {
+            @Override
+            public String format(LogContext context) {
+                return super.format(context).toUpperCase();
+            }
+        };
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+        StringBuilder sb = new StringBuilder();
+        formatter.appendTo(context, sb);
+        assertThat(sb.toString(), is("INFO APPEND" + Logger.LS));
+    }
+
+    /**
+     * JSON形式に変換でき、オプション情報のMapのエントリを出力できること。
+     */
+    @Test
+    public void testDecodeToJson() throws Exception {
+
+        File file = LogTestUtil.cleanupLog("/binary-json-app.blog");
+        BinaryFileLogWriter writer = createWriter("./log/binary-json-app.blog", "WARN", null);
+
+        Map<String, Object> payload = new LinkedHashMap<String, Object>();
+        payload.put("key1", "value1");
+        payload.put("key2", 2);
+        payload.put("key3", null);
+        Map<Object, Object> other = new HashMap<Object, Object>();
+        other.put(1, "ignored");
+        writer.write(new LogContext("app", "app.Action", LogLevel.WARN, "message", null, payload, other, "text"));
+        writer.terminate();
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "logLevel,message,payload");
+        LogFormatter formatter = new JsonLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        assertThat(decode(file, formatter),
+                   is("{\"logLevel\":\"WARN\",\"message\":\"message\",\"key1\":\"value1\",\"key2\":\"2\"}"
+                           + System.getProperty("line.separator")));
+    }
+
+    /**
+     * {@link BinaryLogFormatter}以外のフォーマッタが指定された場合は初期処理に失敗すること。
+     */
+    @Test
+    public void testInvalidFormatter() {
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("binaryFile.filePath", "./log/binary-invalid-app.blog");
+        settings.put("binaryFile.formatter.className", BasicLogFormatter.class.getName());
+        try {
+            new BinaryFileLogWriter().initialize(new ObjectSettings(new MockLogSettings(settings), "binaryFile"));
+            fail("BinaryLogFormatter、BinaryStructuredLogFormatter以外の場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("BinaryFileLogWriter requires BinaryLogFormatter or BinaryStructuredLogFormatter."
+                    + " formatter class = [nablarch.core.log.basic.BasicLogFormatter], name = [binaryFile]"));
+        }
+    }
+
+    /**
+     * バイナリ形式のログでない場合は変換に失敗すること。
+     */
+    @Test
+    public void testDecodeInvalidFile() throws Exception {
+        try {
+            BinaryLogDecoder.decode(new ByteArrayInputStream("2024-01-01 INFO".getBytes(StandardCharsets.UTF_8)),
+                                    createBasicFormatter(), new StringWriter());
+            fail("バイナリ形式のログでない場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("not a binary log file. magic number does not match."));
+        }
+    }
+
+    /**
+     * コマンドラインの引数が不正な場合は例外が発生すること。
+     */
+    @Test
+    public void testMainWithInvalidArguments() throws Exception {
+        try {
+            BinaryLogDecoder.main(new String[0]);
+            fail("引数がない場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("usage: java nablarch.core.log.basic.BinaryLogDecoder"));
+        }
+        try {
+            BinaryLogDecoder.main(new String[] {"./log/binary-app.blog", "xml"});
+            fail("不明な出力形式の場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("[xml] is unknown layout."));
+        }
+    }
+
+    private static BinaryFileLogWriter createWriter(String filePath, String level, String maxDictionarySize) {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("binaryFile.filePath", filePath);
+        settings.put("binaryFile.level", level);
+        if (maxDictionarySize != null) {
+            settings.put("binaryFile.maxDictionarySize", maxDictionarySize);
+        }
+        BinaryFileLogWriter writer = new BinaryFileLogWriter();
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), "binaryFile"));
+        return writer;
+    }
+
+    private static LogFormatter createBasicFormatter() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.format", FORMAT);
+        LogFormatter formatter = new BasicLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+        return formatter;
+    }
+
+    private static Throwable createError() {
+        Throwable error = new IllegalStateException("error for test", new IOException("cause"));
+        error.setStackTrace(new StackTraceElement[] {
+                new StackTraceElement("app.Action", "execute", "Action.java", 10)
+        });
+        error.getCause().setStackTrace(new StackTraceElement[] {
+                new StackTraceElement("app.Dao", "find", "Dao.java", 20)
+        });
+        return error;
+    }
+
+    private static String decode(File file, LogFormatter formatter) throws IOException {
+        StringWriter out = new StringWriter();
+        InputStream in = new FileInputStream(file);
+        try {
+            BinaryLogDecoder.decode(in, formatter, out);
+        } finally {
+            in.close();
+        }
+        return out.toString();
+    }
+
+    private static byte[] readBytes(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                read += in.read(bytes, read, bytes.length - read);
+            }
+            return bytes;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static int countOf(String text, String target) {
+        int count = 0;
+        for (int index = text.indexOf(target); index != -1; index = text.indexOf(target, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
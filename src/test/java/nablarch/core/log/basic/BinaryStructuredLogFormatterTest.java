@@ -0,0 +1,315 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.ThreadContext;
+import nablarch.core.log.LogTestSupport;
+import nablarch.core.log.LogTestUtil;
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link BinaryStructuredLogFormatter}のテスト。
+ */
+public class BinaryStructuredLogFormatterTest extends LogTestSupport {
+
+    @After
+    public void clearThreadContext() {
+        ThreadContext.clear();
+    }
+
+    /**
+     * 出力項目の順に、CBORのmapに変換できること。
+     */
+    @Test
+    public void testEncodeToCbor() {
+        BinaryStructuredLogFormatter formatter = createFormatter("logLevel,message", "cbor", null);
+
+        assertThat(toHex(formatter.encode(new LogContext("TestLogger", LogLevel.INFO, "hi", null))),
+                   is("a2" + "686c6f674c6576656c" + "64494e464f" + "676d657373616765" + "626869"));
+    }
+
+    /**
+     * 出力項目の順に、MessagePackのmapに変換できること。
+     */
+    @Test
+    public void testEncodeToMessagePack() {
+        BinaryStructuredLogFormatter formatter = createFormatter("logLevel,message", "msgpack", null);
+
+        assertThat(toHex(formatter.encode(new LogContext("TestLogger", LogLevel.INFO, "hi", null))),
+                   is("82" + "a86c6f674c6576656c" + "a4494e464f" + "a76d657373616765" + "a26869"));
+    }
+
+    /**
+     * payloadの値を、型に応じて変換できること。
+     */
+    @Test
+    public void testEncodePayload() {
+        Map<String, Object> payload = new LinkedHashMap<String, Object>();
+        payload.put("int", 10);
+        payload.put("long", 100000L);
+        payload.put("negative", -200);
+        payload.put("double", 0.5d);
+        payload.put("flag", true);
+        payload.put("none", null);
+        payload.put("list", Arrays.<Object>asList(1, "a"));
+        payload.put("map", new HashMap<String, Object>() {{ put("k", "v"); }});
+        payload.put("bytes", new byte[] {1, 2});
+        payload.put("date", new Date(1000L));
+        payload.put("text", "日本語");
+        payload.put("level", LogLevel.WARN);
+        LogContext context = new LogContext("TestLogger", LogLevel.INFO, "msg", null, payload);
+
+        assertThat(toHex(createFormatter("message,payload", "cbor", null).encode(context)),
+                   is("ac676d657373616765636d736763696e740a646c6f6e671a000186a0686e6567617469766538c7"
+                           + "66646f75626c65fb3fe000000000000064666c6167f5646c69737482016161636d6170a1616b6176"
+                           + "65627974657342010264646174651903e8647465787469e697a5e69cace8aa9e656c6576656c64"
+                           + "5741524e"));
+        assertThat(toHex(createFormatter("message,payload", "msgpack", null).encode(context)),
+                   is("8ca76d657373616765a36d7367a3696e740aa46c6f6e67ce000186a0a86e65676174697665d1ff38"
+                           + "a6646f75626c65cb3fe0000000000000a4666c6167c3a46c6973749201a161a36d617081a16ba176"
+                           + "a56279746573c4020102a464617465cd03e8a474657874a9e697a5e69cace8aa9ea56c6576656c"
+                           + "a45741524e"));
+    }
+
+    /**
+     * ignoreNullValueMemberにfalseを指定した場合は値がnullのエントリを出力し、固定の項目を最後に出力すること。
+     */
+    @Test
+    public void testEncodeNullValueAndStaticFields() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.ignoreNullValueMember", "false");
+        settings.put("formatter.staticFields", "app");
+        settings.put("formatter.staticFields.app", "sample");
+        LogContext context = new LogContext("TestLogger", LogLevel.INFO, "msg", null);
+
+        assertThat(toHex(createFormatter("message,requestId", "cbor", settings).encode(context)),
+                   is("a3676d657373616765636d736769726571756573744964f6636170706673616d706c65"));
+        assertThat(toHex(createFormatter("message,requestId", "msgpack", settings).encode(context)),
+                   is("83a76d657373616765a36d7367a9726571756573744964c0a3617070a673616d706c65"));
+    }
+
+    /**
+     * 文字列の長さに応じた形式で出力し、長さの上限を超えた値を切り詰めること。
+     */
+    @Test
+    public void testEncodeLongString() {
+        char[] chars = new char[300];
+        Arrays.fill(chars, 'x');
+        LogContext context = new LogContext("TestLogger", LogLevel.INFO, new String(chars), null);
+
+        assertThat(toHex(createFormatter("message", "cbor", null).encode(context)).substring(0, 24),
+                   is("a1676d65737361676579012c"));
+        assertThat(toHex(createFormatter("message", "msgpack", null).encode(context)).substring(0, 24),
+                   is("81a76d657373616765da012c"));
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.maxMessageLength", "3");
+        assertThat(toHex(createFormatter("message", "msgpack", settings).encode(context)),
+                   is("81a76d657373616765" + "bb" + toHex("xxx...[truncated 297 chars]".getBytes())));
+    }
+
+    /**
+     * 文字数とバイト数で長さの形式が異なる文字列と、エントリ数が多いmapを、最小のバイト数の形式で出力すること。
+     */
+    @Test
+    public void testEncodeHeaderLongerThanReserved() {
+        char[] chars = new char[12];
+        Arrays.fill(chars, '\u3042');
+        String text = new String(chars);
+        LogContext context = new LogContext("TestLogger", LogLevel.INFO, text, null);
+
+        assertThat(toHex(createFormatter("message", "cbor", null).encode(context)),
+                   is("a1676d657373616765" + "7824" + toHex(text.getBytes(Charset.forName("UTF-8")))));
+        assertThat(toHex(createFormatter("message", "msgpack", null).encode(context)),
+                   is("81a76d657373616765" + "d924" + toHex(text.getBytes(Charset.forName("UTF-8")))));
+
+        Map<String, Object> payload = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < 16; i++) {
+            payload.put("k" + Integer.toHexString(i), i);
+        }
+        assertThat(toHex(createFormatter("message,payload", "msgpack", null).encode(
+                           new LogContext("TestLogger", LogLevel.INFO, "msg", null, payload))),
+                   is("de0011a76d657373616765a36d7367"
+                           + "a26b3000a26b3101a26b3202a26b3303a26b3404a26b3505a26b3606a26b3707"
+                           + "a26b3808a26b3909a26b610aa26b620ba26b630ca26b640da26b650ea26b660f"));
+    }
+
+    /**
+     * payloadのキーが他の出力項目や先に出力したキーと重複する場合は、{@link JsonLogFormatter}と同様に出力しないこと。
+     */
+    @Test
+    public void testEncodeDuplicatePayloadKeys() {
+        Map<String, Object> first = new LinkedHashMap<String, Object>();
+        first.put("message", "ignored");
+        first.put("k", "v");
+        Map<String, Object> second = new LinkedHashMap<String, Object>();
+        second.put("k", "ignored");
+        LogContext context = new LogContext("TestLogger", LogLevel.INFO, "msg", null, first, second);
+
+        assertThat(toHex(createFormatter("payload,message", "msgpack", null).encode(context)),
+                   is("82a16ba176a76d657373616765a36d7367"));
+    }
+
+    /**
+     * 組み込み以外の出力項目は、出力項目毎のMapに設定したエントリを出力項目の順に書き込むこと。
+     */
+    @Test
+    public void testEncodeCustomTarget() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "message");
+        settings.put("formatter.encoding", "msgpack");
+        BinaryStructuredLogFormatter formatter = new BinaryStructuredLogFormatter() {
+            @Override
+            protected boolean isBufferAppendable() {
+                return true;
+            }
+
+            @Override
+            protected List<JsonLogObjectBuilder<LogContext>> createStructuredTargets(ObjectSettings settings) {
+                List<JsonLogObjectBuilder<LogContext>> targets = new ArrayList<JsonLogObjectBuilder<LogContext>>();
+                targets.add(new JsonLogObjectBuilder<LogContext>() {
+                    @Override
+                    public void build(Map<String, Object> structuredObject, LogContext context) {
+                        structuredObject.put("k", "v");
+                    }
+                });
+                targets.addAll(super.createStructuredTargets(settings));
+                return targets;
+            }
+        };
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+        LogContext context = new LogContext("TestLogger", LogLevel.INFO, "msg", null);
+
+        assertThat(toHex(formatter.encode(context)), is("82a16ba176a76d657373616765a36d7367"));
+    }
+
+    /**
+     * 文字列にフォーマットする場合は、{@link JsonLogFormatter}と同じJSONを出力すること。
+     */
+    @Test
+    public void testFormat() {
+        BinaryStructuredLogFormatter formatter = createFormatter("logLevel,message", "msgpack", null);
+
+        assertThat(formatter.format(new LogContext("TestLogger", LogLevel.INFO, "hi", null)),
+                   is("{\"logLevel\":\"INFO\",\"message\":\"hi\"}" + Logger.LS));
+    }
+
+    /**
+     * 不明な出力形式が指定された場合は例外がスローされること。
+     */
+    @Test
+    public void testUnknownEncoding() {
+        try {
+            createFormatter("message", "avro", null);
+            fail("不明な出力形式の場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("BinaryStructuredLogFormatter : [avro] is unknown encoding."
+                    + " property name = [formatter.encoding]"));
+        }
+    }
+
+    /**
+     * {@link BinaryFileLogWriter}と組み合わせた場合は、バイト数を前置してログ毎に書き込むこと。
+     */
+    @Test
+    public void testWriteWithBinaryFileLogWriter() throws Exception {
+        File file = LogTestUtil.cleanupLog("/binary-structured-app.blog");
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("binaryFile.filePath", "./log/binary-structured-app.blog");
+        settings.put("binaryFile.level", "WARN");
+        settings.put("binaryFile.formatter.className", BinaryStructuredLogFormatter.class.getName());
+        settings.put("binaryFile.formatter.targets", "logLevel,message");
+        BinaryFileLogWriter writer = new BinaryFileLogWriter();
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), "binaryFile"));
+        writer.write(new LogContext("TestLogger", LogLevel.WARN, "hi", null));
+        writer.write(new LogContext("TestLogger", LogLevel.INFO, "not written", null));
+        writer.write(new LogContext("TestLogger", LogLevel.ERROR, "bye", null));
+        writer.terminate();
+
+        assertThat(toHex(readBytes(file)),
+                   is("4e42534c4f47" + "01" + "01"
+                           + "1a" + "a2686c6f674c6576656c645741524e676d657373616765626869"
+                           + "1c" + "a2686c6f674c6576656c654552524f52676d65737361676563627965"));
+    }
+
+    /**
+     * MessagePackの場合はヘッダの出力形式が異なり、レコードのバイト数を可変長の整数で前置すること。
+     */
+    @Test
+    public void testWriteMessagePackWithBinaryFileLogWriter() throws Exception {
+        File file = LogTestUtil.cleanupLog("/binary-structured-msgpack-app.blog");
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("binaryFile.filePath", "./log/binary-structured-msgpack-app.blog");
+        settings.put("binaryFile.level", "WARN");
+        settings.put("binaryFile.formatter.className", BinaryStructuredLogFormatter.class.getName());
+        settings.put("binaryFile.formatter.targets", "message");
+        settings.put("binaryFile.formatter.encoding", "msgpack");
+        BinaryFileLogWriter writer = new BinaryFileLogWriter();
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), "binaryFile"));
+        char[] chars = new char[20000];
+        Arrays.fill(chars, 'x');
+        writer.write(new LogContext("TestLogger", LogLevel.WARN, new String(chars), null));
+        writer.write(new LogContext("TestLogger", LogLevel.WARN, "hi", null));
+        writer.terminate();
+
+        String hex = toHex(readBytes(file));
+        // マップ(1) + キー(8) + 文字列の長さ(3) + 文字列(20000) = 20012バイト
+        assertThat(hex.substring(0, 46), is("4e42534c4f47" + "01" + "02" + "ac9c01" + "81a76d657373616765" + "da4e20"));
+        assertThat(hex.substring(16 + 6 + 20012 * 2), is("0c" + "81a76d657373616765a26869"));
+    }
+
+    private static BinaryStructuredLogFormatter createFormatter(String targets, String encoding,
+                                                                Map<String, String> additionalSettings) {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", targets);
+        settings.put("formatter.encoding", encoding);
+        if (additionalSettings != null) {
+            settings.putAll(additionalSettings);
+        }
+        BinaryStructuredLogFormatter formatter = new BinaryStructuredLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+        return formatter;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b & 0xFF));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] readBytes(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                read += in.read(bytes, read, bytes.length - read);
+            }
+            return bytes;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -120,6 +120,19 @@ public class DateRotatePolicyTest {
         assertThat(actual, is(true));
     }
 
+    /** 文字列に変換せずに判定する場合も、オーバーライドした現在時刻をもとに判定を行えること */
+    @Test
+    public void testNeedsRotateWithCharSequence() throws ParseException {
+        DateRotatePolicyForTest policy = new DateRotatePolicyForTest(textToDate("2018-01-01 10:10:10.000"));
+        policy.initialize(objectSettings);
+
+        policy.setCurrentDate(textToDate("2018-01-01 23:59:59.999"));
+        assertThat(policy.needsRotate(new StringBuilder(message), message.length(), ignored), is(false));
+
+        policy.setCurrentDate(textToDate("2018-01-02 00:00:00.000"));
+        assertThat(policy.needsRotate(new StringBuilder(message), message.length(), ignored), is(true));
+    }
+
     /** パスにファイルが存在する場合、ファイルの最終更新日時をもとにrotateが必要かどうか判定を行えること */
     @Test
     public void testNeedsIfFileExists() throws ParseException {
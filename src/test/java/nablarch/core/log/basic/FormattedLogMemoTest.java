@@ -0,0 +1,266 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link FormattedLogMemo}と、{@link BasicLoggerFactory}によるフォーマット結果の共有のテスト。
+ */
+public class FormattedLogMemoTest {
+
+    private BasicLoggerFactory factory;
+
+    @Before
+    public void setUp() {
+        CountingLogFormatter.count = 0;
+        MemoryLogWriter.WRITERS.clear();
+    }
+
+    @After
+    public void tearDown() {
+        if (factory != null) {
+            factory.terminate();
+        }
+        MemoryLogWriter.WRITERS.clear();
+    }
+
+    /**
+     * フォーマッタの設定が同じ{@link LogWriter}間でフォーマット結果が共有され、
+     * 1件のログのフォーマットが1回で済むこと。{@link LogFormatter}のインスタンスは共有しないこと。
+     */
+    @Test
+    public void testShareFormatter() {
+        factory = createFactory(createSettings(null));
+        Logger logger = factory.get("memo");
+
+        logger.logInfo("shared");
+
+        MemoryLogWriter a = MemoryLogWriter.WRITERS.get("writer.a");
+        MemoryLogWriter b = MemoryLogWriter.WRITERS.get("writer.b");
+        MemoryLogWriter c = MemoryLogWriter.WRITERS.get("writer.c");
+        assertThat(a.getFormatter(), not(sameInstance(b.getFormatter())));
+        assertThat(a.getFormatKey(), sameInstance(b.getFormatKey()));
+        assertThat("設定が異なる場合は共有しない", c.getFormatKey(), not(sameInstance(a.getFormatKey())));
+        assertThat(CountingLogFormatter.count, is(2));
+        assertThat(a.messages.get(0), is("[A]INFO shared"));
+        assertThat(b.messages.get(0), is("[A]INFO shared"));
+        assertThat(c.messages.get(0), is("[C]INFO shared"));
+
+        logger.logWarn("next");
+        assertThat(CountingLogFormatter.count, is(4));
+        assertThat(a.messages.get(1), is("[A]WARN next"));
+        assertThat(b.messages.get(1), is("[A]WARN next"));
+    }
+
+    /**
+     * ガベージフリーモードでも、フォーマットが1回で済むこと。
+     */
+    @Test
+    public void testShareFormatterWithGarbageFree() {
+        Map<String, String> settings = createSettings(null);
+        settings.put("garbageFree", "true");
+        factory = createFactory(settings);
+        Logger logger = factory.get("memo");
+
+        logger.logInfo("garbage-free");
+        logger.logError("error");
+
+        assertThat(CountingLogFormatter.count, is(4));
+        assertThat(MemoryLogWriter.WRITERS.get("writer.a").messages.get(1), is("[A]ERROR error"));
+        assertThat(MemoryLogWriter.WRITERS.get("writer.b").messages.get(1), is("[A]ERROR error"));
+        assertThat(MemoryLogWriter.WRITERS.get("writer.c").messages.get(1), is("[C]ERROR error"));
+    }
+
+    /**
+     * shareFormattersにfalseを指定した場合は、フォーマット結果を共有しないこと。
+     */
+    @Test
+    public void testNotShareFormatter() {
+        factory = createFactory(createSettings("false"));
+        Logger logger = factory.get("memo");
+
+        logger.logInfo("not shared");
+
+        MemoryLogWriter a = MemoryLogWriter.WRITERS.get("writer.a");
+        MemoryLogWriter b = MemoryLogWriter.WRITERS.get("writer.b");
+        assertThat(a.getFormatKey(), not(sameInstance(b.getFormatKey())));
+        assertThat(CountingLogFormatter.count, is(3));
+        assertThat(b.messages.get(0), is("[A]INFO not shared"));
+    }
+
+    /**
+     * {@link ShareableLogFormatter#isShareable()}が<code>false</code>を返す{@link LogFormatter}は、フォーマット結果を共有しないこと。
+     */
+    @Test
+    public void testNotShareableFormatter() {
+        Map<String, String> settings = createSettings(null);
+        for (String name : new String[] {"a", "b", "c"}) {
+            settings.put("writer." + name + ".formatter.className", PlainLogFormatter.class.getName());
+        }
+        factory = createFactory(settings);
+
+        factory.get("memo").logInfo("plain");
+
+        assertThat(CountingLogFormatter.count, is(3));
+        assertThat(MemoryLogWriter.WRITERS.get("writer.b").messages.get(0), is("[A]INFO plain"));
+    }
+
+    /**
+     * スタックトレースの繰り返しを判定する場合は、フォーマット結果を共有せず、
+     * 他の{@link LogWriter}にのみ出力したスタックトレースを繰り返しとして扱わないこと。
+     */
+    @Test
+    public void testNotShareDeduplicatingFormatter() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writerNames", "a,b");
+        for (String name : new String[] {"a", "b"}) {
+            settings.put("writer." + name + ".className", MemoryLogWriter.class.getName());
+            settings.put("writer." + name + ".formatter.format", "$message$$stackTrace$");
+            settings.put("writer." + name + ".formatter.stackTrace.dedupWindow", "60");
+        }
+        settings.put("availableLoggersNamesOrder", "first,second");
+        settings.put("loggers.first.nameRegex", "first");
+        settings.put("loggers.first.level", "INFO");
+        settings.put("loggers.first.writerNames", "a");
+        settings.put("loggers.second.nameRegex", "second");
+        settings.put("loggers.second.level", "INFO");
+        settings.put("loggers.second.writerNames", "a,b");
+        factory = createFactory(settings);
+        MemoryLogWriter a = MemoryLogWriter.WRITERS.get("writer.a");
+        MemoryLogWriter b = MemoryLogWriter.WRITERS.get("writer.b");
+        assertThat(a.getFormatKey(), not(sameInstance(b.getFormatKey())));
+
+        IllegalStateException error = new IllegalStateException("failed");
+        factory.get("first").logError("first", error);
+        factory.get("second").logError("second", error);
+
+        assertThat(a.messages.get(1).contains("stack trace omitted"), is(true));
+        assertThat(b.messages.get(0).contains("stack trace omitted"), is(false));
+        assertThat(b.messages.get(0).contains("\tat " + FormattedLogMemoTest.class.getName()), is(true));
+    }
+
+    /**
+     * 書き込み中でないログは、フォーマット結果を保持しないこと。
+     */
+    @Test
+    public void testFormatOutsideDispatch() {
+        LogFormatter formatter = new CountingLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(new HashMap<String, String>()), "none"));
+        LogContext context = new LogContext("memo", LogLevel.INFO, "outside", null);
+
+        assertThat(FormattedLogMemo.format(formatter, formatter, context), is("[]INFO outside"));
+        assertThat(FormattedLogMemo.format(formatter, formatter, context), is("[]INFO outside"));
+        assertThat(CountingLogFormatter.count, is(2));
+        assertThat(FormattedLogMemo.appendTo(formatter, formatter, context) == null, is(true));
+
+        FormattedLogMemo memo = FormattedLogMemo.begin(context);
+        try {
+            assertThat("書き込み中は入れ子で開始できない", FormattedLogMemo.begin(context) == null, is(true));
+            assertThat(FormattedLogMemo.appendTo(formatter, formatter, context).toString(), is("[]INFO outside"));
+            assertThat(FormattedLogMemo.format(formatter, formatter, context), is("[]INFO outside"));
+            assertThat(CountingLogFormatter.count, is(3));
+        } finally {
+            memo.end();
+        }
+        assertThat(FormattedLogMemo.format(formatter, formatter, context), is("[]INFO outside"));
+        assertThat(CountingLogFormatter.count, is(4));
+    }
+
+    private static BasicLoggerFactory createFactory(Map<String, String> settings) {
+        BasicLoggerFactory factory = new BasicLoggerFactory();
+        factory.initialize(new MockLogSettings(settings));
+        CountingLogFormatter.count = 0;
+        for (MemoryLogWriter writer : MemoryLogWriter.WRITERS.values()) {
+            writer.messages.clear();
+        }
+        return factory;
+    }
+
+    private static Map<String, String> createSettings(String shareFormatters) {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writerNames", "a,b,c");
+        for (String name : new String[] {"a", "b", "c"}) {
+            settings.put("writer." + name + ".className", MemoryLogWriter.class.getName());
+            settings.put("writer." + name + ".formatter.className", CountingLogFormatter.class.getName());
+            settings.put("writer." + name + ".formatter.prefix", "c".equals(name) ? "C" : "A");
+        }
+        settings.put("availableLoggersNamesOrder", "memo");
+        settings.put("loggers.memo.nameRegex", ".*");
+        settings.put("loggers.memo.level", "INFO");
+        settings.put("loggers.memo.writerNames", "a,b,c");
+        if (shareFormatters != null) {
+            settings.put("shareFormatters", shareFormatters);
+        }
+        return settings;
+    }
+
+    /**
+     * フォーマットした回数を数える{@link LogFormatter}。
+     */
+    public static class CountingLogFormatter implements ShareableLogFormatter {
+
+        private static int count;
+
+        private String prefix;
+
+        public void initialize(ObjectSettings settings) {
+            prefix = settings.getProp("prefix");
+            if (prefix == null) {
+                prefix = "";
+            }
+        }
+
+        public String format(LogContext context) {
+            count++;
+            return "[" + prefix + "]" + context.getLevel().name() + " " + context.getMessage();
+        }
+
+        public boolean isShareable() {
+            return true;
+        }
+    }
+
+    /**
+     * フォーマット結果を共有しない{@link LogFormatter}。
+     */
+    public static class PlainLogFormatter extends CountingLogFormatter {
+
+        @Override
+        public boolean isShareable() {
+            return false;
+        }
+    }
+
+    /**
+     * 書き込んだログをメモリに保持する{@link LogWriter}。
+     */
+    public static class MemoryLogWriter extends LogWriterSupport {
+
+        private static final Map<String, MemoryLogWriter> WRITERS = new HashMap<String, MemoryLogWriter>();
+
+        private final List<String> messages = new ArrayList<String>();
+
+        @Override
+        protected void onInitialize(ObjectSettings settings) {
+            WRITERS.put(getName(), this);
+        }
+
+        @Override
+        protected void onWrite(String formattedMessage) {
+            messages.add(formattedMessage);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.log.LogTestUtil;
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ガベージフリーモードでのログ出力毎のヒープの割り当て量を計測するベンチマーク。<br>
+ * <br>
+ * 割り当て量はJVMの実装とJITコンパイルの結果に依存するため、単体テストでは検証せず、
+ * mainメソッドから実行して結果を確認する。
+ * HotSpotの{@code com.sun.management.ThreadMXBean}を使用する。
+ * <pre>
+ * 引数:
+ *     1番目: 計測するログ出力回数(省略時は10000)
+ *     2番目: ウォームアップの繰り返し回数(省略時は20)
+ * </pre>
+ */
+public final class GarbageFreeLoggingBenchmark {
+
+    private static final String FQCN = GarbageFreeLoggingBenchmark.class.getName();
+
+    private GarbageFreeLoggingBenchmark() {
+    }
+
+    /**
+     * 出力日時を含むデフォルトのフォーマットでログを出力し、ウォームアップ後の割り当て量を標準出力に出力する。<br>
+     * 呼び出し元で生成する空の配列がエスケープ解析で除去されるように、ログ出力はJITコンパイルされるメソッドで繰り返す。
+     * @param args 計測するログ出力回数とウォームアップの繰り返し回数
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        LogTestUtil.cleanupLog("/garbage-free-benchmark.log");
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("garbageFree", "true");
+        settings.put("appFile.filePath", "./log/garbage-free-benchmark.log");
+        settings.put("appFile.encoding", "UTF-8");
+        FileLogWriter writer = new FileLogWriter();
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), "appFile"));
+        Logger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer}, true);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        try {
+            for (int i = 0; i < warmup; i++) {
+                logRepeatedly(logger, count);
+            }
+            long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            logRepeatedly(logger, count);
+            long elapsed = System.nanoTime() - start;
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+            System.out.println("count = [" + count + "], allocated bytes = [" + allocated
+                    + "], bytes/log = [" + ((double) allocated / count)
+                    + "], ns/log = [" + ((double) elapsed / count) + "]");
+        } finally {
+            writer.terminate();
+        }
+    }
+
+    /**
+     * オプション情報を指定せずにログを繰り返し出力する。
+     * @param logger ロガー
+     * @param count 出力回数
+     */
+    private static void logRepeatedly(Logger logger, int count) {
+        for (int i = 0; i < count; i++) {
+            logger.logInfo("garbage-free message");
+        }
+    }
+}
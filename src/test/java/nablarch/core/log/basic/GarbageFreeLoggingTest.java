@@ -0,0 +1,186 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.log.LogTestUtil;
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * ガベージフリーモードのテスト。
+ */
+public class GarbageFreeLoggingTest {
+
+    private static final String FQCN = GarbageFreeLoggingTest.class.getName();
+
+    /**
+     * スレッド毎に同じインスタンスが再利用され、使用中の場合は新たに生成されること。
+     */
+    @Test
+    public void testReusableLogContext() {
+        LogContext context = ReusableLogContext.acquire(FQCN, null, LogLevel.INFO, "first", null, null, LogClock.SYSTEM);
+        assertThat(context.getMessage(), is("first"));
+
+        LogContext nested = ReusableLogContext.acquire(FQCN, null, LogLevel.INFO, "nested", null, null, LogClock.SYSTEM);
+        assertThat("使用中のため新たに生成される", nested, not(sameInstance(context)));
+        assertThat(ReusableLogContext.copy(nested), sameInstance(nested));
+        ReusableLogContext.release(nested);
+
+        LogContext copied = ReusableLogContext.copy(context);
+        assertThat(copied, not(sameInstance(context)));
+        ReusableLogContext.release(context);
+        assertThat("解放後もコピーの内容は変わらない", copied.getMessage(), is("first"));
+
+        assertThat(ReusableLogContext.acquire(FQCN, null, LogLevel.INFO, "second", null, null, LogClock.SYSTEM), sameInstance(context));
+        assertThat(context.getMessage(), is("second"));
+        ReusableLogContext.release(context);
+    }
+
+    /**
+     * 書き込み処理の完了後も{@link LogContext}を保持するライタには、再利用しない{@link LogContext}が渡されること。
+     */
+    @Test
+    public void testLogContextRetained() {
+        final List<LogContext> retained = new ArrayList<LogContext>();
+        LogWriterSupport writer = new LogWriterSupport() {
+            @Override
+            public void write(LogContext context) {
+                retained.add(context);
+            }
+
+            @Override
+            protected boolean isLogContextRetained() {
+                return true;
+            }
+
+            @Override
+            protected void onWrite(String formattedMessage) {
+            }
+        };
+        BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer}, true);
+        logger.logInfo("first");
+        logger.logInfo("second");
+
+        assertThat(retained.size(), is(2));
+        assertThat(retained.get(0).getMessage(), is("first"));
+        assertThat(retained.get(1).getMessage(), is("second"));
+    }
+
+    /**
+     * ガベージフリーモードでも通常と同じ内容が出力されること。
+     */
+    @Test
+    public void testOutput() {
+        File logFile = LogTestUtil.cleanupLog("/garbage-free.log");
+        FileLogWriter writer = createWriter("./log/garbage-free.log", "$logLevel$ $loggerName$ $message$$stackTrace$");
+        BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer}, true);
+        try {
+            logger.logInfo("garbage-free info");
+            logger.logDebug("debug");
+            logger.logError("error", new IllegalStateException("garbage-free error"));
+        } finally {
+            writer.terminate();
+        }
+
+        String log = LogTestUtil.getLog(logFile);
+        assertThat(log, containsString("INFO " + FQCN + " garbage-free info" + Logger.LS));
+        assertThat(log, not(containsString("debug")));
+        assertThat(log, containsString("ERROR " + FQCN + " error" + Logger.LS + "Stack Trace Information : "));
+        assertThat(log, containsString("garbage-free error"));
+    }
+
+    /**
+     * スレッド毎に同じバッファが再利用され、使用中の場合は新たに生成されること。
+     */
+    @Test
+    public void testReusableStringBuilder() {
+        StringBuilder sb = ReusableStringBuilder.acquire();
+        sb.append("first");
+
+        StringBuilder nested = ReusableStringBuilder.acquire();
+        assertThat("使用中のため新たに生成される", nested, not(sameInstance(sb)));
+        ReusableStringBuilder.release(nested);
+        assertThat("使用中のバッファは解放されない", ReusableStringBuilder.acquire(), not(sameInstance(sb)));
+        ReusableStringBuilder.release(sb);
+
+        StringBuilder reused = ReusableStringBuilder.acquire();
+        assertThat(reused, sameInstance(sb));
+        assertThat("空にして返される", reused.length(), is(0));
+        reused.ensureCapacity(ReusableStringBuilder.MAX_REUSED_SIZE + 1);
+        ReusableStringBuilder.release(reused);
+
+        StringBuilder replaced = ReusableStringBuilder.acquire();
+        assertThat("拡張されたバッファは保持し続けない", replaced, not(sameInstance(reused)));
+        ReusableStringBuilder.release(replaced);
+        assertThat(ReusableStringBuilder.acquire(), sameInstance(replaced));
+        ReusableStringBuilder.release(replaced);
+    }
+
+    /**
+     * ガベージフリーモードでは、ログ出力毎に同じ{@link LogContext}とバッファが再利用されること。
+     */
+    @Test
+    public void testReuseAcrossLogs() {
+        final List<LogContext> contexts = new ArrayList<LogContext>();
+        final List<CharSequence> buffers = new ArrayList<CharSequence>();
+        final List<String> messages = new ArrayList<String>();
+        LogWriterSupport writer = new LogWriterSupport() {
+            @Override
+            protected void onWrite(LogContext context) {
+                contexts.add(context);
+                super.onWrite(context);
+            }
+
+            @Override
+            protected boolean isReusableBufferWritable() {
+                return true;
+            }
+
+            @Override
+            protected void onWrite(CharSequence formattedMessage) {
+                buffers.add(formattedMessage);
+                messages.add(formattedMessage.toString());
+            }
+
+            @Override
+            protected void onWrite(String formattedMessage) {
+                throw new AssertionError("文字列に変換せずに書き込むこと");
+            }
+        };
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.formatter.format", "$message$");
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), "writer"));
+        BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer}, true);
+        logger.logInfo("first");
+        logger.logInfo("second");
+
+        assertThat(messages.get(0), is("first" + Logger.LS));
+        assertThat(messages.get(1), is("second" + Logger.LS));
+        assertThat(contexts.get(1), sameInstance(contexts.get(0)));
+        assertThat(buffers.get(1), sameInstance(buffers.get(0)));
+    }
+
+    private static FileLogWriter createWriter(String filePath, String format) {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("garbageFree", "true");
+        settings.put("appFile.filePath", filePath);
+        settings.put("appFile.encoding", "UTF-8");
+        if (format != null) {
+            settings.put("appFile.formatter.format", format);
+        }
+        FileLogWriter writer = new FileLogWriter();
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), "appFile"));
+        return writer;
+    }
+}
@@ -3,7 +3,9 @@ package nablarch.core.log.basic;
 import nablarch.core.ThreadContext;
 import nablarch.core.log.LogTestSupport;
 import nablarch.core.log.LogUtil;
+import nablarch.core.log.Logger;
 import nablarch.core.log.MockLogSettings;
+import nablarch.core.text.json.BasicJsonSerializationManager;
 import nablarch.core.text.json.JsonSerializationManager;
 import org.junit.After;
 import org.junit.Before;
@@ -13,6 +15,7 @@ import org.junit.function.ThrowingRunnable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -508,6 +511,246 @@ public class JsonLogFormatterTest extends LogTestSupport {
         )));
     }
 
+    /**
+     * 出力項目に指定した順にメンバーが出力され、payloadのキーが重複した場合はいずれか一つのみが出力されること。
+     */
+    @Test
+    public void testFormatInTargetsOrder() {
+        LogFormatter formatter = new JsonLogFormatter();
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "message,payload,logLevel,loggerName");
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        Map<String, Object> payload1 = new LinkedHashMap<String, Object>();
+        payload1.put("key1", "value1");
+        payload1.put("logLevel", "payloadLevel");
+        Map<String, Object> payload2 = new LinkedHashMap<String, Object>();
+        payload2.put("key1", "duplicated");
+        payload2.put("key2", 2);
+
+        String message = formatter.format(new LogContext(null, LogLevel.INFO, "TestMessage", null, payload1, payload2));
+        assertThat(message, is("{\"message\":\"TestMessage\",\"key1\":\"value1\",\"key2\":2,\"logLevel\":\"INFO\"}"
+                + Logger.LS));
+
+        StringBuilder sb = new StringBuilder("prefix:");
+        formatter.appendTo(new LogContext(null, LogLevel.INFO, "TestMessage", null, payload1, payload2), sb);
+        assertThat(sb.toString(), is("prefix:" + message));
+    }
+
+    /**
+     * 固定の項目が出力項目の後に出力されること。
+     */
+    @Test
+    public void testFormatWithStaticFields() {
+        System.setProperty("nablarch.bootProcess", "APP001");
+        System.setProperty("test.version", "1.0.0");
+        try {
+            LogFormatter formatter = new JsonLogFormatter();
+            Map<String, String> settings = new HashMap<String, String>();
+            settings.put("nablarch.processingSystem", "1");
+            settings.put("formatter.targets", "bootProcess,processingSystem,message,payload");
+            settings.put("formatter.fixedBootProcess", "true");
+            settings.put("formatter.staticFields", "service,version");
+            settings.put("formatter.staticFields.service", "sample-app");
+            settings.put("formatter.staticFields.version", "${test.version}");
+            formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+            System.setProperty("nablarch.bootProcess", "APP002");
+
+            Map<String, Object> payload = new LinkedHashMap<String, Object>();
+            payload.put("service", "duplicated");
+            payload.put("key", "value");
+
+            String message = formatter.format(new LogContext("TestLogger", LogLevel.INFO, "TestMessage", null, payload));
+            assertThat(message, is("{\"bootProcess\":\"APP001\",\"processingSystem\":\"1\",\"message\":\"TestMessage\","
+                    + "\"key\":\"value\",\"service\":\"sample-app\",\"version\":\"1.0.0\"}" + Logger.LS));
+        } finally {
+            System.clearProperty("test.version");
+        }
+    }
+
+    /**
+     * Mapのシリアライザが{@link AppLogMapToJsonSerializer}でない場合も、固定の項目がメンバーとして出力され、
+     * 固定の項目を格納するキーが出力されないこと。
+     */
+    @Test
+    public void testFormatWithStaticFieldsAndOtherManager() {
+        LogFormatter formatter = new JsonLogFormatter() {
+            @Override
+            protected JsonSerializationManager createSerializationManager(ObjectSettings settings) {
+                return new BasicJsonSerializationManager();
+            }
+        };
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "message");
+        settings.put("formatter.staticFields", "service");
+        settings.put("formatter.staticFields.service", "sample-app");
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        String message = formatter.format(new LogContext("TestLogger", LogLevel.INFO, "TestMessage", null));
+        assertThat(message.trim(), isJson(allOf(
+                withJsonPath("$", hasEntry("message", "TestMessage")),
+                withJsonPath("$", hasEntry("service", "sample-app")),
+                withoutJsonPath("$['$staticFields$']"))));
+    }
+
+    /**
+     * 固定の項目のpidに値を指定しない場合は、プロセスIDが出力されること。
+     */
+    @Test
+    public void testFormatWithPidStaticField() {
+        LogFormatter formatter = new JsonLogFormatter();
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "message");
+        settings.put("formatter.staticFields", "pid");
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        String message = formatter.format(new LogContext("TestLogger", LogLevel.INFO, "TestMessage", null));
+        assertThat(message, is("{\"message\":\"TestMessage\",\"pid\":" + ProcessHandle.current().pid() + "}" + Logger.LS));
+    }
+
+    /**
+     * 固定の項目の値が指定されていない場合と、出力項目と重複する場合は例外がスローされること。
+     */
+    @Test
+    public void testFormatWithIllegalStaticFields() {
+        final Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "message");
+        settings.put("formatter.staticFields", "service");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, new ThrowingRunnable() {
+            @Override
+            public void run() {
+                new JsonLogFormatter().initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+            }
+        });
+        assertThat(exception.getMessage(), is("JsonLogFormatter : [service] static field value was not specified."
+                + " property name = [formatter.staticFields.service]"));
+
+        settings.put("formatter.staticFields", "message");
+        exception = assertThrows(IllegalArgumentException.class, new ThrowingRunnable() {
+            @Override
+            public void run() {
+                new JsonLogFormatter().initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+            }
+        });
+        assertThat(exception.getMessage(), is("JsonLogFormatter : [message] is duplicated static field."
+                + " property name = [formatter.staticFields]"));
+    }
+
+    /**
+     * スタックトレースを省略し、行毎の配列として出力できること。
+     */
+    @Test
+    public void testFormatWithStackTraceArray() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "message,stackTrace");
+        settings.put("formatter.stackTrace.format", "array");
+        settings.put("formatter.stackTrace.maxFrames", "2");
+        settings.put("formatter.stackTrace.collapsePackages", "org.container");
+        LogFormatter formatter = new JsonLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        Throwable error = new IllegalStateException("error for test");
+        error.setStackTrace(new StackTraceElement[] {
+                new StackTraceElement("app.Action", "execute", "Action.java", 10),
+                new StackTraceElement("org.container.Filter", "doFilter", "Filter.java", 20),
+                new StackTraceElement("org.container.Chain", "doFilter", "Chain.java", 30),
+                new StackTraceElement("app.Main", "main", "Main.java", 40),
+                new StackTraceElement("app.Main", "run", "Main.java", 50)
+        });
+
+        String message = formatter.format(new LogContext("TestLogger", LogLevel.ERROR, "TestMessage", error));
+        assertThat(message, is("{\"message\":\"TestMessage\",\"stackTrace\":["
+                + "\"java.lang.IllegalStateException: error for test\","
+                + "\"at app.Action.execute(Action.java:10)\","
+                + "\"... 2 framework frames\","
+                + "\"... 2 frames omitted\"]}" + Logger.LS));
+    }
+
+    /**
+     * 不正なスタックトレースの出力形式が指定された場合は例外がスローされること。
+     */
+    @Test
+    public void testFormatWithIllegalStackTraceFormat() {
+        final Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.stackTrace.format", "xml");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, new ThrowingRunnable() {
+            @Override
+            public void run() {
+                new JsonLogFormatter().initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+            }
+        });
+        assertThat(exception.getMessage(), is("JsonLogFormatter : [xml] is unknown stack trace format."
+                + " property name = [formatter.stackTrace.format]"));
+    }
+
+    /**
+     * メッセージと文字列の値の長さの上限を超えた場合に切り詰めること。
+     */
+    @Test
+    public void testFormatWithMaxLength() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "message,payload");
+        settings.put("formatter.maxMessageLength", "5");
+        settings.put("formatter.maxFieldLength", "8");
+        LogFormatter formatter = new JsonLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        Map<String, Object> payload = new HashMap<String, Object>();
+        payload.put("key", "0123456789");
+        payload.put("number", 1234567890123L);
+
+        String message = formatter.format(new LogContext("TestLogger", LogLevel.INFO, "abcdefghij", null, payload));
+        assertThat(message.trim(), isJson(allOf(
+                withJsonPath("$.message", is("abcde...[truncated 5 chars]")),
+                withJsonPath("$.key", is("01234567...[truncated 2 chars]")),
+                withJsonPath("$.number", is(1234567890123L)))));
+    }
+
+    /**
+     * 1件のログの長さの上限を超えるメンバーを出力せず、出力しなかった文字数を出力すること。
+     */
+    @Test
+    public void testFormatWithMaxRecordLength() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "message,payload");
+        settings.put("formatter.maxRecordLength", "70");
+        LogFormatter formatter = new JsonLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        Map<String, Object> payload = new LinkedHashMap<String, Object>();
+        payload.put("key1", "aaaa");
+        payload.put("key2", "bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb");
+        payload.put("key3", "c");
+
+        String message = formatter.format(new LogContext("TestLogger", LogLevel.INFO, "msg", null, payload));
+        assertThat(message, is("{\"message\":\"msg\",\"key1\":\"aaaa\",\"truncated\":\"...[truncated 61 chars]\"}"
+                + Logger.LS));
+
+        payload.remove("key2");
+        message = formatter.format(new LogContext("TestLogger", LogLevel.INFO, "msg", null, payload));
+        assertThat(message, is("{\"message\":\"msg\",\"key1\":\"aaaa\",\"key3\":\"c\"}" + Logger.LS));
+    }
+
+    /**
+     * 長さの上限に数値以外が指定された場合は例外がスローされること。
+     */
+    @Test
+    public void testFormatWithIllegalMaxLength() {
+        final Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.maxFieldLength", "long");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, new ThrowingRunnable() {
+            @Override
+            public void run() {
+                new JsonLogFormatter().initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+            }
+        });
+        assertThat(exception.getMessage(), is("invalid property was specified. 'maxFieldLength'"
+                + " must be able to convert to Integer. value = [long], name = [formatter]"));
+    }
+
     private static class MockFormatErrorSupport implements FormatErrorSupport {
         private final List<String> messageList = new ArrayList<String>();
 
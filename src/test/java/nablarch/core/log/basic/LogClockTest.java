@@ -0,0 +1,81 @@
+package nablarch.core.log.basic;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link LogClock}のテスト。
+ */
+public class LogClockTest {
+
+    private static final String FQCN = LogClockTest.class.getName();
+
+    /**
+     * {@link BasicLogger}に指定した{@link LogClock}の日時が{@link LogContext}に使用されること。
+     */
+    @Test
+    public void testLogContext() {
+        FixedLogClock clock = new FixedLogClock(1234567890123L);
+        final LogContext[] written = new LogContext[2];
+        LogWriter writer = new LogWriter() {
+            @Override
+            public void initialize(ObjectSettings settings) {
+            }
+
+            @Override
+            public void terminate() {
+            }
+
+            @Override
+            public void write(LogContext context) {
+                written[context.getMessage().equals("normal") ? 0 : 1] = context;
+            }
+        };
+
+        new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer}, false, clock).logInfo("normal");
+        assertThat(written[0].getDate().getTime(), is(1234567890123L));
+
+        new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer}, true, clock).logInfo("garbageFree");
+        assertThat(written[1].getDate().getTime(), is(1234567890123L));
+
+        assertTrue("指定しない場合はシステム日時を使用する",
+                   System.currentTimeMillis() - new LogContext(FQCN, LogLevel.INFO, "message", null).getDate().getTime() < 60000);
+    }
+
+    /**
+     * 更新間隔毎に現在日時が更新され、停止後は更新されないこと。
+     */
+    @Test
+    public void testCoarseLogClock() throws Exception {
+        CoarseLogClock clock = new CoarseLogClock(10);
+        long start = clock.currentTimeMillis();
+        clock.start();
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (clock.currentTimeMillis() == start && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue("現在日時が更新される", clock.currentTimeMillis() > start);
+        } finally {
+            clock.stop();
+        }
+        Thread.sleep(50);
+        long stopped = clock.currentTimeMillis();
+        Thread.sleep(50);
+        assertThat(clock.currentTimeMillis(), is(stopped));
+    }
+
+    private static final class FixedLogClock extends LogClock {
+        private long millis;
+        private FixedLogClock(long millis) {
+            this.millis = millis;
+        }
+        @Override
+        public long currentTimeMillis() {
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import nablarch.core.log.app.OnMemoryLogWriter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link LogDeduplicator}のテスト。
+ */
+public class LogDeduplicatorTest {
+
+    private static final String FQCN = LogDeduplicatorTest.class.getName();
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final List<String> repeated = new ArrayList<String>();
+
+    private final LogDeduplicator.RepeatListener listener = new LogDeduplicator.RepeatListener() {
+        @Override
+        public void onRepeated(LogContext context) {
+            repeated.add(context.getLevel() + " " + context.getMessage());
+        }
+    };
+
+    /**
+     * 時間幅内の同一ログが重複と判定され、時間経過後に繰り返し件数が通知されること。
+     */
+    @Test
+    public void testDuplicate() {
+        LogDeduplicator deduplicator = new LogDeduplicator(16, SECOND * 10, 5, 0);
+
+        assertFalse(deduplicator.isDuplicate(new LogContext(FQCN, LogLevel.ERROR, "failed.", null), 0, listener));
+        assertTrue(deduplicator.isDuplicate(new LogContext(FQCN, LogLevel.ERROR, "failed.", null), SECOND, listener));
+        assertTrue(deduplicator.isDuplicate(new LogContext(FQCN, LogLevel.ERROR, "failed.", null), SECOND * 2, listener));
+        assertFalse("レベルが異なる", deduplicator.isDuplicate(new LogContext(FQCN, LogLevel.WARN, "failed.", null), SECOND * 3, listener));
+        assertThat(repeated.size(), is(0));
+
+        assertFalse("時間幅を経過した", deduplicator.isDuplicate(new LogContext(FQCN, LogLevel.ERROR, "failed.", null), SECOND * 11, listener));
+        assertThat(repeated.size(), is(1));
+        assertThat(repeated.get(0), is("ERROR previous message repeated 2 times. message = [failed.]"));
+    }
+
+    /**
+     * 例外の型が異なる場合は重複と判定されないこと。
+     */
+    @Test
+    public void testError() {
+        LogDeduplicator deduplicator = new LogDeduplicator(16, SECOND * 10, 5, 0);
+
+        boolean[] results = new boolean[3];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = deduplicator.isDuplicate(new LogContext(FQCN, LogLevel.ERROR, "failed.", createError(i == 2)), 0, listener);
+        }
+        assertFalse(results[0]);
+        assertTrue(results[1]);
+        assertFalse("例外の型が異なる", results[2]);
+    }
+
+    /**
+     * 例外の型とメッセージが同じでも、発生箇所が異なる場合は重複と判定されないこと。
+     * スタックトレースを判定に使用しない場合は重複と判定されること。
+     */
+    @Test
+    public void testErrorStackFrames() {
+        boolean[] results = isDuplicate(new LogDeduplicator(16, SECOND * 10, 5, 0));
+        assertFalse(results[0]);
+        assertTrue(results[1]);
+        assertFalse("発生箇所が異なる", results[2]);
+
+        results = isDuplicate(new LogDeduplicator(16, SECOND * 10, 0, 0));
+        assertFalse(results[0]);
+        assertTrue(results[1]);
+        assertTrue("スタックトレースを使用しない", results[2]);
+    }
+
+    /**
+     * 繰り返し件数がflushで通知されること。
+     * 通知済みのログは重複と判定されず、繰り返し件数を改めて集計すること。
+     */
+    @Test
+    public void testFlush() {
+        LogDeduplicator deduplicator = new LogDeduplicator(16, SECOND * 10, 5, 0);
+        deduplicator.isDuplicate(new LogContext(FQCN, LogLevel.ERROR, "failed.", null), 0, listener);
+        deduplicator.isDuplicate(new LogContext(FQCN, LogLevel.ERROR, "failed.", null), 0, listener);
+
+        deduplicator.flush(listener);
+        deduplicator.flush(listener);
+        assertThat(repeated.size(), is(1));
+        assertThat(repeated.get(0), is("ERROR previous message repeated 1 times. message = [failed.]"));
+
+        assertFalse(deduplicator.isDuplicate(new LogContext(FQCN, LogLevel.ERROR, "failed.", null), 0, listener));
+        assertTrue(deduplicator.isDuplicate(new LogContext(FQCN, LogLevel.ERROR, "failed.", null), 0, listener));
+        deduplicator.flush(listener);
+        assertThat(repeated.size(), is(2));
+        assertThat(repeated.get(1), is("ERROR previous message repeated 1 times. message = [failed.]"));
+    }
+
+    /**
+     * ガベージフリーモードで再利用される{@link LogContext}が書き換えられても、判定と通知に影響しないこと。
+     */
+    @Test
+    public void testReusableLogContext() {
+        LogDeduplicator deduplicator = new LogDeduplicator(16, SECOND * 10, 5, 0);
+        LogContext context = ReusableLogContext.acquire(FQCN, null, LogLevel.ERROR, "failed.", null, null, LogClock.SYSTEM);
+        try {
+            assertFalse(deduplicator.isDuplicate(context, 0, listener));
+        } finally {
+            ReusableLogContext.release(context);
+        }
+        context = ReusableLogContext.acquire(FQCN, null, LogLevel.ERROR, "failed.", null, null, LogClock.SYSTEM);
+        try {
+            assertTrue(deduplicator.isDuplicate(context, 0, listener));
+        } finally {
+            ReusableLogContext.release(context);
+        }
+        deduplicator.flush(listener);
+        assertThat(repeated.get(0), is("ERROR previous message repeated 1 times. message = [failed.]"));
+    }
+
+    /**
+     * 時間幅の指定がない場合は生成されないこと。
+     */
+    @Test
+    public void testCreate() {
+        Map<String, String> settings = new HashMap<String, String>();
+        assertThat(LogDeduplicator.create(new ObjectSettings(new MockLogSettings(settings), "writer.test")), nullValue());
+
+        settings.put("writer.test.dedupe.window", "5");
+        assertThat(LogDeduplicator.create(new ObjectSettings(new MockLogSettings(settings), "writer.test")), notNullValue());
+    }
+
+    /**
+     * {@link LogWriterSupport}で重複したログが抑止され、終了時に繰り返し件数が出力されること。
+     */
+    @Test
+    public void testLogWriterSupport() {
+        OnMemoryLogWriter.clear();
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.dedupe.formatter.format", "$logLevel$ $message$");
+        settings.put("writer.dedupe.dedupe.window", "60");
+
+        LogWriter writer = new OnMemoryLogWriter();
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), "writer.dedupe"));
+        try {
+            for (int i = 0; i < 100; i++) {
+                writer.write(new LogContext(FQCN, LogLevel.ERROR, "connection refused.", null));
+            }
+        } finally {
+            writer.terminate();
+        }
+
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.dedupe");
+        assertThat(messages.size(), is(3));
+        assertThat(messages.get(0), is("ERROR connection refused." + Logger.LS));
+        assertThat(messages.get(1), is("ERROR previous message repeated 99 times. message = [connection refused.]" + Logger.LS));
+        assertThat(messages.get(2), is("@@@END@@@"));
+    }
+
+    private static Exception createError(boolean runtime) {
+        return runtime ? new IllegalStateException("error") : new Exception("error");
+    }
+
+    private boolean[] isDuplicate(LogDeduplicator deduplicator) {
+        boolean[] results = new boolean[3];
+        for (int i = 0; i < results.length; i++) {
+            NullPointerException error = i < 2 ? throwFirst() : throwSecond();
+            results[i] = deduplicator.isDuplicate(new LogContext(FQCN, LogLevel.ERROR, "failed.", error), 0, listener);
+        }
+        return results;
+    }
+
+    private static NullPointerException throwFirst() {
+        try {
+            Object o = null;
+            o.hashCode();
+            return null;
+        } catch (NullPointerException e) {
+            return e;
+        }
+    }
+
+    private static NullPointerException throwSecond() {
+        return new NullPointerException();
+    }
+}
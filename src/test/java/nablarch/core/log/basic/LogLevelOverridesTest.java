@@ -0,0 +1,145 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.ThreadContext;
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import nablarch.core.log.app.OnMemoryLogWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link LogLevelOverrides}のテスト。
+ */
+public class LogLevelOverridesTest {
+
+    private static final String FQCN = LogLevelOverridesTest.class.getName();
+
+    private LogWriter writer;
+
+    private Logger logger;
+
+    @Before
+    public void setUp() {
+        LogLevelOverrides.clear();
+        OnMemoryLogWriter.clear();
+        ThreadContext.clear();
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.override.level", "INFO");
+        settings.put("writer.override.formatter.format", "$logLevel$ $message$");
+        writer = new OnMemoryLogWriter();
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), "writer.override"));
+
+        logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer});
+    }
+
+    @After
+    public void tearDown() {
+        LogLevelOverrides.clear();
+        ThreadContext.clear();
+        writer.terminate();
+    }
+
+    /**
+     * エントリが登録されていない場合は、設定されたログレベルで出力制御されること。
+     */
+    @Test
+    public void testNoEntry() {
+        ThreadContext.setRequestId("REQ001");
+
+        assertFalse(logger.isDebugEnabled());
+        logger.logDebug("debug");
+        logger.logInfo("info");
+
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.override");
+        assertThat(messages.size(), is(1));
+        assertThat(messages.get(0), is("INFO info" + Logger.LS));
+    }
+
+    /**
+     * リクエストIDに一致する場合のみ、ログレベルが引き下げられること。
+     */
+    @Test
+    public void testRequestId() {
+        LogLevelOverrides.putRequestId("REQ001", LogLevel.DEBUG);
+
+        ThreadContext.setRequestId("REQ002");
+        assertFalse(logger.isDebugEnabled());
+        logger.logDebug("not target");
+
+        ThreadContext.setRequestId("REQ001");
+        assertTrue(logger.isDebugEnabled());
+        assertFalse(logger.isTraceEnabled());
+        logger.logDebug("target");
+        logger.logTrace("trace");
+
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.override");
+        assertThat(messages.size(), is(1));
+        assertThat(messages.get(0), is("DEBUG target" + Logger.LS));
+    }
+
+    /**
+     * ユーザIDと実行時IDに一致する場合に、ログレベルが引き下げられること。
+     */
+    @Test
+    public void testUserIdAndExecutionId() {
+        LogLevelOverrides.putUserId("user01", LogLevel.DEBUG);
+        LogLevelOverrides.putExecutionId("EXE01", LogLevel.TRACE);
+
+        ThreadContext.setUserId("user01");
+        assertTrue(logger.isDebugEnabled());
+        assertFalse(logger.isTraceEnabled());
+
+        ThreadContext.setExecutionId("EXE01");
+        assertTrue(logger.isTraceEnabled());
+        logger.logTrace("trace");
+
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.override");
+        assertThat(messages.size(), is(1));
+        assertThat(messages.get(0), is("TRACE trace" + Logger.LS));
+    }
+
+    /**
+     * エントリを削除すると、設定されたログレベルに戻ること。
+     */
+    @Test
+    public void testRemove() {
+        ThreadContext.setRequestId("REQ001");
+        ThreadContext.setUserId("user01");
+        ThreadContext.setExecutionId("EXE01");
+
+        LogLevelOverrides.putRequestId("REQ001", LogLevel.DEBUG);
+        LogLevelOverrides.removeRequestId("REQ001");
+        assertFalse(logger.isDebugEnabled());
+
+        LogLevelOverrides.putUserId("user01", LogLevel.DEBUG);
+        LogLevelOverrides.removeUserId("user01");
+        assertFalse(logger.isDebugEnabled());
+
+        LogLevelOverrides.putExecutionId("EXE01", LogLevel.DEBUG);
+        LogLevelOverrides.removeExecutionId("EXE01");
+        assertFalse(logger.isDebugEnabled());
+
+        LogLevelOverrides.putRequestId("REQ001", LogLevel.DEBUG);
+        LogLevelOverrides.clear();
+        assertFalse(logger.isDebugEnabled());
+    }
+
+    /**
+     * キーまたはレベルにnullを指定した場合は例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullLevel() {
+        LogLevelOverrides.putRequestId("REQ001", null);
+    }
+}
@@ -0,0 +1,202 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import nablarch.core.log.app.OnMemoryLogWriter;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link LogRateLimiter}のテスト。
+ */
+public class LogRateLimiterTest {
+
+    private static final String FQCN = LogRateLimiterTest.class.getName();
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 1秒あたりの上限件数とバースト件数で出力が制限されること。
+     */
+    @Test
+    public void testRateLimit() {
+        LogRateLimiter limiter = new LogRateLimiter(2, 3, new LogLevel[0], 1, SECOND * 60, null, 0);
+
+        assertTrue(limiter.tryAcquire(LogLevel.WARN, 0));
+        assertTrue(limiter.tryAcquire(LogLevel.WARN, 0));
+        assertTrue(limiter.tryAcquire(LogLevel.WARN, 0));
+        assertFalse("バースト件数を超えたので出力できない", limiter.tryAcquire(LogLevel.WARN, 0));
+
+        assertTrue("0.5秒経過したので1件出力できる", limiter.tryAcquire(LogLevel.WARN, SECOND / 2));
+        assertFalse(limiter.tryAcquire(LogLevel.WARN, SECOND / 2));
+
+        assertTrue(limiter.tryAcquire(LogLevel.WARN, SECOND * 10));
+    }
+
+    /**
+     * 指定したレベルのみN件に1件サンプリングされること。
+     */
+    @Test
+    public void testSampling() {
+        LogRateLimiter limiter = new LogRateLimiter(0, 0, new LogLevel[] {LogLevel.DEBUG}, 3, SECOND * 60, null, 0);
+
+        int debugCount = 0;
+        int infoCount = 0;
+        for (int i = 0; i < 9; i++) {
+            if (limiter.tryAcquire(LogLevel.DEBUG, 0)) {
+                debugCount++;
+            }
+            if (limiter.tryAcquire(LogLevel.INFO, 0)) {
+                infoCount++;
+            }
+        }
+        assertThat(debugCount, is(3));
+        assertThat(infoCount, is(9));
+    }
+
+    /**
+     * 出力間隔に達した場合のみレベル毎の抑止件数が取得でき、取得後はリセットされること。
+     */
+    @Test
+    public void testPollSuppressedCounts() {
+        LogRateLimiter limiter = new LogRateLimiter(0, 0, new LogLevel[] {LogLevel.DEBUG, LogLevel.TRACE}, 2, SECOND * 10, null, 0);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(LogLevel.DEBUG, 0);
+        }
+        limiter.tryAcquire(LogLevel.TRACE, 0);
+        limiter.tryAcquire(LogLevel.TRACE, 0);
+
+        assertThat(limiter.pollSuppressedCounts(SECOND), nullValue());
+        long[] counts = limiter.pollSuppressedCounts(SECOND * 10);
+        assertThat(counts[LogLevel.DEBUG.ordinal()], is(5L));
+        assertThat(counts[LogLevel.TRACE.ordinal()], is(1L));
+        assertThat(counts[LogLevel.INFO.ordinal()], is(0L));
+        assertThat("次の出力間隔に達していない", limiter.pollSuppressedCounts(SECOND * 11), nullValue());
+
+        limiter.tryAcquire(LogLevel.DEBUG, SECOND * 12);
+        limiter.tryAcquire(LogLevel.DEBUG, SECOND * 12);
+        assertThat(limiter.pollSuppressedCounts(SECOND * 20)[LogLevel.DEBUG.ordinal()], is(1L));
+        assertThat("抑止件数がない", limiter.pollSuppressedCounts(SECOND * 30), nullValue());
+    }
+
+    /**
+     * 出力間隔に関わらず、残りの抑止件数が取得できること。
+     */
+    @Test
+    public void testDrainSuppressedCounts() {
+        LogRateLimiter limiter = new LogRateLimiter(0, 0, new LogLevel[] {LogLevel.DEBUG}, 2, SECOND * 60, null, 0);
+        assertThat(limiter.drainSuppressedCounts(), nullValue());
+
+        limiter.tryAcquire(LogLevel.DEBUG, 0);
+        limiter.tryAcquire(LogLevel.DEBUG, 0);
+        assertThat(limiter.drainSuppressedCounts()[LogLevel.DEBUG.ordinal()], is(1L));
+        assertThat("取得後はリセットされる", limiter.drainSuppressedCounts(), nullValue());
+    }
+
+    /**
+     * 制限の設定がない場合は生成されないこと。
+     */
+    @Test
+    public void testCreate() {
+        Map<String, String> settings = new HashMap<String, String>();
+        assertThat(LogRateLimiter.create(new ObjectSettings(new MockLogSettings(settings), "writer.test")), nullValue());
+
+        settings.put("writer.test.sampling.rate", "10");
+        assertThat("サンプリング対象のレベルがない", LogRateLimiter.create(new ObjectSettings(new MockLogSettings(settings), "writer.test")), nullValue());
+
+        settings.put("writer.test.sampling.levels", "DEBUG, TRACE");
+        assertThat(LogRateLimiter.create(new ObjectSettings(new MockLogSettings(settings), "writer.test")), notNullValue());
+
+        settings.clear();
+        settings.put("writer.test.rateLimit.permitsPerSecond", "100");
+        assertThat(LogRateLimiter.create(new ObjectSettings(new MockLogSettings(settings), "writer.test")), notNullValue());
+    }
+
+    /**
+     * 数値に変換できない値が指定された場合は例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidNumber() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.test.rateLimit.permitsPerSecond", "many");
+        LogRateLimiter.create(new ObjectSettings(new MockLogSettings(settings), "writer.test"));
+    }
+
+    /**
+     * {@link LogWriterSupport}でサンプリングされ、抑止件数が出力されること。
+     */
+    @Test
+    public void testLogWriterSupport() throws Exception {
+        OnMemoryLogWriter.clear();
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.sampling.formatter.format", "$logLevel$ $message$");
+        settings.put("writer.sampling.sampling.levels", "DEBUG");
+        settings.put("writer.sampling.sampling.rate", "4");
+        settings.put("writer.sampling.suppressedSummaryInterval", "0");
+
+        LogWriter writer = new OnMemoryLogWriter();
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), "writer.sampling"));
+        try {
+            for (int i = 0; i < 8; i++) {
+                writer.write(new LogContext(FQCN, LogLevel.DEBUG, "debug" + i, null));
+            }
+        } finally {
+            writer.terminate();
+        }
+
+        // 出力間隔が0秒のため、抑止されたログの直後の書き込み毎に抑止件数が抑止したログと同じレベルで出力される。
+        // 最後に抑止されたログの件数は終了時に出力される。
+        String summary = "DEBUG suppressed 1 log records by rate limit or sampling. writer name = [writer.sampling]" + Logger.LS;
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.sampling");
+        assertThat(messages.size(), is(9));
+        assertThat(messages.get(0), is("DEBUG debug0" + Logger.LS));
+        assertThat(messages.get(1), is(summary));
+        assertThat(messages.get(2), is(summary));
+        assertThat(messages.get(3), is(summary));
+        assertThat(messages.get(4), is("DEBUG debug4" + Logger.LS));
+        assertThat(messages.get(5), is(summary));
+        assertThat(messages.get(6), is(summary));
+        assertThat(messages.get(7), is(summary));
+        assertThat(messages.get(8), is("@@@END@@@"));
+    }
+
+    /**
+     * 抑止件数を出力するレベルを指定した場合は、全レベルの合計件数がそのレベルで終了時に出力されること。
+     */
+    @Test
+    public void testSummaryLevel() throws Exception {
+        OnMemoryLogWriter.clear();
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.summary.formatter.format", "$logLevel$ $message$");
+        settings.put("writer.summary.sampling.levels", "DEBUG,TRACE");
+        settings.put("writer.summary.sampling.rate", "2");
+        settings.put("writer.summary.suppressedSummaryLevel", "INFO");
+
+        LogWriter writer = new OnMemoryLogWriter();
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), "writer.summary"));
+        try {
+            for (int i = 0; i < 4; i++) {
+                writer.write(new LogContext(FQCN, LogLevel.DEBUG, "debug" + i, null));
+                writer.write(new LogContext(FQCN, LogLevel.TRACE, "trace" + i, null));
+            }
+        } finally {
+            writer.terminate();
+        }
+
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.summary");
+        assertThat(messages.size(), is(6));
+        assertThat(messages.get(4), is("INFO suppressed 4 log records by rate limit or sampling. writer name = [writer.summary]" + Logger.LS));
+        assertThat(messages.get(5), is("@@@END@@@"));
+    }
+}
@@ -0,0 +1,91 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.log.LogItem;
+import nablarch.core.log.LogUtil;
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link LogTemplate}のテスト。
+ */
+public class LogTemplateTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty("nablarch.bootProcess");
+    }
+
+    /**
+     * 固定文字列と出力毎に値が変わらないログ出力項目が1つの固定文字列に連結されること。
+     */
+    @Test
+    public void testCompile() {
+        Map<String, LogItem<LogContext>> logItems = new HashMap<String, LogItem<LogContext>>();
+        logItems.put("$processingSystem$", new BasicLogFormatter.ProcessingSystemItem("1"));
+        logItems.put("$message$", new BasicLogFormatter.MessageItem());
+        Set<LogItem<LogContext>> variableItems = Collections.newSetFromMap(new IdentityHashMap<LogItem<LogContext>, Boolean>());
+        variableItems.add(logItems.get("$message$"));
+
+        LogTemplate<LogContext> template = LogTemplate.compile(
+                LogUtil.createFormattedLogItems(logItems, "proc_sys = [$processingSystem$] msg = [$message$]"), variableItems);
+
+        assertThat("固定文字列、メッセージ、固定文字列の3項目となる", template.size(), is(3));
+        StringBuilder sb = new StringBuilder();
+        template.appendTo(new LogContext("root", LogLevel.INFO, "hello", null), sb);
+        assertThat(sb.toString(), is("proc_sys = [1] msg = [hello]"));
+    }
+
+    /**
+     * 起動プロセスが変わらないことを指定した場合のみ、初期処理の時点の起動プロセスが埋め込まれること。
+     */
+    @Test
+    public void testFixedBootProcess() {
+        System.setProperty("nablarch.bootProcess", "BEFORE");
+        LogFormatter fixed = createFormatter("true");
+        LogFormatter notFixed = createFormatter(null);
+        System.setProperty("nablarch.bootProcess", "AFTER");
+
+        LogContext context = new LogContext("root", LogLevel.INFO, "msg", null);
+        assertThat(fixed.format(context), is("[BEFORE] [1] msg" + Logger.LS));
+        assertThat(notFixed.format(context), is("[AFTER] [1] msg" + Logger.LS));
+    }
+
+    /**
+     * 出力したログの長さの移動平均が算出されること。
+     */
+    @Test
+    public void testEstimatedLength() {
+        LogTemplate<LogContext> template = LogTemplate.compile(
+                LogUtil.createFormattedLogItems(new HashMap<String, LogItem<LogContext>>(), "fixed"),
+                Collections.<LogItem<LogContext>>emptySet());
+        assertThat(template.getEstimatedLength(), is(512));
+        for (int i = 0; i < 200; i++) {
+            template.recordLength(100);
+        }
+        assertThat(template.getEstimatedLength() < 120, is(true));
+        assertThat(template.getEstimatedLength() >= 100, is(true));
+    }
+
+    private static LogFormatter createFormatter(String fixedBootProcess) {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("nablarch.processingSystem", "1");
+        settings.put("formatter.format", "[$bootProcess$] [$processingSystem$] $message$");
+        if (fixedBootProcess != null) {
+            settings.put("formatter.fixedBootProcess", fixedBootProcess);
+        }
+        LogFormatter formatter = new BasicLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+        return formatter;
+    }
+}
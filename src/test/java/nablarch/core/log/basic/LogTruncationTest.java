@@ -0,0 +1,68 @@
+package nablarch.core.log.basic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * {@link LogTruncation}のテスト。
+ */
+public class LogTruncationTest {
+
+    /**
+     * 入れ子のMapとList、配列に含まれる文字列と、文字列に変換して出力する値を切り詰めること。
+     * 切り詰める値を含まない場合は、複製せずに指定された値を返すこと。
+     */
+    @Test
+    public void testTruncateValue() {
+        List<Object> list = new ArrayList<Object>();
+        list.add("short");
+        list.add("0123456789");
+        Map<String, Object> nested = new LinkedHashMap<String, Object>();
+        nested.put("list", list);
+        nested.put("array", new Object[] {new StringBuilder("abcdefghij"), 12345678901L});
+        nested.put("object", new Object() {
+            @Override
+            public String toString() {
+                return "objectValue";
+            }
+        });
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("nested", nested);
+        map.put("value", "abc");
+
+        Map<?, ?> truncated = (Map<?, ?>) LogTruncation.truncateValue(map, 5);
+        Map<?, ?> truncatedNested = (Map<?, ?>) truncated.get("nested");
+        assertThat(truncatedNested.get("list").toString(), is("[short, 01234...[truncated 5 chars]]"));
+        Object[] array = (Object[]) truncatedNested.get("array");
+        assertThat((String) array[0], is("abcde...[truncated 5 chars]"));
+        assertThat((Long) array[1], is(12345678901L));
+        assertThat((String) truncatedNested.get("object"), is("objec...[truncated 6 chars]"));
+        assertThat((String) truncated.get("value"), is("abc"));
+        assertThat("元の値は変更しないこと", (String) list.get(1), is("0123456789"));
+
+        assertThat(LogTruncation.truncateValue(map, 20), sameInstance((Object) map));
+        assertThat(LogTruncation.truncateValue(map, LogTruncation.UNLIMITED), sameInstance((Object) map));
+    }
+
+    /**
+     * 出力を打ち切った場合は、切り詰めた文字数が不明であることを示す文字列を付与すること。
+     */
+    @Test
+    public void testTruncateIncomplete() {
+        StringBuilder sb = new StringBuilder("prefix:0123456789");
+        LogTruncation.truncate(sb, 7, 5, false);
+        assertThat(sb.toString(), is("prefix:01234...[truncated]"));
+
+        sb = new StringBuilder("prefix:0123456789");
+        LogTruncation.truncate(sb, 7, 5, true);
+        assertThat(sb.toString(), is("prefix:01234...[truncated 5 chars]"));
+    }
+}
@@ -5,7 +5,9 @@ import nablarch.core.log.MockLogSettings;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertTrue;
@@ -156,4 +158,130 @@ public class LogWriterSupportTest {
         assertTrue(appLog.indexOf("[[[DEBUG]]]") == -1);
         assertTrue(appLog.indexOf("[[[TRACE]]]") == -1);
     }
+
+    /**
+     * フォーマッタのサブクラスでformatメソッドがオーバーライドされている場合は、そのオーバーライドが使用されること。
+     */
+    @Test
+    public void testOverriddenFormat() {
+
+        File appFile = LogTestUtil.cleanupLog("/overridden-format-app.log");
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("appFile.filePath", "./log/overridden-format-app.log");
+        settings.put("appFile.encoding", "UTF-8");
+        settings.put("appFile.level", "ERROR");
+        settings.put("appFile.formatter.className", UpperCaseLogFormatter.class.getName());
+        settings.put("appFile.formatter.format", "$logLevel$ $message$");
+
+        FileLogWriter writer = new FileLogWriter();
+        try {
+            writer.initialize(new ObjectSettings(new MockLogSettings(settings), "appFile"));
+            writer.write(new LogContext(FQCN, LogLevel.ERROR, "[[[error message]]]", null));
+        } finally {
+            writer.terminate();
+        }
+
+        String appLog = LogTestUtil.getLog(appFile);
+        assertTrue(appLog.indexOf("ERROR [[[ERROR MESSAGE]]]") != -1);
+        assertTrue(appLog.indexOf("[[[error message]]]") == -1);
+    }
+
+    /**
+     * ライタのサブクラスでonWrite(String)メソッドがオーバーライドされている場合は、そのオーバーライドが使用されること。
+     */
+    @Test
+    public void testOverriddenOnWrite() {
+
+        LogTestUtil.cleanupLog("/overridden-on-write-app.log");
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("appFile.filePath", "./log/overridden-on-write-app.log");
+        settings.put("appFile.encoding", "UTF-8");
+        settings.put("appFile.level", "ERROR");
+        settings.put("appFile.formatter.format", "$logLevel$ $message$");
+
+        RecordingFileLogWriter writer = new RecordingFileLogWriter();
+        try {
+            writer.initialize(new ObjectSettings(new MockLogSettings(settings), "appFile"));
+            writer.write(new LogContext(FQCN, LogLevel.ERROR, "[[[first]]]", null));
+            writer.write(new LogContext(FQCN, LogLevel.FATAL, "[[[second]]]", null));
+        } finally {
+            writer.terminate();
+        }
+
+        assertTrue(writer.messages.size() == 2);
+        assertTrue(writer.messages.get(0).indexOf("ERROR [[[first]]]") != -1);
+        assertTrue(writer.messages.get(1).indexOf("FATAL [[[second]]]") != -1);
+    }
+
+    /**
+     * ライタのサブクラスでバッファからの書き込みを指定した場合は、onWrite(CharSequence)メソッドが使用されること。
+     */
+    @Test
+    public void testReusableBufferWritableSubclass() {
+
+        File appFile = LogTestUtil.cleanupLog("/reusable-buffer-writable-app.log");
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("appFile.filePath", "./log/reusable-buffer-writable-app.log");
+        settings.put("appFile.encoding", "UTF-8");
+        settings.put("appFile.level", "ERROR");
+        settings.put("appFile.formatter.format", "$logLevel$ $message$");
+
+        BufferRecordingFileLogWriter writer = new BufferRecordingFileLogWriter();
+        try {
+            writer.initialize(new ObjectSettings(new MockLogSettings(settings), "appFile"));
+            writer.write(new LogContext(FQCN, LogLevel.ERROR, "[[[buffer]]]", null));
+        } finally {
+            writer.terminate();
+        }
+
+        assertTrue(writer.messages.size() == 1);
+        assertTrue(writer.messages.get(0).indexOf("ERROR [[[buffer]]]") != -1);
+        assertTrue(LogTestUtil.getLog(appFile).indexOf("ERROR [[[buffer]]]") != -1);
+    }
+
+    /**
+     * メッセージを大文字に変換するフォーマッタ。
+     */
+    public static class UpperCaseLogFormatter extends BasicLogFormatter {
+        @Override
+        public String format(LogContext context) {
+            return super.format(context).toUpperCase();
+        }
+    }
+
+    /**
+     * 書き込んだログを保持するライタ。
+     */
+    private static class RecordingFileLogWriter extends FileLogWriter {
+
+        private final List<String> messages = new ArrayList<String>();
+
+        @Override
+        protected void onWrite(String formattedMessage) {
+            messages.add(formattedMessage);
+            super.onWrite(formattedMessage);
+        }
+    }
+
+    /**
+     * バッファから書き込んだログを保持するライタ。
+     */
+    private static class BufferRecordingFileLogWriter extends FileLogWriter {
+
+        private final List<String> messages = new ArrayList<String>();
+
+        @Override
+        protected boolean isReusableBufferWritable() {
+            return true;
+        }
+
+        @Override
+        protected void onWrite(CharSequence formattedMessage) {
+            messages.add(formattedMessage.toString());
+            super.onWrite(formattedMessage);
+        }
+    }
 }
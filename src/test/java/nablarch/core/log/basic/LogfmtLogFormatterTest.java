@@ -0,0 +1,188 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.ThreadContext;
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link LogfmtLogFormatter}のテスト。
+ */
+public class LogfmtLogFormatterTest {
+
+    @Before
+    public void setUp() {
+        ThreadContext.clear();
+    }
+
+    @After
+    public void tearDown() {
+        ThreadContext.clear();
+    }
+
+    /**
+     * デフォルトの出力項目でフォーマットできること。
+     */
+    @Test
+    public void testFormatWithDefaultTargets() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("nablarch.processingSystem", "1");
+        LogFormatter formatter = createFormatter(settings);
+
+        ThreadContext.setUserId("0000000001");
+        ThreadContext.setRequestId("USERS00302");
+        ThreadContext.setExecutionId("EXE001");
+        String message = formatter.format(new LogContext("TestLogger", "RuntimeLogger", LogLevel.INFO, "TestMessage", null));
+
+        assertTrue(message, message.matches("date=\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}\\S+"
+                + " logLevel=INFO loggerName=TestLogger runtimeLoggerName=RuntimeLogger executionId=EXE001"
+                + "( bootProcess=\\S+)? processingSystem=1 requestId=USERS00302 userId=0000000001"
+                + " message=TestMessage" + Logger.LS));
+    }
+
+    /**
+     * 値はスペースなどを含む場合のみ引用符で囲み、エスケープすること。
+     */
+    @Test
+    public void testFormatWithQuote() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "logLevel,message");
+        settings.put("formatter.label.warn", "WARNING LEVEL");
+        LogFormatter formatter = createFormatter(settings);
+
+        assertThat(formatter.format(new LogContext("TestLogger", LogLevel.INFO, "C:\\temp\\a.txt", null)),
+                   is("logLevel=INFO message=C:\\temp\\a.txt" + Logger.LS));
+        assertThat(formatter.format(new LogContext("TestLogger", LogLevel.WARN, "say \"a=b\"\r\n\tend\u0001", null)),
+                   is("logLevel=\"WARNING LEVEL\" message=\"say \\\"a=b\\\"\\r\\n\\tend\\u0001\"" + Logger.LS));
+        assertThat("値が空の項目は出力しないこと",
+                   formatter.format(new LogContext("TestLogger", LogLevel.INFO, null, null)),
+                   is("logLevel=INFO" + Logger.LS));
+    }
+
+    /**
+     * 日時パターンを指定でき、引用符で囲む必要がある場合は囲むこと。
+     */
+    @Test
+    public void testFormatWithDatePattern() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "date,message");
+        settings.put("formatter.datePattern", "yyyy-MM-dd HH:mm:ss");
+        LogFormatter formatter = createFormatter(settings);
+
+        String message = formatter.format(new LogContext("TestLogger", LogLevel.INFO, "msg", null));
+        assertTrue(message, message.matches("date=\"\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\" message=msg" + Logger.LS));
+    }
+
+    /**
+     * オプション情報に指定されたMapのエントリを項目として出力できること。
+     */
+    @Test
+    public void testFormatWithPayload() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "message,payload");
+        MockFormatErrorSupport errorSupport = new MockFormatErrorSupport();
+        LogFormatter formatter = new MockLogfmtLogFormatter(errorSupport);
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+
+        Map<String, Object> payload = new LinkedHashMap<String, Object>();
+        payload.put("count", 10);
+        payload.put("flag", true);
+        payload.put("my key", "a b");
+        payload.put("message", "duplicated");
+        payload.put("none", null);
+        payload.put("", "empty");
+        Map<Object, Object> other = new LinkedHashMap<Object, Object>();
+        other.put("count", 20);
+        other.put("status", "OK");
+        other.put(1, "illegal");
+
+        String message = formatter.format(new LogContext("TestLogger", LogLevel.INFO, "msg", null, payload, other, "text"));
+        assertThat(message, is("message=msg count=10 flag=true my_key=\"a b\" status=OK" + Logger.LS));
+        assertThat(errorSupport.messageList.size(), is(2));
+        assertThat(errorSupport.messageList.get(0), is("illegal type in keys : 1"));
+        assertThat(errorSupport.messageList.get(1), is("objects in options must be Map<String, Object>. : [text]"));
+    }
+
+    /**
+     * スタックトレースを改行をエスケープした1つの値として出力できること。
+     */
+    @Test
+    public void testFormatWithStackTrace() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "message,stackTrace");
+        settings.put("formatter.stackTrace.maxFrames", "1");
+        LogFormatter formatter = createFormatter(settings);
+
+        Throwable error = new IllegalStateException("error for test");
+        error.setStackTrace(new StackTraceElement[] {
+                new StackTraceElement("app.Action", "execute", "Action.java", 10),
+                new StackTraceElement("app.Main", "main", "Main.java", 20)
+        });
+
+        String message = formatter.format(new LogContext("TestLogger", LogLevel.ERROR, "failed", error));
+        String ls = Logger.LS.replace("\r", "\\r").replace("\n", "\\n");
+        assertThat(message, is("message=failed stackTrace=\"java.lang.IllegalStateException: error for test" + ls
+                + "\\tat app.Action.execute(Action.java:10)" + ls
+                + "\\t... 1 frames omitted\"" + Logger.LS));
+        assertThat("エラー情報がない場合は出力しないこと",
+                   formatter.format(new LogContext("TestLogger", LogLevel.ERROR, "failed", null)),
+                   is("message=failed" + Logger.LS));
+    }
+
+    /**
+     * 不明な出力項目が指定された場合は例外がスローされること。
+     */
+    @Test
+    public void testUnknownTarget() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "message,unknown");
+        try {
+            createFormatter(settings);
+            fail("不明な出力項目の場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("LogfmtLogFormatter : [unknown] is unknown target."
+                    + " property name = [formatter.targets]"));
+        }
+    }
+
+    private static LogFormatter createFormatter(Map<String, String> settings) {
+        LogFormatter formatter = new LogfmtLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+        return formatter;
+    }
+
+    private static class MockLogfmtLogFormatter extends LogfmtLogFormatter {
+        private final FormatErrorSupport errorSupport;
+
+        MockLogfmtLogFormatter(FormatErrorSupport errorSupport) {
+            this.errorSupport = errorSupport;
+        }
+
+        @Override
+        protected FormatErrorSupport createFormatErrorSupport() {
+            return errorSupport;
+        }
+    }
+
+    private static class MockFormatErrorSupport implements FormatErrorSupport {
+        private final List<String> messageList = new ArrayList<String>();
+
+        @Override
+        public void outputFormatError(String message) {
+            this.messageList.add(message);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import nablarch.core.log.app.OnMemoryLogWriter;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link ParameterizedLogContext}のテスト。
+ */
+public class ParameterizedLogContextTest {
+
+    private static final String FQCN = ParameterizedLogContextTest.class.getName();
+
+    /**
+     * プレースホルダに引数が埋め込まれること。
+     */
+    @Test
+    public void testGetMessage() {
+        assertThat(new ParameterizedLogContext(FQCN, null, LogLevel.INFO, "user {} logged in.", 1, "taro", null, null).getMessage(),
+                   is("user taro logged in."));
+        assertThat(new ParameterizedLogContext(FQCN, null, LogLevel.INFO, "{}-{}-{}", 3, 1, null, 3L).getMessage(),
+                   is("1-null-3"));
+        assertThat(new ParameterizedLogContext(FQCN, null, LogLevel.INFO, "{}{}{}{}", new Object[] {"a", "b", "c", "d"}).getMessage(),
+                   is("abcd"));
+    }
+
+    /**
+     * プレースホルダと引数の数が一致しない場合に、余ったプレースホルダはそのまま出力され、余った引数は無視されること。
+     */
+    @Test
+    public void testGetMessageMismatch() {
+        assertThat(new ParameterizedLogContext(FQCN, null, LogLevel.INFO, "{} and {}", 1, "a", null, null).getMessage(),
+                   is("a and {}"));
+        assertThat(new ParameterizedLogContext(FQCN, null, LogLevel.INFO, "{} only", 2, "a", "b", null).getMessage(),
+                   is("a only"));
+        assertThat(new ParameterizedLogContext(FQCN, null, LogLevel.INFO, "no placeholder", 1, "a", null, null).getMessage(),
+                   is("no placeholder"));
+        assertThat(new ParameterizedLogContext(FQCN, null, LogLevel.INFO, "{}", (Object[]) null).getMessage(),
+                   is("{}"));
+    }
+
+    /**
+     * 出力対象のログのみメッセージが生成されること。
+     */
+    @Test
+    public void testBasicLogger() {
+        OnMemoryLogWriter.clear();
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.lazy.formatter.format", "$logLevel$ $message$");
+        LogWriter writer = new OnMemoryLogWriter();
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), "writer.lazy"));
+
+        final AtomicInteger count = new AtomicInteger();
+        Supplier<String> supplier = new Supplier<String>() {
+            @Override
+            public String get() {
+                return "supplied" + count.incrementAndGet();
+            }
+        };
+        BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer});
+        try {
+            logger.logDebug(supplier);
+            logger.logInfo(supplier);
+            logger.logWarn(supplier, new IllegalStateException("error"));
+            logger.logDebugTemplate("debug {}", "a");
+            logger.logInfoTemplate("info {} {} {}", "a", "b", "c");
+            logger.logErrorTemplate("error {} {} {} {}", "a", "b", "c", "d");
+        } finally {
+            writer.terminate();
+        }
+
+        assertThat("出力対象外のログではSupplierが呼ばれない", count.get(), is(2));
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.lazy");
+        assertThat(messages.size(), is(5));
+        assertThat(messages.get(0), is("INFO supplied1" + Logger.LS));
+        assertThat(messages.get(1), is("WARN supplied2" + Logger.LS));
+        assertThat(messages.get(2), is("INFO info a b c" + Logger.LS));
+        assertThat(messages.get(3), is("ERROR error a b c d" + Logger.LS));
+        assertThat(messages.get(4), is("@@@END@@@"));
+    }
+}
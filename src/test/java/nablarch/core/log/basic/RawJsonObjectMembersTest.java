@@ -0,0 +1,47 @@
+package nablarch.core.log.basic;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link RawJsonObjectMembers}のテスト。
+ */
+public class RawJsonObjectMembersTest {
+
+    /**
+     * 範囲を指定した場合は、範囲内の文字列のみが組み立て済みのJSON構文として扱われること。
+     */
+    @Test
+    public void testRange() throws Exception {
+        String message = "$JSON${\"key1\":\"value1\",\"key2\":2}";
+        RawJsonObjectMembers members = new RawJsonObjectMembers(message, 7, message.length() - 1);
+
+        assertThat(members.getRawJsonText(), is("\"key1\":\"value1\",\"key2\":2"));
+        assertThat(members.isJsonWhitespace(), is(false));
+
+        StringBuilder sb = new StringBuilder("{");
+        members.appendTo(sb);
+        assertThat(sb.append('}').toString(), is("{\"key1\":\"value1\",\"key2\":2}"));
+
+        StringWriter writer = new StringWriter();
+        members.writeTo(writer);
+        assertThat(writer.toString(), is("\"key1\":\"value1\",\"key2\":2"));
+
+        String blank = "$JSON${ \t\r\n}";
+        assertThat(new RawJsonObjectMembers(blank, 7, blank.length() - 1).isJsonWhitespace(), is(true));
+    }
+
+    /**
+     * 範囲を指定しない場合は、文字列全体が組み立て済みのJSON構文として扱われること。
+     */
+    @Test
+    public void testWholeText() {
+        String text = "\"key\":\"value\"";
+        assertThat(new RawJsonObjectMembers(text).getRawJsonText(), is(text));
+        assertThat(new RawJsonObjectMembers(" \t").isJsonWhitespace(), is(true));
+    }
+}
@@ -0,0 +1,331 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link StackTraceRenderer}のテスト。
+ */
+public class StackTraceRendererTest {
+
+    private static final String LS = Logger.LS;
+
+    /**
+     * 省略の設定がない場合は、{@link Throwable#printStackTrace()}と同じ内容が出力されること。
+     */
+    @Test
+    public void testSameAsPrintStackTrace() {
+        IllegalStateException error = new IllegalStateException("top", new IllegalArgumentException("cause",
+                new NullPointerException("root")));
+        error.addSuppressed(new UnsupportedOperationException("suppressed"));
+        assertThat(render(StackTraceRenderer.DEFAULT, error), is(printStackTrace(error)));
+
+        RuntimeException noFrames = new RuntimeException("no frames");
+        noFrames.setStackTrace(new StackTraceElement[0]);
+        assertThat(render(StackTraceRenderer.DEFAULT, noFrames), is(printStackTrace(noFrames)));
+    }
+
+    /**
+     * 循環参照した原因例外が、{@link Throwable#printStackTrace()}と同じ内容で出力されること。
+     */
+    @Test
+    public void testCircularReference() {
+        CircularException first = new CircularException("first");
+        CircularException second = new CircularException("second");
+        first.initCause(second);
+        second.initCause(first);
+        assertThat(render(StackTraceRenderer.DEFAULT, first), is(printStackTrace(first)));
+    }
+
+    /**
+     * {@link Throwable#printStackTrace(PrintWriter)}をオーバーライドした例外は、その出力がそのまま使用されること。
+     */
+    @Test
+    public void testPrintStackTraceOverridden() {
+        CustomPrintException error = new CustomPrintException();
+        error.setStackTrace(frames("a.A", "b.B", "c.C"));
+
+        StackTraceRenderer renderer = new StackTraceRenderer(1, 0, new String[] {"a"});
+        assertThat(render(renderer, error), is("custom line 1" + LS + "\tcustom line 2" + LS));
+        assertThat(renderer.toLines(error), is(Arrays.asList("custom line 1", "custom line 2")));
+    }
+
+    /**
+     * フレーム数の上限を超えたフレームが省略されること。
+     */
+    @Test
+    public void testMaxFrames() {
+        RuntimeException error = new RuntimeException("max frames");
+        error.setStackTrace(frames("a.A", "b.B", "c.C", "d.D", "e.E"));
+
+        StackTraceRenderer renderer = new StackTraceRenderer(2, Integer.MAX_VALUE, new String[0]);
+        assertThat(render(renderer, error), is(
+                "java.lang.RuntimeException: max frames" + LS
+                + "\tat a.A.m(A.java:1)" + LS
+                + "\tat b.B.m(B.java:1)" + LS
+                + "\t... 3 frames omitted" + LS));
+    }
+
+    /**
+     * 指定したパッケージの連続するフレームがまとめて出力されること。
+     */
+    @Test
+    public void testCollapsePackages() {
+        RuntimeException error = new RuntimeException("collapse");
+        error.setStackTrace(frames("app.Action", "org.container.Filter", "org.container.sub.Chain",
+                                   "java.lang.reflect.Method", "app.Main", "org.containerx.Other"));
+
+        StackTraceRenderer renderer = new StackTraceRenderer(
+                Integer.MAX_VALUE, Integer.MAX_VALUE, new String[] {" org.container", "java.lang.reflect.", ""});
+        assertThat(render(renderer, error), is(
+                "java.lang.RuntimeException: collapse" + LS
+                + "\tat app.Action.m(Action.java:1)" + LS
+                + "\t... 3 framework frames" + LS
+                + "\tat app.Main.m(Main.java:1)" + LS
+                + "\tat org.containerx.Other.m(Other.java:1)" + LS));
+
+        renderer = new StackTraceRenderer(2, Integer.MAX_VALUE, new String[] {"org.container"});
+        assertThat("まとめたフレームは1フレームとして数える", render(renderer, error), is(
+                "java.lang.RuntimeException: collapse" + LS
+                + "\tat app.Action.m(Action.java:1)" + LS
+                + "\t... 2 framework frames" + LS
+                + "\t... 3 frames omitted" + LS));
+    }
+
+    /**
+     * 深さの上限を超えた原因例外は、文字列表現の行のみが出力されること。
+     */
+    @Test
+    public void testMaxCauseDepth() {
+        NullPointerException root = new NullPointerException("root");
+        root.setStackTrace(frames("r.R", "main.Main"));
+        IllegalArgumentException cause = new IllegalArgumentException("cause", root);
+        cause.setStackTrace(frames("c.C", "main.Main"));
+        IllegalStateException error = new IllegalStateException("top", cause);
+        error.setStackTrace(frames("t.T", "main.Main"));
+
+        StackTraceRenderer renderer = new StackTraceRenderer(Integer.MAX_VALUE, 1, new String[0]);
+        assertThat(render(renderer, error), is(
+                "java.lang.IllegalStateException: top" + LS
+                + "\tat t.T.m(T.java:1)" + LS
+                + "\tat main.Main.m(Main.java:1)" + LS
+                + "Caused by: java.lang.IllegalArgumentException: cause" + LS
+                + "\tat c.C.m(C.java:1)" + LS
+                + "\t... 1 more" + LS
+                + "Caused by: java.lang.NullPointerException: root" + LS));
+
+        renderer = new StackTraceRenderer(Integer.MAX_VALUE, 0, new String[0]);
+        assertThat(render(renderer, error), is(
+                "java.lang.IllegalStateException: top" + LS
+                + "\tat t.T.m(T.java:1)" + LS
+                + "\tat main.Main.m(Main.java:1)" + LS
+                + "Caused by: java.lang.IllegalArgumentException: cause" + LS));
+    }
+
+    /**
+     * 行毎に取得した場合は、行頭のタブ文字と改行を含まないこと。
+     */
+    @Test
+    public void testToLines() {
+        RuntimeException cause = new RuntimeException("cause");
+        cause.setStackTrace(frames("c.C", "main.Main"));
+        IllegalStateException error = new IllegalStateException("top", cause);
+        error.setStackTrace(frames("t.T", "main.Main"));
+        IllegalArgumentException suppressed = new IllegalArgumentException("suppressed");
+        suppressed.setStackTrace(frames("s.S", "main.Main"));
+        error.addSuppressed(suppressed);
+
+        List<String> lines = StackTraceRenderer.DEFAULT.toLines(error);
+        assertThat(lines, is(Arrays.asList(
+                "java.lang.IllegalStateException: top",
+                "at t.T.m(T.java:1)",
+                "at main.Main.m(Main.java:1)",
+                "Suppressed: java.lang.IllegalArgumentException: suppressed",
+                "at s.S.m(S.java:1)",
+                "... 1 more",
+                "Caused by: java.lang.RuntimeException: cause",
+                "at c.C.m(C.java:1)",
+                "... 1 more")));
+    }
+
+    /**
+     * 時間幅内に同じフィンガープリントのスタックトレースを出力済みの場合は、要約のみが出力されること。
+     */
+    @Test
+    public void testDedup() {
+        StackTraceRenderer renderer = new StackTraceRenderer(Integer.MAX_VALUE, Integer.MAX_VALUE, new String[0], 10, 16);
+        RuntimeException error = new IllegalStateException("first", new IllegalArgumentException("cause"));
+        error.setStackTrace(frames("a.A", "b.B"));
+        error.getCause().setStackTrace(frames("c.C", "b.B"));
+        String id = String.format("%016x", StackTraceRenderer.fingerprint(error));
+
+        StringBuilder sb = new StringBuilder();
+        renderer.appendTo(error, sb, 0);
+        assertThat(sb.toString(), is(
+                "stackTraceId=" + id + LS
+                + "java.lang.IllegalStateException: first" + LS
+                + "\tat a.A.m(A.java:1)" + LS
+                + "\tat b.B.m(B.java:1)" + LS
+                + "Caused by: java.lang.IllegalArgumentException: cause" + LS
+                + "\tat c.C.m(C.java:1)" + LS
+                + "\t... 1 more" + LS));
+
+        RuntimeException repeated = new IllegalStateException("second", new IllegalArgumentException("other cause"));
+        repeated.setStackTrace(frames("a.A", "b.B"));
+        repeated.getCause().setStackTrace(frames("c.C", "b.B"));
+        sb.setLength(0);
+        renderer.appendTo(repeated, sb, TimeUnit.SECONDS.toNanos(9));
+        assertThat("メッセージのみが異なる場合は要約のみ出力する", sb.toString(), is(
+                "stackTraceId=" + id + " (repeated)" + LS
+                + "java.lang.IllegalStateException: second" + LS
+                + "\tat a.A.m(A.java:1)" + LS
+                + "\t... stack trace omitted" + LS));
+
+        sb.setLength(0);
+        renderer.appendTo(repeated, sb, TimeUnit.SECONDS.toNanos(10));
+        assertThat("時間幅を過ぎた場合は全て出力する", sb.toString(), is(
+                "stackTraceId=" + id + LS
+                + "java.lang.IllegalStateException: second" + LS
+                + "\tat a.A.m(A.java:1)" + LS
+                + "\tat b.B.m(B.java:1)" + LS
+                + "Caused by: java.lang.IllegalArgumentException: other cause" + LS
+                + "\tat c.C.m(C.java:1)" + LS
+                + "\t... 1 more" + LS));
+
+        RuntimeException otherCause = new IllegalStateException("first", new NullPointerException("cause"));
+        otherCause.setStackTrace(frames("a.A", "b.B"));
+        otherCause.getCause().setStackTrace(frames("c.C", "b.B"));
+        assertThat("原因例外の型が異なる場合は異なるフィンガープリントとなる",
+                   StackTraceRenderer.fingerprint(otherCause) == StackTraceRenderer.fingerprint(error), is(false));
+        RuntimeException otherLine = new IllegalStateException("first", new IllegalArgumentException("cause"));
+        otherLine.setStackTrace(new StackTraceElement[] {new StackTraceElement("a.A", "m", "A.java", 2)});
+        assertThat("フレームが異なる場合は異なるフィンガープリントとなる",
+                   StackTraceRenderer.fingerprint(otherLine) == StackTraceRenderer.fingerprint(error), is(false));
+    }
+
+    /**
+     * 行毎に取得した場合も、要約のみが出力されること。
+     */
+    @Test
+    public void testDedupToLines() {
+        StackTraceRenderer renderer = new StackTraceRenderer(Integer.MAX_VALUE, Integer.MAX_VALUE, new String[0], 60, 16);
+        RuntimeException error = new RuntimeException("lines");
+        error.setStackTrace(frames("a.A", "b.B"));
+        String id = String.format("%016x", StackTraceRenderer.fingerprint(error));
+
+        assertThat(renderer.toLines(error), is(Arrays.asList(
+                "stackTraceId=" + id, "java.lang.RuntimeException: lines", "at a.A.m(A.java:1)", "at b.B.m(B.java:1)")));
+        assertThat(renderer.toLines(error), is(Arrays.asList(
+                "stackTraceId=" + id + " (repeated)", "java.lang.RuntimeException: lines", "at a.A.m(A.java:1)",
+                "... stack trace omitted")));
+    }
+
+    /**
+     * 設定から生成できること。
+     */
+    @Test
+    public void testCreate() {
+        assertThat(StackTraceRenderer.create(createSettings(new HashMap<String, String>())),
+                   sameInstance(StackTraceRenderer.DEFAULT));
+
+        Map<String, String> props = new HashMap<String, String>();
+        props.put("writer.test.formatter.stackTrace.maxFrames", " 1 ");
+        RuntimeException error = new RuntimeException("create");
+        error.setStackTrace(frames("a.A", "b.B"));
+        assertThat(render(StackTraceRenderer.create(createSettings(props)), error), is(
+                "java.lang.RuntimeException: create" + LS
+                + "\tat a.A.m(A.java:1)" + LS
+                + "\t... 1 frames omitted" + LS));
+
+        props.put("writer.test.formatter.stackTrace.dedupWindow", "60");
+        StackTraceRenderer renderer = StackTraceRenderer.create(createSettings(props));
+        render(renderer, error);
+        assertThat(render(renderer, error), is(
+                "stackTraceId=" + String.format("%016x", StackTraceRenderer.fingerprint(error)) + " (repeated)" + LS
+                + "java.lang.RuntimeException: create" + LS
+                + "\tat a.A.m(A.java:1)" + LS
+                + "\t... stack trace omitted" + LS));
+        props.remove("writer.test.formatter.stackTrace.dedupWindow");
+
+        props.put("writer.test.formatter.stackTrace.maxFrames", "many");
+        try {
+            StackTraceRenderer.create(createSettings(props));
+            fail("数値に変換できない場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("invalid property was specified. 'stackTrace.maxFrames'"
+                    + " must be able to convert to Integer. value = [many], name = [writer.test.formatter]"));
+        }
+
+        props.put("writer.test.formatter.stackTrace.maxFrames", "0");
+        try {
+            StackTraceRenderer.create(createSettings(props));
+            fail("フレーム数の上限が0の場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("maxFrames must be greater than 0. maxFrames = [0]"));
+        }
+
+        props.remove("writer.test.formatter.stackTrace.maxFrames");
+        props.put("writer.test.formatter.stackTrace.maxCauseDepth", "-1");
+        try {
+            StackTraceRenderer.create(createSettings(props));
+            fail("原因例外の深さの上限が負数の場合は例外が発生すること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("maxCauseDepth must not be negative. maxCauseDepth = [-1]"));
+        }
+    }
+
+    private static ObjectSettings createSettings(Map<String, String> props) {
+        return new ObjectSettings(new MockLogSettings(props), "writer.test.formatter");
+    }
+
+    private static StackTraceElement[] frames(String... classNames) {
+        StackTraceElement[] frames = new StackTraceElement[classNames.length];
+        for (int i = 0; i < classNames.length; i++) {
+            String simpleName = classNames[i].substring(classNames[i].lastIndexOf('.') + 1);
+            frames[i] = new StackTraceElement(classNames[i], "m", simpleName + ".java", 1);
+        }
+        return frames;
+    }
+
+    private static String render(StackTraceRenderer renderer, Throwable error) {
+        StringBuilder sb = new StringBuilder();
+        renderer.appendTo(error, sb);
+        return sb.toString();
+    }
+
+    private static String printStackTrace(Throwable error) {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        error.printStackTrace(pw);
+        pw.flush();
+        return sw.toString();
+    }
+
+    private static class CustomPrintException extends RuntimeException {
+        @Override
+        public void printStackTrace(PrintWriter s) {
+            s.println("custom line 1");
+            s.println("\tcustom line 2");
+        }
+    }
+
+    private static class CircularException extends Exception {
+        CircularException(String message) {
+            super(message);
+        }
+    }
+}
@@ -5,12 +5,15 @@ import nablarch.core.log.LogTestUtil;
 import nablarch.core.log.MockLogSettings;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 public class StandardOutputLogWriterTest extends LogTestSupport {
@@ -45,4 +48,53 @@ public class StandardOutputLogWriterTest extends LogTestSupport {
         
         assertTrue(debugLog.indexOf("[[[515]]]") == -1);
     }
+
+    /**
+     * 指定がない場合は、標準出力の文字エンコーディングで書き込むこと。
+     */
+    @Test
+    public void testStandardOutputEncoding() throws Exception {
+
+        PrintStream original = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true, "MS932"));
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("stdout.formatter.format", "$message$");
+        StandardOutputLogWriter writer = new StandardOutputLogWriter();
+        try {
+            writer.initialize(new ObjectSettings(new MockLogSettings(settings), "stdout"));
+            writer.write(new LogContext(FQCN, LogLevel.INFO, "\u3042", null));
+        } finally {
+            writer.terminate();
+            System.setOut(original);
+        }
+
+        assertThat(out.toString("MS932"), is("\u3042" + System.getProperty("line.separator")));
+    }
+
+    /**
+     * directUtf8Outputにtrueを指定した場合は、UTF-8で文字エンコーディングしたバイト列を書き込むこと。
+     */
+    @Test
+    public void testDirectUtf8Output() throws Exception {
+
+        PrintStream original = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true, "MS932"));
+
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("stdout.directUtf8Output", "true");
+        settings.put("stdout.formatter.format", "$message$");
+        StandardOutputLogWriter writer = new StandardOutputLogWriter();
+        try {
+            writer.initialize(new ObjectSettings(new MockLogSettings(settings), "stdout"));
+            writer.write(new LogContext(FQCN, LogLevel.INFO, "\u3042", null));
+        } finally {
+            writer.terminate();
+            System.setOut(original);
+        }
+
+        assertThat(out.toString("UTF-8"), is("\u3042" + System.getProperty("line.separator")));
+    }
 }
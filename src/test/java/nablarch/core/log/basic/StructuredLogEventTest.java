@@ -0,0 +1,261 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import nablarch.core.log.app.OnMemoryLogWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link StructuredLogEvent}のテスト。
+ */
+public class StructuredLogEventTest {
+
+    private static final String FQCN = StructuredLogEventTest.class.getName();
+
+    @Before
+    public void setUp() {
+        OnMemoryLogWriter.clear();
+    }
+
+    @After
+    public void tearDown() {
+        OnMemoryLogWriter.clear();
+    }
+
+    /**
+     * 基本データ型の項目がJSONのメンバーとして出力され、同じ項目名は最後に追加した値が出力されること。
+     */
+    @Test
+    public void testJson() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.json.formatter.className", JsonLogFormatter.class.getName());
+        settings.put("writer.json.formatter.targets", "logLevel,message,payload");
+        LogWriter writer = createWriter(settings, "writer.json");
+        BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer});
+        try {
+            logger.atInfo()
+                  .with("rows", 10L)
+                  .with("ms", 1.5)
+                  .with("retry", false)
+                  .with("user", "taro")
+                  .with("logLevel", "duplicated")
+                  .with("rows", 20)
+                  .log("completed.");
+        } finally {
+            writer.terminate();
+        }
+
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.json");
+        assertThat(messages.get(0), is("{\"logLevel\":\"INFO\",\"message\":\"completed.\","
+                + "\"ms\":1.5,\"retry\":false,\"user\":\"taro\",\"rows\":20}" + Logger.LS));
+    }
+
+    /**
+     * {@link LogfmtLogFormatter}では、項目がキーと値の組として出力され、同じ項目名は最後に追加した値が出力されること。
+     */
+    @Test
+    public void testLogfmt() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.logfmt.formatter.className", LogfmtLogFormatter.class.getName());
+        settings.put("writer.logfmt.formatter.targets", "logLevel,message,payload");
+        LogWriter writer = createWriter(settings, "writer.logfmt");
+        BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer});
+        try {
+            logger.atInfo()
+                  .with("rows", 10L)
+                  .with("ms", 1.5)
+                  .with("retry", false)
+                  .with("user", "taro yamada")
+                  .with("logLevel", "duplicated")
+                  .with("rows", 20)
+                  .log("completed.");
+        } finally {
+            writer.terminate();
+        }
+
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.logfmt");
+        assertThat(messages.get(0), is("logLevel=INFO message=completed. ms=1.5 retry=false user=\"taro yamada\" rows=20"
+                + Logger.LS));
+    }
+
+    /**
+     * JSON以外のフォーマッタでは、項目の文字列表現がオプション情報として出力されること。
+     */
+    @Test
+    public void testBasicLogFormatter() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.basic.formatter.format", "$logLevel$ $message$$information$");
+        LogWriter writer = createWriter(settings, "writer.basic");
+        BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer});
+        try {
+            logger.atWarn().with("rows", 1).with("ms", 2.5).log("slow.");
+            logger.atInfo().log("no fields.");
+        } finally {
+            writer.terminate();
+        }
+
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.basic");
+        assertThat(messages.get(0), is("WARN slow." + Logger.LS
+                + "Object Information[0]: Class Name = [" + StructuredLogEvent.class.getName() + "]" + Logger.LS
+                + "\ttoString() = [{rows=1, ms=2.5}]" + Logger.LS));
+        assertThat(messages.get(1), is("INFO no fields." + Logger.LS));
+    }
+
+    /**
+     * 出力対象外のレベルの場合は、項目が保持されずログも出力されないこと。
+     */
+    @Test
+    public void testDisabled() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.disabled.formatter.format", "$message$");
+        LogWriter writer = createWriter(settings, "writer.disabled");
+        BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer});
+        try {
+            StructuredLogEvent event = logger.atDebug();
+            assertThat(event, is(sameInstance(StructuredLogEvent.DISABLED)));
+            event.with("rows", 1).log("debug.");
+            assertThat(StructuredLogEvent.DISABLED.toString(), is("{}"));
+        } finally {
+            writer.terminate();
+        }
+
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.disabled");
+        assertThat(messages.size(), is(1));
+        assertThat(messages.get(0), is("@@@END@@@"));
+    }
+
+    /**
+     * スレッド毎にインスタンスが再利用され、使用中の場合は新たなインスタンスが返されること。<br>
+     * 新たなインスタンスは、以降の再利用の対象となること。
+     */
+    @Test
+    public void testReuse() {
+        BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[0]);
+
+        StructuredLogEvent first = logger.atInfo().with("key", "value");
+        StructuredLogEvent nested = logger.atInfo();
+        assertThat(nested, is(not(sameInstance(first))));
+        nested.log("nested.");
+        first.log("first.");
+
+        StructuredLogEvent second = logger.atInfo();
+        assertThat(second, is(sameInstance(nested)));
+        assertThat("前回の項目がクリアされている", second.toString(), is("{}"));
+        second.log("second.");
+    }
+
+    /**
+     * {@code log}メソッドを呼び出さずに破棄されたインスタンスは再利用の対象から外れ、以降のログ出力でインスタンスが再利用されること。
+     */
+    @Test
+    public void testAbandoned() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("writer.abandoned.formatter.format", "$message$");
+        LogWriter writer = createWriter(settings, "writer.abandoned");
+        BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {writer});
+        try {
+            StructuredLogEvent abandoned = logger.atInfo().with("rows", 1L);
+            try {
+                abandoned.with("value", failToEvaluate()).log("abandoned.");
+            } catch (IllegalStateException e) {
+                assertThat(e.getMessage(), is("failed to evaluate."));
+            }
+
+            StructuredLogEvent first = logger.atInfo();
+            assertThat(first, is(not(sameInstance(abandoned))));
+            first.with("id", 2L).log("first.");
+
+            StructuredLogEvent second = logger.atInfo();
+            assertThat("破棄されたインスタンスの代わりに再利用される", second, is(sameInstance(first)));
+            assertThat("前回の項目がクリアされている", second.toString(), is("{}"));
+            second.log("second.");
+        } finally {
+            writer.terminate();
+        }
+
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.abandoned");
+        assertThat(messages.size(), is(3));
+        assertThat(messages.get(0), is("first." + Logger.LS));
+        assertThat(messages.get(1), is("second." + Logger.LS));
+        assertThat(messages.get(2), is("@@@END@@@"));
+    }
+
+    private static Object failToEvaluate() {
+        throw new IllegalStateException("failed to evaluate.");
+    }
+
+    /**
+     * 書き込み後も保持するためのコピーでは、項目がMapに置き換えられること。
+     */
+    @Test
+    public void testSnapshot() {
+        BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[0]);
+        StructuredLogEvent event = logger.atInfo().with("rows", 1L).with("ok", true);
+
+        Map<String, Object> payload = new LinkedHashMap<String, Object>();
+        LogContext context = new LogContext(FQCN, LogLevel.INFO, "msg", null, payload, event);
+        LogContext copied = ReusableLogContext.copy(context);
+        assertThat(copied, is(not(sameInstance(context))));
+        assertThat(copied.getOptions()[0], is(sameInstance((Object) payload)));
+        assertThat(copied.getOptions()[1], is(instanceOf(Map.class)));
+        assertThat(copied.getOptions()[1].toString(), is("{rows=1, ok=true}"));
+        event.log("msg");
+
+        LogContext plain = new LogContext(FQCN, LogLevel.INFO, "msg", null, payload);
+        assertThat(ReusableLogContext.copy(plain), is(sameInstance(plain)));
+    }
+
+    /**
+     * {@link LogPublisher}のリスナーが保持した{@link LogContext}は、以降のログ出力で書き換えられないこと。
+     */
+    @Test
+    public void testRetainedByListener() {
+        final List<LogContext> retained = new ArrayList<LogContext>();
+        LogListener listener = new LogListener() {
+            @Override
+            public void onWritten(LogContext context) {
+                retained.add(context);
+            }
+        };
+        LogPublisher.addListener(listener);
+        try {
+            BasicLogger logger = new BasicLogger(FQCN, LogLevel.INFO, new LogWriter[] {new LogPublisher()}, true);
+            logger.atInfo().with("rows", 1L).with("user", "taro").log("first.");
+            logger.atInfo().with("rows", 2L).log("second.");
+            logger.logInfo("third.");
+        } finally {
+            LogPublisher.removeListener(listener);
+        }
+
+        assertThat(retained.size(), is(3));
+        LogContext first = retained.get(0);
+        assertThat(first.getMessage(), is("first."));
+        assertThat(first.getLevel(), is(LogLevel.INFO));
+        assertThat(first.getOptions()[0], is(instanceOf(Map.class)));
+        assertThat(first.getOptions()[0].toString(), is("{rows=1, user=taro}"));
+        assertThat(retained.get(1).getMessage(), is("second."));
+        assertThat(retained.get(1).getOptions()[0].toString(), is("{rows=2}"));
+        assertThat(retained.get(2).getMessage(), is("third."));
+        assertThat(first, is(not(sameInstance(retained.get(1)))));
+    }
+
+    private static LogWriter createWriter(Map<String, String> settings, String name) {
+        LogWriter writer = new OnMemoryLogWriter();
+        writer.initialize(new ObjectSettings(new MockLogSettings(settings), name));
+        return writer;
+    }
+}
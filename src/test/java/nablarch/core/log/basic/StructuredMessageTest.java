@@ -0,0 +1,133 @@
+package nablarch.core.log.basic;
+
+import nablarch.core.log.LogTestSupport;
+import nablarch.core.log.Logger;
+import nablarch.core.log.MockLogSettings;
+import nablarch.core.text.json.BasicJsonSerializationManager;
+import nablarch.core.text.json.JsonSerializationSettings;
+import nablarch.core.text.json.JsonSerializer;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * {@link StructuredMessage}のテスト。
+ */
+public class StructuredMessageTest extends LogTestSupport {
+
+    /**
+     * {@link JsonLogFormatter}は、文字列を生成せずにオブジェクトを直接シリアライズして、メンバーとして出力すること。
+     * 文字列としてフォーマットする場合は接頭辞とシリアライズ結果を連結した文字列を出力し、シリアライズは1回のみ行うこと。
+     */
+    @Test
+    public void testFormat() {
+        Map<String, Object> object = new LinkedHashMap<String, Object>();
+        object.put("point", "sample");
+        object.put("executionTime", 10);
+        CountingSerializationManager manager = new CountingSerializationManager(object);
+        StructuredMessage message = new StructuredMessage("$JSON$", object, manager);
+        LogContext context = new StructuredMessageLogContext("TestLogger", null, LogLevel.INFO, message, null);
+
+        JsonLogFormatter jsonFormatter = createJsonFormatter();
+        assertThat(jsonFormatter.format(context),
+                   is("{\"logLevel\":\"INFO\",\"point\":\"sample\",\"executionTime\":10}" + Logger.LS));
+        assertThat(manager.count, is(1));
+
+        assertThat(createBasicFormatter().format(context),
+                   is("INFO $JSON${\"point\":\"sample\",\"executionTime\":10}" + Logger.LS));
+        assertThat(manager.count, is(2));
+
+        assertThat(jsonFormatter.format(context),
+                   is("{\"logLevel\":\"INFO\",\"point\":\"sample\",\"executionTime\":10}" + Logger.LS));
+        assertThat(manager.count, is(2));
+    }
+
+    /**
+     * メンバーを持たないオブジェクトの場合は、メンバーを出力しないこと。
+     */
+    @Test
+    public void testFormatEmptyObject() {
+        Map<String, Object> object = new HashMap<String, Object>();
+        StructuredMessage message = new StructuredMessage("$JSON$", object, new CountingSerializationManager(object));
+
+        assertThat(createJsonFormatter().format(
+                           new StructuredMessageLogContext("TestLogger", null, LogLevel.INFO, message, null)),
+                   is("{\"logLevel\":\"INFO\"}" + Logger.LS));
+    }
+
+    /**
+     * {@link BasicLogger#logStructured}で出力した場合に、メッセージが文字列として書き込まれること。
+     */
+    @Test
+    public void testLogStructured() {
+        Map<String, Object> object = new LinkedHashMap<String, Object>();
+        object.put("commitCount", 5);
+        StructuredMessage message = new StructuredMessage("$JSON$", object, new CountingSerializationManager(object));
+        final StringBuilder written = new StringBuilder();
+        LogWriter writer = new LogWriter() {
+            @Override
+            public void initialize(ObjectSettings settings) {
+            }
+
+            @Override
+            public void terminate() {
+            }
+
+            @Override
+            public void write(LogContext context) {
+                written.append(context.getLevel()).append(' ').append(context.getMessage());
+            }
+        };
+        BasicLogger logger = new BasicLogger("TestLogger", LogLevel.INFO, new LogWriter[] {writer});
+
+        logger.logStructured(LogLevel.DEBUG, message, null);
+        assertThat(written.toString(), is(""));
+
+        logger.logStructured(LogLevel.INFO, message, null);
+        assertThat(written.toString(), is("INFO $JSON${\"commitCount\":5}"));
+    }
+
+    private static JsonLogFormatter createJsonFormatter() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.targets", "logLevel,message");
+        JsonLogFormatter formatter = new JsonLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+        return formatter;
+    }
+
+    private static BasicLogFormatter createBasicFormatter() {
+        Map<String, String> settings = new HashMap<String, String>();
+        settings.put("formatter.format", "$logLevel$ $message$");
+        BasicLogFormatter formatter = new BasicLogFormatter();
+        formatter.initialize(new ObjectSettings(new MockLogSettings(settings), "formatter"));
+        return formatter;
+    }
+
+    /**
+     * 構造化対象のオブジェクトのシリアライザを取得した回数を数える{@link BasicJsonSerializationManager}。
+     */
+    private static class CountingSerializationManager extends BasicJsonSerializationManager {
+
+        private final Object target;
+
+        private int count;
+
+        CountingSerializationManager(Object target) {
+            this.target = target;
+            initialize(new JsonSerializationSettings());
+        }
+
+        @Override
+        public JsonSerializer getSerializer(Object value) {
+            if (value == target) {
+                count++;
+            }
+            return super.getSerializer(value);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package nablarch.core.log.basic;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link TimestampRenderer}のテスト。
+ */
+public class TimestampRendererTest {
+
+    /**
+     * {@link SimpleDateFormat}と同じ結果となること。
+     */
+    @Test
+    public void testFormat() {
+        String[] patterns = {
+            "yyyy-MM-dd HH:mm:ss.SSS",
+            "yyyy/MM/dd HH:mm:ss",
+            "yyyyMMddHHmmssSSS",
+            "yy-M-d H:m:s",
+            "'['yyyy-MM-dd'T'HH:mm:ss.SSSZ']'",
+            "SSS",
+            "''yyyy''",
+        };
+        long[] times = {0L, 999L, 1000L, 1234567890123L, 1514732400000L, 1514732400001L, 1514732400999L, -1L};
+        for (String pattern : patterns) {
+            SimpleDateFormat expected = new SimpleDateFormat(pattern);
+            TimestampRenderer renderer = TimestampRenderer.of(expected);
+            assertThat(pattern, renderer, notNullValue());
+            for (long time : times) {
+                assertThat(pattern + " " + time, renderer.format(time), is(expected.format(new Date(time))));
+                assertThat(pattern + " " + time, renderer.appendTo(time, new StringBuilder("#")).toString(),
+                           is("#" + expected.format(new Date(time))));
+            }
+        }
+    }
+
+    /**
+     * タイムゾーンが反映されること。
+     */
+    @Test
+    public void testTimeZone() {
+        SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS Z");
+        expected.setTimeZone(TimeZone.getTimeZone("America/New_York"));
+        TimestampRenderer renderer = TimestampRenderer.of(expected);
+        assertThat(renderer.format(1234567890123L), is(expected.format(new Date(1234567890123L))));
+
+        renderer = TimestampRenderer.of("yyyy-MM-dd HH:mm:ss.SSS Z", TimeZone.getTimeZone("America/New_York"));
+        assertThat(renderer.format(1234567890123L), is(expected.format(new Date(1234567890123L))));
+    }
+
+    /**
+     * 結果が異なる可能性のある日時パターンはサポートしないこと。
+     */
+    @Test
+    public void testUnsupportedPattern() {
+        assertThat("ミリ秒が3桁でない", TimestampRenderer.of(new SimpleDateFormat("HH:mm:ss.S")), nullValue());
+        assertThat("ミリ秒が複数", TimestampRenderer.of(new SimpleDateFormat("SSS.SSS")), nullValue());
+        assertThat("uの意味が異なる", TimestampRenderer.of(new SimpleDateFormat("yyyy-MM-dd u")), nullValue());
+        assertThat("DateTimeFormatterで桁数が許容されない", TimestampRenderer.of(new SimpleDateFormat("HHH")), nullValue());
+        assertThat("DateTimeFormatterの予約文字", TimestampRenderer.of(new SimpleDateFormat("[yyyy]")), nullValue());
+        assertThat("SimpleDateFormatで不正", TimestampRenderer.of("yyyy-MM-dd q", TimeZone.getDefault()), nullValue());
+    }
+
+    /**
+     * ロケールや暦に依存する場合はサポートしないこと。
+     */
+    @Test
+    public void testLocaleDependent() {
+        assertThat("曜日", TimestampRenderer.of(new SimpleDateFormat("yyyy-MM-dd E", Locale.JAPANESE)), nullValue());
+        assertThat("午前/午後", TimestampRenderer.of(new SimpleDateFormat("hh:mm a", Locale.US)), nullValue());
+        assertThat("月の名称", TimestampRenderer.of(new SimpleDateFormat("dd MMM yyyy", Locale.FRENCH)), nullValue());
+        assertThat("タイムゾーン名", TimestampRenderer.of(new SimpleDateFormat("HH:mm z", Locale.US)), nullValue());
+        assertThat("紀元", TimestampRenderer.of(new SimpleDateFormat("G yyyy", Locale.US)), nullValue());
+        assertThat("和暦", TimestampRenderer.of(new SimpleDateFormat("yyyy-MM-dd", new Locale("ja", "JP", "JP"))), nullValue());
+        assertThat("仏暦", TimestampRenderer.of(new SimpleDateFormat("yyyy-MM-dd", new Locale("th", "TH"))), nullValue());
+        assertThat("ASCII以外の数字", TimestampRenderer.of(new SimpleDateFormat("HH:mm:ss", Locale.forLanguageTag("en-US-u-nu-arab"))), nullValue());
+        assertThat("数値の月", TimestampRenderer.of(new SimpleDateFormat("yyyy-MM-dd", Locale.FRENCH)), notNullValue());
+    }
+
+    /**
+     * {@link BasicLogFormatter.DateItem}で使用されること。
+     */
+    @Test
+    public void testDateItem() {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        LogContext context = new LogContext("test", LogLevel.INFO, "message", null);
+        assertThat(new BasicLogFormatter.DateItem(format).get(context), is(format.format(context.getDate())));
+    }
+}
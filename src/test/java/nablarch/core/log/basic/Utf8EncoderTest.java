@@ -0,0 +1,56 @@
+package nablarch.core.log.basic;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link Utf8Encoder}\u306e\u30c6\u30b9\u30c8\u3002
+ */
+public class Utf8EncoderTest {
+
+    /**
+     * {@link String#getBytes(java.nio.charset.Charset)}\u3068\u540c\u3058\u30d0\u30a4\u30c8\u5217\u306b\u6587\u5b57\u30a8\u30f3\u30b3\u30fc\u30c7\u30a3\u30f3\u30b0\u3055\u308c\u308b\u3053\u3068\u3002
+     */
+    @Test
+    public void testEncode() {
+        assertEncoded("");
+        assertEncoded("ascii only message");
+        assertEncoded("\u00e9\u00ff\u0100\u07ff\u0800\u3042\uffff");
+        assertEncoded("emoji \ud83d\ude00 and \ud800\udc00");
+        assertEncoded("lone \ud800 high, lone \udc00 low, last \ud83d");
+        assertEncoded(new StringBuilder("builder \u3042\u3044\u3046"));
+    }
+
+    /**
+     * \u30d0\u30c3\u30d5\u30a1\u306e\u5bb9\u91cf\u304c\u4e0d\u8db3\u3059\u308b\u5834\u5408\u306f\u3001\u62e1\u5f35\u3057\u305f\u30d0\u30c3\u30d5\u30a1\u306b\u66f8\u304d\u8fbc\u307e\u308c\u308b\u3053\u3068\u3002
+     */
+    @Test
+    public void testExpand() {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            message.append("ab\u3042");
+        }
+        ByteBuffer encoded = Utf8Encoder.encode(message, buffer);
+        assertThat(encoded, is(not(sameInstance(buffer))));
+        assertArrayEquals(message.toString().getBytes(StandardCharsets.UTF_8), Arrays.copyOf(encoded.array(), encoded.position()));
+
+        ByteBuffer reused = Utf8Encoder.encode("abc", encoded);
+        assertThat(reused, is(sameInstance(encoded)));
+        assertThat(reused.position(), is(3));
+    }
+
+    private static void assertEncoded(CharSequence message) {
+        ByteBuffer encoded = Utf8Encoder.encode(message, ByteBuffer.allocate(4));
+        assertArrayEquals(message.toString().getBytes(StandardCharsets.UTF_8), Arrays.copyOf(encoded.array(), encoded.position()));
+    }
+}